@@ -0,0 +1,128 @@
+package org.broadinstitute.hellbender.tools.walkers.annotator;
+
+import htsjdk.samtools.TextCigarCodec;
+import htsjdk.variant.variantcontext.*;
+import org.broadinstitute.hellbender.engine.FeatureContext;
+import org.broadinstitute.hellbender.tools.walkers.annotator.allelespecific.AS_StandardAnnotation;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedAlleleList;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
+import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
+import org.broadinstitute.hellbender.utils.genotyper.ReadLikelihoods;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the cost of annotating one variant site with the standard, HaplotypeCaller and allele-specific
+ * annotations, from the likelihoods of the reads of every sample. Each operation is one site, so the scores are in
+ * us/site.
+ *
+ * {@link #annotateContext()} goes through {@link VariantAnnotatorEngine}, which shares a {@link SiteReadEvidence}
+ * between the annotations, and {@link #annotateIndependently()} calls every annotation on its own, as the engine used
+ * to, so that the two can be compared.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class VariantAnnotatorEngineBenchmark {
+    private static final int READ_LENGTH = 151;
+    private static final int SITE = 1_000;
+
+    private static final Allele REF = Allele.create("A", true);
+    private static final Allele ALT = Allele.create("C", false);
+
+    @Param({"1", "10"})
+    public int numSamples;
+
+    @Param({"30", "300"})
+    public int readsPerSample;
+
+    private VariantAnnotatorEngine engine;
+    private VariantContext vc;
+    private ReadLikelihoods<Allele> likelihoods;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42L);
+        final List<String> samples = new ArrayList<>(numSamples);
+        final Map<String, List<GATKRead>> readsBySample = new LinkedHashMap<>();
+        final GenotypesContext genotypes = GenotypesContext.create(numSamples);
+        for (int s = 0; s < numSamples; s++) {
+            final String sample = "sample" + s;
+            samples.add(sample);
+            final List<GATKRead> reads = new ArrayList<>(readsPerSample);
+            for (int r = 0; r < readsPerSample; r++) {
+                final GATKRead read = ArtificialReadUtils.createArtificialRead(TextCigarCodec.decode(random.nextInt(5) == 0 ? "10S141M" : "151M"), sample + "_read" + r);
+                // reads overlapping the site at any offset
+                read.setPosition(read.getContig(), SITE - random.nextInt(READ_LENGTH - 10));
+                final byte[] quals = new byte[READ_LENGTH];
+                for (int i = 0; i < quals.length; i++) {
+                    quals[i] = (byte) (10 + random.nextInt(30));
+                }
+                read.setBaseQualities(quals);
+                read.setMappingQuality(random.nextInt(10) == 0 ? random.nextInt(60) : 60);
+                read.setIsReverseStrand(random.nextBoolean());
+                read.setIsPaired(true);
+                if (random.nextBoolean()) {
+                    read.setIsFirstOfPair();
+                } else {
+                    read.setIsSecondOfPair();
+                }
+                reads.add(read);
+            }
+            readsBySample.put(sample, reads);
+            genotypes.add(new GenotypeBuilder(sample, Arrays.asList(REF, ALT)).PL(new int[]{30, 0, 200}).GQ(30).make());
+        }
+
+        likelihoods = new ReadLikelihoods<>(new IndexedSampleList(samples), new IndexedAlleleList<>(Arrays.asList(REF, ALT)), readsBySample);
+        for (int s = 0; s < numSamples; s++) {
+            final LikelihoodMatrix<Allele> matrix = likelihoods.sampleMatrix(s);
+            for (int r = 0; r < readsPerSample; r++) {
+                // half of the reads supporting each allele
+                final boolean supportsRef = random.nextBoolean();
+                matrix.set(0, r, supportsRef ? -1.0 : -10.0);
+                matrix.set(1, r, supportsRef ? -10.0 : -1.0);
+            }
+        }
+
+        vc = new VariantContextBuilder().chr(likelihoods.sampleReads(0).get(0).getContig()).start(SITE).stop(SITE).alleles(Arrays.asList(REF, ALT)).genotypes(genotypes).make();
+
+        final List<String> groups = Arrays.asList(StandardAnnotation.class.getSimpleName(), StandardHCAnnotation.class.getSimpleName(),
+                AS_StandardAnnotation.class.getSimpleName());
+        engine = VariantAnnotatorEngine.ofSelectedMinusExcluded(groups, Collections.emptyList(), Collections.emptyList(), null, Collections.emptyList());
+    }
+
+    @Benchmark
+    public VariantContext annotateContext() {
+        return engine.annotateContext(vc, new FeatureContext(), null, likelihoods, a -> true);
+    }
+
+    @Benchmark
+    public Map<String, Object> annotateIndependently() {
+        final Map<String, Object> attributes = new LinkedHashMap<>();
+        for (final Genotype genotype : vc.getGenotypes()) {
+            final GenotypeBuilder gb = new GenotypeBuilder(genotype);
+            for (final GenotypeAnnotation annotation : engine.getGenotypeAnnotations()) {
+                annotation.annotate(null, vc, genotype, gb, likelihoods);
+            }
+            attributes.put(genotype.getSampleName(), gb.make());
+        }
+        for (final InfoFieldAnnotation annotation : engine.getInfoAnnotations()) {
+            final Map<String, Object> values = annotation.annotate(null, vc, likelihoods);
+            if (values != null) {
+                attributes.putAll(values);
+            }
+        }
+        return attributes;
+    }
+}
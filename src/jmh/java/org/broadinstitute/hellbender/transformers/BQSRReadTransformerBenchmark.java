@@ -0,0 +1,83 @@
+package org.broadinstitute.hellbender.transformers;
+
+import htsjdk.samtools.SAMTag;
+import org.broadinstitute.hellbender.tools.ApplyBQSRArgumentCollection;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.recalibration.BaseRecalibrationEngine;
+import org.broadinstitute.hellbender.utils.recalibration.QuantizationInfo;
+import org.broadinstitute.hellbender.utils.recalibration.RecalUtils;
+import org.broadinstitute.hellbender.utils.recalibration.RecalibrationArgumentCollection;
+import org.broadinstitute.hellbender.utils.recalibration.RecalibrationReport;
+import org.broadinstitute.hellbender.utils.recalibration.RecalibrationTables;
+import org.broadinstitute.hellbender.utils.recalibration.SyntheticBQSRData;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link BQSRReadTransformer#apply}, the per-read work of ApplyBQSR, on synthetic reads recalibrated with
+ * tables collected from the same reads. Each operation is one read, so the scores are in ns/read and, with the gc
+ * profiler, bytes/read. The transformer modifies the reads, so their original qualities are restored before each
+ * one is recalibrated; this is included in the scores.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BQSRReadTransformerBenchmark {
+    private static final int NUM_READS = 1000;
+
+    @Param({"151"})
+    public int readLength;
+
+    @Param({"false", "true"})
+    public boolean emitOriginalQuals;
+
+    private SyntheticBQSRData data;
+    private BQSRReadTransformer transformer;
+
+    @Setup
+    public void setup() {
+        data = new SyntheticBQSRData(NUM_READS, readLength, 42L);
+
+        final RecalibrationArgumentCollection recalArgs = new RecalibrationArgumentCollection();
+        final BaseRecalibrationEngine engine = new BaseRecalibrationEngine(recalArgs, data.getHeader());
+        final List<GATKRead> reads = data.getReads();
+        for ( int i = 0; i < reads.size(); i++ ) {
+            engine.processRead(reads.get(i), data.getReference(), data.getKnownSites(i));
+        }
+        engine.finalizeData();
+        final RecalibrationTables tables = engine.getFinalRecalibrationTables();
+        final StandardCovariateList covariates = engine.getCovariates();
+        final QuantizationInfo quantizationInfo = new QuantizationInfo(tables, recalArgs.QUANTIZING_LEVELS);
+        final RecalibrationReport report = RecalUtils.createRecalibrationReport(recalArgs.generateReportTable(covariates.covariateNames()),
+                quantizationInfo.generateReportTable(), RecalUtils.generateReportTables(tables, covariates));
+
+        final ApplyBQSRArgumentCollection applyArgs = new ApplyBQSRArgumentCollection();
+        applyArgs.emitOriginalQuals = emitOriginalQuals;
+        transformer = new BQSRReadTransformer(data.getHeader(), report, applyArgs);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_READS)
+    public void apply(final Blackhole blackhole) {
+        final List<GATKRead> reads = data.getReads();
+        for ( int i = 0; i < reads.size(); i++ ) {
+            data.resetBaseQualities(i);
+            if ( emitOriginalQuals ) {
+                reads.get(i).clearAttribute(SAMTag.OQ.name());
+            }
+            blackhole.consume(transformer.apply(reads.get(i)));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link BaseRecalibrationEngine#processRead}, the per-read work of BaseRecalibrator, on synthetic reads.
+ * Each operation is one read, so the scores are in ns/read and, with the gc profiler, bytes/read.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BaseRecalibrationEngineBenchmark {
+    private static final int NUM_READS = 1000;
+
+    @Param({"151"})
+    public int readLength;
+
+    @Param({"false", "true"})
+    public boolean indelBQSR;
+
+    @Param({"false", "true"})
+    public boolean enableBAQ;
+
+    private SyntheticBQSRData data;
+    private BaseRecalibrationEngine engine;
+
+    @Setup
+    public void setup() {
+        data = new SyntheticBQSRData(NUM_READS, readLength, 42L);
+        final RecalibrationArgumentCollection recalArgs = new RecalibrationArgumentCollection();
+        recalArgs.computeIndelBQSRTables = indelBQSR;
+        recalArgs.enableBAQ = enableBAQ;
+        engine = new BaseRecalibrationEngine(recalArgs, data.getHeader());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_READS)
+    public long processRead() {
+        final List<GATKRead> reads = data.getReads();
+        for ( int i = 0; i < reads.size(); i++ ) {
+            engine.processRead(reads.get(i), data.getReference(), data.getKnownSites(i));
+        }
+        return engine.getNumReadsProcessed();
+    }
+}
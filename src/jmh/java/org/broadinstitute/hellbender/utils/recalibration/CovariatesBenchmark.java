@@ -0,0 +1,74 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.ContextCovariate;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.ReadCovariates;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the covariate computations shared by BaseRecalibrator and ApplyBQSR: all the standard covariates with
+ * {@link RecalUtils#computeCovariates}, and the context covariate alone, which is the most expensive of them.
+ * Each operation is one read, so the scores are in ns/read and, with the gc profiler, bytes/read.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CovariatesBenchmark {
+    private static final int NUM_READS = 1000;
+
+    @Param({"151"})
+    public int readLength;
+
+    @Param({"false", "true"})
+    public boolean recordIndelValues;
+
+    private SyntheticBQSRData data;
+    private StandardCovariateList covariates;
+    private ContextCovariate contextCovariate;
+    private ReadCovariates readCovariates;
+    private int contextCovariateIndex;
+
+    @Setup
+    public void setup() {
+        data = new SyntheticBQSRData(NUM_READS, readLength, 42L);
+        final RecalibrationArgumentCollection recalArgs = new RecalibrationArgumentCollection();
+        covariates = new StandardCovariateList(recalArgs, data.getHeader());
+        contextCovariate = new ContextCovariate(recalArgs);
+        contextCovariateIndex = covariates.indexByClass(ContextCovariate.class);
+        readCovariates = new ReadCovariates(covariates.size());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_READS)
+    public ReadCovariates computeCovariates() {
+        for ( final GATKRead read : data.getReads() ) {
+            RecalUtils.computeCovariates(read, data.getHeader(), covariates, readCovariates, recordIndelValues);
+        }
+        return readCovariates;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_READS)
+    public ReadCovariates contextCovariateRecordValues() {
+        final List<GATKRead> reads = data.getReads();
+        for ( int i = 0; i < reads.size(); i++ ) {
+            final GATKRead read = reads.get(i);
+            readCovariates.setReadLength(read.getLength());
+            readCovariates.setCovariateIndex(contextCovariateIndex);
+            contextCovariate.recordValues(read, data.getHeader(), readCovariates, recordIndelValues);
+        }
+        return readCovariates;
+    }
+}
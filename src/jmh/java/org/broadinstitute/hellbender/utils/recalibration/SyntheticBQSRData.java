@@ -0,0 +1,135 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMReadGroupRecord;
+import org.broadinstitute.hellbender.engine.ReferenceDataSource;
+import org.broadinstitute.hellbender.engine.ReferenceMemorySource;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.reference.ReferenceBases;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Reproducible synthetic input for the BQSR benchmarks: a random reference contig, reads sampled from it with
+ * sequencing errors, some of them with an insertion or a deletion, and known sites scattered along the contig.
+ *
+ * Everything is derived from the seed, so two runs with the same parameters process exactly the same reads.
+ */
+public final class SyntheticBQSRData {
+    private static final byte[] BASES = {'A', 'C', 'G', 'T'};
+
+    private static final int NUM_READ_GROUPS = 2;
+    private static final int CONTIG_LENGTH = 100_000;
+    private static final int KNOWN_SITE_SPACING = 1_000;
+    private static final double ERROR_RATE = 0.01;
+    private static final double INDEL_READ_FRACTION = 0.1;
+    private static final int INDEL_LENGTH = 2;
+
+    private final SAMFileHeader header;
+    private final ReferenceDataSource reference;
+    private final List<GATKRead> reads;
+    private final List<byte[]> originalQuals;
+    private final List<List<SimpleInterval>> knownSites;
+
+    /**
+     * @param numReads number of reads to generate
+     * @param readLength length of every read
+     * @param seed seed of the random generator all the data is derived from
+     */
+    public SyntheticBQSRData(final int numReads, final int readLength, final long seed) {
+        final Random random = new Random(seed);
+        header = ArtificialReadUtils.createArtificialSamHeaderWithGroups(1, 1, CONTIG_LENGTH, NUM_READ_GROUPS);
+        for ( final SAMReadGroupRecord readGroup : header.getReadGroups() ) {
+            readGroup.setPlatform("ILLUMINA");
+        }
+        final String contig = header.getSequence(0).getSequenceName();
+
+        final byte[] refBases = new byte[CONTIG_LENGTH];
+        for ( int i = 0; i < refBases.length; i++ ) {
+            refBases[i] = BASES[random.nextInt(BASES.length)];
+        }
+        reference = new ReferenceMemorySource(new ReferenceBases(refBases, new SimpleInterval(contig, 1, CONTIG_LENGTH)), header.getSequenceDictionary());
+
+        reads = new ArrayList<>(numReads);
+        originalQuals = new ArrayList<>(numReads);
+        knownSites = new ArrayList<>(numReads);
+        for ( int n = 0; n < numReads; n++ ) {
+            final int start = 1 + random.nextInt(CONTIG_LENGTH - 2 * readLength);
+            final int indelOffset = readLength / 4 + random.nextInt(readLength / 2);
+            final int indelType = random.nextDouble() < INDEL_READ_FRACTION ? 1 + random.nextInt(2) : 0;
+
+            final byte[] bases = new byte[readLength];
+            final String cigar;
+            int refOffset = start - 1;
+            if ( indelType == 1 ) {
+                cigar = indelOffset + "M" + INDEL_LENGTH + "I" + (readLength - indelOffset - INDEL_LENGTH) + "M";
+            } else if ( indelType == 2 ) {
+                cigar = indelOffset + "M" + INDEL_LENGTH + "D" + (readLength - indelOffset) + "M";
+            } else {
+                cigar = readLength + "M";
+            }
+            for ( int i = 0; i < readLength; i++ ) {
+                if ( i == indelOffset && indelType == 2 ) {
+                    refOffset += INDEL_LENGTH;
+                }
+                if ( indelType == 1 && i >= indelOffset && i < indelOffset + INDEL_LENGTH ) {
+                    bases[i] = BASES[random.nextInt(BASES.length)];
+                } else {
+                    bases[i] = random.nextDouble() < ERROR_RATE ? BASES[random.nextInt(BASES.length)] : refBases[refOffset];
+                    refOffset++;
+                }
+            }
+
+            final byte[] quals = new byte[readLength];
+            for ( int i = 0; i < readLength; i++ ) {
+                // mostly high qualities, with a tail of low ones
+                quals[i] = (byte) (random.nextInt(10) == 0 ? 2 + random.nextInt(20) : 25 + random.nextInt(16));
+            }
+
+            final GATKRead read = ArtificialReadUtils.createArtificialRead(header, "read" + n, contig, start, bases, quals, cigar);
+            read.setReadGroup(header.getReadGroups().get(n % NUM_READ_GROUPS).getId());
+            read.setMappingQuality(60);
+            reads.add(read);
+            originalQuals.add(quals.clone());
+
+            // the known sites overlapping the read, as a Feature query would return them
+            final List<SimpleInterval> overlappingSites = new ArrayList<>();
+            for ( int site = (start / KNOWN_SITE_SPACING + 1) * KNOWN_SITE_SPACING; site <= read.getEnd(); site += KNOWN_SITE_SPACING ) {
+                overlappingSites.add(new SimpleInterval(contig, site, site));
+            }
+            knownSites.add(overlappingSites);
+        }
+    }
+
+    public SAMFileHeader getHeader() {
+        return header;
+    }
+
+    public ReferenceDataSource getReference() {
+        return reference;
+    }
+
+    public List<GATKRead> getReads() {
+        return Collections.unmodifiableList(reads);
+    }
+
+    /**
+     * @return the known sites overlapping the read with the given index in {@link #getReads()}
+     */
+    public List<SimpleInterval> getKnownSites(final int readIndex) {
+        return knownSites.get(readIndex);
+    }
+
+    /**
+     * Restore the base qualities the read with the given index was created with, for benchmarks of code that modifies
+     * the reads.
+     */
+    public void resetBaseQualities(final int readIndex) {
+        reads.get(readIndex).setBaseQualities(originalQuals.get(readIndex));
+    }
+}
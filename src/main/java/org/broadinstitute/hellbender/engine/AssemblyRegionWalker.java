@@ -11,11 +11,18 @@ import org.broadinstitute.hellbender.engine.filters.WellformedReadFilter;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.IntervalUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.downsampling.PositionalDownsampler;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -45,9 +52,18 @@ import java.util.List;
  *
  * Read shards exist mainly as a proof-of-concept that we can shard the reads without introducing calling artifacts,
  * which will be important for the Spark equivalent of this traversal.
+ *
+ * Because the padded read shards are independent of each other, tools whose {@link #apply} and
+ * {@link #assemblyRegionEvaluator} are thread-safe may override {@link #isApplyThreadSafe()} to return true, in which
+ * case the user can request that several read shards be processed concurrently via {@link #traversalThreads}. Such
+ * tools must write their output through a stream obtained from {@link #createOrderedPrintStream} so that it is
+ * emitted in the order of the shards.
  */
 public abstract class AssemblyRegionWalker extends GATKTool {
 
+    @Argument(fullName = "traversalThreads", shortName = "traversalThreads", doc = "Number of threads to use to process read shards. Only honored by tools whose apply() is thread-safe; other tools always run single-threaded.", optional = true)
+    public int traversalThreads = 1;
+
     @Argument(fullName="readShardSize", shortName="readShardSize", doc = "Maximum size of each read shard, in bases. For good performance, this should be much larger than the maximum assembly region size.", optional = true)
     protected int readShardSize = defaultReadShardSize();
 
@@ -121,7 +137,16 @@ public abstract class AssemblyRegionWalker extends GATKTool {
     public final boolean requiresReference() { return true; }
 
     private List<LocalReadShard> readShards;
-    private Shard<GATKRead> currentReadShard;
+
+    /**
+     * The read shard being processed by the current thread (a multi-threaded traversal processes several at once).
+     */
+    private final ThreadLocal<Shard<GATKRead>> currentReadShard = new ThreadLocal<>();
+
+    /**
+     * Keeps output written from {@link #apply} during a multi-threaded traversal in the order of the read shards.
+     */
+    private final OrderedOutput orderedOutput = new OrderedOutput();
 
     /**
      * Initialize data sources for traversal.
@@ -152,6 +177,10 @@ public abstract class AssemblyRegionWalker extends GATKTool {
             throw new UserException.BadArgumentValue("assemblyRegionPadding must be <= readShardPadding");
         }
 
+        if ( traversalThreads < 1 ) {
+            throw new UserException.BadArgumentValue("traversalThreads", String.valueOf(traversalThreads), "should be a positive number");
+        }
+
         final List<SimpleInterval> intervals = hasIntervals() ? intervalsForTraversal : IntervalUtils.getAllIntervalsForReference(getHeaderForReads().getSequenceDictionary());
         readShards = makeReadShards(intervals);
     }
@@ -203,7 +232,7 @@ public abstract class AssemblyRegionWalker extends GATKTool {
      * @return The boundaries of the read shard we're currently operating within (ignoring any padding).
      */
     public SimpleInterval getCurrentReadShardBounds() {
-        return currentReadShard.getInterval();
+        return currentReadShard.get().getInterval();
     }
 
     /**
@@ -234,46 +263,159 @@ public abstract class AssemblyRegionWalker extends GATKTool {
         // meter to check the time more frequently (every 10 regions instead of every 1000 regions).
         progressMeter.setRecordsBetweenTimeChecks(10L);
 
+        if ( traversalThreads > 1 ) {
+            if ( isApplyThreadSafe() ) {
+                traverseInParallel(countedFilter);
+                logger.info(countedFilter.getSummaryLine());
+                return;
+            }
+            logger.warn(getClass().getSimpleName() + " does not support multi-threaded traversal; ignoring traversalThreads=" + traversalThreads);
+        }
+
         for ( final LocalReadShard readShard : readShards ) {
             // Since reads in each shard are lazily fetched, we need to pass the filter to the window
             // instead of filtering the reads directly here
             readShard.setReadFilter(countedFilter);
             readShard.setDownsampler(maxReadsPerAlignmentStart > 0 ? new PositionalDownsampler(maxReadsPerAlignmentStart, getHeaderForReads()) : null);
-            currentReadShard = readShard;
+            currentReadShard.set(readShard);
 
-            processReadShard(readShard,
-                    new ReferenceContext(reference, readShard.getPaddedInterval()), // use the fully-padded window to fetch overlapping data
-                    new FeatureContext(features, readShard.getPaddedInterval()));
+            processReadShard(readShard, reference, features)
+                    .forEach(progressMeter::update);
         }
 
         logger.info(countedFilter.getSummaryLine());
     }
 
+    /**
+     * Multi-threaded version of the default traversal, used when {@link #traversalThreads} is greater than 1
+     * and {@link #isApplyThreadSafe()} returns true.
+     *
+     * Up to {@link #traversalThreads} read shards are in flight at once. Each is loaded, divided into assembly regions
+     * and has its regions passed to {@link #apply} on a worker thread, using that thread's own data sources, since
+     * those are not thread-safe. The output written through an ordered stream while processing a shard is replayed
+     * on the traversal thread once all preceding shards are done, so it appears in the same order as in a
+     * single-threaded traversal.
+     */
+    private void traverseInParallel(final CountingReadFilter countedFilter) {
+        // CountingReadFilter is not thread-safe, so the workers share it under a lock
+        final ReadFilter sharedFilter = new ReadFilter() {
+            private static final long serialVersionUID = 1L;
+            @Override
+            public boolean test(final GATKRead read) {
+                synchronized ( countedFilter ) {
+                    return countedFilter.test(read);
+                }
+            }
+        };
+
+        try ( final PerThreadDataSources workerDataSources = new PerThreadDataSources(this, FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES) ) {
+            final Iterator<ReadShardResult> results = Utils.transformParallel(readShards.iterator(),
+                    shard -> traversalMetrics.time(TraversalMetrics.Stage.APPLY, () -> applyToShard(shard, sharedFilter, workerDataSources)),
+                    traversalThreads);
+
+            while ( results.hasNext() ) {
+                final ReadShardResult result = results.next();
+                result.output.forEach(Runnable::run);
+                result.regionSpans.forEach(progressMeter::update);
+            }
+        }
+    }
+
+    /**
+     * Processes a read shard on the current (worker) thread, reading from the worker's own copy of the reads
+     * and capturing any output written through an ordered stream instead of writing it.
+     */
+    private ReadShardResult applyToShard(final LocalReadShard shard, final ReadFilter readFilter, final PerThreadDataSources workerDataSources) {
+        final LocalReadShard workerShard = new LocalReadShard(shard.getInterval(), shard.getPaddedInterval(), workerDataSources.getReads());
+        workerShard.setReadFilter(readFilter);
+        workerShard.setDownsampler(maxReadsPerAlignmentStart > 0 ? new PositionalDownsampler(maxReadsPerAlignmentStart, getHeaderForReads()) : null);
+
+        final ReadShardResult result = new ReadShardResult();
+        currentReadShard.set(workerShard);
+        try {
+            return orderedOutput.capture(result.output, () -> {
+                result.regionSpans.addAll(processReadShard(workerShard, workerDataSources.getReference(), workerDataSources.getFeatures()));
+                return result;
+            });
+        }
+        finally {
+            currentReadShard.remove();
+        }
+    }
+
+    /**
+     * Spans of the assembly regions of a read shard processed by a worker thread, and the output emitted while
+     * processing them.
+     */
+    private static final class ReadShardResult {
+        final List<SimpleInterval> regionSpans = new ArrayList<>();
+        final List<Runnable> output = new ArrayList<>();
+    }
+
     /**
      * Divide the given Shard up into active/inactive AssemblyRegions using the {@link #assemblyRegionEvaluator},
      * and send each region to the tool implementation for processing.
      *
      * @param shard Shard to process
-     * @param referenceContext Reference bases spanning the fully-padded interval of the shard
-     * @param featureContext Features spanning the fully-padded interval of the shard
+     * @param referenceSource source of reference data, or null if there is none
+     * @param featureSource source of Feature data, or null if there is none
+     * @return the spans of the assembly regions processed, in order (for this traversal, the progress meter unit
+     *         is the assembly region rather than the read shard)
      */
-    private void processReadShard(Shard<GATKRead> shard, ReferenceContext referenceContext, FeatureContext featureContext ) {
-        // Divide each shard into one or more assembly regions using our AssemblyRegionEvaluator:
+    private List<SimpleInterval> processReadShard(final Shard<GATKRead> shard, final ReferenceDataSource referenceSource, final FeatureManager featureSource ) {
+        // Divide each shard into one or more assembly regions using our AssemblyRegionEvaluator
+        // (using the fully-padded window to fetch overlapping data):
         final Iterable<AssemblyRegion> assemblyRegions = AssemblyRegion.createFromReadShard(shard,
-                getHeaderForReads(), referenceContext, featureContext, assemblyRegionEvaluator(),
+                getHeaderForReads(),
+                new ReferenceContext(referenceSource, shard.getPaddedInterval()),
+                new FeatureContext(featureSource, shard.getPaddedInterval()),
+                assemblyRegionEvaluator(),
                 minAssemblyRegionSize, maxAssemblyRegionSize, assemblyRegionPadding, activeProbThreshold,
                 maxProbPropagationDistance);
 
         // Call into the tool implementation to process each assembly region from this shard.
+        final List<SimpleInterval> regionSpans = new ArrayList<>();
         for ( final AssemblyRegion assemblyRegion : assemblyRegions ) {
             logger.debug("Processing assembly region at " + assemblyRegion.getSpan() + " isActive: " + assemblyRegion.isActive() + " numReads: " + assemblyRegion.getReads().size() + " in read shard " + shard.getInterval());
 
             apply(assemblyRegion,
-                    new ReferenceContext(reference, assemblyRegion.getExtendedSpan()),
-                    new FeatureContext(features, assemblyRegion.getExtendedSpan()));
+                    new ReferenceContext(referenceSource, assemblyRegion.getExtendedSpan()),
+                    new FeatureContext(featureSource, assemblyRegion.getExtendedSpan()));
+
+            regionSpans.add(assemblyRegion.getSpan());
+        }
+        return regionSpans;
+    }
+
+    /**
+     * Can {@link #apply} and the {@link #assemblyRegionEvaluator} be safely called concurrently from multiple threads?
+     * Tools should override to return true only if both keep no state other than per-thread or properly synchronized
+     * state, do not retain the regions or contexts they are handed beyond the call, and the tool writes its output
+     * through a stream obtained from {@link #createOrderedPrintStream}.
+     *
+     * If this returns false (the default), the traversal is always single-threaded, even if the user requests
+     * more than one {@link #traversalThreads}.
+     *
+     * @return {@code true} if apply() and the evaluator are thread-safe, {@code false} otherwise
+     */
+    public boolean isApplyThreadSafe() {
+        return false;
+    }
 
-            // For this traversal, the progress meter unit is the assembly region rather than the read shard
-            progressMeter.update(assemblyRegion.getSpan());
+    /**
+     * Creates a PrintStream to the given file whose output appears in the order of the read shards regardless of
+     * whether the traversal is multi-threaded: text printed from {@link #apply} on a worker thread is buffered and
+     * written once all preceding shards have been written. Output printed outside of apply() is written immediately.
+     *
+     * @param outputFile file to write to (will be overwritten if it exists)
+     * @return a PrintStream for the tool's output; the caller is responsible for closing it
+     */
+    public final PrintStream createOrderedPrintStream(final File outputFile) {
+        Utils.nonNull(outputFile);
+        try {
+            return new PrintStream(orderedOutput.wrap(new BufferedOutputStream(new FileOutputStream(outputFile))));
+        } catch (final FileNotFoundException e) {
+            throw new UserException.CouldNotCreateOutputFile(outputFile, e);
         }
     }
 
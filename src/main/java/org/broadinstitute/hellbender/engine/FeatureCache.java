@@ -3,8 +3,8 @@ package org.broadinstitute.hellbender.engine;
 import htsjdk.tribble.Feature;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
 
 import java.util.*;
 
@@ -13,21 +13,28 @@ import java.util.*;
  * during query operations initiated via {@link FeatureDataSource#query(org.broadinstitute.hellbender.utils.SimpleInterval)}
  * and/or {@link FeatureDataSource#queryAndPrefetch(org.broadinstitute.hellbender.utils.SimpleInterval)}.
  *
- * Strategy is to pre-fetch a large number of records AFTER each query interval that produces
- * a cache miss. This optimizes for the use case of intervals with gradually increasing start
- * positions, as many subsequent queries will find their records wholly contained in the cache
- * before we have another cache miss. Performance will be poor for random/non-localized access
- * patterns, or intervals with decreasing start positions.
+ * The cache holds up to {@code maxWindows} windows, each containing all Feature records overlapping one
+ * previously-fetched interval. A query is a cache hit if its interval is wholly contained in any of the
+ * windows, so queries that move backwards (eg., extended assembly region spans, or mate-aware tools)
+ * or alternate between a few loci are served from memory as well as queries with gradually increasing
+ * start positions. When a new window is needed and the cache is full, the least-recently used window
+ * is evicted.
+ *
+ * Strategy is to pre-fetch the records in a number of bases AFTER each query interval that produces
+ * a cache miss (the lookahead). The lookahead adapts to the observed access pattern: when queries
+ * run off the end of the most recently used window after few hits on it, the lookahead is doubled (up to
+ * {@link #MAX_ADAPTIVE_LOOKAHEAD_BASES}, or the initial lookahead if that is larger), and when we jump away
+ * from a window without a single hit on it, the lookahead is halved (down to the initial lookahead).
+ * An initial lookahead of 0 disables lookahead entirely.
  *
  * Usage:
  * -Test whether each query interval is a cache hit via {@link #cacheHit(org.broadinstitute.hellbender.utils.SimpleInterval)}
  *
- * -If it is a cache hit, trim the cache to the start position of the interval (discarding records that
- *  end before the start of the new interval) via {@link #trimToNewStartPosition(int)}, then retrieve
- *  records up to the desired endpoint using {@link #getCachedFeaturesUpToStopPosition(int)}.
+ * -If it is a cache hit, retrieve the records overlapping the interval via {@link #getCachedFeatures(SimpleInterval)}
  *
- * -If it is a cache miss, reset the cache using {@link #fill(java.util.Iterator, org.broadinstitute.hellbender.utils.SimpleInterval)}, pre-fetching
- *  a large number of records after the query interval in addition to those actually requested.
+ * -If it is a cache miss, add a new window to the cache using {@link #fill(java.util.Iterator, org.broadinstitute.hellbender.utils.SimpleInterval)},
+ *  pre-fetching {@link #getLookaheadBases()} bases after the query interval in addition to those actually requested,
+ *  and then retrieve the records overlapping the interval via {@link #getCachedFeatures(SimpleInterval)}.
  *
  * @param <CACHED_FEATURE> Type of Feature record we are caching
  */
@@ -35,14 +42,50 @@ class FeatureCache<CACHED_FEATURE extends Feature> {
     private static final Logger logger = LogManager.getLogger(FeatureCache.class);
 
     /**
-     * Our cache of Features, optimized for insertion/removal at both ends.
+     * Default maximum number of windows held by the cache at once
      */
-    private final Deque<CACHED_FEATURE> cache;
+    public static final int DEFAULT_MAX_WINDOWS = 4;
 
     /**
-     * Our cache currently contains Feature records overlapping this interval
+     * The adaptive lookahead never grows beyond this many bases (unless the initial lookahead is already larger)
      */
-    private SimpleInterval cachedInterval;
+    public static final int MAX_ADAPTIVE_LOOKAHEAD_BASES = 100_000;
+
+    /**
+     * If the queries run off the end of a window after fewer than this many cache hits on it, the lookahead
+     * was too short to pay for the cost of going to disk, so we grow it.
+     */
+    private static final int TARGET_HITS_PER_WINDOW = 32;
+
+    /**
+     * Our cached windows, in least-recently-used to most-recently-used order.
+     */
+    private final LinkedHashMap<SimpleInterval, CacheWindow<CACHED_FEATURE>> windows;
+
+    /**
+     * Maximum number of windows we hold at once
+     */
+    private final int maxWindows;
+
+    /**
+     * Lookahead we started with, and the lower bound for the adaptive lookahead
+     */
+    private final int initialLookaheadBases;
+
+    /**
+     * Upper bound for the adaptive lookahead
+     */
+    private final int maxLookaheadBases;
+
+    /**
+     * Number of bases after a query interval that produced a cache miss that should be pre-fetched
+     */
+    private int lookaheadBases;
+
+    /**
+     * The window that satisfied the most recent cache hit or fill
+     */
+    private CacheWindow<CACHED_FEATURE> mostRecentWindow;
 
     /**
      * Number of times we called {@link #cacheHit(SimpleInterval)} and it returned true
@@ -55,49 +98,50 @@ class FeatureCache<CACHED_FEATURE extends Feature> {
     private int numCacheMisses = 0;
 
     /**
-     * Initial capacity of our cache (will grow by doubling if needed)
-     */
-    private static final int INITIAL_CAPACITY = 1024;
-
-    /**
-     * When we trim our cache to a new start position, this is the maximum number of
-     * Features we expect to need to place into temporary storage for the duration of
-     * the trim operation. Performance only suffers slightly if our estimate is wrong.
+     * Number of windows we discarded to make room for new ones
      */
-    private static final int EXPECTED_MAX_OVERLAPPING_FEATURES_DURING_CACHE_TRIM = 128;
+    private int numEvictions = 0;
 
     /**
-     * Create an initially-empty FeatureCache with default initial capacity
+     * Create an initially-empty FeatureCache holding up to {@link #DEFAULT_MAX_WINDOWS} windows
+     *
+     * @param initialLookaheadBases number of bases to pre-fetch after a query interval that produces a cache miss,
+     *                              before any adaptation to the access pattern. 0 disables lookahead.
      */
-    public FeatureCache() {
-        cache = new ArrayDeque<>(INITIAL_CAPACITY);
+    public FeatureCache( final int initialLookaheadBases ) {
+        this(initialLookaheadBases, DEFAULT_MAX_WINDOWS);
     }
 
     /**
-     * Get the name of the contig on which the Features in our cache are located
+     * Create an initially-empty FeatureCache
      *
-     * @return the name of the contig on which the Features in our cache are located
+     * @param initialLookaheadBases number of bases to pre-fetch after a query interval that produces a cache miss,
+     *                              before any adaptation to the access pattern. 0 disables lookahead.
+     * @param maxWindows maximum number of windows to hold at once
      */
-    public String getContig() {
-        return cachedInterval.getContig();
+    public FeatureCache( final int initialLookaheadBases, final int maxWindows ) {
+        Utils.validateArg(initialLookaheadBases >= 0, "Query lookahead bases must be >= 0");
+        Utils.validateArg(maxWindows > 0, "maxWindows must be > 0");
+
+        this.initialLookaheadBases = initialLookaheadBases;
+        this.maxLookaheadBases = initialLookaheadBases > 0 ? Math.max(initialLookaheadBases, MAX_ADAPTIVE_LOOKAHEAD_BASES) : 0;
+        this.lookaheadBases = initialLookaheadBases;
+        this.maxWindows = maxWindows;
+        this.windows = new LinkedHashMap<>(maxWindows * 2, 0.75f, true);
     }
 
     /**
-     * Get the start position of the interval that all Features in our cache overlap
-     *
-     * @return the start position of the interval that all Features in our cache overlap
+     * @return the number of bases that should be pre-fetched after a query interval that produces a cache miss
      */
-    public int getCacheStart() {
-        return cachedInterval.getStart();
+    public int getLookaheadBases() {
+        return lookaheadBases;
     }
 
     /**
-     * Get the stop position of the interval that all Features in our cache overlap
-     *
-     * @return the stop position of the interval that all Features in our cache overlap
+     * @return the intervals of the windows currently in our cache, in least-recently-used to most-recently-used order
      */
-    public int getCacheEnd() {
-        return cachedInterval.getEnd();
+    public List<SimpleInterval> getCachedIntervals() {
+        return new ArrayList<>(windows.keySet());
     }
 
     /**
@@ -106,7 +150,12 @@ class FeatureCache<CACHED_FEATURE extends Feature> {
      * @return true if our cache contains no Features, otherwise false
      */
     public boolean isEmpty() {
-        return cache.isEmpty();
+        for ( final CacheWindow<CACHED_FEATURE> window : windows.values() ) {
+            if ( ! window.features.isEmpty() ) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -124,102 +173,109 @@ class FeatureCache<CACHED_FEATURE extends Feature> {
     }
 
     /**
-     * Clear our cache and fill it with the records from the provided iterator, preserving their
-     * relative ordering, and update our contig/start/stop to reflect the new interval that all
-     * records in our cache overlap.
+     * Add a window to our cache holding the records from the provided iterator, preserving their relative ordering.
+     * The new window becomes the most recently used one. Any existing windows wholly contained in the new
+     * window's interval are discarded, and if the cache is then over capacity the least-recently used window is evicted.
      *
      * Typically each fill operation should involve significant lookahead beyond the region
      * requested so that future queries will be cache hits.
      *
-     * @param featureIter iterator from which to pull Features with which to populate our cache
-     *                    (replacing existing cache contents)
+     * @param featureIter iterator from which to pull Features with which to populate the new window.
+     *                    Features must be sorted by start position.
      * @param interval all Features from featureIter overlap this interval
      */
     public void fill( final Iterator<CACHED_FEATURE> featureIter, final SimpleInterval interval ) {
-        cache.clear();
+        Utils.nonNull(featureIter);
+        Utils.nonNull(interval);
+
+        final CacheWindow<CACHED_FEATURE> window = new CacheWindow<>(interval);
         while ( featureIter.hasNext() ) {
-            cache.add(featureIter.next());
+            window.add(featureIter.next());
         }
 
-        cachedInterval = interval;
+        windows.keySet().removeIf(interval::contains);
+        windows.put(interval, window);
+        mostRecentWindow = window;
+
+        final Iterator<SimpleInterval> leastRecentlyUsed = windows.keySet().iterator();
+        while ( windows.size() > maxWindows ) {
+            leastRecentlyUsed.next();
+            leastRecentlyUsed.remove();
+            ++numEvictions;
+        }
     }
 
     /**
      * Determines whether all records overlapping the provided interval are already contained in our cache.
+     * On a hit, the window containing the interval becomes the most recently used one. On a miss, the
+     * lookahead is adapted to the access pattern.
      *
      * @param interval the interval to check against the contents of our cache
      * @return true if all records overlapping the provided interval are already contained in our cache, otherwise false
      */
     public boolean cacheHit( final SimpleInterval interval ) {
-        final boolean cacheHit = cachedInterval != null && cachedInterval.contains(interval);
+        final CacheWindow<CACHED_FEATURE> window = findWindowContaining(interval);
 
-        if ( cacheHit ) {
+        if ( window != null ) {
             ++numCacheHits;
+            ++window.numHits;
+            // touch the window to mark it as the most recently used
+            windows.get(window.interval);
+            mostRecentWindow = window;
+            return true;
         }
         else {
             ++numCacheMisses;
+            adaptLookahead(interval);
+            return false;
         }
+    }
 
-        return cacheHit;
+    private CacheWindow<CACHED_FEATURE> findWindowContaining( final SimpleInterval interval ) {
+        // check the most recently used window first, since that is where sequential queries land
+        if ( mostRecentWindow != null && mostRecentWindow.interval.contains(interval) ) {
+            return mostRecentWindow;
+        }
+        for ( final CacheWindow<CACHED_FEATURE> window : windows.values() ) {
+            if ( window.interval.contains(interval) ) {
+                return window;
+            }
+        }
+        return null;
     }
 
     /**
-     * Trims the cache to the specified new start position by discarding all records that end before it
-     * while preserving relative ordering of records.
-     *
-     * @param newStart new start position on the current contig to which to trim the cache
+     * Grow the lookahead if the provided interval (which produced a cache miss) ran off the end of the most recently
+     * used window before it served enough hits, and shrink it if we are leaving a window that never served a hit.
      */
-    public void trimToNewStartPosition( final int newStart ) {
-        if ( newStart > cachedInterval.getEnd() ) {
-            throw new GATKException(String.format("BUG: attempted to trim Feature cache to an improper new start position (%d). Cache stop = %d",
-                    newStart, cachedInterval.getEnd()));
+    private void adaptLookahead( final SimpleInterval missedInterval ) {
+        if ( mostRecentWindow == null || initialLookaheadBases == 0 ) {
+            return;
         }
+        final SimpleInterval window = mostRecentWindow.interval;
+        final boolean ranOffEndOfWindow = window.getContig().equals(missedInterval.getContig()) &&
+                                          missedInterval.getStart() >= window.getStart() &&
+                                          missedInterval.getStart() <= window.getEnd() + 1 + lookaheadBases;
 
-        List<CACHED_FEATURE> overlappingFeaturesBeforeNewStart = new ArrayList<>(EXPECTED_MAX_OVERLAPPING_FEATURES_DURING_CACHE_TRIM);
-
-        // In order to trim the cache to the new start position, we need to find
-        // all Features in the cache that start before the new start position,
-        // and discard those that don't overlap the new start while keeping those
-        // that do overlap. We can stop once we find a Feature that starts on or
-        // after the new start position, since the Features are assumed to be sorted
-        // by start position.
-        while ( ! cache.isEmpty() && cache.getFirst().getStart() < newStart ) {
-            CACHED_FEATURE featureBeforeNewStart = cache.removeFirst();
-
-            if ( featureBeforeNewStart.getEnd() >= newStart ) {
-                overlappingFeaturesBeforeNewStart.add(featureBeforeNewStart);
-            }
+        if ( ranOffEndOfWindow && mostRecentWindow.numHits < TARGET_HITS_PER_WINDOW ) {
+            lookaheadBases = (int)Math.min((long)lookaheadBases * 2, maxLookaheadBases);
         }
-
-        // Add back the Features that started before the new start but overlapped it
-        // in the reverse of the order in which we encountered them so that their original
-        // relative ordering in the cache is restored.
-        for ( int i = overlappingFeaturesBeforeNewStart.size() - 1; i >= 0; --i ) {
-            cache.addFirst(overlappingFeaturesBeforeNewStart.get(i));
+        else if ( ! ranOffEndOfWindow && mostRecentWindow.numHits == 0 ) {
+            lookaheadBases = Math.max(lookaheadBases / 2, initialLookaheadBases);
         }
-
-        // Record our new start boundary
-        cachedInterval = new SimpleInterval(cachedInterval.getContig(), newStart, cachedInterval.getEnd());
     }
 
     /**
-     * Returns (but does not remove) all cached Features that overlap the region from the start
-     * of our cache (cacheStart) to the specified stop position.
+     * Returns (but does not remove) all cached Features that overlap the provided interval, in the order in which
+     * they were added to the cache. The interval must be a cache hit (or have just been used to fill the cache).
      *
-     * @param stopPosition Endpoint of the interval that returned Features must overlap
-     * @return all cached Features that overlap the region from the start of our cache to the specified stop position
+     * @param interval interval that returned Features must overlap
+     * @return all cached Features that overlap the provided interval
      */
-    public List<CACHED_FEATURE> getCachedFeaturesUpToStopPosition( final int stopPosition ) {
-        List<CACHED_FEATURE> matchingFeatures = new ArrayList<>(cache.size());
-
-        // Find (but do not remove from our cache) all Features that start before or on the provided stop position
-        for ( CACHED_FEATURE candidateFeature : cache ) {
-            if ( candidateFeature.getStart() > stopPosition ) {
-                break; // No more possible matches among the remaining cached Features, so stop looking
-            }
-            matchingFeatures.add(candidateFeature);
-        }
-        return matchingFeatures;
+    public List<CACHED_FEATURE> getCachedFeatures( final SimpleInterval interval ) {
+        final CacheWindow<CACHED_FEATURE> window = findWindowContaining(interval);
+        Utils.validateArg(window != null, () -> "interval " + interval + " is not contained in the cache");
+        return window.getOverlapping(interval.getStart(), interval.getEnd());
     }
 
     /**
@@ -227,10 +283,68 @@ class FeatureCache<CACHED_FEATURE extends Feature> {
      */
     public void printCacheStatistics() {
         final int totalQueries = getNumCacheHits() + getNumCacheMisses();
-        logger.debug(String.format("Cache hit rate was %.2f%% (%d out of %d total queries)",
+        logger.debug(String.format("Cache hit rate was %.2f%% (%d out of %d total queries), with %d window evictions and a final lookahead of %d bases",
                 totalQueries > 0 ? ((double)getNumCacheHits() / totalQueries) * 100.0 : 0.0,
                 getNumCacheHits(),
-                totalQueries));
+                totalQueries,
+                numEvictions,
+                lookaheadBases));
     }
-}
 
+    /**
+     * One contiguous window of the cache: all Features overlapping an interval, sorted by start position.
+     */
+    private static final class CacheWindow<F extends Feature> {
+        private final SimpleInterval interval;
+        private final List<F> features = new ArrayList<>();
+
+        /**
+         * Length of the longest Feature in this window, which bounds how far before a query start
+         * we need to look for Features overlapping it.
+         */
+        private int maxFeatureLength = 0;
+
+        private int numHits = 0;
+
+        CacheWindow( final SimpleInterval interval ) {
+            this.interval = interval;
+        }
+
+        void add( final F feature ) {
+            features.add(feature);
+            maxFeatureLength = Math.max(maxFeatureLength, feature.getEnd() - feature.getStart() + 1);
+        }
+
+        List<F> getOverlapping( final int start, final int end ) {
+            // Features starting more than maxFeatureLength bases before start cannot overlap it
+            final int firstCandidate = firstFeatureStartingAtOrAfter((long)start - maxFeatureLength);
+
+            final List<F> overlapping = new ArrayList<>();
+            for ( int i = firstCandidate; i < features.size(); ++i ) {
+                final F candidate = features.get(i);
+                if ( candidate.getStart() > end ) {
+                    break; // No more possible matches among the remaining Features, so stop looking
+                }
+                if ( candidate.getEnd() >= start ) {
+                    overlapping.add(candidate);
+                }
+            }
+            return overlapping;
+        }
+
+        private int firstFeatureStartingAtOrAfter( final long position ) {
+            int low = 0;
+            int high = features.size();
+            while ( low < high ) {
+                final int mid = (low + high) >>> 1;
+                if ( features.get(mid).getStart() < position ) {
+                    low = mid + 1;
+                }
+                else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -30,6 +30,9 @@ import java.util.stream.Collectors;
  * return empty Lists. You can determine whether there is a backing source of Features via
  * {@link #hasBackingDataSource()}, and whether there is an interval via {@link #getInterval}
  *
+ * Traversals may also create a single reusable FeatureContext (see {@link #createReusable}) and move it from record
+ * to record via {@link #reset}, so that their inner loop allocates neither contexts nor intervals.
+ *
  * Note: This class is NOT intended to be extended outside of the testing harness.
  */
 @DoNotSubclass
@@ -42,10 +45,23 @@ public class FeatureContext {
     private final FeatureManager featureManager;
 
     /**
-     * We will return Features overlapping this interval. Null if this context has no known location
-     * (eg., we are dealing with unmapped data).
+     * Contig, start and end of the interval we will return Features overlapping. The contig is null if this
+     * context has no known location (eg., we are dealing with unmapped data).
+     */
+    private String contig;
+    private int start;
+    private int end;
+
+    /**
+     * Our interval as a SimpleInterval, created on demand so that reusable contexts don't allocate it for
+     * clients who never query Features. Null if not created yet, or if this context has no known location.
+     */
+    private SimpleInterval interval;
+
+    /**
+     * True if this context can be moved to a new location via {@link #reset}
      */
-    private final SimpleInterval interval;
+    private final boolean reusable;
 
     /**
      * Creates an empty FeatureContext with no backing data source. All queries on this context will
@@ -65,7 +81,45 @@ public class FeatureContext {
      */
     public FeatureContext(final FeatureManager featureManager, final SimpleInterval interval) {
         this.featureManager = featureManager;
+        this.reusable = false;
         this.interval = interval;
+        if ( interval != null ) {
+            this.contig = interval.getContig();
+            this.start = interval.getStart();
+            this.end = interval.getEnd();
+        }
+    }
+
+    private FeatureContext(final FeatureManager featureManager) {
+        this.featureManager = featureManager;
+        this.reusable = true;
+    }
+
+    /**
+     * Create a reusable FeatureContext with no interval, to be moved to each record of a traversal via {@link #reset}.
+     * Such a context is only valid until the next call to reset(), so clients must not retain it.
+     *
+     * @param featureManager FeatureManager containing backing data sources for all discovered Feature arguments. Null if there are no sources of Features.
+     */
+    static FeatureContext createReusable(final FeatureManager featureManager) {
+        return new FeatureContext(featureManager);
+    }
+
+    /**
+     * Move a reusable context to a new interval. Allocates nothing.
+     *
+     * @param contig contig of the new interval, or null if the new location is unknown
+     * @param start start of the new interval (ignored if contig is null)
+     * @param end end of the new interval (ignored if contig is null)
+     */
+    void reset(final String contig, final int start, final int end) {
+        if ( ! reusable ) {
+            throw new IllegalStateException("Only a reusable FeatureContext can be reset");
+        }
+        this.contig = contig;
+        this.start = start;
+        this.end = end;
+        this.interval = null;
     }
 
     /**
@@ -85,6 +139,9 @@ public class FeatureContext {
      * @return query interval for this FeatureContext (may be null)
      */
     public SimpleInterval getInterval() {
+        if ( interval == null && contig != null ) {
+            interval = new SimpleInterval(contig, start, end);
+        }
         return interval;
     }
 
@@ -112,7 +169,7 @@ public class FeatureContext {
      *         this FeatureContext's query interval. Empty List if there is no backing data source and/or interval.
      */
     public <T extends Feature> List<T> getValues(final FeatureInput<T> featureDescriptor) {
-        return getValues(featureDescriptor, interval);
+        return getValues(featureDescriptor, getInterval());
     }
 
     /**
@@ -122,10 +179,9 @@ public class FeatureContext {
      *
      * Returned Features are not guaranteed to be in any particular order.
      *
-     * Note: if windowLeadingBases > 0 and query lookahead caching is enabled for the underlying FeatureDataSource,
-     * there will be a cache miss on every call, since the current caching scheme prefetches Features after
-     * the current query interval but not before it (on the assumption that
-     * the common access pattern involves gradually increasing query intervals).
+     * Note: the caching scheme of the underlying FeatureDataSource prefetches Features after each query interval
+     * that produces a cache miss, but not before it, so windows with leading bases are served from the cache
+     * only if they fall within a recently-fetched region.
      *
      * @param featureDescriptor FeatureInput argument for which to fetch Features
      * @param <T> type of Feature in the data source backing the provided FeatureInput
@@ -145,10 +201,9 @@ public class FeatureContext {
      *
      * Returned Features are not guaranteed to be in any particular order.
      *
-     * Note: if query lookahead caching is enabled for the underlying FeatureDataSource,
-     * there will be a cache miss on almost every call, since the current caching scheme prefetches Features after
-     * the current query interval but not before it (on the assumption that
-     * the common access pattern involves gradually increasing query intervals).
+     * Note: the caching scheme of the underlying FeatureDataSource prefetches Features after each query interval
+     * that produces a cache miss, but not before it, so arbitrary intervals are served from the cache only if
+     * they fall within a recently-fetched region.
      *
      * @param featureDescriptor FeatureInput argument for which to fetch Features
      * @param <T> type of Feature in the data source backing the provided FeatureInput
@@ -175,12 +230,12 @@ public class FeatureContext {
         Utils.validateArg(windowLeadingBases >= 0, "Window starts after the current interval");
         Utils.validateArg(windowTrailingBases >= 0, "Window ends before the current interval");
 
-        if (interval == null) {
+        if (contig == null) {
             return null;
         } else if (windowLeadingBases == 0 && windowTrailingBases == 0){
-            return interval;
+            return getInterval();
         }
-        return new SimpleInterval(interval.getContig(), windowStart(interval, windowLeadingBases), windowStop(interval, windowTrailingBases));
+        return new SimpleInterval(contig, windowStart(getInterval(), windowLeadingBases), windowStop(getInterval(), windowTrailingBases));
     }
 
     /**
@@ -223,7 +278,7 @@ public class FeatureContext {
      *         Empty List if there is no backing data source and/or interval.
      */
     public <T extends Feature> List<T> getValues(final FeatureInput<T> featureDescriptor, final int featureStart) {
-        if (featureManager == null || interval == null) {
+        if (featureManager == null || contig == null) {
             return Collections.emptyList();
         }
 
@@ -244,7 +299,7 @@ public class FeatureContext {
      *         this FeatureContext's query interval. Empty List if there is no backing data source and/or interval.
      */
     public <T extends Feature> List<T> getValues(final Collection<FeatureInput<T>> featureDescriptors) {
-        if (featureManager == null || interval == null || featureDescriptors.isEmpty()) {
+        if (featureManager == null || contig == null || featureDescriptors.isEmpty()) {
             return Collections.emptyList();
         }
 
@@ -272,7 +327,7 @@ public class FeatureContext {
      *         Empty List if there is no backing data source and/or interval.
      */
     public <T extends Feature> List<T> getValues(final Collection<FeatureInput<T>> featureDescriptors, final int featureStart) {
-        if (featureManager == null || interval == null) {
+        if (featureManager == null || contig == null) {
             return Collections.emptyList();
         }
 
@@ -77,22 +77,12 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
 
     /**
      * Cache containing Features from recent queries initiated via {@link #query(SimpleInterval)} and/or
-     * {@link #queryAndPrefetch(SimpleInterval)}. This is guaranteed to start at the start position of the
-     * most recent query, but will typically end well after the end of the most recent query. Designed to
-     * improve performance of the common access pattern involving multiple queries across nearby intervals
-     * with gradually increasing start positions.
+     * {@link #queryAndPrefetch(SimpleInterval)}. Holds several recently-queried windows, each of which
+     * typically ends well after the end of the query that populated it, and adapts the number of bases
+     * it prefetches after each cache miss to the observed access pattern. See {@link FeatureCache} for details.
      */
     private final FeatureCache<T> queryCache;
 
-    /**
-     * When we experience a cache miss (ie., a query interval not fully contained within our cache) and need
-     * to re-populate the Feature cache from disk to satisfy a query, this controls the number of extra bases
-     * AFTER the end of our interval to fetch. Should be sufficiently large so that typically a significant number
-     * of subsequent queries will be cache hits (ie., query intervals fully contained within our cache) before
-     * we have another cache miss and need to go to disk again.
-     */
-    private final int queryLookaheadBases;
-
     /**
      * Holds information about the path this datasource reads from.
      */
@@ -148,7 +138,8 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
      *
      * @param featureFile file containing Features
      * @param name logical name for this data source (may be null)
-     * @param queryLookaheadBases look ahead this many bases during queries that produce cache misses
+     * @param queryLookaheadBases initially look ahead this many bases during queries that produce cache misses (the
+     *                            lookahead then adapts to the access pattern, see {@link FeatureCache})
      */
     public FeatureDataSource(final File featureFile, final String name, final int queryLookaheadBases){
         this(Utils.nonNull(featureFile).getAbsolutePath(), name, queryLookaheadBases, null);
@@ -159,7 +150,8 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
      *
      * @param featurePath path to file or GenomicsDB url containing features
      * @param name logical name for this data source (may be null)
-     * @param queryLookaheadBases look ahead this many bases during queries that produce cache misses
+     * @param queryLookaheadBases initially look ahead this many bases during queries that produce cache misses (the
+     *                            lookahead then adapts to the access pattern, see {@link FeatureCache})
      * @param targetFeatureType When searching for a {@link FeatureCodec} for this data source, restrict the search to codecs
      *                          that produce this type of Feature. May be null, which results in an unrestricted search.
      */
@@ -172,7 +164,8 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
      * during queries that produce cache misses.
      *
      * @param featureInput a FeatureInput specifying a source of Features
-     * @param queryLookaheadBases look ahead this many bases during queries that produce cache misses
+     * @param queryLookaheadBases initially look ahead this many bases during queries that produce cache misses (the
+     *                            lookahead then adapts to the access pattern, see {@link FeatureCache})
      * @param targetFeatureType When searching for a {@link FeatureCodec} for this data source, restrict the search to codecs
      *                          that produce this type of Feature. May be null, which results in an unrestricted search.
      */
@@ -197,8 +190,7 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
 
         this.currentIterator = null;
         this.intervalsForTraversal = null;
-        this.queryCache = new FeatureCache<>();
-        this.queryLookaheadBases = queryLookaheadBases;
+        this.queryCache = new FeatureCache<>(queryLookaheadBases);
     }
 
     /**
@@ -378,24 +370,19 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
                                     "If it's a file, please index it using the bundled tool " + IndexFeatureFile.class.getSimpleName());
         }
 
-        // If the query can be satisfied using existing cache contents, prepare for retrieval
-        // by discarding all Features at the beginning of the cache that end before the start
-        // of our query interval.
-        if ( queryCache.cacheHit(interval) ) {
-            queryCache.trimToNewStartPosition(interval.getStart());
-        }
-        // Otherwise, we have a cache miss, so go to disk to refill our cache.
-        else {
+        // If the query can't be satisfied using existing cache contents, we have a cache miss,
+        // so go to disk to add a new window to our cache.
+        if ( ! queryCache.cacheHit(interval) ) {
             refillQueryCache(interval);
         }
 
         // Return the subset of our cache that overlaps our query interval
-        return queryCache.getCachedFeaturesUpToStopPosition(interval.getEnd());
+        return queryCache.getCachedFeatures(interval);
     }
 
     /**
      * Refill our cache from disk after a cache miss. Will prefetch Features overlapping an additional
-     * queryLookaheadBases bases after the end of the provided interval, in addition to those overlapping
+     * {@link FeatureCache#getLookaheadBases()} bases after the end of the provided interval, in addition to those overlapping
      * the interval itself.
      *
      * Calling this has the side effect of invalidating (closing) any currently-open iteration over
@@ -408,13 +395,13 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
         // results in undefined behavior
         closeOpenIterationIfNecessary();
 
-        // Expand the end of our query by the configured number of bases, in anticipation of probable future
+        // Expand the end of our query by the cache's current lookahead, in anticipation of probable future
         // queries with slightly larger start/stop positions.
         //
         // Note that it doesn't matter if we go off the end of the contig in the process, since
         // our reader's query operation is not aware of (and does not care about) contig boundaries.
         // Note: we use addExact to blow up on overflow rather than propagate negative results downstream
-        final SimpleInterval queryInterval = new SimpleInterval(interval.getContig(), interval.getStart(), Math.addExact(interval.getEnd(), queryLookaheadBases));
+        final SimpleInterval queryInterval = new SimpleInterval(interval.getContig(), interval.getStart(), Math.addExact(interval.getEnd(), queryCache.getLookaheadBases()));
 
         // Query iterator over our reader will be immediately closed after re-populating our cache
         try ( CloseableTribbleIterator<T> queryIter = featureReader.query(queryInterval.getContig(), queryInterval.getStart(), queryInterval.getEnd()) ) {
@@ -14,6 +14,7 @@ import org.broadinstitute.hellbender.cmdline.CommandLineProgram;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
 
 import java.io.File;
 import java.lang.reflect.Field;
@@ -87,6 +88,11 @@ public final class FeatureManager implements AutoCloseable {
      */
     private final Map<FeatureInput<? extends Feature>, FeatureDataSource<? extends Feature>> featureSources;
 
+    /**
+     * Metrics to which the time spent in Feature queries is reported
+     */
+    private TraversalMetrics traversalMetrics = TraversalMetrics.DISABLED;
+
     /**
      * Create a FeatureManager given a CommandLineProgram tool instance, discovering all FeatureInput
      * arguments in the tool and creating query-able FeatureDataSources for them. Uses the default
@@ -261,7 +267,22 @@ public final class FeatureManager implements AutoCloseable {
         // No danger of a ClassCastException here, since we verified that the FeatureDataSource for this
         // FeatureInput will return Features of the expected type T when we first created the data source
         // in initializeFeatureSources()
-        return dataSource.queryAndPrefetch(interval);
+        final TraversalMetrics.Stage previousStage = traversalMetrics.enter(TraversalMetrics.Stage.FEATURES);
+        try {
+            return dataSource.queryAndPrefetch(interval);
+        }
+        finally {
+            traversalMetrics.exit(previousStage);
+        }
+    }
+
+    /**
+     * Report the time spent in {@link #getFeatures} queries to the given metrics.
+     *
+     * Package-private so that the engine can set it, but tools cannot.
+     */
+    void setTraversalMetrics( final TraversalMetrics traversalMetrics ) {
+        this.traversalMetrics = Utils.nonNull(traversalMetrics);
     }
 
     /**
@@ -1,6 +1,7 @@
 package org.broadinstitute.hellbender.engine;
 
 import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileWriter;
 import htsjdk.samtools.SAMProgramRecord;
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.SamReaderFactory;
@@ -46,6 +47,15 @@ public abstract class GATKTool extends CommandLineProgram {
     @Argument(fullName = "secondsBetweenProgressUpdates", shortName = "secondsBetweenProgressUpdates", doc = "Output traversal statistics every time this many seconds elapse", optional = true)
     private double secondsBetweenProgressUpdates = ProgressMeter.DEFAULT_SECONDS_BETWEEN_UPDATES;
 
+    @Argument(fullName = "readPrefetchBatches", shortName = "readPrefetchBatches", doc = "Number of batches of " + ReadsDataSource.READS_PER_PREFETCH_BATCH + " reads per input file to decompress and decode on a background thread ahead of the traversal. 0 to decode reads on the traversal thread.", optional = true)
+    private int readPrefetchBatches = 0;
+
+    @Argument(fullName = "readInflaterThreads", shortName = "readInflaterThreads", doc = "Number of threads per input BAM file on which to decompress reads during a traversal of the entire file. 1 to decompress on the traversal thread.", optional = true)
+    private int readInflaterThreads = 1;
+
+    @Argument(fullName = "traversalMetricsFile", shortName = "traversalMetricsFile", doc = "File to which to write a tab-separated report of the time spent in each stage of the traversal (reading input, filtering, reference and Feature queries, the tool's processing, and writing output). The report is rewritten with each progress update and at the end of the traversal.", optional = true)
+    private File traversalMetricsFile = null;
+
     @Argument(fullName = "disableSequenceDictionaryValidation", shortName = "disableSequenceDictionaryValidation", doc = "If specified, do not check the sequence dictionaries from our inputs for compatibility. Use at your own risk!", optional = true)
     private boolean disableSequenceDictionaryValidation = false;
 
@@ -117,6 +127,12 @@ public abstract class GATKTool extends CommandLineProgram {
      */
     ProgressMeter progressMeter;
 
+    /**
+     * Per-stage timing of the traversal, disabled unless the user asked for a {@link #traversalMetricsFile}.
+     * Engine-created data sources and writers report their time to it.
+     */
+    TraversalMetrics traversalMetrics = TraversalMetrics.DISABLED;
+
     /**
      * Initialize our source of reference data (or set it to null if no reference argument was provided).
      *
@@ -135,20 +151,47 @@ public abstract class GATKTool extends CommandLineProgram {
      */
     void initializeReads() {
         if (! readArguments.getReadFiles().isEmpty()) {
-            SamReaderFactory factory = SamReaderFactory.makeDefault().validationStringency(readArguments.getReadValidationStringency());
-            if (hasReference()) { // pass in reference if available, because CRAM files need it
-                factory = factory.referenceSequence(referenceArguments.getReferenceFile());
-            }
-            else if (hasCramInput()) {
-                throw new UserException.MissingReference("A reference file is required when using CRAM files.");
-            }
-            reads = new ReadsDataSource(readArguments.getReadFiles(), factory);
+            reads = createReadsDataSource();
         }
         else {
             reads = null;
         }
     }
 
+    /**
+     * Open a new source of reads data over the reads arguments, independent of {@link #reads}. Used by
+     * multi-threaded traversals to give each worker thread its own reads data source.
+     *
+     * Package-private so that engine classes can access it, but concrete tool child classes cannot.
+     */
+    final ReadsDataSource createReadsDataSource() {
+        SamReaderFactory factory = SamReaderFactory.makeDefault().validationStringency(readArguments.getReadValidationStringency());
+        if (hasReference()) { // pass in reference if available, because CRAM files need it
+            if (ReferenceTwoBitFileSource.isTwoBit(referenceArguments.getReferenceFile())) {
+                // htsjdk only decodes CRAM with a fasta reference, and rejects a .2bit one even for other formats
+                if (hasCramInput()) {
+                    throw new UserException.MissingReference("A fasta reference is required when using CRAM files (a .2bit reference can't be used to decode CRAM).");
+                }
+            } else {
+                factory = factory.referenceSequence(referenceArguments.getReferenceFile());
+            }
+        }
+        else if (hasCramInput()) {
+            throw new UserException.MissingReference("A reference file is required when using CRAM files.");
+        }
+        if ( readPrefetchBatches < 0 ) {
+            throw new UserException.BadArgumentValue("readPrefetchBatches", String.valueOf(readPrefetchBatches), "should be a non-negative number");
+        }
+        if ( readInflaterThreads < 1 ) {
+            throw new UserException.BadArgumentValue("readInflaterThreads", String.valueOf(readInflaterThreads), "should be a positive number");
+        }
+        final ReadsDataSource readsSource = new ReadsDataSource(readArguments.getReadFiles(), factory);
+        readsSource.setPrefetchBatches(readPrefetchBatches);
+        readsSource.setInflaterThreads(readInflaterThreads);
+        readsSource.setTraversalMetrics(traversalMetrics);
+        return readsSource;
+    }
+
     /**
      * Helper method that simply returns a boolean regarding whether the input has CRAM files or not.
      */
@@ -345,11 +388,17 @@ public abstract class GATKTool extends CommandLineProgram {
     protected void onStartup() {
         super.onStartup();
 
+        traversalMetrics = traversalMetricsFile != null ? new TraversalMetrics() : TraversalMetrics.DISABLED;
+
         initializeReference();
+        reference = traversalMetrics.wrap(reference);
 
         initializeReads(); // Must be initialized after reference, in case we are dealing with CRAM and a reference is required
 
         initializeFeatures();
+        if ( features != null ) {
+            features.setTraversalMetrics(traversalMetrics);
+        }
 
         initializeIntervals(); // Must be initialized after reference, reads and features, since intervals currently require a sequence dictionary from another data source
 
@@ -360,6 +409,16 @@ public abstract class GATKTool extends CommandLineProgram {
         checkToolRequirements();
 
         progressMeter = new ProgressMeter(secondsBetweenProgressUpdates);
+        if ( traversalMetrics.isEnabled() ) {
+            progressMeter.setProgressUpdateAction(this::writeTraversalMetrics);
+        }
+    }
+
+    /**
+     * Write the current per-stage traversal metrics to the {@link #traversalMetricsFile}
+     */
+    private void writeTraversalMetrics() {
+        traversalMetrics.writeReport(traversalMetricsFile, progressMeter.numRecordsProcessed());
     }
 
     /**
@@ -429,20 +488,27 @@ public abstract class GATKTool extends CommandLineProgram {
      * @return SAMFileWriter
      */
     public final SAMFileGATKReadWriter createSAMWriter(final File outputFile, final boolean preSorted) {
+        return new SAMFileGATKReadWriter(createSAMFileWriter(outputFile, preSorted));
+    }
+
+    /**
+     * Create the underlying htsjdk SAMFileWriter for {@link #createSAMWriter}.
+     *
+     * Package-private so that engine classes can wrap the writer, but concrete tool child classes cannot.
+     */
+    final SAMFileWriter createSAMFileWriter(final File outputFile, final boolean preSorted) {
         if (!hasReference() && IOUtils.isCramFile(outputFile)) {
             throw new UserException.MissingReference("A reference file is required for writing CRAM files");
         }
 
-        return new SAMFileGATKReadWriter(
-                        ReadUtils.createCommonSAMWriter(
-                                outputFile,
-                                referenceArguments.getReferenceFile(),
-                                getHeaderForSAMWriter(),
-                                preSorted,
-                                createOutputBamIndex,
-                                createOutputBamMD5
-                        )
-        );
+        return traversalMetrics.wrap(ReadUtils.createCommonSAMWriter(
+                outputFile,
+                referenceArguments.getReferenceFile(),
+                getHeaderForSAMWriter(),
+                preSorted,
+                createOutputBamIndex,
+                createOutputBamMD5
+        ));
     }
 
     /**
@@ -472,11 +538,11 @@ public abstract class GATKTool extends CommandLineProgram {
             }
         }
 
-        return GATKVariantContextUtils.createVCFWriter(
+        return traversalMetrics.wrap(GATKVariantContextUtils.createVCFWriter(
                 outFile,
                 sequenceDictionary,
                 createOutputVariantMD5,
-                options.toArray(new Options[options.size()]));
+                options.toArray(new Options[options.size()])));
     }
 
     /**
@@ -581,8 +647,14 @@ public abstract class GATKTool extends CommandLineProgram {
         try {
             onTraversalStart();
             progressMeter.start();
+            traversalMetrics.start();
             traverse();
+            traversalMetrics.stop();
             progressMeter.stop();
+            if ( traversalMetrics.isEnabled() ) {
+                writeTraversalMetrics();
+                logger.info(traversalMetrics.getSummaryLine());
+            }
             return onTraversalSuccess();
         } finally {
             closeTool();
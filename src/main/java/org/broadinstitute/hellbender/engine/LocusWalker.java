@@ -2,6 +2,7 @@ package org.broadinstitute.hellbender.engine;
 
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMReadGroupRecord;
+import htsjdk.samtools.SAMSequenceDictionary;
 import org.broadinstitute.hellbender.cmdline.Argument;
 import org.broadinstitute.hellbender.cmdline.GATKPlugin.GATKCommandLinePluginDescriptor;
 import org.broadinstitute.hellbender.cmdline.GATKPlugin.GATKReadFilterPluginDescriptor;
@@ -10,13 +11,21 @@ import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
 import org.broadinstitute.hellbender.engine.filters.WellformedReadFilter;
 import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.IntervalUtils;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.iterators.IntervalOverlappingIterator;
 import org.broadinstitute.hellbender.utils.iterators.ReadFilteringIterator;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.downsampling.DownsamplingMethod;
 import org.broadinstitute.hellbender.utils.locusiterator.LIBSDownsamplingInfo;
 import org.broadinstitute.hellbender.utils.locusiterator.LocusIteratorByState;
 
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
@@ -29,6 +38,11 @@ import java.util.stream.StreamSupport;
  * LocusWalker authors must implement the apply() method to process each position, and may optionally implement
  * onTraversalStart(), onTraversalSuccess() and/or closeTool().
  *
+ * Tools whose apply() is thread-safe may override {@link #isApplyThreadSafe()} to return true, in which case
+ * the user can request a sharded, multi-threaded traversal via {@link #traversalThreads}. Such tools must write
+ * their output through a stream obtained from {@link #createOrderedPrintStream} so that it is emitted in genomic
+ * order.
+ *
  * @author Daniel Gomez-Sanchez (magicDGS)
  */
 public abstract class LocusWalker extends GATKTool {
@@ -36,6 +50,23 @@ public abstract class LocusWalker extends GATKTool {
     @Argument(fullName = "maxDepthPerSample", shortName = "maxDepthPerSample", doc = "Maximum number of reads to retain per sample per locus. Reads above this threshold will be downsampled. Set to 0 to disable.", optional = true)
     protected int maxDepthPerSample = defaultMaxDepthPerSample();
 
+    @Argument(fullName = "traversalThreads", shortName = "traversalThreads", doc = "Number of threads to use to process loci. Only honored by tools whose apply() is thread-safe; other tools always run single-threaded. Requires indexed reads.", optional = true)
+    public int traversalThreads = 1;
+
+    @Argument(fullName = "locusShardSize", shortName = "locusShardSize", doc = "Size, in bases, of the shards processed independently by each thread during a multi-threaded traversal.", optional = true)
+    public int locusShardSize = DEFAULT_LOCUS_SHARD_SIZE;
+
+    /**
+     * Default value for {@link #locusShardSize}. Large enough that the reads overlapping both sides of a shard
+     * boundary (which are loaded by both shards) are a negligible fraction of the total.
+     */
+    public static final int DEFAULT_LOCUS_SHARD_SIZE = 100_000;
+
+    /**
+     * Keeps output written from {@link #apply} during a multi-threaded traversal in genomic order.
+     */
+    private final OrderedOutput orderedOutput = new OrderedOutput();
+
     /**
      * Should the LIBS keep unique reads? Tools that do should override to return {@code true}.
      */
@@ -142,6 +173,11 @@ public abstract class LocusWalker extends GATKTool {
     @Override
     protected final void onStartup() {
         super.onStartup();
+        // the multi-threaded traversal queries the reads of each shard by interval
+        if ( traversalThreads > 1 && isApplyThreadSafe() && ! reads.isQueryableByInterval() ) {
+            throw new UserException.BadArgumentValue("traversalThreads", String.valueOf(traversalThreads),
+                    "a multi-threaded traversal requires indexed reads. Index all the input files, or run with --traversalThreads 1");
+        }
         if ( hasIntervals() ) {
             reads.setTraversalBounds(intervalArgumentCollection.getTraversalParameters(getHeaderForReads().getSequenceDictionary()));
         }
@@ -163,6 +199,19 @@ public abstract class LocusWalker extends GATKTool {
                                           .map(SAMReadGroupRecord::getSample)
                                           .collect(Collectors.toSet());
         final CountingReadFilter countedFilter = makeReadFilter();
+
+        if ( traversalThreads < 1 ) {
+            throw new UserException.BadArgumentValue("traversalThreads", String.valueOf(traversalThreads), "should be a positive number");
+        }
+        if ( traversalThreads > 1 ) {
+            if ( isApplyThreadSafe() ) {
+                traverseInParallel(samples, countedFilter);
+                logger.info(countedFilter.getSummaryLine());
+                return;
+            }
+            logger.warn(getClass().getSimpleName() + " does not support multi-threaded traversal; ignoring traversalThreads=" + traversalThreads);
+        }
+
         // get the LIBS
         final LocusIteratorByState libs = new LocusIteratorByState(new ReadFilteringIterator(reads.iterator(), countedFilter), getDownsamplingInfo(), keepUniqueReadListInLibs(), samples, header, includeDeletions(), includeNs());
         // prepare the iterator
@@ -178,6 +227,119 @@ public abstract class LocusWalker extends GATKTool {
         logger.info(countedFilter.getSummaryLine());
     }
 
+    /**
+     * Sharded, multi-threaded version of the default traversal, used when {@link #traversalThreads} is greater
+     * than 1 and {@link #isApplyThreadSafe()} returns true.
+     *
+     * The traversal intervals (or the whole reference, if there are none) are divided into shards of
+     * {@link #locusShardSize} bases. Each shard is processed on a worker thread by an independent
+     * {@link LocusIteratorByState} over the reads overlapping it, queried from that thread's own data sources.
+     * Output written by {@link #apply} through an ordered stream is replayed on the traversal thread one shard
+     * at a time, in genomic order.
+     *
+     * Reads spanning a shard boundary are loaded (and counted by the read filters) once per shard they overlap.
+     * When downsampling is enabled, such reads are downsampled together with the reads starting at the beginning
+     * of the shard, so the pileups near shard boundaries may differ from those of a single-threaded traversal.
+     */
+    private void traverseInParallel(final Set<String> samples, final CountingReadFilter countedFilter) {
+        if ( locusShardSize < 1 ) {
+            throw new UserException.BadArgumentValue("locusShardSize", String.valueOf(locusShardSize), "should be a positive number");
+        }
+        final SAMSequenceDictionary dictionary = getHeaderForReads().getSequenceDictionary();
+        final List<SimpleInterval> traversalIntervals = hasIntervals() ? intervalsForTraversal : IntervalUtils.getAllIntervalsForReference(dictionary);
+        final Iterator<ShardBoundary> shards = traversalIntervals.stream()
+                .flatMap(interval -> Shard.divideIntervalIntoShards(interval, locusShardSize, 0, dictionary).stream())
+                .iterator();
+        // CountingReadFilter is not thread-safe, so the workers share it under a lock
+        final ReadFilter sharedFilter = new ReadFilter() {
+            private static final long serialVersionUID = 1L;
+            @Override
+            public boolean test(final GATKRead read) {
+                synchronized ( countedFilter ) {
+                    return countedFilter.test(read);
+                }
+            }
+        };
+
+        try ( final PerThreadDataSources workerDataSources = new PerThreadDataSources(this, FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES) ) {
+            final Iterator<LocusShardResult> results = Utils.transformParallel(shards,
+                    shard -> traversalMetrics.time(TraversalMetrics.Stage.APPLY, () -> applyToShard(shard, samples, sharedFilter, workerDataSources)),
+                    traversalThreads);
+
+            while ( results.hasNext() ) {
+                final LocusShardResult result = results.next();
+                result.output.forEach(Runnable::run);
+                result.loci.forEach(progressMeter::update);
+            }
+        }
+    }
+
+    /**
+     * Calls {@link #apply} on each locus of a shard on the current (worker) thread, capturing any output
+     * written through an ordered stream instead of writing it.
+     */
+    private LocusShardResult applyToShard(final ShardBoundary shardBoundary, final Set<String> samples, final ReadFilter readFilter, final PerThreadDataSources workerDataSources) {
+        final SAMFileHeader header = getHeaderForReads();
+        final LocalReadShard shard = new LocalReadShard(shardBoundary.getInterval(), shardBoundary.getPaddedInterval(), workerDataSources.getReads());
+        shard.setReadFilter(readFilter);
+        final LocusIteratorByState libs = new LocusIteratorByState(shard.iterator(), getDownsamplingInfo(), keepUniqueReadListInLibs(), samples, header, includeDeletions(), includeNs());
+        // LIBS also yields the loci covered by reads overhanging the shard, which belong to the neighbouring shards
+        final Iterator<AlignmentContext> shardLoci = new IntervalOverlappingIterator<>(libs, Collections.singletonList(shard.getInterval()), header.getSequenceDictionary());
+
+        final LocusShardResult result = new LocusShardResult();
+        return orderedOutput.capture(result.output, () -> {
+            while ( shardLoci.hasNext() ) {
+                final AlignmentContext alignmentContext = shardLoci.next();
+                final SimpleInterval alignmentInterval = new SimpleInterval(alignmentContext);
+                apply(alignmentContext,
+                      new ReferenceContext(workerDataSources.getReference(), alignmentInterval),
+                      new FeatureContext(workerDataSources.getFeatures(), alignmentInterval));
+                result.loci.add(alignmentInterval);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Loci of a shard processed by a worker thread, and the output emitted while processing them.
+     */
+    private static final class LocusShardResult {
+        final List<SimpleInterval> loci = new ArrayList<>();
+        final List<Runnable> output = new ArrayList<>();
+    }
+
+    /**
+     * Can {@link #apply} be safely called concurrently from multiple threads? Tools should override to return
+     * true only if apply() keeps no state other than per-thread or properly synchronized state, does not retain
+     * the AlignmentContext, ReferenceContext or FeatureContext beyond the call, and writes its output through a
+     * stream obtained from {@link #createOrderedPrintStream}.
+     *
+     * If this returns false (the default), the traversal is always single-threaded, even if the user requests
+     * more than one {@link #traversalThreads}.
+     *
+     * @return {@code true} if apply() is thread-safe, {@code false} otherwise
+     */
+    public boolean isApplyThreadSafe() {
+        return false;
+    }
+
+    /**
+     * Creates a PrintStream to the given file whose output appears in genomic order regardless of whether the
+     * traversal is multi-threaded: text printed from {@link #apply} on a worker thread is buffered and written once
+     * all preceding shards have been written. Output printed outside of apply() is written immediately.
+     *
+     * @param outputFile file to write to (will be overwritten if it exists)
+     * @return a PrintStream for the tool's output; the caller is responsible for closing it
+     */
+    public final PrintStream createOrderedPrintStream(final File outputFile) {
+        Utils.nonNull(outputFile);
+        try {
+            return new PrintStream(orderedOutput.wrap(new BufferedOutputStream(new FileOutputStream(outputFile))));
+        } catch (final FileNotFoundException e) {
+            throw new UserException.CouldNotCreateOutputFile(outputFile, e);
+        }
+    }
+
     /**
      * Process an individual AlignmentContext (with optional contextual information). Must be implemented by tool authors.
      * In general, tool authors should simply stream their output from apply(), and maintain as little internal state
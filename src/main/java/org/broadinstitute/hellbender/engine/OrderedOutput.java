@@ -0,0 +1,134 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.util.ProgressLoggerInterface;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the output of a multi-threaded traversal in traversal order.
+ *
+ * The traversal hands each unit of work (a batch of reads, a shard of loci, ...) to a worker thread, which runs it
+ * inside {@link #capture}. Anything written during that call through a writer or stream wrapped by this object is
+ * recorded instead of written, and the traversal thread later replays the recorded output of each unit of work in
+ * order. Writes made on a thread that is not capturing (e.g. from onTraversalStart() or onTraversalSuccess(), or
+ * during a single-threaded traversal) go straight through to the underlying writer.
+ */
+final class OrderedOutput {
+
+    private final ThreadLocal<List<Runnable>> pendingOutput = new ThreadLocal<>();
+
+    /**
+     * Runs work on the current thread, recording any output written through the wrapped writers into output.
+     *
+     * @param output list to which the deferred writes are appended, to be run in order on the traversal thread
+     * @param work the work to do
+     * @return the result of work
+     */
+    <T> T capture(final List<Runnable> output, final Supplier<T> work) {
+        Utils.nonNull(output);
+        pendingOutput.set(output);
+        try {
+            return work.get();
+        }
+        finally {
+            pendingOutput.remove();
+        }
+    }
+
+    /**
+     * Runs write immediately, or records it if the current thread is capturing output.
+     */
+    private void write(final Runnable write) {
+        final List<Runnable> output = pendingOutput.get();
+        if ( output == null ) {
+            write.run();
+        }
+        else {
+            output.add(write);
+        }
+    }
+
+    private boolean isCapturing() {
+        return pendingOutput.get() != null;
+    }
+
+    /**
+     * @return a SAMFileWriter that defers records added during {@link #capture} and otherwise writes to writer
+     */
+    SAMFileWriter wrap(final SAMFileWriter writer) {
+        Utils.nonNull(writer);
+        return new SAMFileWriter() {
+            @Override
+            public void addAlignment(final SAMRecord alignment) {
+                write(() -> writer.addAlignment(alignment));
+            }
+
+            @Override
+            public SAMFileHeader getFileHeader() {
+                return writer.getFileHeader();
+            }
+
+            @Override
+            public void setProgressLogger(final ProgressLoggerInterface progress) {
+                writer.setProgressLogger(progress);
+            }
+
+            @Override
+            public void close() {
+                writer.close();
+            }
+        };
+    }
+
+    /**
+     * @return an OutputStream that defers bytes written during {@link #capture} and otherwise writes to out
+     */
+    OutputStream wrap(final OutputStream out) {
+        Utils.nonNull(out);
+        return new OutputStream() {
+            @Override
+            public void write(final int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(final byte[] b, final int off, final int len) throws IOException {
+                if ( ! isCapturing() ) {
+                    out.write(b, off, len);
+                    return;
+                }
+                // the caller may reuse its buffer, so keep a copy until the output is replayed
+                final byte[] bytes = Arrays.copyOfRange(b, off, off + len);
+                OrderedOutput.this.write(() -> {
+                    try {
+                        out.write(bytes);
+                    } catch (final IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+
+            @Override
+            public void flush() throws IOException {
+                // a flush from a worker thread could only reach output that precedes its own, so leave it to the traversal thread
+                if ( ! isCapturing() ) {
+                    out.flush();
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                out.close();
+            }
+        };
+    }
+}
@@ -0,0 +1,97 @@
+package org.broadinstitute.hellbender.engine;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Per-thread copies of a tool's reference, reads and Feature data sources, for use by multi-threaded traversals.
+ *
+ * Apart from a thread-safe reference such as a memory-mapped .2bit file ({@link ReferenceTwoBitFileSource}), which all threads share,
+ * none of the engine data sources are thread-safe, so each worker thread gets its own copy, opened lazily the
+ * first time that thread asks for it. A data source the tool itself does not have is never opened, and the
+ * corresponding getter returns null (the same convention as the tool's own data sources).
+ *
+ * All data sources opened through this object are closed by {@link #close}, which must be called from the
+ * traversal thread once the worker threads are done.
+ */
+final class PerThreadDataSources implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(PerThreadDataSources.class);
+
+    private final List<AutoCloseable> openedSources = Collections.synchronizedList(new ArrayList<>());
+    private final ThreadLocal<ReferenceDataSource> reference;
+    private final ThreadLocal<ReadsDataSource> reads;
+    private final ThreadLocal<FeatureManager> features;
+
+    /**
+     * @param tool tool whose data sources should be replicated
+     * @param featureQueryLookahead lookahead to use for the per-thread FeatureManagers
+     */
+    PerThreadDataSources(final GATKTool tool, final int featureQueryLookahead) {
+        Utils.nonNull(tool);
+        if ( tool.hasReference() && tool.reference.isThreadSafe() ) {
+            final ReferenceDataSource sharedReference = tool.reference;
+            reference = ThreadLocal.withInitial(() -> sharedReference);
+        }
+        else {
+            reference = ThreadLocal.withInitial(() -> tool.hasReference() ? register(tool.traversalMetrics.wrap(ReferenceDataSource.of(tool.referenceArguments.getReferenceFile()))) : null);
+        }
+        reads = ThreadLocal.withInitial(() -> tool.hasReads() ? register(tool.createReadsDataSource()) : null);
+        features = ThreadLocal.withInitial(() -> tool.hasFeatures() ? register(createFeatureManager(tool, featureQueryLookahead)) : null);
+    }
+
+    private static FeatureManager createFeatureManager(final GATKTool tool, final int featureQueryLookahead) {
+        final FeatureManager featureManager = new FeatureManager(tool, featureQueryLookahead);
+        featureManager.setTraversalMetrics(tool.traversalMetrics);
+        return featureManager;
+    }
+
+    private <T extends AutoCloseable> T register(final T source) {
+        openedSources.add(source);
+        return source;
+    }
+
+    /**
+     * @return the calling thread's reference data source, or null if the tool has no reference
+     */
+    ReferenceDataSource getReference() {
+        return reference.get();
+    }
+
+    /**
+     * @return the calling thread's reads data source, or null if the tool has no reads
+     */
+    ReadsDataSource getReads() {
+        return reads.get();
+    }
+
+    /**
+     * @return the calling thread's Feature data sources, or null if the tool has no Features
+     */
+    FeatureManager getFeatures() {
+        return features.get();
+    }
+
+    /**
+     * Close every data source opened by any thread. Errors are logged rather than thrown, so that one failure
+     * does not leave the remaining data sources open.
+     */
+    @Override
+    public void close() {
+        synchronized ( openedSources ) {
+            for ( final AutoCloseable source : openedSources ) {
+                try {
+                    source.close();
+                }
+                catch ( Exception e ) {
+                    logger.warn("Error closing per-thread data source", e);
+                }
+            }
+            openedSources.clear();
+        }
+    }
+}
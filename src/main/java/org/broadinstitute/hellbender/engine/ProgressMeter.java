@@ -5,6 +5,7 @@ import htsjdk.samtools.util.Locatable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.runtime.AllocationCounter;
 
 import java.util.function.LongSupplier;
 
@@ -20,6 +21,10 @@ import java.util.function.LongSupplier;
  * Note that {@link #start} must only be called once, before any {@link #update(Locatable)}.
  * Note no {@link #update(Locatable)} must be called after {@link #stop}.
  *
+ * The meter also counts the heap memory allocated by the thread that started it (the traversal thread), and
+ * reports the number of bytes allocated per record at {@link #stop}, when the JVM supports it. Allocations made by
+ * other threads (e.g. the workers of a multi-threaded traversal) are not counted.
+ *
  * All output is made at INFO level via log4j.
  */
 public final class ProgressMeter {
@@ -104,6 +109,21 @@ public final class ProgressMeter {
      */
     private LongSupplier timeFunction;
 
+    /**
+     * Counts the bytes allocated by the traversal thread since {@link #start}
+     */
+    private AllocationCounter allocationCounter = null;
+
+    /**
+     * Bytes allocated by the traversal thread between {@link #start} and {@link #stop}
+     */
+    private long allocatedBytes = 0L;
+
+    /**
+     * Action to run each time we output a progress line to the logger (null if none)
+     */
+    private Runnable progressUpdateAction = null;
+
     /**
      * Keeps track of whether the progress meter has ever been started.
      */
@@ -160,6 +180,16 @@ public final class ProgressMeter {
         this.recordsBetweenTimeChecks = recordsBetweenTimeChecks;
     }
 
+    /**
+     * Set an action to run each time a progress line is output to the logger, e.g. to write out other metrics
+     * of the traversal at the same interval.
+     *
+     * @param progressUpdateAction action to run, or null for none
+     */
+    public void setProgressUpdateAction( final Runnable progressUpdateAction ) {
+        this.progressUpdateAction = progressUpdateAction;
+    }
+
     /**
      * Start the progress meter and produce preliminary output such as column headings.
      * @throws IllegalStateException if the meter has been started before or has been stopped already
@@ -181,6 +211,8 @@ public final class ProgressMeter {
         numRecordsProcessed = 0L;
         numLoggerUpdates = 0L;
         currentLocus = null;
+        allocatedBytes = 0L;
+        allocationCounter = new AllocationCounter();
     }
 
     /**
@@ -222,7 +254,24 @@ public final class ProgressMeter {
         }
         this.stopped = true;
         currentTimeMs = timeFunction.getAsLong();
+        allocatedBytes = allocationCounter.getAllocatedBytes();
         logger.info(String.format("Traversal complete. Processed %d total records in %.1f minutes.", numRecordsProcessed, elapsedTimeInMinutes()));
+        if ( AllocationCounter.isSupported() && numRecordsProcessed > 0 ) {
+            logger.info(String.format("Traversal thread allocated %.1f bytes per record.", allocatedBytesPerRecord()));
+        }
+    }
+
+    /**
+     * @return the average number of bytes allocated by the traversal thread per record processed between
+     *         {@link #start} and {@link #stop}, or 0 if allocation counting is not supported by the JVM or
+     *         no records were processed
+     * @throws IllegalStateException if the meter has not been stopped yet
+     */
+    public double allocatedBytesPerRecord() {
+        if (! stopped){
+            throw new IllegalStateException("the progress meter has not been stopped yet");
+        }
+        return numRecordsProcessed == 0 ? 0.0 : allocatedBytes / (double)numRecordsProcessed;
     }
 
     /**
@@ -240,6 +289,9 @@ public final class ProgressMeter {
         ++numLoggerUpdates;
         logger.info(String.format("%20s  %15.1f  %20d  %15.1f",
                                   currentLocusString(), elapsedTimeInMinutes(), numRecordsProcessed, processingRate()));
+        if ( progressUpdateAction != null ) {
+            progressUpdateAction.run();
+        }
     }
 
     /**
@@ -275,6 +327,13 @@ public final class ProgressMeter {
         return numRecordsProcessed / elapsedTimeInMinutes();
     }
 
+    /**
+     * @return total number of records processed so far
+     */
+    public long numRecordsProcessed() {
+        return numRecordsProcessed;
+    }
+
     /**
      * @return number of times we've outputted a progress line to the logger (for unit testing purposes)
      */
@@ -1,14 +1,23 @@
 package org.broadinstitute.hellbender.engine;
 
+import com.google.common.collect.Iterators;
+import htsjdk.samtools.util.Locatable;
+import org.broadinstitute.hellbender.cmdline.Argument;
 import org.broadinstitute.hellbender.cmdline.GATKPlugin.GATKCommandLinePluginDescriptor;
 import org.broadinstitute.hellbender.cmdline.GATKPlugin.GATKReadFilterPluginDescriptor;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.WellformedReadFilter;
+import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.SAMFileGATKReadWriter;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.stream.StreamSupport;
 
@@ -20,9 +29,21 @@ import java.util.stream.StreamSupport;
  *
  * ReadWalker authors must implement the apply() method to process each read, and may optionally implement
  * onTraversalStart() and/or onTraversalSuccess(). See the PrintReadsWithReference walker for an example.
+ *
+ * Tools whose apply() is thread-safe may override {@link #isApplyThreadSafe()} to return true, in which case
+ * the user can request a multi-threaded traversal via {@link #traversalThreads}. Such tools must write their
+ * output through a writer obtained from {@link #createOrderedSAMWriter} so that it is emitted in the original
+ * order of the reads.
+ *
+ * Tools that never keep a reference to the ReferenceContext/FeatureContext they are handed beyond a call to
+ * apply() may override {@link #canReuseContexts()} to return true, in which case the traversal hands them
+ * the same context objects for every read instead of allocating new ones.
  */
 public abstract class ReadWalker extends GATKTool {
 
+    @Argument(fullName = "traversalThreads", shortName = "traversalThreads", doc = "Number of threads to use to process reads. Only honored by tools whose apply() is thread-safe; other tools always run single-threaded.", optional = true)
+    public int traversalThreads = 1;
+
     @Override
     public boolean requiresReads() {
         return true;
@@ -34,6 +55,17 @@ public abstract class ReadWalker extends GATKTool {
      */
     public static final int FEATURE_CACHE_LOOKAHEAD = 1_000;
 
+    /**
+     * Number of reads handed to a worker thread at a time during a multi-threaded traversal. Large enough
+     * to amortize the cost of scheduling, small enough to keep the buffered output of in-flight batches modest.
+     */
+    public static final int READS_PER_TRAVERSAL_BATCH = 1_000;
+
+    /**
+     * Keeps output written from {@link #apply} during a multi-threaded traversal in the original order of the reads.
+     */
+    private final OrderedOutput orderedOutput = new OrderedOutput();
+
     /**
      * Return the list of GATKCommandLinePluginDescriptors to be used for this tool.
      * Uses the read filter plugin.
@@ -87,27 +119,191 @@ public abstract class ReadWalker extends GATKTool {
         // Supply reference bases spanning each read, if a reference is available.
         final CountingReadFilter countedFilter = makeReadFilter();
 
+        if ( traversalThreads < 1 ) {
+            throw new UserException.BadArgumentValue("traversalThreads", String.valueOf(traversalThreads), "should be a positive number");
+        }
+        if ( traversalThreads > 1 ) {
+            if ( isApplyThreadSafe() ) {
+                traverseInParallel(countedFilter);
+                logger.info(countedFilter.getSummaryLine());
+                return;
+            }
+            logger.warn(getClass().getSimpleName() + " does not support multi-threaded traversal; ignoring traversalThreads=" + traversalThreads);
+        }
+
+        final ReadContexts contexts = new ReadContexts(reference, features, canReuseContexts());
         StreamSupport.stream(reads.spliterator(), false)
-                .filter(countedFilter)
+                .filter(traversalMetrics.wrap(TraversalMetrics.Stage.FILTERING, countedFilter))
                 .forEach(read -> {
-                    final SimpleInterval readInterval = getReadInterval(read);
-                    apply(read,
-                          new ReferenceContext(reference, readInterval), // Will create an empty ReferenceContext if reference or readInterval == null
-                          new FeatureContext(features, readInterval));   // Will create an empty FeatureContext if features or readInterval == null
+                    // Contexts will be empty if reference, features or the read's interval are null
+                    final Locatable readLocation = contexts.moveTo(read);
+                    apply(read, contexts.getReferenceContext(), contexts.getFeatureContext());
 
-                    progressMeter.update(readInterval);
+                    progressMeter.update(readLocation);
                 });
 
         logger.info(countedFilter.getSummaryLine());
     }
 
+    /**
+     * Multi-threaded version of the default traversal, used when {@link #traversalThreads} is greater than 1
+     * and {@link #isApplyThreadSafe()} returns true.
+     *
+     * Reads are filtered on the traversal thread and handed out in batches of {@link #READS_PER_TRAVERSAL_BATCH}
+     * to a pool of worker threads. Each worker queries its own reference and Feature data sources, since those
+     * are not thread-safe. Output written by {@link #apply} through an ordered writer is replayed on the traversal
+     * thread one batch at a time, in the original order of the reads.
+     */
+    private void traverseInParallel(final CountingReadFilter countedFilter) {
+        try ( final PerThreadDataSources workerDataSources = new PerThreadDataSources(this, FEATURE_CACHE_LOOKAHEAD) ) {
+            final Iterator<List<GATKRead>> batches = Iterators.partition(Iterators.filter(reads.iterator(), traversalMetrics.wrap(TraversalMetrics.Stage.FILTERING, countedFilter)::test), READS_PER_TRAVERSAL_BATCH);
+            final Iterator<ReadBatchResult> results = Utils.transformParallel(batches,
+                    batch -> traversalMetrics.time(TraversalMetrics.Stage.APPLY, () -> applyToBatch(batch, workerDataSources.getReference(), workerDataSources.getFeatures())),
+                    traversalThreads);
+
+            while ( results.hasNext() ) {
+                final ReadBatchResult result = results.next();
+                result.output.forEach(Runnable::run);
+                result.readLocations.forEach(progressMeter::update);
+            }
+        }
+    }
+
+    /**
+     * Calls {@link #apply} on each read in a batch on the current (worker) thread, capturing any output
+     * written through an ordered writer instead of writing it.
+     */
+    private ReadBatchResult applyToBatch(final List<GATKRead> batch, final ReferenceDataSource workerReference, final FeatureManager workerFeatures) {
+        final ReadBatchResult result = new ReadBatchResult(batch.size());
+        final ReadContexts contexts = new ReadContexts(workerReference, workerFeatures, canReuseContexts());
+        return orderedOutput.capture(result.output, () -> {
+            for ( final GATKRead read : batch ) {
+                result.readLocations.add(contexts.moveTo(read));
+                apply(read, contexts.getReferenceContext(), contexts.getFeatureContext());
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Locations of the reads in a batch processed by a worker thread, and the output emitted while processing them.
+     */
+    private static final class ReadBatchResult {
+        final List<Locatable> readLocations;
+        final List<Runnable> output;
+
+        ReadBatchResult(final int batchSize) {
+            readLocations = new ArrayList<>(batchSize);
+            output = new ArrayList<>(batchSize);
+        }
+    }
+
+    /**
+     * Does this tool's {@link #apply} support being called concurrently from several threads? Tools that do
+     * should override to return true; they are then eligible for multi-threaded traversal when the user
+     * requests more than one {@link #traversalThreads}.
+     *
+     * A thread-safe apply() may only keep per-thread or synchronized state, must not retain the
+     * ReferenceContext/FeatureContext it is handed, and must write its output through
+     * {@link #createOrderedSAMWriter} so that the output preserves the input order.
+     *
+     * @return true if apply() is thread-safe, otherwise false (the default)
+     */
+    public boolean isApplyThreadSafe() {
+        return false;
+    }
+
+    /**
+     * May the traversal hand this tool's {@link #apply} the same ReferenceContext and FeatureContext objects for
+     * every read, moving them to each new read, rather than new objects for each read? Tools that keep no
+     * reference to the contexts, or to the arrays returned by {@link ReferenceContext#getBases}, once apply()
+     * returns should override to return true, which avoids allocating two contexts, an interval and (when the
+     * reference supports it) a bases array per read.
+     *
+     * @return true if the contexts handed to apply() may be reused, otherwise false (the default)
+     */
+    public boolean canReuseContexts() {
+        return false;
+    }
+
+    /**
+     * Creates a SAM writer as in {@link #createSAMWriter} that may be written to from {@link #apply} during a
+     * multi-threaded traversal. Reads added from a worker thread are held until the batch they belong to is complete,
+     * and then written on the traversal thread in the original order of the input reads. Outside of a
+     * multi-threaded traversal, reads are written immediately.
+     *
+     * @param outputFile    - if this file has a .cram extension then a reference is required. Can not be null.
+     * @param preSorted     - if true then the records must already be sorted to match the header sort order
+     * @return a SAMFileGATKReadWriter that preserves the input order of the reads under multi-threaded traversal
+     */
+    public final SAMFileGATKReadWriter createOrderedSAMWriter(final File outputFile, final boolean preSorted) {
+        return new SAMFileGATKReadWriter(orderedOutput.wrap(createSAMFileWriter(outputFile, preSorted)));
+    }
+
     /**
      * Returns an interval for the read.
      * Note: some walkers must be able to work on any read, including those whose coordinates do not form a valid SimpleInterval.
      * So here we check this condition and create null intervals for such reads.
      */
     SimpleInterval getReadInterval(final GATKRead read) {
-        return !read.isUnmapped() && SimpleInterval.isValid(read.getContig(), read.getStart(), read.getEnd()) ? new SimpleInterval(read) : null;
+        return hasValidInterval(read) ? new SimpleInterval(read) : null;
+    }
+
+    private static boolean hasValidInterval(final GATKRead read) {
+        return !read.isUnmapped() && SimpleInterval.isValid(read.getContig(), read.getStart(), read.getEnd());
+    }
+
+    /**
+     * Supplies the ReferenceContext and FeatureContext for each read of a traversal: either new contexts for each
+     * read, or a single pair of reusable contexts that is moved from read to read.
+     *
+     * Not thread-safe: each traversal thread needs its own instance.
+     */
+    static final class ReadContexts {
+        private final ReferenceDataSource reference;
+        private final FeatureManager features;
+        private final boolean reuse;
+
+        private ReferenceContext referenceContext;
+        private FeatureContext featureContext;
+
+        ReadContexts(final ReferenceDataSource reference, final FeatureManager features, final boolean reuse) {
+            this.reference = reference;
+            this.features = features;
+            this.reuse = reuse;
+            if ( reuse ) {
+                referenceContext = ReferenceContext.createReusable(reference);
+                featureContext = FeatureContext.createReusable(features);
+            }
+        }
+
+        /**
+         * Make the contexts span the given read. The contexts are empty if the read has no valid interval.
+         *
+         * @return the location of the read to report to the progress meter, or null if it has none
+         */
+        Locatable moveTo(final GATKRead read) {
+            if ( reuse ) {
+                final boolean hasInterval = hasValidInterval(read);
+                final String contig = hasInterval ? read.getContig() : null;
+                referenceContext.reset(contig, read.getStart(), read.getEnd());
+                featureContext.reset(contig, read.getStart(), read.getEnd());
+                return hasInterval ? read : null;
+            }
+
+            final SimpleInterval readInterval = hasValidInterval(read) ? new SimpleInterval(read) : null;
+            referenceContext = new ReferenceContext(reference, readInterval);
+            featureContext = new FeatureContext(features, readInterval);
+            return readInterval;
+        }
+
+        ReferenceContext getReferenceContext() {
+            return referenceContext;
+        }
+
+        FeatureContext getFeatureContext() {
+            return featureContext;
+        }
     }
 
     /**
@@ -10,6 +10,9 @@ import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.io.ParallelBGZFInputStream;
+import org.broadinstitute.hellbender.utils.iterators.AsyncPrefetchingIterator;
+import org.broadinstitute.hellbender.utils.iterators.ParallelInflatingBAMIterator;
 import org.broadinstitute.hellbender.utils.iterators.SAMRecordToReadIterator;
 import org.broadinstitute.hellbender.utils.iterators.SamReaderQueryingIterator;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
@@ -73,6 +76,33 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
      */
     private boolean indicesAvailable;
 
+    /**
+     * Number of reads handed from a prefetch thread to the traversal at a time when prefetching is enabled.
+     */
+    public static final int READS_PER_PREFETCH_BATCH = 1_000;
+
+    /**
+     * Number of batches of {@link #READS_PER_PREFETCH_BATCH} reads to decode ahead of the traversal on a background
+     * thread per reader. 0 if prefetching is disabled.
+     */
+    private int prefetchBatches = 0;
+
+    /**
+     * Number of threads on which to decompress BAM files during unbounded traversals. 1 to use the SamReaders'
+     * own (single-threaded) decompression.
+     */
+    private int inflaterThreads = 1;
+
+    /**
+     * Metrics to which the time spent reading from our iterators is reported
+     */
+    private TraversalMetrics traversalMetrics = TraversalMetrics.DISABLED;
+
+    /**
+     * Validation stringency of our readers, needed to decode records outside of a SamReader
+     */
+    private final ValidationStringency validationStringency;
+
     /**
      * Initialize this data source with a single SAM/BAM file without a reference and validation stringency SILENT.
      *
@@ -121,6 +151,7 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
                 customSamReaderFactory == null ?
                     SamReaderFactory.makeDefault().validationStringency(ReadConstants.DEFAULT_READ_VALIDATION_STRINGENCY) :
                     customSamReaderFactory;
+        validationStringency = samReaderFactory.validationStringency();
 
         for ( final File samFile : samFiles ) {
             // Ensure each file can be read
@@ -190,6 +221,46 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
         }
     }
 
+    /**
+     * Enables or disables decoding reads on background threads, ahead of the caller. When enabled, subsequent calls
+     * to {@link #iterator}, {@link #query} and {@link #queryUnmapped} start one thread per underlying file that
+     * decompresses and fully decodes the file's reads into a bounded buffer, so that this work overlaps with whatever
+     * the caller does with the reads. With multiple files, the files are decoded concurrently and merged on the
+     * calling thread.
+     *
+     * @param prefetchBatches number of batches of {@link #READS_PER_PREFETCH_BATCH} reads to buffer per file,
+     *                        or 0 to read on the calling thread (the default)
+     */
+    public void setPrefetchBatches( final int prefetchBatches ) {
+        Utils.validateArg(prefetchBatches >= 0, "prefetchBatches must be >= 0");
+        this.prefetchBatches = prefetchBatches;
+    }
+
+    /**
+     * Sets the number of threads on which to decompress BAM files during subsequent unbounded traversals via
+     * {@link #iterator}. With more than one thread, the BGZF blocks of each BAM file are read ahead and inflated in
+     * parallel (see {@link ParallelBGZFInputStream}) before the records are decoded. Traversals bounded by intervals,
+     * queries, and SAM/CRAM inputs are unaffected, since they need the index and virtual file offsets of the
+     * SamReaders.
+     *
+     * @param inflaterThreads number of threads per BAM file to decompress on, or 1 to decompress on the reading
+     *                        thread (the default)
+     */
+    public void setInflaterThreads( final int inflaterThreads ) {
+        Utils.validateArg(inflaterThreads >= 1, "inflaterThreads must be >= 1");
+        this.inflaterThreads = inflaterThreads;
+    }
+
+    /**
+     * Report the time spent in the hasNext() and next() methods of the iterators returned by {@link #iterator},
+     * {@link #query} and {@link #queryUnmapped} to the given metrics, as {@link TraversalMetrics.Stage#READS}.
+     *
+     * @param traversalMetrics metrics to report to
+     */
+    public void setTraversalMetrics( final TraversalMetrics traversalMetrics ) {
+        this.traversalMetrics = Utils.nonNull(traversalMetrics);
+    }
+
     /**
      * @return True if traversals initiated via {@link #iterator} will be restricted to reads that overlap intervals
      *         as configured via {@link #setTraversalBounds}, otherwise false
@@ -198,6 +269,13 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
         return intervalsForTraversal != null || traverseUnmapped;
     }
 
+    /**
+     * @return True if all the input files are indexed, so that this data source can be queried by interval
+     */
+    public boolean isQueryableByInterval() {
+        return indicesAvailable;
+    }
+
     private void raiseExceptionForMissingIndex(String reason) {
         String commandsToIndex = backingFiles.entrySet().stream()
                 .filter(f -> !f.getKey().hasIndex())
@@ -288,8 +366,20 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
 
         // Set up an iterator for each reader, bounded to overlap with the supplied intervals if there are any
         for ( Map.Entry<SamReader, CloseableIterator<SAMRecord>> readerEntry : readers.entrySet() ) {
-            readerEntry.setValue(traversalIsBounded ? new SamReaderQueryingIterator(readerEntry.getKey(), queryIntervals, queryUnmapped) :
-                                                      readerEntry.getKey().iterator());
+            final SamReader reader = readerEntry.getKey();
+            final CloseableIterator<SAMRecord> readerIterator;
+            if ( traversalIsBounded ) {
+                readerIterator = new SamReaderQueryingIterator(reader, queryIntervals, queryUnmapped);
+            }
+            else if ( inflaterThreads > 1 && reader.type() == SamReader.Type.BAM_TYPE ) {
+                readerIterator = new ParallelInflatingBAMIterator(backingFiles.get(reader), reader.getFileHeader(), validationStringency, inflaterThreads);
+            }
+            else {
+                readerIterator = reader.iterator();
+            }
+            // Prefetch below the merging iterator (if any), so that each file is decoded on its own thread
+            readerEntry.setValue(prefetchBatches > 0 ? new AsyncPrefetchingIterator<>(readerIterator, READS_PER_PREFETCH_BATCH, prefetchBatches, ReadsDataSource::decodeLazyFields) :
+                                                       readerIterator);
         }
 
         // Create a merging iterator over all readers if necessary. In the case where there's only a single reader,
@@ -302,7 +392,18 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
             startingIterator = new MergingSamRecordIterator(headerMerger, readers, true);
         }
 
-        return new SAMRecordToReadIterator(startingIterator);
+        return traversalMetrics.wrap(TraversalMetrics.Stage.READS, new SAMRecordToReadIterator(startingIterator));
+    }
+
+    /**
+     * Decodes the fields of a record that BAM records decode lazily on first access (cigar, bases, qualities and
+     * tags), so that a prefetch thread does that work instead of the thread consuming the reads.
+     */
+    private static void decodeLazyFields( final SAMRecord record ) {
+        record.getCigar();
+        record.getReadBases();
+        record.getBaseQualities();
+        record.getAttribute(SAMTag.RG.name());
     }
 
     /**
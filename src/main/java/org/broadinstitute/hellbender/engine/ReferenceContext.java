@@ -1,6 +1,5 @@
 package org.broadinstitute.hellbender.engine;
 
-import htsjdk.samtools.reference.ReferenceSequence;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.utils.Utils;
@@ -27,6 +26,11 @@ import java.util.Iterator;
  * A ReferenceContext may have no backing data source and/or interval. In these cases, queries on it will always
  * return empty arrays / iterators. You can determine whether there is a backing source of reference
  * data via {@link #hasBackingDataSource()}, and whether there is an interval via {@link #getInterval}.
+ *
+ * Traversals may also create a single reusable ReferenceContext (see {@link #createReusable}) and move it from record
+ * to record via {@link #reset}, so that their inner loop allocates no contexts, intervals or arrays of bases.
+ * Such a context is only valid until the next call to reset(): the bases array returned by {@link #getBases}
+ * is overwritten by later queries of the same length, so clients must not retain either of them.
  */
 public final class ReferenceContext implements Iterable<Byte> {
 
@@ -36,21 +40,45 @@ public final class ReferenceContext implements Iterable<Byte> {
     private final ReferenceDataSource dataSource;
 
     /**
-     * Interval representing our location on the reference. May be null if, eg., we're dealing with unmapped data.
+     * True if this context can be moved to a new location via {@link #reset}, in which case
+     * it also reuses its array of bases across queries of the same length.
      */
-    private final SimpleInterval interval;
+    private final boolean reusable;
 
     /**
-     * Reference interval optionally expanded by a configurable amount to produce the true query interval.
-     * Will be null if this context lacks an interval.
+     * Contig, start and end of the interval representing our location on the reference. The contig is null
+     * if we have no location (if, eg., we're dealing with unmapped data).
      */
+    private String contig;
+    private int start;
+    private int end;
+
+    /**
+     * Start and end of the reference interval optionally expanded by a configurable amount to produce the true query interval.
+     * Meaningless if this context lacks an interval.
+     */
+    private int windowStart;
+    private int windowEnd;
+
+    /**
+     * Our interval and window as SimpleIntervals, created on demand so that reusable contexts don't allocate
+     * them for clients who never ask. Null if not created yet, or if this context lacks an interval.
+     */
+    private SimpleInterval interval;
     private SimpleInterval window;
 
     /**
      * Reference bases spanning this interval/window if a query has been performed. Null if we haven't been queried yet.
      * Cache is cleared if the window size changes between queries.
      */
-    private ReferenceSequence cachedSequence;
+    private byte[] cachedBases;
+
+    /**
+     * For a reusable context, the array most recently filled with bases, to be refilled by the next query of the same length
+     */
+    private byte[] basesBuffer;
+
+    private static final byte[] NO_BASES = new byte[0];
 
 
     /**
@@ -85,8 +113,8 @@ public final class ReferenceContext implements Iterable<Byte> {
      */
     public ReferenceContext( final ReferenceDataSource dataSource, final SimpleInterval interval, final int windowLeadingBases, final int windowTrailingBases ) {
         this.dataSource = dataSource;
-        this.cachedSequence = null;
-        this.interval = interval;
+        this.reusable = false;
+        setInterval(interval);
         setWindow(windowLeadingBases, windowTrailingBases);
     }
 
@@ -104,19 +132,68 @@ public final class ReferenceContext implements Iterable<Byte> {
      */
     public ReferenceContext( final ReferenceDataSource dataSource, final SimpleInterval interval, final SimpleInterval window ) {
         this.dataSource = dataSource;
-        this.cachedSequence = null;
-        this.interval = interval;
+        this.reusable = false;
+        setInterval(interval);
         Utils.validateArg(interval != null || window == null, () -> "if interval is null then window must be null too but was " + window);
         Utils.validateArg( interval == null || window == null || window.contains(interval), () ->
                 "window " + window + " does not contain the interval " + interval);
 
         // The "windowless" case
-        if ( window == null ) {
-            this.window = interval;
-        } else {
-            this.window = new SimpleInterval(interval.getContig(),
-                    trimToContigStart(window.getStart()),
-                    trimToContigLength(interval.getContig(), window.getEnd()));
+        if ( window != null ) {
+            this.windowStart = trimToContigStart(window.getStart());
+            this.windowEnd = trimToContigLength(interval.getContig(), window.getEnd());
+        }
+    }
+
+    /**
+     * Create a reusable ReferenceContext with no interval, to be moved to each record of a traversal via {@link #reset}.
+     *
+     * @param dataSource backing reference data source (may be null if there is no reference)
+     */
+    static ReferenceContext createReusable( final ReferenceDataSource dataSource ) {
+        return new ReferenceContext(dataSource);
+    }
+
+    private ReferenceContext( final ReferenceDataSource dataSource ) {
+        this.dataSource = dataSource;
+        this.reusable = true;
+    }
+
+    /**
+     * Move a reusable context to a new windowless interval, discarding any window and cached bases.
+     * Allocates nothing.
+     *
+     * @param contig contig of the new interval, or null if the new location is unknown
+     * @param start start of the new interval (ignored if contig is null)
+     * @param end end of the new interval (ignored if contig is null)
+     */
+    void reset( final String contig, final int start, final int end ) {
+        if ( ! reusable ) {
+            throw new IllegalStateException("Only a reusable ReferenceContext can be reset");
+        }
+        this.contig = contig;
+        this.start = start;
+        this.end = end;
+        this.windowStart = start;
+        this.windowEnd = end;
+        this.interval = null;
+        this.window = null;
+        this.cachedBases = null;
+    }
+
+    /**
+     * Set our interval, with a window equal to the interval
+     */
+    private void setInterval( final SimpleInterval interval ) {
+        this.interval = interval;
+        this.window = null;
+        this.cachedBases = null;
+        if ( interval != null ) {
+            this.contig = interval.getContig();
+            this.start = interval.getStart();
+            this.end = interval.getEnd();
+            this.windowStart = start;
+            this.windowEnd = end;
         }
     }
 
@@ -142,7 +219,7 @@ public final class ReferenceContext implements Iterable<Byte> {
      */
     @Override
     public Iterator<Byte> iterator() {
-        return dataSource != null && window != null ? dataSource.query(window) : new ByteArrayIterator(new byte[0]);
+        return dataSource != null && contig != null ? dataSource.query(getWindow()) : new ByteArrayIterator(new byte[0]);
     }
 
     /**
@@ -152,18 +229,29 @@ public final class ReferenceContext implements Iterable<Byte> {
      * Call {@link #setWindow} before calling this method if you want to configure the amount of extra reference context
      * to include around the current interval
      *
-     * @return reference bases in this context, as a byte array
+     * @return reference bases in this context, as a byte array. For a reusable context, the array is only valid
+     *         until the context is reset.
      */
     public byte[] getBases() {
-        if ( dataSource == null || window == null ) {
-            return new byte[0];
+        if ( dataSource == null || contig == null ) {
+            return NO_BASES;
         }
 
         // Only perform a query if we haven't fetched the bases in this context previously
-        if ( cachedSequence == null ) {
-            cachedSequence = dataSource.queryAndPrefetch(window);
+        if ( cachedBases == null ) {
+            if ( reusable ) {
+                final int windowLength = windowEnd - windowStart + 1;
+                if ( basesBuffer == null || basesBuffer.length != windowLength ) {
+                    basesBuffer = new byte[windowLength];
+                }
+                dataSource.queryAndFill(contig, windowStart, windowEnd, basesBuffer);
+                cachedBases = basesBuffer;
+            }
+            else {
+                cachedBases = dataSource.queryAndPrefetch(getWindow()).getBases();
+            }
         }
-        return cachedSequence.getBases();
+        return cachedBases;
     }
 
     /**
@@ -171,7 +259,7 @@ public final class ReferenceContext implements Iterable<Byte> {
      */
     public byte[] getForwardBases() {
         final byte[] bases = getBases();
-        final int mid = interval.getStart() - window.getStart();
+        final int mid = start - windowStart;
         return new String(bases).substring(mid).getBytes();
     }
 
@@ -184,6 +272,9 @@ public final class ReferenceContext implements Iterable<Byte> {
      *         (may be null if we have no known location)
      */
     public SimpleInterval getInterval() {
+        if ( interval == null && contig != null ) {
+            interval = new SimpleInterval(contig, start, end);
+        }
         return interval;
     }
 
@@ -198,6 +289,9 @@ public final class ReferenceContext implements Iterable<Byte> {
      *         (will be null if this context has no interval)
      */
     public SimpleInterval getWindow() {
+        if ( window == null && contig != null ) {
+            window = windowStart == start && windowEnd == end ? getInterval() : new SimpleInterval(contig, windowStart, windowEnd);
+        }
         return window;
     }
 
@@ -224,18 +318,19 @@ public final class ReferenceContext implements Iterable<Byte> {
             throw new GATKException("Reference window ends before the current interval");
         }
 
-        if ( interval == null || (windowLeadingBases == 0 && windowTrailingBases == 0) ) {
+        if ( contig == null || (windowLeadingBases == 0 && windowTrailingBases == 0) ) {
             // the "windowless" case
-            window = interval;
+            windowStart = start;
+            windowEnd = end;
         }
         else {
-            window = new SimpleInterval(interval.getContig(),
-                    calculateWindowStart(interval, windowLeadingBases),
-                    calculateWindowStop(interval, windowTrailingBases));
+            windowStart = calculateWindowStart(windowLeadingBases);
+            windowEnd = calculateWindowStop(windowTrailingBases);
         }
+        window = null;
 
         // Changing the window size invalidates our cached query result
-        cachedSequence = null;
+        cachedBases = null;
     }
 
     /**
@@ -247,7 +342,7 @@ public final class ReferenceContext implements Iterable<Byte> {
      * @return number of extra bases of context before the start of our interval
      */
     public int numWindowLeadingBases() {
-        return window == null ? 0 : interval.getStart() - window.getStart();
+        return contig == null ? 0 : start - windowStart;
     }
 
     /**
@@ -259,18 +354,17 @@ public final class ReferenceContext implements Iterable<Byte> {
      * @return number of extra bases of context after the end of our interval
      */
     public int numWindowTrailingBases() {
-        return window == null ? 0 : window.getEnd() - interval.getEnd();
+        return contig == null ? 0 : windowEnd - end;
     }
 
     /**
      * Determines the start of the expanded reference window, bounded by 1.
      *
-     * @param locus The locus to expand.
-     * @param windowLeadingBases number of bases to attempt to expand relative to the locus start (>= 0)
+     * @param windowLeadingBases number of bases to attempt to expand relative to the interval start (>= 0)
      * @return The start of the expanded window.
      */
-    private int calculateWindowStart( final SimpleInterval locus, final int windowLeadingBases ) {
-        return trimToContigStart(locus.getStart() - windowLeadingBases);
+    private int calculateWindowStart( final int windowLeadingBases ) {
+        return trimToContigStart(start - windowLeadingBases);
     }
 
     /**
@@ -286,12 +380,11 @@ public final class ReferenceContext implements Iterable<Byte> {
     /**
      * Determines the stop of the expanded reference window, bounded if necessary by the contig.
      *
-     * @param locus The locus to expand.
-     * @param windowTrailingBases number of bases to attempt to expand relative to the locus end (>= 0)
+     * @param windowTrailingBases number of bases to attempt to expand relative to the interval end (>= 0)
      * @return The end of the expanded window.
      */
-    private int calculateWindowStop( final SimpleInterval locus, final int windowTrailingBases ) {
-        return trimToContigLength(locus.getContig(), locus.getEnd() + windowTrailingBases);
+    private int calculateWindowStop( final int windowTrailingBases ) {
+        return trimToContigLength(contig, end + windowTrailingBases);
     }
 
     /**
@@ -311,6 +404,6 @@ public final class ReferenceContext implements Iterable<Byte> {
      * @return The base at the given locus from the reference.
      */
     public byte getBase() {
-        return getBases()[interval.getStart() - window.getStart()];
+        return getBases()[start - windowStart];
     }
 }
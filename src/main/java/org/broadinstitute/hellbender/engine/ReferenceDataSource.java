@@ -17,14 +17,18 @@ import java.util.Iterator;
 public interface ReferenceDataSource extends GATKDataSource<Byte>, AutoCloseable {
 
     /**
-     * Initialize this data source using a fasta file.
+     * Initialize this data source using a fasta file, or a .2bit file.
      *
-     * The provided fasta file must have companion .fai and .dict files.
+     * A fasta file must have companion .fai and .dict files. A .2bit file is memory-mapped
+     * (see {@link ReferenceTwoBitFileSource}) and needs no companion files.
      *
-     * @param fastaFile reference fasta file
+     * @param referenceFile reference fasta or .2bit file
      */
-    public static ReferenceDataSource of(final File fastaFile) {
-        return new ReferenceFileSource(fastaFile);
+    public static ReferenceDataSource of(final File referenceFile) {
+        if ( referenceFile != null && ReferenceTwoBitFileSource.isTwoBit(referenceFile) ) {
+            return new ReferenceTwoBitFileSource(referenceFile);
+        }
+        return new ReferenceFileSource(referenceFile);
     }
 
 
@@ -61,6 +65,26 @@ public interface ReferenceDataSource extends GATKDataSource<Byte>, AutoCloseable
      */
     public ReferenceSequence queryAndPrefetch(final String contig, final long start , final long stop);
 
+    /**
+     * Query a specific interval on this reference, copying the bases spanning that interval into a caller-provided
+     * array rather than a newly-allocated one. Lets callers that process many queries of the same length (such as
+     * traversals that reuse their {@link ReferenceContext}) avoid allocating an array per query.
+     *
+     * The default implementation copies the bases returned by #queryAndPrefetch(contig, start, stop).
+     *
+     * @param contig query interval contig
+     * @param start query interval start
+     * @param stop query interval stop
+     * @param destination array into which to copy the bases. Must be exactly stop - start + 1 long.
+     */
+    default public void queryAndFill( final String contig, final long start, final long stop, final byte[] destination ) {
+        final byte[] bases = queryAndPrefetch(contig, start, stop).getBases();
+        if ( bases.length != destination.length ) {
+            throw new IllegalArgumentException("destination has length " + destination.length + " but the query spans " + bases.length + " bases");
+        }
+        System.arraycopy(bases, 0, destination, 0, bases.length);
+    }
+
     /**
       * Query a specific interval on this reference, and get back an iterator over the bases spanning that interval.
       *
@@ -82,6 +106,15 @@ public interface ReferenceDataSource extends GATKDataSource<Byte>, AutoCloseable
      */
     public SAMSequenceDictionary getSequenceDictionary();
 
+    /**
+     * Can this data source be queried concurrently from several threads? The default implementation returns false.
+     *
+     * @return true if this data source is thread-safe, otherwise false
+     */
+    default public boolean isThreadSafe() {
+        return false;
+    }
+
     /**
      * Permanently close this data source. The default implementation does nothing.
      */
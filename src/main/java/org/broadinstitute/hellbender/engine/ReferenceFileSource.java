@@ -66,6 +66,20 @@ public final class ReferenceFileSource implements ReferenceDataSource {
         return reference.getSubsequenceAt(contig, start, stop);
     }
 
+    /**
+     * Query a specific interval on this reference, copying the bases spanning that interval into the provided
+     * array. Queries served from the reference cache allocate nothing.
+     *
+     * @param contig query interval contig
+     * @param start query interval start
+     * @param stop query interval stop
+     * @param destination array into which to copy the bases. Must be exactly stop - start + 1 long.
+     */
+    @Override
+    public void queryAndFill( final String contig, final long start, final long stop, final byte[] destination ) {
+        reference.getSubsequenceAt(contig, start, stop, destination);
+    }
+
 
     /**
      * Get the sequence dictionary for this reference
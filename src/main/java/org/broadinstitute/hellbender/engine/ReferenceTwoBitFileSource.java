@@ -0,0 +1,319 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.reference.ReferenceSequence;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Manages queries over reference data stored in a .2bit file (the format used by the UCSC genome browser,
+ * and by {@link org.broadinstitute.hellbender.engine.spark.datasources.ReferenceTwoBitSource} on the Spark side).
+ *
+ * The packed bases of each contig are memory-mapped rather than read into the heap, so the operating system pages
+ * them in on demand and shares them between all processes using the same reference. Each query decodes the
+ * requested bases straight from the mapped buffer, four bases per byte, without any intermediate copy or
+ * case conversion.
+ *
+ * Bases are returned upper-cased (soft-masking is ignored) and positions in N blocks are returned as N, which
+ * matches the default behavior of {@link ReferenceFileSource} on the equivalent FASTA (the .2bit format cannot
+ * represent IUPAC codes other than N). The sequence dictionary is built from the contig names and lengths in the file.
+ *
+ * Unlike the FASTA-backed sources, this data source is immutable once opened and can be shared by any number of threads.
+ */
+public final class ReferenceTwoBitFileSource implements ReferenceDataSource {
+
+    public static final String TWO_BIT_EXTENSION = ".2bit";
+
+    private static final int TWO_BIT_SIGNATURE = 0x1A412743;
+
+    /**
+     * Bases for each 2-bit code, in the order defined by the format
+     */
+    private static final byte[] BASES_FOR_CODES = { 'T', 'C', 'A', 'G' };
+
+    /**
+     * The four bases packed in each possible byte value, most significant bits first
+     */
+    private static final byte[][] BASES_FOR_PACKED_BYTES = new byte[256][4];
+    static {
+        for ( int packed = 0; packed < 256; ++packed ) {
+            for ( int i = 0; i < 4; ++i ) {
+                BASES_FOR_PACKED_BYTES[packed][i] = BASES_FOR_CODES[(packed >> (6 - 2 * i)) & 0x3];
+            }
+        }
+    }
+
+    private final File twoBitFile;
+    private final Map<String, TwoBitContig> contigs;
+    private final SAMSequenceDictionary sequenceDictionary;
+
+    /**
+     * @param file file name to check
+     * @return true if the file name has the .2bit extension
+     */
+    public static boolean isTwoBit(final File file) {
+        return Utils.nonNull(file).getName().endsWith(TWO_BIT_EXTENSION);
+    }
+
+    /**
+     * Initialize this data source using a .2bit file.
+     *
+     * @param twoBitFile reference .2bit file
+     */
+    public ReferenceTwoBitFileSource(final File twoBitFile) {
+        this.twoBitFile = Utils.nonNull(twoBitFile);
+        if ( ! twoBitFile.canRead() ) {
+            throw new UserException.MissingReference("The specified reference file " + twoBitFile.getAbsolutePath() + " does not exist or is not readable");
+        }
+
+        final List<SAMSequenceRecord> sequenceRecords = new ArrayList<>();
+        this.contigs = new HashMap<>();
+        try ( final RandomAccessFile file = new RandomAccessFile(twoBitFile, "r");
+              final FileChannel channel = file.getChannel() ) {
+            // the mappings remain valid after the channel is closed
+            readIndex(channel, sequenceRecords);
+        }
+        catch ( IOException e ) {
+            throw new UserException.CouldNotReadInputFile(twoBitFile, e);
+        }
+        this.sequenceDictionary = new SAMSequenceDictionary(sequenceRecords);
+    }
+
+    private void readIndex( final FileChannel channel, final List<SAMSequenceRecord> sequenceRecords ) throws IOException {
+        final ByteBuffer header = read(channel, 0, 16, ByteOrder.LITTLE_ENDIAN);
+        int signature = header.getInt(0);
+        if ( signature != TWO_BIT_SIGNATURE ) {
+            header.order(ByteOrder.BIG_ENDIAN);
+            signature = header.getInt(0);
+            if ( signature != TWO_BIT_SIGNATURE ) {
+                throw new UserException.MalformedFile(twoBitFile, "Not a .2bit file (bad signature)");
+            }
+        }
+        final ByteOrder order = header.order();
+        final int version = header.getInt(4);
+        if ( version != 0 && version != 1 ) {
+            throw new UserException.MalformedFile(twoBitFile, "Unsupported .2bit version " + version);
+        }
+        final int offsetSize = version == 0 ? Integer.BYTES : Long.BYTES;
+        final int contigCount = header.getInt(8);
+
+        long indexPosition = 16;
+        for ( int contigIndex = 0; contigIndex < contigCount; ++contigIndex ) {
+            final int nameLength = read(channel, indexPosition, 1, order).get(0) & 0xff;
+            final ByteBuffer entry = read(channel, indexPosition + 1, nameLength + offsetSize, order);
+            final byte[] name = new byte[nameLength];
+            entry.get(name);
+            final long recordOffset = version == 0 ? entry.getInt() & 0xffffffffL : entry.getLong();
+            indexPosition += 1 + nameLength + offsetSize;
+
+            final TwoBitContig contig = readContig(channel, new String(name, StandardCharsets.US_ASCII), contigIndex, recordOffset, order);
+            contigs.put(contig.name, contig);
+            sequenceRecords.add(new SAMSequenceRecord(contig.name, contig.length));
+        }
+    }
+
+    private TwoBitContig readContig( final FileChannel channel, final String name, final int contigIndex, final long recordOffset, final ByteOrder order ) throws IOException {
+        final ByteBuffer counts = read(channel, recordOffset, 8, order);
+        final int length = counts.getInt(0);
+        final int nBlockCount = counts.getInt(4);
+        long position = recordOffset + 8;
+
+        final ByteBuffer nBlocks = read(channel, position, 8L * nBlockCount, order);
+        final int[] nBlockStarts = new int[nBlockCount];
+        final int[] nBlockEnds = new int[nBlockCount];
+        for ( int i = 0; i < nBlockCount; ++i ) {
+            nBlockStarts[i] = nBlocks.getInt(i * 4);
+        }
+        for ( int i = 0; i < nBlockCount; ++i ) {
+            nBlockEnds[i] = nBlockStarts[i] + nBlocks.getInt((nBlockCount + i) * 4);
+        }
+        position += 8L * nBlockCount;
+
+        // skip the mask blocks (we don't preserve soft-masking) and the reserved word
+        final int maskBlockCount = read(channel, position, 4, order).getInt(0);
+        position += 4 + 8L * maskBlockCount + 4;
+
+        final long packedLength = (length + 3L) / 4;
+        if ( position + packedLength > channel.size() ) {
+            throw new UserException.MalformedFile(twoBitFile, "Truncated .2bit file: the bases of contig " + name + " extend past the end of the file");
+        }
+        final MappedByteBuffer packedBases = channel.map(FileChannel.MapMode.READ_ONLY, position, packedLength);
+        return new TwoBitContig(name, contigIndex, length, nBlockStarts, nBlockEnds, packedBases);
+    }
+
+    private ByteBuffer read( final FileChannel channel, final long position, final long length, final ByteOrder order ) throws IOException {
+        if ( length > Integer.MAX_VALUE || position + length > channel.size() ) {
+            throw new UserException.MalformedFile(twoBitFile, "Truncated or corrupt .2bit file");
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate((int)length).order(order);
+        while ( buffer.hasRemaining() ) {
+            if ( channel.read(buffer, position + buffer.position()) < 0 ) {
+                throw new UserException.MalformedFile(twoBitFile, "Truncated .2bit file");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Start an iteration over the entire reference. Not yet supported!
+     *
+     * See the BaseUtils class for guidance on how to work with bases in this format.
+     *
+     * @return iterator over all bases in this reference
+     */
+    @Override
+    public Iterator<Byte> iterator() {
+        throw new UnsupportedOperationException("Iteration over entire reference not yet implemented");
+    }
+
+    /**
+     * Query a specific interval on this reference, and get back all bases spanning that interval at once.
+     * Call getBases() on the returned ReferenceSequence to get the actual reference bases. See the BaseUtils
+     * class for guidance on how to work with bases in this format.
+     *
+     * @param contig query interval contig
+     * @param start query interval start
+     * @param stop query interval stop
+     * @return a ReferenceSequence containing all bases spanning the query interval, prefetched
+     */
+    @Override
+    public ReferenceSequence queryAndPrefetch( final String contig, final long start, final long stop ) {
+        final TwoBitContig twoBitContig = getContig(contig, start, stop);
+        final byte[] bases = new byte[(int)(stop - start + 1)];
+        twoBitContig.getBases((int)start - 1, bases);
+        return new ReferenceSequence(contig, twoBitContig.contigIndex, bases);
+    }
+
+    /**
+     * Query a specific interval on this reference, decoding the bases spanning that interval straight into the
+     * provided array without allocating anything.
+     *
+     * @param contig query interval contig
+     * @param start query interval start
+     * @param stop query interval stop
+     * @param destination array into which to decode the bases. Must be exactly stop - start + 1 long.
+     */
+    @Override
+    public void queryAndFill( final String contig, final long start, final long stop, final byte[] destination ) {
+        final TwoBitContig twoBitContig = getContig(contig, start, stop);
+        if ( destination.length != stop - start + 1 ) {
+            throw new IllegalArgumentException("destination has length " + destination.length + " but the query spans " + (stop - start + 1) + " bases");
+        }
+        twoBitContig.getBases((int)start - 1, destination);
+    }
+
+    /**
+     * @return the contig named contig, after checking that it contains the range [start, stop]
+     */
+    private TwoBitContig getContig( final String contig, final long start, final long stop ) {
+        // plain checks rather than Utils.validateArg() with a message supplier, so that queries allocate nothing
+        final TwoBitContig twoBitContig = contigs.get(contig);
+        if ( twoBitContig == null ) {
+            throw new IllegalArgumentException("Contig " + contig + " not found in reference " + twoBitFile.getAbsolutePath());
+        }
+        if ( start < 1 || stop > twoBitContig.length || start > stop + 1 ) {
+            throw new IllegalArgumentException(String.format("Query %s:%d-%d is outside of contig %s of length %d", contig, start, stop, contig, twoBitContig.length));
+        }
+        return twoBitContig;
+    }
+
+    /**
+     * Get the sequence dictionary for this reference
+     *
+     * @return SAMSequenceDictionary for this reference
+     */
+    @Override
+    public SAMSequenceDictionary getSequenceDictionary() {
+        return sequenceDictionary;
+    }
+
+    /**
+     * @return true: the memory-mapped contigs are only ever read, so any number of threads may query this source
+     */
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    /**
+     * Packed bases and N blocks of one contig. Queries use only absolute reads from the mapped buffer,
+     * so they are safe to run concurrently.
+     */
+    private static final class TwoBitContig {
+        private final String name;
+        private final int contigIndex;
+        private final int length;
+        private final int[] nBlockStarts;  // 0-based, sorted
+        private final int[] nBlockEnds;    // exclusive
+        private final MappedByteBuffer packedBases;
+
+        TwoBitContig( final String name, final int contigIndex, final int length, final int[] nBlockStarts, final int[] nBlockEnds, final MappedByteBuffer packedBases ) {
+            this.name = name;
+            this.contigIndex = contigIndex;
+            this.length = length;
+            this.nBlockStarts = nBlockStarts;
+            this.nBlockEnds = nBlockEnds;
+            this.packedBases = packedBases;
+        }
+
+        /**
+         * Fill bases with the contig's bases starting at the 0-based position start.
+         */
+        void getBases( final int start, final byte[] bases ) {
+            final int end = start + bases.length;
+            int position = start;
+            int out = 0;
+
+            // leading bases that share a packed byte with the bases before the query
+            while ( position < end && (position & 3) != 0 ) {
+                bases[out++] = BASES_FOR_PACKED_BYTES[packedBases.get(position >> 2) & 0xff][position & 3];
+                ++position;
+            }
+            // whole packed bytes
+            while ( end - position >= 4 ) {
+                System.arraycopy(BASES_FOR_PACKED_BYTES[packedBases.get(position >> 2) & 0xff], 0, bases, out, 4);
+                out += 4;
+                position += 4;
+            }
+            // trailing bases
+            while ( position < end ) {
+                bases[out++] = BASES_FOR_PACKED_BYTES[packedBases.get(position >> 2) & 0xff][position & 3];
+                ++position;
+            }
+
+            maskNBlocks(start, end, bases);
+        }
+
+        private void maskNBlocks( final int start, final int end, final byte[] bases ) {
+            // find the last N block starting at or before start, which is the first that may overlap the query
+            int block = Arrays.binarySearch(nBlockStarts, start);
+            if ( block < 0 ) {
+                block = Math.max(-block - 2, 0);
+            }
+            for ( ; block < nBlockStarts.length && nBlockStarts[block] < end; ++block ) {
+                final int from = Math.max(nBlockStarts[block], start);
+                final int to = Math.min(nBlockEnds[block], end);
+                if ( from < to ) {
+                    Arrays.fill(bases, from - start, to - start, (byte)'N');
+                }
+            }
+        }
+    }
+}
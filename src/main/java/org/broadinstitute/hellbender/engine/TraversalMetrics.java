@@ -0,0 +1,518 @@
+package org.broadinstitute.hellbender.engine;
+
+import com.google.common.annotations.VisibleForTesting;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.reference.ReferenceSequence;
+import htsjdk.samtools.util.ProgressLoggerInterface;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.vcf.VCFHeader;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Measures the time a traversal spends in each of its stages (see {@link Stage}), so that the bottleneck of a run
+ * can be identified.
+ *
+ * Each thread is in at most one stage at a time. Entering a stage via {@link #enter} suspends the thread's current
+ * stage until the matching {@link #exit}, so stages nest (e.g. a reference query made from within a tool's apply()
+ * counts towards {@link Stage#REFERENCE} and not towards {@link Stage#APPLY}) and the times of the stages add up
+ * to the time the measured threads spent in the traversal. Times are summed over all threads that entered a
+ * stage, so with a multi-threaded traversal they may add up to more than the elapsed time.
+ *
+ * When disabled, {@link #enter} and {@link #exit} return immediately and the wrapping methods return what they
+ * are given, so that instrumented code costs nothing.
+ */
+public final class TraversalMetrics {
+
+    /**
+     * Stages of a traversal.
+     */
+    public enum Stage {
+        /**
+         * Obtaining the next record from the primary input (reading, decompressing and decoding it, or waiting
+         * for another thread to do so). For walkers that filter reads within their input iterators (e.g. locus-based
+         * walkers), this includes filtering.
+         */
+        READS,
+        /**
+         * Applying the read filters.
+         */
+        FILTERING,
+        /**
+         * Reference queries.
+         */
+        REFERENCE,
+        /**
+         * Feature queries.
+         */
+        FEATURES,
+        /**
+         * The tool's own processing (apply() and similar), plus any traversal work not in another stage.
+         */
+        APPLY,
+        /**
+         * Writing SAM/BAM/CRAM and VCF output through engine-created writers.
+         */
+        OUTPUT
+    }
+
+    /**
+     * Metrics that measure nothing, for use when no metrics were requested.
+     */
+    public static final TraversalMetrics DISABLED = new TraversalMetrics(false, System::nanoTime);
+
+    private static final Stage[] STAGES = Stage.values();
+    private static final double NANOSECONDS_PER_SECOND = 1e9;
+
+    private final boolean enabled;
+    private final LongSupplier nanoTimeFunction;
+    private final List<StageClock> clocks = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<StageClock> threadClock = ThreadLocal.withInitial(this::newClock);
+
+    private long startNanos = 0L;
+    private long stopNanos = -1L;
+
+    /**
+     * Create enabled metrics.
+     */
+    public TraversalMetrics() {
+        this(true, System::nanoTime);
+    }
+
+    /**
+     * @param enabled whether to measure anything
+     * @param nanoTimeFunction function that returns the current time in nanoseconds (only customized for testing)
+     */
+    @VisibleForTesting
+    TraversalMetrics(final boolean enabled, final LongSupplier nanoTimeFunction) {
+        this.enabled = enabled;
+        this.nanoTimeFunction = Utils.nonNull(nanoTimeFunction);
+    }
+
+    private StageClock newClock() {
+        final StageClock clock = new StageClock();
+        clocks.add(clock);
+        return clock;
+    }
+
+    /**
+     * @return true if these metrics measure anything, otherwise false
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start measuring the elapsed time of the traversal, and put the calling (traversal) thread in {@link Stage#APPLY}.
+     */
+    public void start() {
+        if ( enabled ) {
+            startNanos = nanoTimeFunction.getAsLong();
+            stopNanos = -1L;
+            enter(Stage.APPLY);
+        }
+    }
+
+    /**
+     * Stop measuring the elapsed time of the traversal, and take the calling (traversal) thread out of the stage
+     * entered by {@link #start}.
+     */
+    public void stop() {
+        if ( enabled ) {
+            exit(null);
+            stopNanos = nanoTimeFunction.getAsLong();
+        }
+    }
+
+    /**
+     * Put the calling thread in the given stage until the matching call to {@link #exit}.
+     *
+     * @param stage stage to enter
+     * @return the stage the thread was in before (which must be passed to {@link #exit}), or null if it was in none
+     */
+    public Stage enter(final Stage stage) {
+        if ( ! enabled ) {
+            return null;
+        }
+        final StageClock clock = threadClock.get();
+        final Stage previous = clock.current;
+        clock.switchTo(stage, nanoTimeFunction.getAsLong());
+        ++clock.entries[stage.ordinal()];
+        return previous;
+    }
+
+    /**
+     * Return the calling thread to the stage it was in before the matching call to {@link #enter}.
+     *
+     * @param previous value returned by the matching call to {@link #enter}
+     */
+    public void exit(final Stage previous) {
+        if ( enabled ) {
+            threadClock.get().switchTo(previous, nanoTimeFunction.getAsLong());
+        }
+    }
+
+    /**
+     * Run an action in the given stage on the calling thread.
+     *
+     * @return the result of the action
+     */
+    public <T> T time(final Stage stage, final Supplier<T> action) {
+        final Stage previous = enter(stage);
+        try {
+            return action.get();
+        }
+        finally {
+            exit(previous);
+        }
+    }
+
+    /**
+     * @return a predicate that evaluates the given predicate in the given stage, or the given predicate itself
+     *         if these metrics are disabled
+     */
+    public <T> Predicate<T> wrap(final Stage stage, final Predicate<T> predicate) {
+        Utils.nonNull(predicate);
+        if ( ! enabled ) {
+            return predicate;
+        }
+        return element -> {
+            final Stage previous = enter(stage);
+            try {
+                return predicate.test(element);
+            }
+            finally {
+                exit(previous);
+            }
+        };
+    }
+
+    /**
+     * @return an iterator whose hasNext() and next() run in the given stage, or the given iterator itself if
+     *         these metrics are disabled
+     */
+    public <T> Iterator<T> wrap(final Stage stage, final Iterator<T> iterator) {
+        Utils.nonNull(iterator);
+        if ( ! enabled ) {
+            return iterator;
+        }
+        return new Iterator<T>() {
+            @Override
+            public boolean hasNext() {
+                final Stage previous = enter(stage);
+                try {
+                    return iterator.hasNext();
+                }
+                finally {
+                    exit(previous);
+                }
+            }
+
+            @Override
+            public T next() {
+                final Stage previous = enter(stage);
+                try {
+                    return iterator.next();
+                }
+                finally {
+                    exit(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * @return a reference data source whose queries run in {@link Stage#REFERENCE}, or the given data source itself
+     *         if these metrics are disabled or it is null
+     */
+    public ReferenceDataSource wrap(final ReferenceDataSource reference) {
+        if ( ! enabled || reference == null ) {
+            return reference;
+        }
+        return new ReferenceDataSource() {
+            @Override
+            public Iterator<Byte> iterator() {
+                final Stage previous = enter(Stage.REFERENCE);
+                try {
+                    return reference.iterator();
+                }
+                finally {
+                    exit(previous);
+                }
+            }
+
+            @Override
+            public ReferenceSequence queryAndPrefetch(final SimpleInterval interval) {
+                final Stage previous = enter(Stage.REFERENCE);
+                try {
+                    return reference.queryAndPrefetch(interval);
+                }
+                finally {
+                    exit(previous);
+                }
+            }
+
+            @Override
+            public ReferenceSequence queryAndPrefetch(final String contig, final long start, final long stop) {
+                final Stage previous = enter(Stage.REFERENCE);
+                try {
+                    return reference.queryAndPrefetch(contig, start, stop);
+                }
+                finally {
+                    exit(previous);
+                }
+            }
+
+            @Override
+            public void queryAndFill(final String contig, final long start, final long stop, final byte[] destination) {
+                final Stage previous = enter(Stage.REFERENCE);
+                try {
+                    reference.queryAndFill(contig, start, stop, destination);
+                }
+                finally {
+                    exit(previous);
+                }
+            }
+
+            @Override
+            public Iterator<Byte> query(final SimpleInterval interval) {
+                final Stage previous = enter(Stage.REFERENCE);
+                try {
+                    return reference.query(interval);
+                }
+                finally {
+                    exit(previous);
+                }
+            }
+
+            @Override
+            public SAMSequenceDictionary getSequenceDictionary() {
+                return reference.getSequenceDictionary();
+            }
+
+            @Override
+            public boolean isThreadSafe() {
+                return reference.isThreadSafe();
+            }
+
+            @Override
+            public void close() {
+                reference.close();
+            }
+        };
+    }
+
+    /**
+     * @return a writer that writes in {@link Stage#OUTPUT}, or the given writer itself if these metrics are disabled
+     */
+    public SAMFileWriter wrap(final SAMFileWriter writer) {
+        Utils.nonNull(writer);
+        if ( ! enabled ) {
+            return writer;
+        }
+        return new SAMFileWriter() {
+            @Override
+            public void addAlignment(final SAMRecord alignment) {
+                final Stage previous = enter(Stage.OUTPUT);
+                try {
+                    writer.addAlignment(alignment);
+                }
+                finally {
+                    exit(previous);
+                }
+            }
+
+            @Override
+            public SAMFileHeader getFileHeader() {
+                return writer.getFileHeader();
+            }
+
+            @Override
+            public void setProgressLogger(final ProgressLoggerInterface progress) {
+                writer.setProgressLogger(progress);
+            }
+
+            @Override
+            public void close() {
+                final Stage previous = enter(Stage.OUTPUT);
+                try {
+                    writer.close();
+                }
+                finally {
+                    exit(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * @return a writer that writes in {@link Stage#OUTPUT}, or the given writer itself if these metrics are disabled
+     */
+    public VariantContextWriter wrap(final VariantContextWriter writer) {
+        Utils.nonNull(writer);
+        if ( ! enabled ) {
+            return writer;
+        }
+        return new VariantContextWriter() {
+            @Override
+            public void writeHeader(final VCFHeader header) {
+                writer.writeHeader(header);
+            }
+
+            @Override
+            public void add(final VariantContext vc) {
+                final Stage previous = enter(Stage.OUTPUT);
+                try {
+                    writer.add(vc);
+                }
+                finally {
+                    exit(previous);
+                }
+            }
+
+            @Override
+            public boolean checkError() {
+                return writer.checkError();
+            }
+
+            @Override
+            public void close() {
+                final Stage previous = enter(Stage.OUTPUT);
+                try {
+                    writer.close();
+                }
+                finally {
+                    exit(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * @return total seconds spent in the given stage by all threads so far (including time in stages that threads
+     *         are currently in)
+     */
+    public double getSeconds(final Stage stage) {
+        return getNanos()[stage.ordinal()] / NANOSECONDS_PER_SECOND;
+    }
+
+    /**
+     * @return number of times the given stage was entered by all threads so far
+     */
+    public long getEntries(final Stage stage) {
+        long entries = 0L;
+        for ( final StageClock clock : clocks ) {
+            entries += clock.entries[stage.ordinal()];
+        }
+        return entries;
+    }
+
+    /**
+     * @return seconds elapsed since {@link #start}, up to {@link #stop} if the traversal has stopped
+     */
+    public double getElapsedSeconds() {
+        final long end = stopNanos >= 0 ? stopNanos : nanoTimeFunction.getAsLong();
+        return (end - startNanos) / NANOSECONDS_PER_SECOND;
+    }
+
+    private long[] getNanos() {
+        final long now = nanoTimeFunction.getAsLong();
+        final long[] nanos = new long[STAGES.length];
+        for ( final StageClock clock : clocks ) {
+            for ( int i = 0; i < nanos.length; ++i ) {
+                nanos[i] += clock.nanos[i];
+            }
+            // values read from other threads may be slightly stale, which is fine for reporting purposes
+            final Stage current = clock.current;
+            if ( current != null ) {
+                nanos[current.ordinal()] += Math.max(0L, now - clock.currentStartNanos);
+            }
+        }
+        return nanos;
+    }
+
+    /**
+     * @return a one-line summary of the fraction of time spent in each stage, for logging
+     */
+    public String getSummaryLine() {
+        final long[] nanos = getNanos();
+        final long totalNanos = sum(nanos);
+        final StringBuilder summary = new StringBuilder("Traversal time by stage:");
+        for ( final Stage stage : STAGES ) {
+            summary.append(String.format(" %s %.1f%%", stage, percent(nanos[stage.ordinal()], totalNanos)));
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Write the metrics as a tab-separated table, with one row per stage, to the given file, replacing any
+     * previous contents.
+     *
+     * @param file file to write
+     * @param numRecords number of records processed so far, to report the time per record
+     */
+    public void writeReport(final File file, final long numRecords) {
+        Utils.nonNull(file);
+        final long[] nanos = getNanos();
+        final long totalNanos = sum(nanos);
+        try ( final PrintStream out = new PrintStream(file) ) {
+            out.printf("#ELAPSED_SECONDS\t%.3f%n", getElapsedSeconds());
+            out.printf("#RECORDS\t%d%n", numRecords);
+            out.println("STAGE\tSECONDS\tPERCENT\tENTRIES\tNANOSECONDS_PER_RECORD");
+            for ( final Stage stage : STAGES ) {
+                final long stageNanos = nanos[stage.ordinal()];
+                out.printf("%s\t%.3f\t%.2f\t%d\t%.1f%n", stage, stageNanos / NANOSECONDS_PER_SECOND, percent(stageNanos, totalNanos),
+                           getEntries(stage), numRecords == 0 ? 0.0 : stageNanos / (double)numRecords);
+            }
+        }
+        catch ( FileNotFoundException e ) {
+            throw new UserException.CouldNotCreateOutputFile(file, e);
+        }
+    }
+
+    private static long sum(final long[] values) {
+        long sum = 0L;
+        for ( final long value : values ) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    private static double percent(final long part, final long total) {
+        return total == 0 ? 0.0 : 100.0 * part / total;
+    }
+
+    /**
+     * Time spent in each stage by one thread. Only written by that thread.
+     */
+    private static final class StageClock {
+        final long[] nanos = new long[STAGES.length];
+        final long[] entries = new long[STAGES.length];
+        volatile Stage current = null;
+        volatile long currentStartNanos = 0L;
+
+        void switchTo(final Stage stage, final long now) {
+            final Stage previous = current;
+            if ( previous != null ) {
+                nanos[previous.ordinal()] += now - currentStartNanos;
+            }
+            currentStartNanos = now;
+            current = stage;
+        }
+    }
+}
@@ -1,16 +1,21 @@
 package org.broadinstitute.hellbender.engine;
 
-
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.samtools.util.Locatable;
+import org.broadinstitute.hellbender.cmdline.Argument;
 import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
 import org.broadinstitute.hellbender.engine.filters.WellformedReadFilter;
 import org.broadinstitute.hellbender.tools.walkers.rnaseq.SplitNCigarReads;
-import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadSpillFile;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 
@@ -29,42 +34,74 @@ import java.util.stream.StreamSupport;
  * each read.  These are analogous to and replace {@link ReadWalker#apply}.  Authors may optionally implement
  * {@link #onTraversalStart} and/or {@link #onTraversalSuccess} and {@link #afterFirstPass} to perform
  * operations between passes. See the {@link SplitNCigarReads} walker for an example.
+ *
+ * By default the second pass re-reads the input. With {@link #spillReadsBetweenPasses}, the reads that pass the
+ * read filters are instead spilled to a temporary local file during the first pass and read back from it.
  */
 public abstract class TwoPassReadWalker extends ReadWalker {
 
+    @Argument(fullName = "spillReadsBetweenPasses", shortName = "spillReadsBetweenPasses", doc = "Write the reads that pass the read filters to a temporary local file during the first pass, and read the second pass from that file instead of re-reading the input. Requires enough space in the temporary directory for the filtered reads.", optional = true)
+    public boolean spillReadsBetweenPasses = false;
+
     @Override
     public void traverse() {
         // Process each read in the input stream.
         // Supply reference bases spanning each read, if a reference is available.
         final CountingReadFilter countedFilter = makeReadFilter();
 
-        traverseReads(countedFilter, this::firstPassApply);
+        if ( spillReadsBetweenPasses ) {
+            traverseWithSpilledReads(countedFilter);
+            logger.info(countedFilter.getSummaryLine());
+            return;
+        }
+
+        traverseReads(filteredReads(countedFilter), this::firstPassApply);
         logger.info("Finished first pass through the reads");
         afterFirstPass();
         // Need to reinitialize the reads and intervals so they are guaranteed to pass over a file
         initializeReads();
         setReadTraversalBounds();
         logger.info("Starting second pass through the reads");
-        traverseReads(countedFilter, this::secondPassApply);
+        traverseReads(filteredReads(countedFilter), this::secondPassApply);
         logger.info(countedFilter.getSummaryLine());
     }
 
     /**
-     * Process using the given filter and function.
-     * @param countedFilter a filter to apply to all reads.
+     * Version of the traversal used when {@link #spillReadsBetweenPasses} is set: the reads that pass the filter
+     * on the first pass are written to a temporary {@link ReadSpillFile}, and the second pass reads them back from
+     * it rather than re-reading and re-filtering the input.
+     */
+    private void traverseWithSpilledReads(final CountingReadFilter countedFilter) {
+        try ( final ReadSpillFile spilledReads = new ReadSpillFile(getHeaderForReads()) ) {
+            // spill each read before the first pass sees it, since firstPassApply may modify it
+            traverseReads(filteredReads(countedFilter).peek(spilledReads::add), this::firstPassApply);
+            logger.info("Finished first pass through the reads");
+            afterFirstPass();
+            logger.info("Starting second pass through the " + spilledReads.size() + " reads spilled to " + spilledReads.getFile().getAbsolutePath());
+            try ( final CloseableIterator<GATKRead> secondPassReads = spilledReads.iterator() ) {
+                traverseReads(StreamSupport.stream(Spliterators.spliteratorUnknownSize(secondPassReads, Spliterator.ORDERED), false), this::secondPassApply);
+            }
+        }
+    }
+
+    private Stream<GATKRead> filteredReads(final CountingReadFilter countedFilter) {
+        return StreamSupport.stream(reads.spliterator(), false).filter(traversalMetrics.wrap(TraversalMetrics.Stage.FILTERING, countedFilter));
+    }
+
+    /**
+     * Process the given reads using the given function.
+     * @param reads the reads to process
      * @param f function applied to each read, should produce some useful side effect
      */
-    private void traverseReads(final CountingReadFilter countedFilter, final GATKApply f) {
-        StreamSupport.stream(reads.spliterator(), false)
-                .filter(countedFilter)
-                .forEach(read -> {
-                    final SimpleInterval readInterval = getReadInterval(read);
-                    f.consume(read,
-                            new ReferenceContext(reference, readInterval), // Will create an empty ReferenceContext if reference or readInterval == null
-                            new FeatureContext(features, readInterval));   // Will create an empty FeatureContext if features or readInterval == null
-
-                    progressMeter.update(readInterval);
-                });
+    private void traverseReads(final Stream<GATKRead> reads, final GATKApply f) {
+        final ReadContexts contexts = new ReadContexts(reference, features, canReuseContexts());
+        reads.forEach(read -> {
+            // Contexts will be empty if reference, features or the read's interval are null
+            final Locatable readLocation = contexts.moveTo(read);
+            f.consume(read, contexts.getReferenceContext(), contexts.getFeatureContext());
+
+            progressMeter.update(readLocation);
+        });
     }
 
     /**
@@ -16,6 +16,11 @@ public final class CountBases extends ReadWalker {
 
     private long count = 0;
 
+    @Override
+    public boolean canReuseContexts() {
+        return true;
+    }
+
     @Override
     public void apply( GATKRead read, ReferenceContext referenceContext, FeatureContext featureContext ) {
         count += read.getLength();
@@ -15,6 +15,12 @@ import org.broadinstitute.hellbender.utils.read.GATKRead;
 public final class CountReads extends ReadWalker {
 
     private long count = 0;
+
+    @Override
+    public boolean canReuseContexts() {
+        return true;
+    }
+
     @Override
     public void apply( GATKRead read, ReferenceContext referenceContext, FeatureContext featureContext ) {
         ++count;
@@ -30,10 +30,15 @@ public final class FixMisencodedBaseQualityReads extends ReadWalker {
 
     @Override
     public void onTraversalStart() {
-        outputWriter = createSAMWriter(OUTPUT, true);
+        outputWriter = createOrderedSAMWriter(OUTPUT, true);
         transform = new MisencodedBaseQualityReadTransformer();
     }
 
+    @Override
+    public boolean isApplyThreadSafe() {
+        return true;
+    }
+
     @Override
     public void apply( GATKRead read, ReferenceContext referenceContext, FeatureContext featureContext ) {
         outputWriter.addRead(transform.apply(read));
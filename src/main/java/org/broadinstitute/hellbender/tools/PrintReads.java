@@ -26,7 +26,17 @@ public final class PrintReads extends ReadWalker {
 
     @Override
     public void onTraversalStart() {
-        outputWriter = createSAMWriter(OUTPUT, true);
+        outputWriter = createOrderedSAMWriter(OUTPUT, true);
+    }
+
+    @Override
+    public boolean isApplyThreadSafe() {
+        return true;
+    }
+
+    @Override
+    public boolean canReuseContexts() {
+        return true;
     }
 
     @Override
@@ -94,6 +94,9 @@ public final class CollectMultipleMetrics extends PicardCommandLineProgram {
     @Argument(doc = "Stop after processing N reads, mainly for debugging.")
     public int STOP_AFTER = 0;
 
+    @Argument(doc = "Number of threads on which to decompress the input, if it is a BAM file.", optional = true)
+    public int INFLATER_THREADS = 1;
+
     @Argument(fullName = StandardArgumentDefinitions.OUTPUT_LONG_NAME, shortName = StandardArgumentDefinitions.OUTPUT_SHORT_NAME,
             doc = "Base name of output files.")
     public String OUTPUT;
@@ -142,7 +145,7 @@ public final class CollectMultipleMetrics extends PicardCommandLineProgram {
             programs.add(instance);
         }
 
-        SinglePassSamProgram.makeItSo(INPUT, REFERENCE_SEQUENCE, ASSUME_SORTED, STOP_AFTER, programs);
+        SinglePassSamProgram.makeItSo(INPUT, REFERENCE_SEQUENCE, ASSUME_SORTED, STOP_AFTER, INFLATER_THREADS, programs);
 
         return null;
     }
@@ -7,6 +7,7 @@ import htsjdk.samtools.SamReader;
 import htsjdk.samtools.SamReaderFactory;
 import htsjdk.samtools.reference.ReferenceSequence;
 import htsjdk.samtools.reference.ReferenceSequenceFileWalker;
+import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.samtools.util.CloserUtil;
 import htsjdk.samtools.util.IOUtil;
 import htsjdk.samtools.util.SequenceUtil;
@@ -17,6 +18,7 @@ import org.broadinstitute.hellbender.cmdline.Argument;
 import org.broadinstitute.hellbender.cmdline.PicardCommandLineProgram;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.iterators.ParallelInflatingBAMIterator;
 import org.broadinstitute.hellbender.utils.runtime.ProgressLogger;
 
 import java.io.File;
@@ -42,6 +44,9 @@ public abstract class SinglePassSamProgram extends PicardCommandLineProgram {
     @Argument(doc = "Stop after processing N reads, mainly for debugging.")
     public long STOP_AFTER = 0;
 
+    @Argument(doc = "Number of threads on which to decompress the input, if it is a BAM file.", optional = true)
+    public int INFLATER_THREADS = 1;
+
     private static final Logger logger = LogManager.getLogger();
 
     /**
@@ -50,7 +55,7 @@ public abstract class SinglePassSamProgram extends PicardCommandLineProgram {
      */
     @Override
     protected final Object doWork() {
-        makeItSo(INPUT, REFERENCE_SEQUENCE, ASSUME_SORTED, STOP_AFTER, Arrays.asList(this));
+        makeItSo(INPUT, REFERENCE_SEQUENCE, ASSUME_SORTED, STOP_AFTER, INFLATER_THREADS, Arrays.asList(this));
         return null;
     }
 
@@ -59,10 +64,29 @@ public abstract class SinglePassSamProgram extends PicardCommandLineProgram {
                                 final boolean assumeSorted,
                                 final long stopAfter,
                                 final Collection<SinglePassSamProgram> programs) {
+        makeItSo(input, referenceSequence, assumeSorted, stopAfter, 1, programs);
+    }
+
+    /**
+     * Runs the given programs over a single pass of the input.
+     *
+     * @param inflaterThreads if greater than 1 and the input is a BAM file, decompress it on this many threads
+     *                        (see {@link ParallelInflatingBAMIterator})
+     */
+    public static void makeItSo(final File input,
+                                final File referenceSequence,
+                                final boolean assumeSorted,
+                                final long stopAfter,
+                                final int inflaterThreads,
+                                final Collection<SinglePassSamProgram> programs) {
+        if (inflaterThreads < 1) {
+            throw new UserException.BadArgumentValue("INFLATER_THREADS", String.valueOf(inflaterThreads), "should be a positive number");
+        }
 
         // Setup the standard inputs
         IOUtil.assertFileIsReadable(input);
-        final SamReader in = SamReaderFactory.makeDefault().referenceSequence(referenceSequence).open(input);
+        final SamReaderFactory readerFactory = SamReaderFactory.makeDefault().referenceSequence(referenceSequence);
+        final SamReader in = readerFactory.open(input);
 
         // Optionally load up the reference sequence and double check sequence dictionaries
         final ReferenceSequenceFileWalker walker;
@@ -102,7 +126,11 @@ public abstract class SinglePassSamProgram extends PicardCommandLineProgram {
 
         final ProgressLogger progress = new ProgressLogger(logger);
 
-        for (final SAMRecord rec : in) {
+        final CloseableIterator<SAMRecord> records = inflaterThreads > 1 && in.type() == SamReader.Type.BAM_TYPE ?
+                new ParallelInflatingBAMIterator(input, in.getFileHeader(), readerFactory.validationStringency(), inflaterThreads) :
+                in.iterator();
+        while (records.hasNext()) {
+            final SAMRecord rec = records.next();
             final ReferenceSequence ref;
             if (walker == null || rec.getReferenceIndex() == SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX) {
                 ref = null;
@@ -127,6 +155,7 @@ public abstract class SinglePassSamProgram extends PicardCommandLineProgram {
             }
         }
 
+        records.close();
         CloserUtil.close(in);
 
         for (final SinglePassSamProgram program : programs) {
@@ -20,7 +20,7 @@ import java.util.Arrays;
 public final class BaseRecalibratorSparkFn {
 
     public static RecalibrationReport apply( final JavaPairRDD<GATKRead, ReadContextData> readsWithContext, final SAMFileHeader header, final SAMSequenceDictionary referenceDictionary, final RecalibrationArgumentCollection recalArgs ) {
-        JavaRDD<RecalibrationTables> unmergedTables = readsWithContext.mapPartitions(readWithContextIterator -> {
+        JavaRDD<FlatRecalibrationTables> unmergedTables = readsWithContext.mapPartitions(readWithContextIterator -> {
             final BaseRecalibrationEngine bqsr = new BaseRecalibrationEngine(recalArgs, header);
             bqsr.logCovariatesUsed();
 
@@ -33,20 +33,37 @@ public final class BaseRecalibratorSparkFn {
                 bqsr.processRead(readWithData._1(), refDS, variants);
             }
             // Need to wrap in ArrayList due to our current inability to serialize the return value of Arrays.asList() directly
-            return new ArrayList<>(Arrays.asList(bqsr.getRecalibrationTables()));
+            return new ArrayList<>(Arrays.asList(bqsr.getRecalibrationCounts()));
         });
 
-        final RecalibrationTables emptyRecalibrationTable = new RecalibrationTables(new StandardCovariateList(recalArgs, header));
-        final RecalibrationTables combinedTables = unmergedTables.treeAggregate(emptyRecalibrationTable,
-                RecalibrationTables::inPlaceCombine,
-                RecalibrationTables::inPlaceCombine,
-                Math.max(1, (int)(Math.log(unmergedTables.partitions().size()) / Math.log(2))));
-
-        BaseRecalibrationEngine.finalizeRecalibrationTables(combinedTables);
+        final StandardCovariateList covariates = new StandardCovariateList(recalArgs, header);
+        final RecalibrationTables combinedTables = combineTables(unmergedTables, covariates);
 
         final QuantizationInfo quantizationInfo = new QuantizationInfo(combinedTables, recalArgs.QUANTIZING_LEVELS);
 
-        final StandardCovariateList covariates = new StandardCovariateList(recalArgs, header);
         return RecalUtils.createRecalibrationReport(recalArgs.generateReportTable(covariates.covariateNames()), quantizationInfo.generateReportTable(), RecalUtils.generateReportTables(combinedTables, covariates));
     }
+
+    /**
+     * Merge the counts collected by each partition into finalized recalibration tables.
+     *
+     * The counts are combined with treeAggregate, so the driver only receives the few partially combined tables of the
+     * last level of the tree rather than one table per partition, and they are shipped as {@link FlatRecalibrationTables},
+     * whose wire format only holds the non-empty cells as primitives, rather than as a graph of RecalDatum objects.
+     *
+     * @param partitionTables counts collected by each partition, with the given covariates
+     * @param covariates covariates used to collect the counts
+     * @return finalized recalibration tables for all the partitions
+     */
+    public static RecalibrationTables combineTables( final JavaRDD<FlatRecalibrationTables> partitionTables, final StandardCovariateList covariates ) {
+        final FlatRecalibrationTables emptyTables = new FlatRecalibrationTables(covariates);
+        final FlatRecalibrationTables combinedCounts = partitionTables.treeAggregate(emptyTables,
+                FlatRecalibrationTables::combine,
+                FlatRecalibrationTables::combine,
+                Math.max(1, (int)(Math.log(partitionTables.partitions().size()) / Math.log(2))));
+
+        final RecalibrationTables combinedTables = combinedCounts.toRecalibrationTables();
+        BaseRecalibrationEngine.finalizeRecalibrationTables(combinedTables);
+        return combinedTables;
+    }
 }
@@ -21,7 +21,8 @@ import java.util.Iterator;
 
 /**
  * A lightweight wrapper over BaseRecalibrationEngine to make it easier to use from Spark.
- * Takes in reads + contextual data (overlapping reference bases and variants), spits out RecalibrationTables.
+ * Takes in reads + contextual data (overlapping reference bases and variants), spits out the recalibration counts
+ * as FlatRecalibrationTables, which can be merged with {@link org.broadinstitute.hellbender.tools.spark.transforms.BaseRecalibratorSparkFn#combineTables}.
  */
 public final class BaseRecalibratorEngineSparkWrapper implements Serializable {
     private static final long serialVersionUID = 1L;
@@ -43,7 +44,7 @@ public final class BaseRecalibratorEngineSparkWrapper implements Serializable {
     // public functions (and constructors, those go first)
 
     /**
-     * Takes in reads + contextual data (overlapping reference bases and variants), spits out RecalibrationTables.
+     * Takes in reads + contextual data (overlapping reference bases and variants), spits out FlatRecalibrationTables.
      */
     public BaseRecalibratorEngineSparkWrapper(Broadcast<SAMFileHeader> headerBcast, Broadcast<SAMSequenceDictionary> referenceSequenceDictionaryBcast, RecalibrationArgumentCollection recalArgs) {
         this.headerBcast = headerBcast;
@@ -67,7 +68,7 @@ public final class BaseRecalibratorEngineSparkWrapper implements Serializable {
         }
     }
 
-    public Iterable<RecalibrationTables> apply(Iterator<ContextShard> shards) throws Exception {
+    public Iterable<FlatRecalibrationTables> apply(Iterator<ContextShard> shards) throws Exception {
         this.header = headerBcast.value();
         this.referenceSequenceDictionary = referenceSequenceDictionaryBcast.value();
         recalibrationEngine = new BaseRecalibrationEngine(recalArgs, header);
@@ -85,8 +86,8 @@ public final class BaseRecalibratorEngineSparkWrapper implements Serializable {
                 recalibrationEngine.processRead(read, refDS, variants);
             }
         }
-        ArrayList<RecalibrationTables> ret = new ArrayList<>();
-        ret.add(recalibrationEngine.getRecalibrationTables());
+        ArrayList<FlatRecalibrationTables> ret = new ArrayList<>();
+        ret.add(recalibrationEngine.getRecalibrationCounts());
         return ret;
     }
 
@@ -37,4 +37,9 @@ public final class BaseQualityRankSumTest extends RankSumTest implements Standar
         Utils.nonNull(read);
         return OptionalDouble.of(read.getBaseQuality(ReadUtils.getReadCoordinateForReferenceCoordinateUpToEndOfRead(read, refLoc, ReadUtils.ClippingTail.RIGHT_TAIL)));
     }
+
+    @Override
+    protected OptionalDouble getElementForRead(final SiteReadEvidence.ReadEvidence readEvidence, final int refLoc) {
+        return OptionalDouble.of(readEvidence.getBaseQualityAtSite());
+    }
 }
\ No newline at end of file
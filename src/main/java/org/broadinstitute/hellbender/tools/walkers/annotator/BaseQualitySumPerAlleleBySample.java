@@ -11,7 +11,6 @@ import org.broadinstitute.hellbender.utils.QualityUtils;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.genotyper.ReadLikelihoods;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
-import org.broadinstitute.hellbender.utils.read.ReadUtils;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFHeaderLines;
 
@@ -47,6 +46,17 @@ public final class BaseQualitySumPerAlleleBySample extends GenotypeAnnotation im
                          final Genotype g,
                          final GenotypeBuilder gb,
                          final ReadLikelihoods<Allele> likelihoods) {
+        Utils.nonNull(vc, "vc is null");
+        annotate(ref, vc, g, gb, likelihoods, likelihoods == null ? null : new SiteReadEvidence(likelihoods, vc));
+    }
+
+    @Override
+    public void annotate(final ReferenceContext ref,
+                         final VariantContext vc,
+                         final Genotype g,
+                         final GenotypeBuilder gb,
+                         final ReadLikelihoods<Allele> likelihoods,
+                         final SiteReadEvidence evidence) {
         Utils.nonNull(gb, "gb is null");
         Utils.nonNull(vc, "vc is null");
         if ( g == null || !g.isCalled() || likelihoods == null ) {
@@ -56,12 +66,12 @@ public final class BaseQualitySumPerAlleleBySample extends GenotypeAnnotation im
         double refQualSum= 0.0;
         double altQualSum= 0.0;
 
-        for ( final ReadLikelihoods<Allele>.BestAllele bestAllele : likelihoods.bestAlleles(g.getSampleName()) ) {
-            if ( bestAllele.isInformative() && isUsableRead(bestAllele.read)) {
-                final double baseQual = getBaseQualityForRead(bestAllele.read, vc.getStart());
-                if (bestAllele.allele.isReference()) {
+        for ( final SiteReadEvidence.ReadEvidence readEvidence : evidence.reads(g.getSampleName()) ) {
+            if ( readEvidence.isInformative() && isUsableRead(readEvidence.getRead())) {
+                final double baseQual = readEvidence.getBaseQualityAtSite();
+                if (readEvidence.getAllele().isReference()) {
                     refQualSum += baseQual;
-                } else if (vc.getAlleles().contains(bestAllele.allele)) {
+                } else if (vc.getAlleles().contains(readEvidence.getAllele())) {
                     altQualSum += baseQual;
                 }
             }
@@ -74,8 +84,4 @@ public final class BaseQualitySumPerAlleleBySample extends GenotypeAnnotation im
     static boolean isUsableRead(final GATKRead read) {
         return read.getMappingQuality() != 0 && read.getMappingQuality() != QualityUtils.MAPPING_QUALITY_UNAVAILABLE;
     }
-
-    private static double getBaseQualityForRead(final GATKRead read, final int refLoc) {
-        return read.getBaseQualities()[ReadUtils.getReadCoordinateForReferenceCoordinateUpToEndOfRead(read, refLoc, ReadUtils.ClippingTail.RIGHT_TAIL)];
-    }
 }
\ No newline at end of file
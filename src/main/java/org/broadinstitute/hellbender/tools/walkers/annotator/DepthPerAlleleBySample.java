@@ -12,7 +12,6 @@ import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.genotyper.ReadLikelihoods;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Depth of coverage of each allele per sample
@@ -42,6 +41,17 @@ public final class DepthPerAlleleBySample extends GenotypeAnnotation implements
                          final Genotype g,
                          final GenotypeBuilder gb,
                          final ReadLikelihoods<Allele> likelihoods) {
+        Utils.nonNull(vc, "vc is null");
+        annotate(ref, vc, g, gb, likelihoods, likelihoods == null ? null : new SiteReadEvidence(likelihoods, vc));
+    }
+
+    @Override
+    public void annotate(final ReferenceContext ref,
+                         final VariantContext vc,
+                         final Genotype g,
+                         final GenotypeBuilder gb,
+                         final ReadLikelihoods<Allele> likelihoods,
+                         final SiteReadEvidence evidence) {
         Utils.nonNull(gb, "gb is null");
         Utils.nonNull(vc, "vc is null");
 
@@ -57,9 +67,7 @@ public final class DepthPerAlleleBySample extends GenotypeAnnotation implements
         for ( final Allele allele : vc.getAlleles() ) {
             alleleCounts.put(allele, 0);
         }
-        final Map<Allele, List<Allele>> alleleSubset = alleles.stream().collect(Collectors.toMap(a -> a, Arrays::asList));
-        final ReadLikelihoods<Allele> subsettedLikelihoods = likelihoods.marginalize(alleleSubset);
-        subsettedLikelihoods.bestAlleles(g.getSampleName()).stream()
+        evidence.bestAllelesAmongVariantAlleles(g.getSampleName()).stream()
                 .filter(ba -> ba.isInformative())
                 .forEach(ba -> alleleCounts.compute(ba.allele, (allele,prevCount) -> prevCount + 1));
 
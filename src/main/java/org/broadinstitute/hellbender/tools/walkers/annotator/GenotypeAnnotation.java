@@ -31,6 +31,28 @@ public abstract class GenotypeAnnotation extends VariantAnnotation{
                                   final GenotypeBuilder gb,
                                   final ReadLikelihoods<Allele> likelihoods);
 
+    /**
+     * Computes the annotation for the given genotype from the read evidence at the site, which is shared by all the
+     * annotations of the variant. Annotations that walk the reads of the likelihoods should override this method.
+     * By default the evidence is ignored and
+     * {@link #annotate(ReferenceContext, VariantContext, Genotype, GenotypeBuilder, ReadLikelihoods)} is called.
+     *
+     * @param ref Reference context, may be null
+     * @param vc Variant to be annotated. Not null.
+     * @param g the genotype to annotate. May be null.
+     * @param gb the builder to modify and annotations to. Not null.
+     * @param likelihoods matrix of likelihoods indexed by allele and read
+     * @param evidence the read evidence at the site, computed from likelihoods; null if and only if likelihoods is null
+     */
+    public void annotate(final ReferenceContext ref,
+                         final VariantContext vc,
+                         final Genotype g,
+                         final GenotypeBuilder gb,
+                         final ReadLikelihoods<Allele> likelihoods,
+                         final SiteReadEvidence evidence) {
+        annotate(ref, vc, g, gb, likelihoods);
+    }
+
     /**
      * Return the descriptions used for the VCF FORMAT meta field.
      * Subclasses must ensure that this list is not null and does not contain null.
@@ -28,6 +28,23 @@ public abstract class InfoFieldAnnotation extends VariantAnnotation{
                                                  final VariantContext vc,
                                                  final ReadLikelihoods<Allele> likelihoods);
 
+    /**
+     * Computes the annotation for the given variant from the read evidence at the site, which is shared by all the
+     * annotations of the variant. Annotations that walk the reads of the likelihoods should override this method.
+     * By default the evidence is ignored and {@link #annotate(ReferenceContext, VariantContext, ReadLikelihoods)} is called.
+     *
+     * @param ref Reference context, may be null
+     * @param vc Variant to be annotated. Not null.
+     * @param likelihoods likelihoods indexed by sample, allele, and read within sample
+     * @param evidence the read evidence at the site, computed from likelihoods; null if and only if likelihoods is null
+     */
+    public Map<String, Object> annotate(final ReferenceContext ref,
+                                        final VariantContext vc,
+                                        final ReadLikelihoods<Allele> likelihoods,
+                                        final SiteReadEvidence evidence) {
+        return annotate(ref, vc, likelihoods);
+    }
+
     /**
      * Returns the descriptions used for the VCF INFO meta field.
      * Subclasses must ensure that this list is not null and does not contain null.
@@ -62,6 +62,17 @@ public final class OxoGReadCounts extends GenotypeAnnotation {
                                   final Genotype g,
                                   final GenotypeBuilder gb,
                                   final ReadLikelihoods<Allele> likelihoods){
+        Utils.nonNull(vc, "vc is null");
+        annotate(refContext, vc, g, gb, likelihoods, likelihoods == null ? null : new SiteReadEvidence(likelihoods, vc));
+    }
+
+    @Override
+    public void annotate(final ReferenceContext refContext,
+                         final VariantContext vc,
+                         final Genotype g,
+                         final GenotypeBuilder gb,
+                         final ReadLikelihoods<Allele> likelihoods,
+                         final SiteReadEvidence evidence){
         Utils.nonNull(gb, "gb is null");
         Utils.nonNull(vc, "vc is null");
 
@@ -77,10 +88,10 @@ public final class OxoGReadCounts extends GenotypeAnnotation {
         int ref_F1R2 = 0;
         int ref_F2R1 = 0;
 
-        for (final ReadLikelihoods<Allele>.BestAllele bestAllele : likelihoods.bestAlleles(g.getSampleName())) {
-            final GATKRead read = bestAllele.read;
-            if (bestAllele.isInformative() && isUsableRead(read) && read.isPaired()) {
-                final Allele allele = bestAllele.allele;
+        for (final SiteReadEvidence.ReadEvidence readEvidence : evidence.reads(g.getSampleName())) {
+            final GATKRead read = readEvidence.getRead();
+            if (readEvidence.isInformative() && isUsableRead(read) && read.isPaired()) {
+                final Allele allele = readEvidence.getAllele();
                 if (allele.equals(ref, true)) {
                     if (read.isReverseStrand() == read.isFirstOfPair()) {
                         ref_F2R1++;
@@ -34,6 +34,16 @@ public abstract class RankSumTest extends InfoFieldAnnotation {
                                         final ReadLikelihoods<Allele> likelihoods) {
         Utils.nonNull(vc, "vc is null");
         Utils.nonNull(likelihoods, "likelihoods has to be non-null");
+        return annotate(ref, vc, likelihoods, new SiteReadEvidence(likelihoods, vc));
+    }
+
+    @Override
+    public Map<String, Object> annotate(final ReferenceContext ref,
+                                        final VariantContext vc,
+                                        final ReadLikelihoods<Allele> likelihoods,
+                                        final SiteReadEvidence evidence) {
+        Utils.nonNull(vc, "vc is null");
+        Utils.nonNull(evidence, "evidence has to be non-null");
         final GenotypesContext genotypes = vc.getGenotypes();
         if (genotypes == null || genotypes.isEmpty()) {
             return Collections.emptyMap();
@@ -44,11 +54,11 @@ public abstract class RankSumTest extends InfoFieldAnnotation {
 
         final int refLoc = vc.getStart();
 
-        for (final ReadLikelihoods<Allele>.BestAllele bestAllele : likelihoods.bestAlleles()) {
-            final GATKRead read = bestAllele.read;
-            final Allele allele = bestAllele.allele;
-            if (bestAllele.isInformative() && isUsableRead(read, refLoc)) {
-                final OptionalDouble value = getElementForRead(read, refLoc, bestAllele);
+        for (final SiteReadEvidence.ReadEvidence readEvidence : evidence.reads()) {
+            final GATKRead read = readEvidence.getRead();
+            final Allele allele = readEvidence.getAllele();
+            if (readEvidence.isInformative() && isUsableRead(read, refLoc)) {
+                final OptionalDouble value = getElementForRead(readEvidence, refLoc);
                 // Bypass read if the clipping goal is not reached or the refloc is inside a spanning deletion
                 if ( value.isPresent() && value.getAsDouble() != INVALID_ELEMENT_FROM_READ ) {
                     if (allele.isReference()) {
@@ -74,6 +84,18 @@ public abstract class RankSumTest extends InfoFieldAnnotation {
         }
     }
 
+    /**
+     * Get the element for the given read at the given reference position, from the read evidence shared with the other
+     * annotations. Annotations using a value the evidence caches should override this method.
+     *
+     * @param readEvidence the evidence of the read at the site
+     * @param refLoc   the reference position
+     * @return an OptionalDouble representing the element to be used in the rank sum test, empty if it should not be used
+     */
+    protected OptionalDouble getElementForRead(final SiteReadEvidence.ReadEvidence readEvidence, final int refLoc) {
+        return getElementForRead(readEvidence.getRead(), refLoc, readEvidence.getBestAllele());
+    }
+
     /**
      * Get the element for the given read at the given reference position
      *
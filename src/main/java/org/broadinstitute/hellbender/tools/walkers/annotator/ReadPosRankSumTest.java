@@ -40,6 +40,23 @@ public final class ReadPosRankSumTest extends RankSumTest implements StandardAnn
 
     @Override
     protected OptionalDouble getElementForRead(final GATKRead read, final int refLoc) {
+        return getReadPosition(read, refLoc);
+    }
+
+    @Override
+    protected OptionalDouble getElementForRead(final SiteReadEvidence.ReadEvidence readEvidence, final int refLoc) {
+        return readEvidence.getReadPositionAtSite();
+    }
+
+    /**
+     * Returns the distance of the reference position to the closest end of the read, counting soft-clipped bases.
+     *
+     * @param read     the read
+     * @param refLoc   the reference position
+     * @return the distance, {@link #INVALID_ELEMENT_FROM_READ} if the position is in a deletion of the read,
+     * or empty if the read does not reach the position
+     */
+    public static OptionalDouble getReadPosition(final GATKRead read, final int refLoc) {
         Utils.nonNull(read);
         final int offset = ReadUtils.getReadCoordinateForReferenceCoordinate(ReadUtils.getSoftStart(read), read.getCigar(), refLoc, ReadUtils.ClippingTail.RIGHT_TAIL, true);
         if ( offset == ReadUtils.CLIPPING_GOAL_NOT_REACHED ) {
@@ -0,0 +1,154 @@
+package org.broadinstitute.hellbender.tools.walkers.annotator;
+
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.VariantContext;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.genotyper.ReadLikelihoods;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * The read evidence at a variant site, computed at most once and shared by all the annotations of the variant:
+ * the best allele of every read, and the per-read values at the site that more than one annotation needs.
+ *
+ * Finding the best allele of a read is a scan over all the alleles, and locating the site in a read is a walk
+ * along its cigar, so annotations re-deriving them independently multiply that cost by the number of annotations.
+ * Everything here is computed lazily, on first use.
+ *
+ * Instances are not thread-safe: they are meant to be used by one annotation at a time, for a single variant.
+ */
+public final class SiteReadEvidence {
+    private final ReadLikelihoods<Allele> likelihoods;
+    private final List<Allele> variantAlleles;
+    private final int refLoc;
+
+    private List<ReadEvidence> reads;
+    private Map<String, List<ReadEvidence>> readsBySample;
+    private ReadLikelihoods<Allele> variantAlleleLikelihoods;
+    private final Map<String, List<ReadLikelihoods<Allele>.BestAllele>> variantAlleleBestAllelesBySample = new HashMap<>();
+
+    /**
+     * @param likelihoods likelihoods indexed by sample, allele, and read within sample. Not null.
+     * @param vc the variant the evidence is for. Not null.
+     */
+    public SiteReadEvidence(final ReadLikelihoods<Allele> likelihoods, final VariantContext vc) {
+        this.likelihoods = Utils.nonNull(likelihoods, "likelihoods is null");
+        Utils.nonNull(vc, "vc is null");
+        variantAlleles = vc.getAlleles();
+        refLoc = vc.getStart();
+    }
+
+    /**
+     * Returns the likelihoods the evidence is computed from.
+     */
+    public ReadLikelihoods<Allele> getLikelihoods() {
+        return likelihoods;
+    }
+
+    /**
+     * Returns the evidence of all the reads, sample by sample in the order of the likelihoods.
+     * Note: The returned list is unmodifiable.
+     */
+    public List<ReadEvidence> reads() {
+        if (reads == null) {
+            readsBySample = new LinkedHashMap<>(likelihoods.numberOfSamples());
+            final List<ReadEvidence> allReads = new ArrayList<>();
+            for (final String sample : likelihoods.samples()) {
+                final List<ReadEvidence> sampleReads = likelihoods.bestAlleles(sample).stream().map(ReadEvidence::new).collect(Collectors.toList());
+                readsBySample.put(sample, Collections.unmodifiableList(sampleReads));
+                allReads.addAll(sampleReads);
+            }
+            reads = Collections.unmodifiableList(allReads);
+        }
+        return reads;
+    }
+
+    /**
+     * Returns the evidence of the reads of a sample.
+     * Note: The returned list is unmodifiable.
+     *
+     * @param sample a sample in the likelihoods.
+     * @throws IllegalArgumentException if the sample is not in the likelihoods.
+     */
+    public List<ReadEvidence> reads(final String sample) {
+        reads();
+        final List<ReadEvidence> sampleReads = readsBySample.get(sample);
+        Utils.validateArg(sampleReads != null, () -> "Sample " + sample + " is not in the likelihoods");
+        return sampleReads;
+    }
+
+    /**
+     * Returns the best allele of every read of a sample, among the alleles of the variant only.
+     *
+     * These are the best alleles of the likelihoods marginalized to the alleles of the variant, which is done once for all
+     * the samples, and which requires the alleles of the variant to be a subset of the alleles of the likelihoods.
+     * Note: The returned list is unmodifiable.
+     *
+     * @param sample a sample in the likelihoods.
+     * @throws IllegalArgumentException if the sample is not in the likelihoods.
+     */
+    public List<ReadLikelihoods<Allele>.BestAllele> bestAllelesAmongVariantAlleles(final String sample) {
+        Utils.validateArg(likelihoods.indexOfSample(sample) >= 0, () -> "Sample " + sample + " is not in the likelihoods");
+        if (variantAlleleLikelihoods == null) {
+            final Map<Allele, List<Allele>> alleleSubset = new LinkedHashSet<>(variantAlleles).stream().collect(Collectors.toMap(a -> a, Arrays::asList));
+            variantAlleleLikelihoods = likelihoods.marginalize(alleleSubset);
+        }
+        return variantAlleleBestAllelesBySample.computeIfAbsent(sample, s -> Collections.unmodifiableList(new ArrayList<>(variantAlleleLikelihoods.bestAlleles(s))));
+    }
+
+    /**
+     * The evidence of a single read: its best allele, and its values at the variant site.
+     */
+    public final class ReadEvidence {
+        private static final int UNKNOWN = -1;
+
+        private final ReadLikelihoods<Allele>.BestAllele bestAllele;
+        private int baseQualityAtSite = UNKNOWN;
+        private OptionalDouble readPositionAtSite;
+
+        private ReadEvidence(final ReadLikelihoods<Allele>.BestAllele bestAllele) {
+            this.bestAllele = bestAllele;
+        }
+
+        public ReadLikelihoods<Allele>.BestAllele getBestAllele() {
+            return bestAllele;
+        }
+
+        public GATKRead getRead() {
+            return bestAllele.read;
+        }
+
+        public Allele getAllele() {
+            return bestAllele.allele;
+        }
+
+        public boolean isInformative() {
+            return bestAllele.isInformative();
+        }
+
+        /**
+         * Returns the quality of the base of the read at the variant start, or of its last base if the read ends before.
+         */
+        public int getBaseQualityAtSite() {
+            if (baseQualityAtSite == UNKNOWN) {
+                final GATKRead read = bestAllele.read;
+                baseQualityAtSite = read.getBaseQuality(ReadUtils.getReadCoordinateForReferenceCoordinateUpToEndOfRead(read, refLoc, ReadUtils.ClippingTail.RIGHT_TAIL));
+            }
+            return baseQualityAtSite;
+        }
+
+        /**
+         * Returns the distance of the variant start to the closest end of the read, as computed by
+         * {@link ReadPosRankSumTest#getReadPosition(GATKRead, int)}.
+         */
+        public OptionalDouble getReadPositionAtSite() {
+            if (readPositionAtSite == null) {
+                readPositionAtSite = ReadPosRankSumTest.getReadPosition(bestAllele.read, refLoc);
+            }
+            return readPositionAtSite;
+        }
+    }
+}
@@ -57,6 +57,17 @@ public final class StrandBiasBySample extends GenotypeAnnotation {
                          final GenotypeBuilder gb,
                          final ReadLikelihoods<Allele> likelihoods) {
         Utils.nonNull(vc);
+        annotate(ref, vc, g, gb, likelihoods, likelihoods == null ? null : new SiteReadEvidence(likelihoods, vc));
+    }
+
+    @Override
+    public void annotate(final ReferenceContext ref,
+                         final VariantContext vc,
+                         final Genotype g,
+                         final GenotypeBuilder gb,
+                         final ReadLikelihoods<Allele> likelihoods,
+                         final SiteReadEvidence evidence) {
+        Utils.nonNull(vc);
         Utils.nonNull(g);
         Utils.nonNull(gb);
 
@@ -65,7 +76,7 @@ public final class StrandBiasBySample extends GenotypeAnnotation {
             return;
         }
 
-        final int[][] table = FisherStrand.getContingencyTable(likelihoods, vc, 0, Arrays.asList(g.getSampleName()));
+        final int[][] table = FisherStrand.getContingencyTable(evidence, vc, 0, Arrays.asList(g.getSampleName()));
 
         gb.attribute(GATKVCFConstants.STRAND_BIAS_BY_SAMPLE_KEY, getContingencyArray(table));
     }
@@ -27,6 +27,15 @@ public abstract class StrandBiasTest extends InfoFieldAnnotation {
                                         final VariantContext vc,
                                         final ReadLikelihoods<Allele> likelihoods) {
         Utils.nonNull(vc);
+        return annotate(ref, vc, likelihoods, likelihoods == null ? null : new SiteReadEvidence(likelihoods, vc));
+    }
+
+    @Override
+    public Map<String, Object> annotate(final ReferenceContext ref,
+                                        final VariantContext vc,
+                                        final ReadLikelihoods<Allele> likelihoods,
+                                        final SiteReadEvidence evidence) {
+        Utils.nonNull(vc);
         if ( !vc.isVariant() ) {
             return Collections.emptyMap();
         }
@@ -40,15 +49,15 @@ public abstract class StrandBiasTest extends InfoFieldAnnotation {
             }
         }
 
-        if (likelihoods != null) {
-            return calculateAnnotationFromLikelihoods(likelihoods, vc);
+        if (evidence != null) {
+            return calculateAnnotationFromLikelihoods(evidence, vc);
         }
         return Collections.emptyMap();
     }
 
     protected abstract Map<String, Object> calculateAnnotationFromGTfield(final GenotypesContext genotypes);
 
-    protected abstract Map<String, Object> calculateAnnotationFromLikelihoods(final ReadLikelihoods<Allele> likelihoods,
+    protected abstract Map<String, Object> calculateAnnotationFromLikelihoods(final SiteReadEvidence evidence,
                                                                               final VariantContext vc);
 
     /**
@@ -121,6 +130,30 @@ public abstract class StrandBiasTest extends InfoFieldAnnotation {
         if( likelihoods == null || vc == null) {
             return null;
         }
+        return getContingencyTable(new SiteReadEvidence(likelihoods, vc), vc, minCount, samples);
+    }
+
+    /**
+     Allocate and fill a 2x2 strand contingency table from the best alleles of the reads in the read evidence at the site.
+     * @return a 2x2 contingency table
+     */
+    public static int[][] getContingencyTable( final SiteReadEvidence evidence,
+                                               final VariantContext vc,
+                                               final int minCount) {
+        Utils.nonNull(evidence);
+        return getContingencyTable(evidence, vc, minCount, evidence.getLikelihoods().samples());
+    }
+
+    /**
+     Allocate and fill a 2x2 strand contingency table from the best alleles of the reads in the read evidence at the site.
+     * @return a 2x2 contingency table
+     */
+    public static int[][] getContingencyTable( final SiteReadEvidence evidence,
+                                               final VariantContext vc,
+                                               final int minCount,
+                                               final Collection<String> samples) {
+        Utils.nonNull(evidence);
+        Utils.nonNull(vc);
 
         final Allele ref = vc.getReference();
         final List<Allele> allAlts = vc.getAlternateAlleles();
@@ -128,9 +161,9 @@ public abstract class StrandBiasTest extends InfoFieldAnnotation {
         final int[][] table = new int[ARRAY_DIM][ARRAY_DIM];
         for (final String sample : samples) {
             final int[] sampleTable = new int[ARRAY_SIZE];
-            likelihoods.bestAlleles(sample).stream()
-                    .filter(ba -> ba.isInformative())
-                    .forEach(ba -> updateTable(sampleTable, ba.allele, ba.read, ref, allAlts));
+            evidence.reads(sample).stream()
+                    .filter(re -> re.isInformative())
+                    .forEach(re -> updateTable(sampleTable, re.getAllele(), re.getRead(), ref, allAlts));
             if (passesMinimumThreshold(sampleTable, minCount)) {
                 copyToMainTable(sampleTable, table);
             }
@@ -1,11 +1,9 @@
 package org.broadinstitute.hellbender.tools.walkers.annotator;
 
 import com.google.common.annotations.VisibleForTesting;
-import htsjdk.variant.variantcontext.Allele;
 import htsjdk.variant.variantcontext.GenotypesContext;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFInfoHeaderLine;
-import org.broadinstitute.hellbender.utils.genotyper.ReadLikelihoods;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFHeaderLines;
 
@@ -65,8 +63,8 @@ public final class StrandOddsRatio extends StrandBiasTest implements StandardAnn
     }
 
     @Override
-    protected Map<String, Object> calculateAnnotationFromLikelihoods(final ReadLikelihoods<Allele> likelihoods, final VariantContext vc){
-        final int[][] table = getContingencyTable(likelihoods, vc, MIN_COUNT);
+    protected Map<String, Object> calculateAnnotationFromLikelihoods(final SiteReadEvidence evidence, final VariantContext vc){
+        final int[][] table = getContingencyTable(evidence, vc, MIN_COUNT);
         return annotationForOneTable(calculateSOR(table));
     }
 
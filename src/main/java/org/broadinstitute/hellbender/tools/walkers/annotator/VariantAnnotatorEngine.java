@@ -138,6 +138,8 @@ public final class VariantAnnotatorEngine {
 
     /**
      * Annotates the given variant context - adds all annotations that satisfy the predicate.
+     * The best allele of every read, and the other per-read values at the site, are computed at most once and shared
+     * by all the annotations, as a {@link SiteReadEvidence}.
      * @param vc the variant context to annotate
      * @param features context containing the features that overlap the given variant
      * @param ref the reference context of the variant to annotate or null if there is none
@@ -152,15 +154,17 @@ public final class VariantAnnotatorEngine {
         Utils.nonNull(vc, "vc cannot be null");
         Utils.nonNull(features, "features cannot be null");
 
+        final SiteReadEvidence evidence = likelihoods == null ? null : new SiteReadEvidence(likelihoods, vc);
+
         // annotate genotypes, creating another new VC in the process
         final VariantContextBuilder builder = new VariantContextBuilder(vc);
-        builder.genotypes(annotateGenotypes(ref, vc, likelihoods, addAnnot));
+        builder.genotypes(annotateGenotypes(ref, vc, likelihoods, evidence, addAnnot));
         final VariantContext newGenotypeAnnotatedVC = builder.make();
 
         final Map<String, Object> infoAnnotMap = new LinkedHashMap<>(newGenotypeAnnotatedVC.getAttributes());
         for ( final InfoFieldAnnotation annotationType : this.infoAnnotations) {
             if (addAnnot.test(annotationType)){
-                final Map<String, Object> annotationsFromCurrentType = annotationType.annotate(ref, newGenotypeAnnotatedVC, likelihoods);
+                final Map<String, Object> annotationsFromCurrentType = annotationType.annotate(ref, newGenotypeAnnotatedVC, likelihoods, evidence);
                 if ( annotationsFromCurrentType != null ) {
                     infoAnnotMap.putAll(annotationsFromCurrentType);
                 }
@@ -177,6 +181,7 @@ public final class VariantAnnotatorEngine {
     private GenotypesContext annotateGenotypes(final ReferenceContext ref,
                                                final VariantContext vc,
                                                final ReadLikelihoods<Allele> likelihoods,
+                                               final SiteReadEvidence evidence,
                                                final Predicate<VariantAnnotation> addAnnot) {
         if ( genotypeAnnotations.isEmpty() ) {
             return vc.getGenotypes();
@@ -187,7 +192,7 @@ public final class VariantAnnotatorEngine {
             final GenotypeBuilder gb = new GenotypeBuilder(genotype);
             for ( final GenotypeAnnotation annotation : genotypeAnnotations) {
                 if (addAnnot.test(annotation)) {
-                    annotation.annotate(ref, vc, genotype, gb, likelihoods);
+                    annotation.annotate(ref, vc, genotype, gb, likelihoods, evidence);
                 }
             }
             genotypes.add(gb.make());
@@ -1,5 +1,6 @@
 package org.broadinstitute.hellbender.tools.walkers.annotator.allelespecific;
 
+import org.broadinstitute.hellbender.tools.walkers.annotator.SiteReadEvidence;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
@@ -53,4 +54,9 @@ public class AS_BaseQualityRankSumTest extends AS_RankSumTest implements AS_Stan
         return OptionalDouble.of(read.getBaseQuality(ReadUtils.getReadCoordinateForReferenceCoordinateUpToEndOfRead(read, refLoc, ReadUtils.ClippingTail.RIGHT_TAIL)));
     }
 
+    @Override
+    protected OptionalDouble getElementForRead(final SiteReadEvidence.ReadEvidence readEvidence, final int refLoc) {
+        return OptionalDouble.of(readEvidence.getBaseQualityAtSite());
+    }
+
 }
\ No newline at end of file
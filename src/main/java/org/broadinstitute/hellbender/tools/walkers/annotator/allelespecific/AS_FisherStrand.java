@@ -1,10 +1,9 @@
 package org.broadinstitute.hellbender.tools.walkers.annotator.allelespecific;
 
-import htsjdk.variant.variantcontext.Allele;
 import htsjdk.variant.variantcontext.VariantContext;
 import org.broadinstitute.hellbender.tools.walkers.annotator.FisherStrand;
 import org.broadinstitute.hellbender.tools.walkers.annotator.StrandBiasTest;
-import org.broadinstitute.hellbender.utils.genotyper.ReadLikelihoods;
+import org.broadinstitute.hellbender.tools.walkers.annotator.SiteReadEvidence;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
 
 import java.util.Collections;
@@ -44,10 +43,10 @@ public class AS_FisherStrand extends AS_StrandBiasTest implements AS_StandardAnn
     }
 
     @Override
-    protected Map<String, Object> calculateAnnotationFromLikelihoods(final ReadLikelihoods<Allele> likelihoods,
+    protected Map<String, Object> calculateAnnotationFromLikelihoods(final SiteReadEvidence evidence,
                                                                      final VariantContext vc) {
         // either SNP with no alignment context, or indels: per-read likelihood map needed
-        final int[][] table = StrandBiasTest.getContingencyTable(likelihoods, vc, MIN_COUNT);
+        final int[][] table = StrandBiasTest.getContingencyTable(evidence, vc, MIN_COUNT);
         return table == null ? null : annotationForOneTable(FisherStrand.pValueForContingencyTable(table));
     }
 
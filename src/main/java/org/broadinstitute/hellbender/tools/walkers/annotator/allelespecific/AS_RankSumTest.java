@@ -36,6 +36,14 @@ public abstract class AS_RankSumTest extends RankSumTest implements ReducibleAnn
         return annotateRawData(ref, vc, likelihoods);
     }
 
+    @Override
+    public Map<String, Object> annotate(final ReferenceContext ref,
+                                        final VariantContext vc,
+                                        final ReadLikelihoods<Allele> likelihoods,
+                                        final SiteReadEvidence evidence) {
+        return evidence == null ? Collections.emptyMap() : annotateRawData(vc, evidence);
+    }
+
     @Override
     public Map<String, Object> annotateRawData(final ReferenceContext ref,
                                                final VariantContext vc,
@@ -43,10 +51,13 @@ public abstract class AS_RankSumTest extends RankSumTest implements ReducibleAnn
         if ( likelihoods == null) {
             return Collections.emptyMap();
         }
+        return annotateRawData(vc, new SiteReadEvidence(likelihoods, vc));
+    }
 
+    private Map<String, Object> annotateRawData(final VariantContext vc, final SiteReadEvidence evidence) {
         final Map<String, Object> annotations = new HashMap<>();
         final AlleleSpecificAnnotationData<CompressedDataList<Integer>> myData = initializeNewAnnotationData(vc.getAlleles());
-        calculateRawData(vc, likelihoods, myData);
+        calculateRawData(vc, evidence, myData);
         final String annotationString = makeRawAnnotationString(vc.getAlleles(), myData.getAttributeMap());
         if (annotationString == null){
             return Collections.emptyMap();
@@ -86,15 +97,18 @@ public abstract class AS_RankSumTest extends RankSumTest implements ReducibleAnn
         if(likelihoods == null) {
             return;
         }
+        calculateRawData(vc, new SiteReadEvidence(likelihoods, vc), myData);
+    }
 
+    private void calculateRawData(final VariantContext vc, final SiteReadEvidence evidence, final ReducibleAnnotationData<CompressedDataList<Integer>> myData) {
         final int refLoc = vc.getStart();
 
         final Map<Allele, CompressedDataList<Integer>> perAlleleValues = myData.getAttributeMap();
-        for ( final ReadLikelihoods<Allele>.BestAllele bestAllele : likelihoods.bestAlleles() ) {
-            if (bestAllele.isInformative() && isUsableRead(bestAllele.read, refLoc)) {
-                final OptionalDouble value = getElementForRead(bestAllele.read, refLoc, bestAllele);
-                if (value.isPresent() && value.getAsDouble() != INVALID_ELEMENT_FROM_READ && perAlleleValues.containsKey(bestAllele.allele)) {
-                    perAlleleValues.get(bestAllele.allele).add((int) value.getAsDouble());
+        for ( final SiteReadEvidence.ReadEvidence readEvidence : evidence.reads() ) {
+            if (readEvidence.isInformative() && isUsableRead(readEvidence.getRead(), refLoc)) {
+                final OptionalDouble value = getElementForRead(readEvidence, refLoc);
+                if (value.isPresent() && value.getAsDouble() != INVALID_ELEMENT_FROM_READ && perAlleleValues.containsKey(readEvidence.getAllele())) {
+                    perAlleleValues.get(readEvidence.getAllele()).add((int) value.getAsDouble());
                 }
             }
         }
@@ -6,6 +6,7 @@ import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFInfoHeaderLine;
 import org.apache.log4j.Logger;
 import org.broadinstitute.hellbender.engine.ReferenceContext;
+import org.broadinstitute.hellbender.tools.walkers.annotator.SiteReadEvidence;
 import org.broadinstitute.hellbender.tools.walkers.annotator.StrandBiasTest;
 import org.broadinstitute.hellbender.utils.genotyper.ReadLikelihoods;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
@@ -52,6 +53,14 @@ public abstract class AS_StrandBiasTest extends StrandBiasTest implements Reduci
         return annotateRawData(ref, vc, likelihoods);
     }
 
+    @Override
+    public Map<String, Object> annotate(final ReferenceContext ref,
+                                        final VariantContext vc,
+                                        final ReadLikelihoods<Allele> likelihoods,
+                                        final SiteReadEvidence evidence) {
+        return evidence == null ? Collections.emptyMap() : annotateRawData(vc, evidence);
+    }
+
     @Override
     public Map<String, Object> annotateRawData(final ReferenceContext ref,
                                                final VariantContext vc,
@@ -61,11 +70,15 @@ public abstract class AS_StrandBiasTest extends StrandBiasTest implements Reduci
         if ( likelihoods == null) {
             return Collections.emptyMap();
         }
+        return annotateRawData(vc, new SiteReadEvidence(likelihoods, vc));
+    }
+
+    private Map<String, Object> annotateRawData(final VariantContext vc, final SiteReadEvidence evidence) {
         // calculate the annotation from the likelihoods
         // likelihoods can come from HaplotypeCaller call to VariantAnnotatorEngine
         final Map<String, Object> annotations = new HashMap<>();
         final ReducibleAnnotationData<List<Integer>> myData = new AlleleSpecificAnnotationData<>(vc.getAlleles(),null);
-        calculateRawData(vc, likelihoods, myData);
+        getStrandCountsFromReadEvidence(vc, evidence, myData, MIN_COUNT);
         final Map<Allele, List<Integer>> perAlleleValues = myData.getAttributeMap();
         final String annotationString = makeRawAnnotationString(vc.getAlleles(), perAlleleValues);
         annotations.put(getRawKeyName(), annotationString);
@@ -124,15 +137,21 @@ public abstract class AS_StrandBiasTest extends StrandBiasTest implements Reduci
         if( likelihoods == null || vc == null ) {
             return;
         }
+        getStrandCountsFromReadEvidence(vc, new SiteReadEvidence(likelihoods, vc), perAlleleValues, minCount);
+    }
 
+    private void getStrandCountsFromReadEvidence( final VariantContext vc,
+                                                  final SiteReadEvidence evidence,
+                                                  final ReducibleAnnotationData<List<Integer>> perAlleleValues,
+                                                  final int minCount) {
         final Allele ref = vc.getReference();
         final List<Allele> allAlts = vc.getAlternateAlleles();
 
-        for (final String sample : likelihoods.samples()) {
+        for (final String sample : evidence.getLikelihoods().samples()) {
             final ReducibleAnnotationData<List<Integer>> sampleTable = new AlleleSpecificAnnotationData<>(vc.getAlleles(),null);
-            likelihoods.bestAlleles(sample).stream()
-                    .filter(ba -> ba.isInformative())
-                    .forEach(ba -> updateTable(ba.allele, ba.read, ref, allAlts, sampleTable));
+            evidence.reads(sample).stream()
+                    .filter(re -> re.isInformative())
+                    .forEach(re -> updateTable(re.getAllele(), re.getRead(), ref, allAlts, sampleTable));
             if (passesMinimumThreshold(sampleTable, minCount)) {
                 combineAttributeMap(sampleTable, perAlleleValues);
             }
@@ -1,9 +1,8 @@
 package org.broadinstitute.hellbender.tools.walkers.annotator.allelespecific;
 
-import htsjdk.variant.variantcontext.Allele;
 import htsjdk.variant.variantcontext.VariantContext;
 import org.broadinstitute.hellbender.tools.walkers.annotator.StrandOddsRatio;
-import org.broadinstitute.hellbender.utils.genotyper.ReadLikelihoods;
+import org.broadinstitute.hellbender.tools.walkers.annotator.SiteReadEvidence;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
 
 import java.util.Collections;
@@ -62,10 +61,10 @@ public final class AS_StrandOddsRatio extends AS_StrandBiasTest implements AS_St
     }
 
     @Override
-    protected Map<String, Object> calculateAnnotationFromLikelihoods(final ReadLikelihoods<Allele> likelihoods,
+    protected Map<String, Object> calculateAnnotationFromLikelihoods(final SiteReadEvidence evidence,
                                                                      final VariantContext vc){
         // either SNP with no alignment context, or indels: per-read likelihood map needed
-        final int[][] table = getContingencyTable(likelihoods, vc, MIN_COUNT);
+        final int[][] table = getContingencyTable(evidence, vc, MIN_COUNT);
         final double ratio = StrandOddsRatio.calculateSOR(table);
         return Collections.singletonMap(getKeyNames().get(0), StrandOddsRatio.formattedValue(ratio));
     }
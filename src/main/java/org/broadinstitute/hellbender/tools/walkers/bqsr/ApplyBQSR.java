@@ -47,18 +47,33 @@ public final class ApplyBQSR extends ReadWalker{
     
     private SAMFileGATKReadWriter outputWriter;
 
-    private ReadTransformer transform;
+    /**
+     * BQSRReadTransformer reuses internal buffers across reads, so each traversal thread gets its own, sharing the
+     * recalibration tables read and precomputed once.
+     */
+    private ThreadLocal<ReadTransformer> transform;
 
     @Override
     public void onTraversalStart() {
-        outputWriter = createSAMWriter(OUTPUT, true);
-        transform = new BQSRReadTransformer(getHeaderForReads(), BQSR_RECAL_FILE, bqsrArgs);
+        outputWriter = createOrderedSAMWriter(OUTPUT, true);
+        final BQSRReadTransformer recalibration = new BQSRReadTransformer(getHeaderForReads(), BQSR_RECAL_FILE, bqsrArgs);
+        transform = ThreadLocal.withInitial(() -> new BQSRReadTransformer(recalibration));
         Utils.warnOnNonIlluminaReadGroups(getHeaderForReads(), logger);
     }
 
+    @Override
+    public boolean isApplyThreadSafe() {
+        return true;
+    }
+
+    @Override
+    public boolean canReuseContexts() {
+        return true;
+    }
+
     @Override
     public void apply( GATKRead read, ReferenceContext referenceContext, FeatureContext featureContext ) {
-        outputWriter.addRead(transform.apply(read));
+        outputWriter.addRead(transform.get().apply(read));
     }
 
     @Override
@@ -0,0 +1,203 @@
+package org.broadinstitute.hellbender.tools.walkers.bqsr;
+
+import htsjdk.tribble.Feature;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.cmdline.Argument;
+import org.broadinstitute.hellbender.cmdline.ArgumentCollection;
+import org.broadinstitute.hellbender.cmdline.CommandLineProgramProperties;
+import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
+import org.broadinstitute.hellbender.cmdline.programgroups.ReadProgramGroup;
+import org.broadinstitute.hellbender.engine.FeatureContext;
+import org.broadinstitute.hellbender.engine.FeatureInput;
+import org.broadinstitute.hellbender.engine.ReferenceContext;
+import org.broadinstitute.hellbender.engine.ReferenceDataSource;
+import org.broadinstitute.hellbender.engine.TwoPassReadWalker;
+import org.broadinstitute.hellbender.engine.filters.ReadFilter;
+import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.ApplyBQSRUniqueArgumentCollection;
+import org.broadinstitute.hellbender.transformers.BQSRReadTransformer;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.SAMFileGATKReadWriter;
+import org.broadinstitute.hellbender.utils.recalibration.BaseRecalibrationEngine;
+import org.broadinstitute.hellbender.utils.recalibration.KnownSitesMask;
+import org.broadinstitute.hellbender.utils.recalibration.QuantizationInfo;
+import org.broadinstitute.hellbender.utils.recalibration.RecalUtils;
+import org.broadinstitute.hellbender.utils.recalibration.RecalibrationArgumentCollection;
+import org.broadinstitute.hellbender.utils.recalibration.RecalibrationReport;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * Both steps of base quality score recalibration (BaseRecalibrator and ApplyBQSR) in a single job, without writing
+ * the recalibration tables to disk in between. This is the local equivalent of BQSRPipelineSpark.
+ *
+ * <p>
+ * The first pass over the reads collects the recalibration tables exactly as {@link BaseRecalibrator} does (with
+ * the same BQSR-specific read filters). The tables are then finalized and quantized, and the second pass recalibrates
+ * every read as {@link ApplyBQSR} does and writes it to the output.
+ * </p>
+ *
+ * <p>
+ * By default the reads are spilled to a temporary local file during the first pass, and the second pass reads them
+ * back from that file, so the input is only read and decoded once. The temporary directory needs enough space for
+ * a lightly compressed copy of the reads; use --spillReadsBetweenPasses false to re-read the input instead.
+ * </p>
+ *
+ * <h3>Examples</h3>
+ * <pre>
+ * ./gatk-launch BQSRPipeline \
+ *   -I my_reads.bam \
+ *   -R reference.fasta \
+ *   -knownSites dbsnp.vcf \
+ *   -O my_reads.recalibrated.bam
+ * </pre>
+ */
+@CommandLineProgramProperties(
+        summary = "Performs both steps of BQSR - creation of the recalibration tables and recalibration of the reads - in a single job, without writing the tables to disk",
+        oneLineSummary = "Both steps of BQSR (BaseRecalibrator and ApplyBQSR) in a single job",
+        programGroup = ReadProgramGroup.class
+)
+public final class BQSRPipeline extends TwoPassReadWalker {
+    private static final Logger logger = LogManager.getLogger(BQSRPipeline.class);
+
+    @Argument(fullName = StandardArgumentDefinitions.OUTPUT_LONG_NAME, shortName = StandardArgumentDefinitions.OUTPUT_SHORT_NAME, doc = "Write the recalibrated reads to this file")
+    public File OUTPUT;
+
+    @Argument(fullName = "knownSites", shortName = "knownSites", doc = "One or more databases of known polymorphic sites used to exclude regions around known polymorphisms from analysis.", optional = false)
+    private List<FeatureInput<Feature>> knownSites;
+
+    /**
+     * See the documentation of the same argument of {@link BaseRecalibrator}.
+     */
+    @Argument(fullName = "useKnownSitesMask", shortName = "useKnownSitesMask", doc = "Load all the known sites into an in-memory mask at startup instead of querying them for each read", optional = true)
+    private boolean useKnownSitesMask = false;
+
+    /**
+     * See the documentation of the same argument of {@link BaseRecalibrator}.
+     */
+    @Argument(fullName = "knownSitesMaskFile", shortName = "knownSitesMaskFile", doc = "Binary file caching the known sites mask: read if it exists, written otherwise", optional = true)
+    private File knownSitesMaskFile = null;
+
+    @Argument(fullName = "recalTableOutput", shortName = "recalTableOutput", doc = "Also write the recalibration table to this file", optional = true)
+    private File recalTableFile = null;
+
+    /**
+     * all the command line arguments for BQSR and its covariates
+     */
+    @ArgumentCollection(doc = "all the command line arguments for BQSR and its covariates")
+    private final RecalibrationArgumentCollection recalArgs = new RecalibrationArgumentCollection();
+
+    /**
+     * command-line arguments to fine tune the apply BQSR step.
+     */
+    @ArgumentCollection
+    public ApplyBQSRUniqueArgumentCollection applyBqsrArgs = new ApplyBQSRUniqueArgumentCollection();
+
+    private ReadFilter bqsrReadFilter;
+    private BaseRecalibrationEngine recalibrationEngine;
+    private ReferenceDataSource referenceDataSource;
+    private KnownSitesMask knownSitesMask;
+    private BQSRReadTransformer transform;
+    private SAMFileGATKReadWriter outputWriter;
+
+    public BQSRPipeline() {
+        // the point of this tool is to avoid reading the input twice
+        spillReadsBetweenPasses = true;
+    }
+
+    @Override
+    public boolean requiresReference() {
+        return true;
+    }
+
+    @Override
+    public boolean canReuseContexts() {
+        return true;
+    }
+
+    @Override
+    public void onTraversalStart() {
+        if (recalArgs.FORCE_PLATFORM != null) {
+            recalArgs.DEFAULT_PLATFORM = recalArgs.FORCE_PLATFORM;
+        }
+
+        Utils.warnOnNonIlluminaReadGroups(getHeaderForReads(), logger);
+
+        // The default read filters (WellformedReadFilter) are all the filtering that the apply step wants.
+        // The recalibration step wants additional filtering, which is done in firstPassApply.
+        bqsrReadFilter = BaseRecalibrator.makeBQSRSpecificReadFilters()
+                .stream()
+                .reduce(ReadFilterLibrary.ALLOW_ALL_READS, (f1, f2) -> f1.and(f2));
+
+        recalibrationEngine = new BaseRecalibrationEngine(recalArgs, getHeaderForReads());
+        recalibrationEngine.logCovariatesUsed();
+        referenceDataSource = ReferenceDataSource.of(referenceArguments.getReferenceFile());
+
+        if ( useKnownSitesMask || knownSitesMaskFile != null ) {
+            knownSitesMask = BaseRecalibrator.loadKnownSitesMask(knownSites, knownSitesMaskFile);
+        }
+    }
+
+    @Override
+    protected void firstPassApply( final GATKRead read, final ReferenceContext referenceContext, final FeatureContext featureContext ) {
+        if ( !bqsrReadFilter.test(read) ) {
+            return;
+        }
+        if ( knownSitesMask != null ) {
+            recalibrationEngine.processRead(read, referenceDataSource, knownSitesMask);
+        } else {
+            recalibrationEngine.processRead(read, referenceDataSource, featureContext.getValues(knownSites));
+        }
+    }
+
+    @Override
+    protected void afterFirstPass() {
+        recalibrationEngine.finalizeData();
+
+        logger.info("Calculating quantized quality scores...");
+        final QuantizationInfo quantizationInfo = new QuantizationInfo(recalibrationEngine.getFinalRecalibrationTables(), recalArgs.QUANTIZING_LEVELS);
+        if ( recalTableFile != null ) {
+            logger.info("Writing recalibration report...");
+            try ( PrintStream recalTableStream = new PrintStream(recalTableFile) ) {
+                RecalUtils.outputRecalibrationReport(recalTableStream, recalArgs, quantizationInfo, recalibrationEngine.getFinalRecalibrationTables(), recalibrationEngine.getCovariates());
+            }
+            catch (final IOException e) {
+                throw new UserException.CouldNotCreateOutputFile(recalTableFile, e);
+            }
+        }
+
+        final RecalibrationReport report = RecalUtils.createRecalibrationReport(
+                recalArgs.generateReportTable(recalibrationEngine.getCovariates().covariateNames()),
+                quantizationInfo.generateReportTable(),
+                RecalUtils.generateReportTables(recalibrationEngine.getFinalRecalibrationTables(), recalibrationEngine.getCovariates()));
+        transform = new BQSRReadTransformer(getHeaderForReads(), report, applyBqsrArgs.toApplyBQSRArgumentCollection(recalArgs.PRESERVE_QSCORES_LESS_THAN));
+
+        outputWriter = createSAMWriter(OUTPUT, true);
+    }
+
+    @Override
+    protected void secondPassApply( final GATKRead read, final ReferenceContext referenceContext, final FeatureContext featureContext ) {
+        outputWriter.addRead(transform.apply(read));
+    }
+
+    @Override
+    public Object onTraversalSuccess() {
+        return recalibrationEngine.getNumReadsProcessed();
+    }
+
+    @Override
+    public void closeTool() {
+        if ( outputWriter != null ) {
+            outputWriter.close();
+        }
+        if ( referenceDataSource != null ) {
+            referenceDataSource.close();
+        }
+    }
+}
@@ -17,14 +17,18 @@ import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.recalibration.BaseRecalibrationEngine;
+import org.broadinstitute.hellbender.utils.recalibration.BinaryRecalibrationReport;
+import org.broadinstitute.hellbender.utils.recalibration.KnownSitesMask;
 import org.broadinstitute.hellbender.utils.recalibration.QuantizationInfo;
 import org.broadinstitute.hellbender.utils.recalibration.RecalUtils;
 import org.broadinstitute.hellbender.utils.recalibration.RecalibrationArgumentCollection;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import static org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary.*;
@@ -42,6 +46,9 @@ import static org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary.*;
  * The output file is a table (of the several covariate values, num observations, num mismatches, empirical quality score).
  * <p>
  * Note: ReadGroupCovariate and QualityScoreCovariate are required covariates and will be added for the user regardless of whether or not they were specified.
+ * <p>
+ * The reads can be processed by several threads with --traversalThreads. Each thread collects its own tables, which are
+ * combined once all the reads have been processed.
  *
  * <p>
  *
@@ -102,6 +109,23 @@ public final class BaseRecalibrator extends ReadWalker {
     @Argument(fullName = "knownSites", shortName = "knownSites", doc = "One or more databases of known polymorphic sites used to exclude regions around known polymorphisms from analysis.", optional = false)
     private List<FeatureInput<Feature>> knownSites;
 
+    /**
+     * By default the known sites overlapping each read are queried from the known sites files as the reads are traversed.
+     * With this option all the known sites are instead loaded into an in-memory bitset of masked positions when the tool
+     * starts, which makes the per-read lookups much cheaper at the cost of reading every known site once and of about one
+     * bit of memory per reference base (roughly 400MB for dbSNP on a human genome). The recalibration tables are the same either way.
+     */
+    @Argument(fullName = "useKnownSitesMask", shortName = "useKnownSitesMask", doc = "Load all the known sites into an in-memory mask at startup instead of querying them for each read", optional = true)
+    private boolean useKnownSitesMask = false;
+
+    /**
+     * A binary file caching the mask of known sites (implies --useKnownSitesMask). If the file exists, the mask is read
+     * from it instead of from the known sites files, which must be the same files the mask was built from. Otherwise the
+     * mask is built from the known sites files and written to this file, to be reused by later runs.
+     */
+    @Argument(fullName = "knownSitesMaskFile", shortName = "knownSitesMaskFile", doc = "Binary file caching the known sites mask: read if it exists, written otherwise", optional = true)
+    private File knownSitesMaskFile = null;
+
     /**
      * After the header, data records occur one per line until the end of the file. The first several items on a line are the
      * values of the individual covariates and will change depending on which covariates were specified at runtime. The last
@@ -111,15 +135,44 @@ public final class BaseRecalibrator extends ReadWalker {
     @Argument(shortName = StandardArgumentDefinitions.OUTPUT_SHORT_NAME, fullName = StandardArgumentDefinitions.OUTPUT_LONG_NAME, doc = "The output recalibration table file to create", optional = false)
     private File recalTableFile = null;
 
+    /**
+     * The binary recalibration report format is much faster to read and write than the text format, which matters when
+     * many scattered reports are gathered with GatherBQSRReports. ApplyBQSR and GatherBQSRReports accept either format.
+     *
+     * The two formats are not equivalent. The text format rounds the mismatch counts to 2 decimal places, and the
+     * reported qualities to 4 decimal places in the read group table and to whole qualities in the other tables. The
+     * binary format keeps them at full precision. As a result, ApplyBQSR can assign slightly different base qualities
+     * from the binary table than from the text table of the same run, when a recalibrated quality lies close to a
+     * rounding boundary.
+     */
+    @Argument(fullName = "binaryRecalTable", shortName = "binaryRecalTable", doc = "Write the recalibration table in the binary recalibration report format rather than as text. It keeps full precision, so ApplyBQSR results can differ slightly from those of the text table", optional = true)
+    private boolean binaryRecalTable = false;
+
+    /**
+     * The combined recalibration engine, set once traversal is complete
+     */
     private BaseRecalibrationEngine recalibrationEngine;
 
-    private ReferenceDataSource referenceDataSource; // datasource for the reference. We're using a different one from the engine itself to avoid messing with its caches.
+    /**
+     * Each traversal thread collects its own tables, with its own engine and reference
+     */
+    private ThreadLocal<RecalibrationWorker> worker;
+
+    /**
+     * All the workers created so far, to be combined in onTraversalSuccess() and closed in closeTool()
+     */
+    private final List<RecalibrationWorker> workers = Collections.synchronizedList(new ArrayList<>());
 
     /**
      * an object that keeps track of the information necessary for quality score quantization
      */
     private QuantizationInfo quantizationInfo = null;
 
+    /**
+     * all the known sites, if they were preloaded with --useKnownSitesMask or --knownSitesMaskFile
+     */
+    private KnownSitesMask knownSitesMask = null;
+
     @Override
     public boolean requiresReference() {
         return true;
@@ -137,9 +190,63 @@ public final class BaseRecalibrator extends ReadWalker {
 
         Utils.warnOnNonIlluminaReadGroups(getHeaderForReads(), logger);
 
-        recalibrationEngine = new BaseRecalibrationEngine(recalArgs, getHeaderForReads());
-        recalibrationEngine.logCovariatesUsed();
-        referenceDataSource = ReferenceDataSource.of(referenceArguments.getReferenceFile());
+        if ( useKnownSitesMask || knownSitesMaskFile != null ) {
+            knownSitesMask = loadKnownSitesMask(knownSites, knownSitesMaskFile);
+        }
+
+        worker = ThreadLocal.withInitial(this::makeWorker);
+        // the workers are created on the traversal threads, so log the covariates without creating one here
+        BaseRecalibrationEngine.logCovariatesUsed(new StandardCovariateList(recalArgs, getHeaderForReads()));
+    }
+
+    /**
+     * Build the mask of all the known sites, or read it from maskFile if that file exists (in which case it must have
+     * been built from the same known sites files). A mask that is built is written to maskFile, unless it is null.
+     */
+    public static KnownSitesMask loadKnownSitesMask(final List<FeatureInput<Feature>> knownSites, final File maskFile) {
+        final List<String> knownSitesPaths = KnownSitesMask.getSourcePaths(knownSites);
+        if ( maskFile != null && maskFile.exists() ) {
+            logger.info("Reading the known sites mask from " + maskFile.getAbsolutePath());
+            final KnownSitesMask mask = KnownSitesMask.readMask(maskFile);
+            if ( !mask.getSources().equals(knownSitesPaths) ) {
+                throw new UserException.BadInput("The known sites mask " + maskFile.getAbsolutePath() + " was built from " + mask.getSources() +
+                        " rather than from the given known sites " + knownSitesPaths + ". Delete the mask file to rebuild it.");
+            }
+            return mask;
+        }
+
+        logger.info("Loading the known sites into a mask...");
+        final KnownSitesMask mask = KnownSitesMask.fromFeatureInputs(knownSites);
+        logger.info("The known sites mask covers " + mask.getNumMaskedPositions() + " positions");
+        if ( maskFile != null ) {
+            logger.info("Writing the known sites mask to " + maskFile.getAbsolutePath());
+            mask.writeMask(maskFile);
+        }
+        return mask;
+    }
+
+    /**
+     * Synchronized because the engine's constructor reads the shared argument collection and header.
+     */
+    private synchronized RecalibrationWorker makeWorker() {
+        final RecalibrationWorker newWorker = new RecalibrationWorker(new BaseRecalibrationEngine(recalArgs, getHeaderForReads()),
+                                                                      ReferenceDataSource.of(referenceArguments.getReferenceFile()));
+        workers.add(newWorker);
+        return newWorker;
+    }
+
+    /**
+     * The recalibration engine and reference of a single traversal thread. The reference is separate from the
+     * engine's own to avoid messing with its caches.
+     */
+    private static final class RecalibrationWorker {
+        final BaseRecalibrationEngine engine;
+        final ReferenceDataSource referenceDataSource;
+
+        RecalibrationWorker(final BaseRecalibrationEngine engine, final ReferenceDataSource referenceDataSource) {
+            this.engine = engine;
+            this.referenceDataSource = referenceDataSource;
+        }
     }
 
     @Override
@@ -175,17 +282,37 @@ public final class BaseRecalibrator extends ReadWalker {
         return filters;
     }
 
+    @Override
+    public boolean isApplyThreadSafe() {
+        return true;
+    }
+
+    @Override
+    public boolean canReuseContexts() {
+        return true;
+    }
+
     /**
      * For each read at this locus get the various covariate values and increment that location in the map based on
      * whether or not the base matches the reference at this particular location
      */
     @Override
     public void apply( GATKRead read, ReferenceContext ref, FeatureContext featureContext ) {
-        recalibrationEngine.processRead(read, referenceDataSource, featureContext.getValues(knownSites));
+        final RecalibrationWorker threadWorker = worker.get();
+        if ( knownSitesMask != null ) {
+            threadWorker.engine.processRead(read, threadWorker.referenceDataSource, knownSitesMask);
+        } else {
+            threadWorker.engine.processRead(read, threadWorker.referenceDataSource, featureContext.getValues(knownSites));
+        }
     }
 
     @Override
     public Object onTraversalSuccess() {
+        // no worker is created when no read reaches apply(), in which case the report is empty
+        recalibrationEngine = workers.isEmpty() ? new BaseRecalibrationEngine(recalArgs, getHeaderForReads()) : workers.get(0).engine;
+        for ( int i = 1; i < workers.size(); i++ ) {
+            recalibrationEngine.combine(workers.get(i).engine);
+        }
         recalibrationEngine.finalizeData();
 
         logger.info("Calculating quantized quality scores...");
@@ -209,6 +336,11 @@ public final class BaseRecalibrator extends ReadWalker {
     }
 
     private void generateReport() {
+        if ( binaryRecalTable ) {
+            BinaryRecalibrationReport.write(recalTableFile, recalArgs.generateReportTable(recalibrationEngine.getCovariates().covariateNames()), quantizationInfo,
+                                            recalibrationEngine.getFinalRecalibrationTables(), recalibrationEngine.getCovariates());
+            return;
+        }
         try ( PrintStream recalTableStream = new PrintStream(recalTableFile) ) {
             RecalUtils.outputRecalibrationReport(recalTableStream, recalArgs, quantizationInfo, recalibrationEngine.getFinalRecalibrationTables(), recalibrationEngine.getCovariates());
         }
@@ -216,4 +348,11 @@ public final class BaseRecalibrator extends ReadWalker {
             throw new UserException.CouldNotCreateOutputFile(recalTableFile, e);
         }
     }
+
+    @Override
+    public void closeTool() {
+        for ( final RecalibrationWorker threadWorker : workers ) {
+            threadWorker.referenceDataSource.close();
+        }
+    }
 }
\ No newline at end of file
@@ -6,12 +6,25 @@ import org.broadinstitute.hellbender.cmdline.CommandLineProgram;
 import org.broadinstitute.hellbender.cmdline.CommandLineProgramProperties;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.cmdline.programgroups.ReadProgramGroup;
+import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.recalibration.RecalibrationReport;
 
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Gathers scattered BQSR recalibration reports, as produced by running BaseRecalibrator on different intervals of the
+ * same reads, into a single report.
+ *
+ * <p>
+ * The inputs may be in the text or in the binary recalibration report format (see --binaryRecalTable in
+ * BaseRecalibrator); binary reports are much faster to read. Binary reports keep the mismatch counts and reported
+ * qualities at full precision, where text reports round them, so a gathered binary report is not equivalent to a
+ * gathered text report of the same data. With many inputs, use --threads to read several of
+ * them at a time. The inputs are combined as they are read, so only a few of them are held in memory at once.
+ * </p>
+ */
 @CommandLineProgramProperties(
         summary = "Gathers scattered BQSR recalibration reports into a single file",
         oneLineSummary = "Gathers scattered BQSR recalibration reports into a single file",
@@ -26,13 +39,23 @@ public final class GatherBQSRReports extends CommandLineProgram {
             shortName = StandardArgumentDefinitions.OUTPUT_SHORT_NAME, doc="File to output the gathered file to")
     public File outputReport;
 
+    @Argument(fullName = "threads", shortName = "threads", doc = "Number of threads on which to read the input reports", optional = true)
+    public int numThreads = 1;
+
+    @Argument(fullName = "binaryRecalTable", shortName = "binaryRecalTable", doc = "Write the gathered report in the binary recalibration report format rather than as text. It keeps full precision, so ApplyBQSR results can differ slightly from those of the text report", optional = true)
+    public boolean binaryOutput = false;
+
 
     @Override
     protected Object doWork() {
         inputReports.forEach(IOUtil::assertFileIsReadable);
         IOUtil.assertFileIsWritable(outputReport);
 
-        RecalibrationReport.gatherReportsIntoOneFile(inputReports, outputReport);
+        if ( numThreads < 1 ) {
+            throw new UserException.BadArgumentValue("threads", "must be at least 1");
+        }
+
+        RecalibrationReport.gatherReportsIntoOneFile(inputReports, outputReport, numThreads, binaryOutput);
 
         return 0;
     }
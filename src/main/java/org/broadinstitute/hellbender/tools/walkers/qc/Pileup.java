@@ -12,13 +12,11 @@ import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
 import org.broadinstitute.hellbender.engine.filters.WellformedReadFilter;
-import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.pileup.PileupElement;
 import org.broadinstitute.hellbender.utils.pileup.ReadPileup;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.List;
@@ -124,11 +122,12 @@ public final class Pileup extends LocusWalker {
 
     @Override
     public void onTraversalStart() {
-        try {
-            out = new PrintStream(outFile);
-        } catch (FileNotFoundException e) {
-            throw new UserException.CouldNotCreateOutputFile(outFile, e);
-        }
+        out = createOrderedPrintStream(outFile);
+    }
+
+    @Override
+    public boolean isApplyThreadSafe() {
+        return true;
     }
 
     @Override
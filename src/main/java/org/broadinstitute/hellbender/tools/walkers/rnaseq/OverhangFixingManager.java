@@ -3,10 +3,10 @@ package org.broadinstitute.hellbender.tools.walkers.rnaseq;
 import htsjdk.samtools.Cigar;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.TextCigarCodec;
-import htsjdk.samtools.reference.IndexedFastaSequenceFile;
 import htsjdk.samtools.util.Tuple;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.engine.ReferenceDataSource;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.utils.GenomeLoc;
 import org.broadinstitute.hellbender.utils.GenomeLocParser;
@@ -59,8 +59,8 @@ public class OverhangFixingManager {
     // where we ultimately write out our records
     private final GATKReadWriter writer;
 
-    // fasta reference reader to check overhanging edges in the exome reference sequence
-    private final IndexedFastaSequenceFile referenceReader;
+    // reference reader (fasta or .2bit) to check overhanging edges in the exome reference sequence
+    private final ReferenceDataSource referenceReader;
 
     // the genome unclippedLoc parser
     private final GenomeLocParser genomeLocParser;
@@ -92,7 +92,7 @@ public class OverhangFixingManager {
     public OverhangFixingManager(final SAMFileHeader header,
                                  final GATKReadWriter writer,
                                  final GenomeLocParser genomeLocParser,
-                                 final IndexedFastaSequenceFile referenceReader,
+                                 final ReferenceDataSource referenceReader,
                                  final int maxRecordsInMemory,
                                  final int maxMismatchesInOverhangs,
                                  final int maxBasesInOverhangs,
@@ -469,8 +469,8 @@ public class OverhangFixingManager {
             loc = genomeLocParser.createGenomeLoc(contig, start, end);
         }
 
-        public void initialize(final IndexedFastaSequenceFile referenceReader) {
-            reference = referenceReader.getSubsequenceAt(loc.getContig(), loc.getStart(), loc.getStop()).getBases();
+        public void initialize(final ReferenceDataSource referenceReader) {
+            reference = referenceReader.queryAndPrefetch(loc.getContig(), loc.getStart(), loc.getStop()).getBases();
         }
 
         @Override
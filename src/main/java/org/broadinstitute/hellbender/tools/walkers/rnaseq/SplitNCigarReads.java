@@ -1,27 +1,23 @@
 package org.broadinstitute.hellbender.tools.walkers.rnaseq;
 
 import htsjdk.samtools.*;
-import htsjdk.samtools.reference.IndexedFastaSequenceFile;
 import htsjdk.samtools.util.SequenceUtil;
 import org.broadinstitute.hellbender.cmdline.Argument;
 import org.broadinstitute.hellbender.cmdline.CommandLineProgramProperties;
 import org.broadinstitute.hellbender.cmdline.programgroups.ReadProgramGroup;
 import org.broadinstitute.hellbender.engine.FeatureContext;
 import org.broadinstitute.hellbender.engine.ReferenceContext;
+import org.broadinstitute.hellbender.engine.ReferenceDataSource;
 import org.broadinstitute.hellbender.engine.TwoPassReadWalker;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
-import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.transformers.NDNCigarReadTransformer;
 import org.broadinstitute.hellbender.transformers.ReadTransformer;
 import org.broadinstitute.hellbender.utils.GenomeLocParser;
 import org.broadinstitute.hellbender.utils.clipping.ReadClipper;
-import org.broadinstitute.hellbender.utils.fasta.CachingIndexedFastaSequenceFile;
 import org.broadinstitute.hellbender.utils.read.*;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -97,7 +93,7 @@ public final class SplitNCigarReads extends TwoPassReadWalker {
     private SAMFileGATKReadWriter outputWriter;
     private OverhangFixingManager overhangManager;
     ReadTransformer rnaReadTransform;
-    private IndexedFastaSequenceFile referenceReader;
+    private ReferenceDataSource referenceReader;
     SAMFileHeader header;
 
     @Override
@@ -109,15 +105,11 @@ public final class SplitNCigarReads extends TwoPassReadWalker {
     public void onTraversalStart() {
         header = getHeaderForSAMWriter();
         rnaReadTransform = REFACTOR_NDN_CIGAR_READS ? new NDNCigarReadTransformer() : ReadTransformer.identity();
-        try {
-            referenceReader = new CachingIndexedFastaSequenceFile(referenceArguments.getReferenceFile());
-            GenomeLocParser genomeLocParser = new GenomeLocParser(getBestAvailableSequenceDictionary());
-            outputWriter = createSAMWriter(OUTPUT, false);
-            overhangManager = new OverhangFixingManager(header, outputWriter, genomeLocParser, referenceReader, MAX_RECORDS_IN_MEMORY, MAX_MISMATCHES_IN_OVERHANG, MAX_BASES_TO_CLIP, doNotFixOverhangs, processSecondaryAlignments);
-
-        } catch (FileNotFoundException ex) {
-            throw new UserException.CouldNotReadInputFile(referenceArguments.getReferenceFile(), ex);
-        }
+        // a reader of its own (fasta or .2bit), since the overhang manager queries it outside of the traversal
+        referenceReader = ReferenceDataSource.of(referenceArguments.getReferenceFile());
+        GenomeLocParser genomeLocParser = new GenomeLocParser(getBestAvailableSequenceDictionary());
+        outputWriter = createSAMWriter(OUTPUT, false);
+        overhangManager = new OverhangFixingManager(header, outputWriter, genomeLocParser, referenceReader, MAX_RECORDS_IN_MEMORY, MAX_MISMATCHES_IN_OVERHANG, MAX_BASES_TO_CLIP, doNotFixOverhangs, processSecondaryAlignments);
     }
 
     @Override
@@ -140,10 +132,7 @@ public final class SplitNCigarReads extends TwoPassReadWalker {
     public void closeTool() {
         if (overhangManager != null) { overhangManager.flush(); }
         if (outputWriter != null ) { outputWriter.close(); }
-        try {if (referenceReader != null) { referenceReader.close(); } }
-        catch (IOException ex) {
-            throw new UserException.MissingReference("Could not find reference file");
-        }
+        if (referenceReader != null) { referenceReader.close(); }
     }
 
 
@@ -11,12 +11,10 @@ import org.broadinstitute.hellbender.utils.collections.NestedIntegerArray;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
 import org.broadinstitute.hellbender.utils.recalibration.*;
-import org.broadinstitute.hellbender.utils.recalibration.covariates.CovariateKeyCache;
 import org.broadinstitute.hellbender.utils.recalibration.covariates.ReadCovariates;
 import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
 
 import java.io.File;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -27,8 +25,6 @@ import static org.broadinstitute.hellbender.utils.recalibration.RecalDatum.MAX_R
 public final class BQSRReadTransformer implements ReadTransformer {
     private static final long serialVersionUID = 1L;
 
-    private final QuantizationInfo quantizationInfo; // histogram containing the map for qual quantization (calculated after recalibration is done)
-    private final RecalibrationTables recalibrationTables;
     private final StandardCovariateList covariates; // list of all covariates to be used in this calculation
     private final SAMFileHeader header;
     
@@ -42,22 +38,40 @@ public final class BQSRReadTransformer implements ReadTransformer {
 
     private static final int BASE_SUBSTITUTION_INDEX = EventType.BASE_SUBSTITUTION.ordinal();
 
-    //Note: varargs allocates a new array every time. We'll pre-allocate one array and reuse it to avoid object allocation for every base of every read.
-    private final RecalDatum[] empiricalQualCovsArgs;
     private final boolean useOriginalBaseQualities;
 
     private byte[] staticQuantizedMapping;
-    private final CovariateKeyCache keyCache;
+
+    // covariate keys of the read being recalibrated, reused for every read
+    private final ReadCovariates readCovariates;
+
+    /*
+     * The recalibration tables are frozen for the whole run, so every term of hierarchicalBayesianQualityEstimate
+     * is precomputed at construction time, and apply() only has to index and sum these arrays for each base.
+     */
+
+    // conditional prior (global deltaQ + reported quality deltaQ + epsilon) for each read group key and reported quality,
+    // or null for read groups without any data
+    private final double[][] conditionalPriors;
+
+    // deltaQ of each additional covariate for each read group key, indexed by
+    // [covariate - specialCovariateCount][reportedQual * covariateDimensions[covariate - specialCovariateCount] + covariate key],
+    // 0.0 where the covariate table has no data
+    private final double[][][] covariateDeltaQs;
+    private final int[] covariateDimensions;
+
+    // final (quantized and statically binned) quality for each bounded, rounded recalibrated quality
+    private final byte[] outputQuals;
 
     /**
-     * Constructor using a GATK Report file
+     * Constructor using a recalibration report file
      *
      * @param header header for the reads
-     * @param bqsrRecalFile a GATK Report file containing the recalibration information
+     * @param bqsrRecalFile a GATK Report file or a binary recalibration report containing the recalibration information
      * @param args ApplyBQSR args
      */
     public BQSRReadTransformer(final SAMFileHeader header, final File bqsrRecalFile, final ApplyBQSRArgumentCollection args) {
-        this(header, new RecalibrationReport(bqsrRecalFile), args);
+        this(header, RecalibrationReport.fromFile(bqsrRecalFile), args);
     }
 
     /**
@@ -71,9 +85,7 @@ public final class BQSRReadTransformer implements ReadTransformer {
      */
     private BQSRReadTransformer(final SAMFileHeader header, final RecalibrationTables recalibrationTables, final QuantizationInfo quantizationInfo, final StandardCovariateList covariates, final ApplyBQSRArgumentCollection args) {
         this.header = header;
-        this.recalibrationTables = recalibrationTables;
         this.covariates = covariates;
-        this.quantizationInfo = quantizationInfo;
 
         if (args.quantizationLevels == 0) { // quantizationLevels == 0 means no quantization, preserve the quality scores
             quantizationInfo.noQuantization();
@@ -94,10 +106,90 @@ public final class BQSRReadTransformer implements ReadTransformer {
 
         totalCovariateCount = covariates.size();
         specialCovariateCount = covariates.numberOfSpecialCovariates();
+        readCovariates = new ReadCovariates(totalCovariateCount);//one per transformer
+
+        final int numReadGroups = recalibrationTables.getNumReadGroups();
+        final int qualDimension = covariates.getQualityScoreCovariate().maximumKeyValue() + 1;
+        covariateDimensions = new int[totalCovariateCount - specialCovariateCount];
+        for (int i = specialCovariateCount; i < totalCovariateCount; i++) {
+            covariateDimensions[i - specialCovariateCount] = covariates.get(i).maximumKeyValue() + 1;
+        }
+        conditionalPriors = new double[numReadGroups][];
+        covariateDeltaQs = new double[numReadGroups][][];
+        for (int rgKey = 0; rgKey < numReadGroups; rgKey++) {
+            precomputeReadGroup(recalibrationTables, rgKey, qualDimension);
+        }
+
+        outputQuals = new byte[MAX_RECALIBRATED_Q_SCORE + 1];
+        final List<Byte> quantizedQuals = quantizationInfo.getQuantizedQuals();
+        for (int qual = 0; qual < outputQuals.length; qual++) {
+            final byte quantizedQual = quantizedQuals.get(qual);
+            // Bin to static quals
+            outputQuals[qual] = staticQuantizedMapping == null ? quantizedQual : staticQuantizedMapping[quantizedQual];
+        }
+    }
+
+    /**
+     * Constructor sharing the recalibration information of another transformer, which is never modified once
+     * computed, with buffers of its own. Each thread applying BQSR needs its own transformer, and this avoids
+     * re-reading the report and recomputing the precomputed tables for each of them.
+     *
+     * @param other the transformer whose recalibration information to share
+     */
+    public BQSRReadTransformer(final BQSRReadTransformer other) {
+        Utils.nonNull(other);
+        this.header = other.header;
+        this.covariates = other.covariates;
+        this.preserveQLessThan = other.preserveQLessThan;
+        this.globalQScorePrior = other.globalQScorePrior;
+        this.emitOriginalQuals = other.emitOriginalQuals;
+        this.useOriginalBaseQualities = other.useOriginalBaseQualities;
+        this.staticQuantizedMapping = other.staticQuantizedMapping;
+        this.totalCovariateCount = other.totalCovariateCount;
+        this.specialCovariateCount = other.specialCovariateCount;
+        this.conditionalPriors = other.conditionalPriors;
+        this.covariateDeltaQs = other.covariateDeltaQs;
+        this.covariateDimensions = other.covariateDimensions;
+        this.outputQuals = other.outputQuals;
+        readCovariates = new ReadCovariates(totalCovariateCount);
+    }
+
+    /**
+     * Precompute the terms of {@link #hierarchicalBayesianQualityEstimate} for all the bases of a read group,
+     * querying each RecalDatum with the same conditional prior that the estimate uses.
+     */
+    private void precomputeReadGroup(final RecalibrationTables recalibrationTables, final int rgKey, final int qualDimension) {
+        final RecalDatum empiricalQualRG = recalibrationTables.getReadGroupTable().get2Keys(rgKey, BASE_SUBSTITUTION_INDEX);
+        if (empiricalQualRG == null) {
+            return;
+        }
+        final double epsilon = globalQScorePrior > 0.0 ? globalQScorePrior : empiricalQualRG.getEstimatedQReported();
+        final double globalDeltaQ = empiricalQualRG.getEmpiricalQuality(epsilon) - epsilon;
 
-        //Note: We pre-create the varargs arrays that will be used in the calls. Otherwise we're spending a lot of time allocating those int[] objects
-        empiricalQualCovsArgs = new RecalDatum[totalCovariateCount - specialCovariateCount];
-        keyCache = new CovariateKeyCache();//one cache per transformer
+        final NestedIntegerArray<RecalDatum> qualityScoreTable = recalibrationTables.getQualityScoreTable();
+        final double[] priors = new double[qualDimension];
+        for (int qual = 0; qual < qualDimension; qual++) {
+            final RecalDatum empiricalQualQS = qualityScoreTable.get3Keys(rgKey, qual, BASE_SUBSTITUTION_INDEX);
+            final double deltaQReported = empiricalQualQS == null ? 0.0 : empiricalQualQS.getEmpiricalQuality(globalDeltaQ + epsilon) - (globalDeltaQ + epsilon);
+            priors[qual] = deltaQReported + globalDeltaQ + epsilon;
+        }
+
+        final double[][] deltaQs = new double[covariateDimensions.length][];
+        for (int i = 0; i < deltaQs.length; i++) {
+            final NestedIntegerArray<RecalDatum> table = recalibrationTables.getTable(i + specialCovariateCount);
+            final int covariateDimension = covariateDimensions[i];
+            deltaQs[i] = new double[qualDimension * covariateDimension];
+            for (int qual = 0; qual < qualDimension; qual++) {
+                for (int key = 0; key < covariateDimension; key++) {
+                    final RecalDatum empiricalQualCov = table.get4Keys(rgKey, qual, key, BASE_SUBSTITUTION_INDEX);
+                    if (empiricalQualCov != null) {
+                        deltaQs[i][qual * covariateDimension + key] = empiricalQualCov.getEmpiricalQuality(priors[qual]) - priors[qual];
+                    }
+                }
+            }
+        }
+        conditionalPriors[rgKey] = priors;
+        covariateDeltaQs[rgKey] = deltaQs;
     }
 
     /**
@@ -142,7 +234,7 @@ public final class BQSRReadTransformer implements ReadTransformer {
             }
         }
 
-        final ReadCovariates readCovariates = RecalUtils.computeCovariates(read, header, covariates, false, keyCache);
+        RecalUtils.computeCovariates(read, header, covariates, readCovariates, false);
 
         //clear indel qualities
         read.clearAttribute(ReadUtils.BQSR_BASE_INSERTION_QUALITIES);
@@ -154,18 +246,14 @@ public final class BQSRReadTransformer implements ReadTransformer {
         // the rg key is constant over the whole read, the global deltaQ is too
         final int rgKey = fullReadKeySet[0][0];
 
-        final RecalDatum empiricalQualRG = recalibrationTables.getReadGroupTable().get2Keys(rgKey, BASE_SUBSTITUTION_INDEX);
-
-        if (empiricalQualRG == null) {
+        final double[] priors = rgKey < conditionalPriors.length ? conditionalPriors[rgKey] : null;
+        if (priors == null) {
             return read;
         }
+        final double[][] deltaQs = covariateDeltaQs[rgKey];
         final byte[] quals = read.getBaseQualities();
 
         final int readLength = quals.length;
-        final double epsilon = globalQScorePrior > 0.0 ? globalQScorePrior : empiricalQualRG.getEstimatedQReported();
-
-        final NestedIntegerArray<RecalDatum> qualityScoreTable = recalibrationTables.getQualityScoreTable();
-        final List<Byte> quantizedQuals = quantizationInfo.getQuantizedQuals();
 
         //Note: this loop is under very heavy use in applyBQSR. Keep it slim.
         for (int offset = 0; offset < readLength; offset++) { // recalibrate all bases in the read
@@ -174,23 +262,20 @@ public final class BQSRReadTransformer implements ReadTransformer {
             if (quals[offset] < preserveQLessThan) {
                 continue;
             }
-            Arrays.fill(empiricalQualCovsArgs, null);  //clear the array
             final int[] keySet = fullReadKeySet[offset];
+            final int qualKey = keySet[1];
 
-
-            final RecalDatum empiricalQualQS = qualityScoreTable.get3Keys(keySet[0], keySet[1], BASE_SUBSTITUTION_INDEX);
-
+            // same summation order as hierarchicalBayesianQualityEstimate, so that the results are identical
+            double deltaQCovariates = 0.0;
             for (int i = specialCovariateCount; i < totalCovariateCount; i++) {
                 if (keySet[i] >= 0) {
-                    empiricalQualCovsArgs[i - specialCovariateCount] = recalibrationTables.getTable(i).get4Keys(keySet[0], keySet[1], keySet[i], BASE_SUBSTITUTION_INDEX);
+                    final int covariateIndex = i - specialCovariateCount;
+                    deltaQCovariates += deltaQs[covariateIndex][qualKey * covariateDimensions[covariateIndex] + keySet[i]];
                 }
             }
-            final double recalibratedQualDouble = hierarchicalBayesianQualityEstimate(epsilon, empiricalQualRG, empiricalQualQS, empiricalQualCovsArgs);
+            final double recalibratedQualDouble = priors[qualKey] + deltaQCovariates;
 
-            final byte recalibratedQualityScore = quantizedQuals.get(getRecalibratedQual(recalibratedQualDouble));
-
-            // Bin to static quals
-            quals[offset] = staticQuantizedMapping == null ? recalibratedQualityScore : staticQuantizedMapping[recalibratedQualityScore];
+            quals[offset] = outputQuals[getRecalibratedQual(recalibratedQualDouble)];
         }
         read.setBaseQualities(quals);
         return read;
@@ -16,6 +16,7 @@ import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
 
 import java.io.Serializable;
+import java.util.Arrays;
 
 /*
   The topology of the profile HMM:
@@ -141,28 +142,70 @@ public final class BAQ implements Serializable {
     private static final double EM = 0.33333333333;
     private static final double EI = 0.25;
 
-    private final double[][][] EPSILONS = new double[256][256][SAMUtils.MAX_PHRED_SCORE+1];
+    // 2-bit code of each base, ignoring case, or -1 for anything that is not ACGT
+    private static final byte[] BASE_CODES = new byte[256];
+    static {
+        Arrays.fill(BASE_CODES, (byte)-1);
+        final String bases = "ACGT";
+        for ( int i = 0; i < bases.length(); i++ ) {
+            BASE_CODES[bases.charAt(i)] = (byte)i;
+            BASE_CODES[Character.toLowerCase(bases.charAt(i))] = (byte)i;
+        }
+    }
 
-    private void initializeCachedData() {
-        for ( int i = 0; i < 256; i++ )
-            for ( int j = 0; j < 256; j++ )
-                for ( int q = 0; q <= SAMUtils.MAX_PHRED_SCORE; q++ ) {
-                    EPSILONS[i][j][q] = 1.0;
-                }
+    // emission probabilities of a read base with a given quality over a matching and a mismatching reference base.
+    // Any pair involving a non-ACGT base has an emission probability of 1.
+    private final double[] matchEpsilons = new double[SAMUtils.MAX_PHRED_SCORE+1];
+    private final double[] mismatchEpsilons = new double[SAMUtils.MAX_PHRED_SCORE+1];
 
-        for ( char b1 : "ACGTacgt".toCharArray() ) {
-            for ( char b2 : "ACGTacgt".toCharArray() ) {
-                for ( int q = 0; q <= SAMUtils.MAX_PHRED_SCORE; q++ ) {
-                    double qual = qual2prob[q < minBaseQual ? minBaseQual : q];
-                    double e = Character.toLowerCase(b1) == Character.toLowerCase(b2) ? 1 - qual : qual * EM;
-                    EPSILONS[(byte)b1][(byte)b2][q] = e;
-                }
-            }
+    /**
+     * Forward and backward matrices of the HMM for the match, insertion and deletion states, and scaling factors,
+     * reused for every read to avoid allocating them in hmm_glocal. Only the band around the diagonal is stored:
+     * row i holds the columns of {@link #bandColumn}. Grown as needed, which is why a BAQ object must not be shared
+     * between threads.
+     */
+    private transient double[] forwardM, forwardI, forwardD, backwardM, backwardI, backwardD, scalings, rowEpsilons;
+    private transient byte[] refCodes;
+
+    private void initializeCachedData() {
+        for ( int q = 0; q <= SAMUtils.MAX_PHRED_SCORE; q++ ) {
+            double qual = qual2prob[q < minBaseQual ? minBaseQual : q];
+            matchEpsilons[q] = 1 - qual;
+            mismatchEpsilons[q] = qual * EM;
         }
     }
 
     protected double calcEpsilon( byte ref, byte read, byte qualB ) {
-        return EPSILONS[ref][read][qualB];
+        return epsilon(BASE_CODES[ref], BASE_CODES[read], matchEpsilons[qualB], mismatchEpsilons[qualB]);
+    }
+
+    private static double epsilon( final int refCode, final int readCode, final double matchEpsilon, final double mismatchEpsilon ) {
+        return refCode < 0 || readCode < 0 ? 1.0 : (refCode == readCode ? matchEpsilon : mismatchEpsilon);
+    }
+
+    /**
+     * Make sure the workspace can hold the matrices for a query of length l_query against a reference of length l_ref
+     * with the given number of band columns, and clear the part of the matrices that will be used.
+     */
+    private void prepareWorkspace( final int l_query, final int l_ref, final int columns ) {
+        final int matrixSize = (l_query + 1) * columns;
+        if ( forwardM == null || forwardM.length < matrixSize ) {
+            forwardM = new double[matrixSize]; forwardI = new double[matrixSize]; forwardD = new double[matrixSize];
+            backwardM = new double[matrixSize]; backwardI = new double[matrixSize]; backwardD = new double[matrixSize];
+        } else {
+            // cells outside of the band of each row are read as zeros
+            Arrays.fill(forwardM, 0, matrixSize, 0.0); Arrays.fill(forwardI, 0, matrixSize, 0.0); Arrays.fill(forwardD, 0, matrixSize, 0.0);
+            Arrays.fill(backwardM, 0, matrixSize, 0.0); Arrays.fill(backwardI, 0, matrixSize, 0.0); Arrays.fill(backwardD, 0, matrixSize, 0.0);
+        }
+        if ( scalings == null || scalings.length < l_query + 2 ) {
+            scalings = new double[l_query + 2];
+        }
+        if ( rowEpsilons == null || rowEpsilons.length < columns ) {
+            rowEpsilons = new double[columns];
+        }
+        if ( refCodes == null || refCodes.length < l_ref ) {
+            refCodes = new byte[l_ref];
+        }
     }
 
     // ####################################################################################################
@@ -170,6 +213,11 @@ public final class BAQ implements Serializable {
     // NOTE -- THIS CODE IS SYNCHRONIZED WITH CODE IN THE SAMTOOLS REPOSITORY.  CHANGES TO THIS CODE SHOULD BE
     // NOTE -- PUSHED BACK TO HENG LI
     //
+    // This is the algorithm of samtools' kpa_glocal, with the matrices stored one array per state rather than
+    // interleaved, so that the match and insertion states of a row (which only depend on the previous row) are
+    // computed by simple loops over contiguous arrays, separately from the deletion states that depend on the
+    // previous column. Every cell is computed with the same floating point operations, in the same order, as the
+    // interleaved version, so the results are identical.
     // ####################################################################################################
     public int hmm_glocal(final byte[] ref, final byte[] query, int qstart, int l_query, final byte[] _iqual, int[] state, byte[] q) {
         if ( ref == null ) throw new GATKException("BUG: ref sequence is null");
@@ -192,141 +240,170 @@ public final class BAQ implements Serializable {
 		int bw2, bw = l_ref > l_query? l_ref : l_query;
         if (cb < Math.abs(l_ref - l_query)) {
             bw = Math.abs(l_ref - l_query) + 3;
-            //System.out.printf("SC  cb=%d, bw=%d%n", cb, bw);
         }
         if (bw > cb) bw = cb;
 		if (bw < Math.abs(l_ref - l_query)) {
-            //int bwOld = bw;
             bw = Math.abs(l_ref - l_query);
-            //System.out.printf("old bw is %d, new is %d%n", bwOld, bw);
         }
-        //System.out.printf("c->bw = %d, bw = %d, l_ref = %d, l_query = %d\n", cb, bw, l_ref, l_query);
 		bw2 = bw * 2 + 1;
 
-        // allocate the forward and backward matrices f[][] and b[][] and the scaling array s[]
-		double[][] f = new double[l_query+1][bw2*3 + 6];
-		double[][] b = new double[l_query+1][bw2*3 + 6];
-		double[] s = new double[l_query+2];
+        // the band of each row has bw2 columns, plus one on each side that is always zero
+        final int columns = bw2 + 2;
+        prepareWorkspace(l_query, l_ref, columns);
+        final double[] fM = forwardM, fI = forwardI, fD = forwardD;
+        final double[] bMat = backwardM, bIns = backwardI, bDel = backwardD;
+        final double[] s = scalings, eRow = rowEpsilons;
+        final byte[] refCode = refCodes;
+        for (k = 0; k < l_ref; ++k) refCode[k] = BASE_CODES[ref[k]];
 
 		// initialize transition probabilities
 		double sM, sI, bM, bI;
 		sM = sI = 1. / (2 * l_query + 2);
         bM = (1 - cd) / l_ref; bI = cd / l_ref; // (bM+bI)*l_ref==1
 
-		double[] m = new double[9];
-		m[0*3+0] = (1 - cd - cd) * (1 - sM); m[0*3+1] = m[0*3+2] = cd * (1 - sM);
-		m[1*3+0] = (1 - ce) * (1 - sI); m[1*3+1] = ce * (1 - sI); m[1*3+2] = 0.;
-		m[2*3+0] = 1 - ce; m[2*3+1] = 0.; m[2*3+2] = ce;
-
+		final double m0 = (1 - cd - cd) * (1 - sM), m1 = cd * (1 - sM), m2 = cd * (1 - sM);
+		final double m3 = (1 - ce) * (1 - sI), m4 = ce * (1 - sI);
+		final double m6 = 1 - ce, m8 = ce;
 
 		/*** forward ***/
 		// f[0]
-		f[0][set_u(bw, 0, 0)] = s[0] = 1.;
+		fM[bandColumn(bw, 0, 0)] = s[0] = 1.;
 		{ // f[1]
-			double[] fi = f[1];
+			final int row = columns;
+			final int qy = BASE_CODES[query[qstart]];
+			final double eMatch = matchEpsilons[_iqual[qstart]], eMismatch = mismatchEpsilons[_iqual[qstart]];
 			double sum;
-			int beg = 1, end = l_ref < bw + 1? l_ref : bw + 1, _beg, _end;
+			int beg = 1, end = l_ref < bw + 1? l_ref : bw + 1;
 			for (k = beg, sum = 0.; k <= end; ++k) {
-				int u;
-                double e = calcEpsilon(ref[k-1], query[qstart], _iqual[qstart]);
-				u = set_u(bw, 1, k);
-				fi[u+0] = e * bM; fi[u+1] = EI * bI;
-				sum += fi[u] + fi[u+1];
+				final int u = row + bandColumn(bw, 1, k);
+				fM[u] = epsilon(refCode[k-1], qy, eMatch, eMismatch) * bM; fI[u] = EI * bI;
+				sum += fM[u] + fI[u];
 			}
 			// rescale
 			s[1] = sum;
-			_beg = set_u(bw, 1, beg); _end = set_u(bw, 1, end); _end += 2;
-			for (k = _beg; k <= _end; ++k) fi[k] /= sum;
+			for (int u = row + bandColumn(bw, 1, beg), _end = row + bandColumn(bw, 1, end); u <= _end; ++u) {
+				fM[u] /= sum; fI[u] /= sum; fD[u] /= sum;
+			}
 		}
 
 		// f[2..l_query]
 		for (i = 2; i <= l_query; ++i) {
-			double[] fi = f[i], fi1 = f[i-1];
+			final int row = i * columns, prevRow = row - columns;
+			final int qy = BASE_CODES[query[qstart+i-1]];
+			final double eMatch = matchEpsilons[_iqual[qstart+i-1]], eMismatch = mismatchEpsilons[_iqual[qstart+i-1]];
 			double sum;
-			int beg = 1, end = l_ref, x, _beg, _end;
-			byte qyi = query[qstart+i-1];
+			int beg = 1, end = l_ref, x;
 			x = i - bw; beg = beg > x? beg : x; // band start
 			x = i + bw; end = end < x? end : x; // band end
-			for (k = beg, sum = 0.; k <= end; ++k) {
-				int u, v11, v01, v10;
-                double e = calcEpsilon(ref[k-1], qyi, _iqual[qstart+i-1]);
-				u = set_u(bw, i, k); v11 = set_u(bw, i-1, k-1); v10 = set_u(bw, i-1, k); v01 = set_u(bw, i, k-1);
-				fi[u+0] = e * (m[0] * fi1[v11+0] + m[3] * fi1[v11+1] + m[6] * fi1[v11+2]);
-				fi[u+1] = EI * (m[1] * fi1[v10+0] + m[4] * fi1[v10+1]);
-				fi[u+2] = m[2] * fi[v01+0] + m[8] * fi[v01+2];
-				sum += fi[u] + fi[u+1] + fi[u+2];
-				//System.out.println("("+i+","+k+";"+u+"): "+fi[u]+","+fi[u+1]+","+fi[u+2]);
+			final int uBeg = row + bandColumn(bw, i, beg), uEnd = row + bandColumn(bw, i, end);
+			// offsets of the cells (i-1, k-1) and (i-1, k) relative to the cell (i, k)
+			final int d11 = prevRow + bandColumn(bw, i-1, beg-1) - uBeg, d10 = d11 + 1;
+
+			for (k = beg; k <= end; ++k) {
+				eRow[k - beg] = epsilon(refCode[k-1], qy, eMatch, eMismatch);
+			}
+			// match and insertion states only depend on the previous row
+			for (int u = uBeg; u <= uEnd; ++u) {
+				final int v11 = u + d11, v10 = u + d10;
+				fM[u] = eRow[u - uBeg] * (m0 * fM[v11] + m3 * fI[v11] + m6 * fD[v11]);
+				fI[u] = EI * (m1 * fM[v10] + m4 * fI[v10]);
+			}
+			// deletion states depend on the previous column
+			sum = 0.;
+			for (int u = uBeg; u <= uEnd; ++u) {
+				fD[u] = m2 * fM[u-1] + m8 * fD[u-1];
+				sum += fM[u] + fI[u] + fD[u];
 			}
 			// rescale
 			s[i] = sum;
-			_beg = set_u(bw, i, beg); _end = set_u(bw, i, end); _end += 2;
-			for (k = _beg, sum = 1./sum; k <= _end; ++k) fi[k] *= sum;
+			sum = 1./sum;
+			for (int u = uBeg; u <= uEnd; ++u) {
+				fM[u] *= sum; fI[u] *= sum; fD[u] *= sum;
+			}
 		}
 		{ // f[l_query+1]
+			final int row = l_query * columns;
 			double sum;
 			for (k = 1, sum = 0.; k <= l_ref; ++k) {
-				int u = set_u(bw, l_query, k);
-				if (u < 3 || u >= bw2*3+3) continue;
-				sum += f[l_query][u+0] * sM + f[l_query][u+1] * sI;
+				int c = bandColumn(bw, l_query, k);
+				if (c < 1 || c >= bw2+1) continue;
+				sum += fM[row + c] * sM + fI[row + c] * sI;
 			}
 			s[l_query+1] = sum; // the last scaling factor
 		}
 
 		/*** backward ***/
 		// b[l_query] (b[l_query+1][0]=1 and thus \tilde{b}[][]=1/s[l_query+1]; this is where s[l_query+1] comes from)
-		for (k = 1; k <= l_ref; ++k) {
-			int u = set_u(bw, l_query, k);
-			double[] bi = b[l_query];
-			if (u < 3 || u >= bw2*3+3) continue;
-			bi[u+0] = sM / s[l_query] / s[l_query+1]; bi[u+1] = sI / s[l_query] / s[l_query+1];
+		{
+			final int row = l_query * columns;
+			for (k = 1; k <= l_ref; ++k) {
+				int c = bandColumn(bw, l_query, k);
+				if (c < 1 || c >= bw2+1) continue;
+				bMat[row + c] = sM / s[l_query] / s[l_query+1]; bIns[row + c] = sI / s[l_query] / s[l_query+1];
+			}
 		}
 		// b[l_query-1..1]
 		for (i = l_query - 1; i >= 1; --i) {
-			int beg = 1, end = l_ref, x, _beg, _end;
-			double[] bi = b[i], bi1 = b[i+1];
+			final int row = i * columns, nextRow = row + columns;
+			int beg = 1, end = l_ref, x;
 			double y = (i > 1)? 1. : 0.;
-			byte qyi1 = query[qstart+i];
+			final int qy = BASE_CODES[query[qstart+i]];
+			final double eMatch = matchEpsilons[_iqual[qstart+i]], eMismatch = mismatchEpsilons[_iqual[qstart+i]];
 			x = i - bw; beg = beg > x? beg : x;
 			x = i + bw; end = end < x? end : x;
-			for (k = end; k >= beg; --k) {
-				int u, v11, v01, v10;
-				u = set_u(bw, i, k); v11 = set_u(bw, i+1, k+1); v10 = set_u(bw, i+1, k); v01 = set_u(bw, i, k+1);
-                final double e = (k >= l_ref? 0 : calcEpsilon(ref[k], qyi1, _iqual[qstart+i])) * bi1[v11];
-                bi[u+0] = e * m[0] + EI * m[1] * bi1[v10+1] + m[2] * bi[v01+2]; // bi1[v11] has been folded into e.
-				bi[u+1] = e * m[3] + EI * m[4] * bi1[v10+1];
-				bi[u+2] = (e * m[6] + m[8] * bi[v01+2]) * y;
+			final int uBeg = row + bandColumn(bw, i, beg), uEnd = row + bandColumn(bw, i, end);
+			// offsets of the cells (i+1, k+1) and (i+1, k) relative to the cell (i, k)
+			final int d11 = nextRow + bandColumn(bw, i+1, beg+1) - uBeg, d10 = d11 - 1;
+
+			// bMat[v11] is folded into the emission probability
+			for (k = beg; k <= end; ++k) {
+				eRow[k - beg] = (k >= l_ref? 0 : epsilon(refCode[k], qy, eMatch, eMismatch)) * bMat[row + bandColumn(bw, i, k) + d11];
+			}
+			// insertion states only depend on the next row
+			for (int u = uBeg; u <= uEnd; ++u) {
+				bIns[u] = eRow[u - uBeg] * m3 + EI * m4 * bIns[u + d10];
+			}
+			// match and deletion states depend on the next column
+			for (int u = uEnd; u >= uBeg; --u) {
+				final double e = eRow[u - uBeg];
+				bMat[u] = e * m0 + EI * m1 * bIns[u + d10] + m2 * bDel[u+1];
+				bDel[u] = (e * m6 + m8 * bDel[u+1]) * y;
 			}
 			// rescale
-			_beg = set_u(bw, i, beg); _end = set_u(bw, i, end); _end += 2;
-			for (k = _beg, y = 1./s[i]; k <= _end; ++k) bi[k] *= y;
+			y = 1./s[i];
+			for (int u = uBeg; u <= uEnd; ++u) {
+				bMat[u] *= y; bIns[u] *= y; bDel[u] *= y;
+			}
 		}
 
  		double pb;
 		{ // b[0]
+			final int qy = BASE_CODES[query[qstart]];
+			final double eMatch = matchEpsilons[_iqual[qstart]], eMismatch = mismatchEpsilons[_iqual[qstart]];
 			int beg = 1, end = l_ref < bw + 1? l_ref : bw + 1;
 			double sum = 0.;
 			for (k = end; k >= beg; --k) {
-				int u = set_u(bw, 1, k);
-                double e = calcEpsilon(ref[k-1], query[qstart], _iqual[qstart]);
-                if (u < 3 || u >= bw2*3+3) continue;
-				sum += e * b[1][u+0] * bM + EI * b[1][u+1] * bI;
+				int c = bandColumn(bw, 1, k);
+                double e = epsilon(refCode[k-1], qy, eMatch, eMismatch);
+                if (c < 1 || c >= bw2+1) continue;
+				sum += e * bMat[columns + c] * bM + EI * bIns[columns + c] * bI;
 			}
-			pb = b[0][set_u(bw, 0, 0)] = sum / s[0]; // if everything works as is expected, pb == 1.0
+			pb = bMat[bandColumn(bw, 0, 0)] = sum / s[0]; // if everything works as is expected, pb == 1.0
 		}
 
-        
+
 		/*** MAP ***/
 		for (i = 1; i <= l_query; ++i) {
 			double sum = 0., max = 0.;
-			final double[] fi = f[i], bi = b[i];
+			final int row = i * columns;
 			int beg = 1, end = l_ref, x, max_k = -1;
 			x = i - bw; beg = beg > x? beg : x;
 			x = i + bw; end = end < x? end : x;
 			for (k = beg; k <= end; ++k) {
-				final int u = set_u(bw, i, k);
+				final int u = row + bandColumn(bw, i, k);
 				double z;
-				sum += (z = fi[u+0] * bi[u+0]); if (z > max) { max = z; max_k = (k-1)<<2 | 0; }
-				sum += (z = fi[u+1] * bi[u+1]); if (z > max) { max = z; max_k = (k-1)<<2 | 1; }
+				sum += (z = fM[u] * bMat[u]); if (z > max) { max = z; max_k = (k-1)<<2 | 0; }
+				sum += (z = fI[u] * bIns[u]); if (z > max) { max = z; max_k = (k-1)<<2 | 1; }
 			}
 			max /= sum; sum *= s[i]; // if everything works as is expected, sum == 1.0
 			if (state != null) state[qstart+i-1] = max_k;
@@ -334,7 +411,6 @@ public final class BAQ implements Serializable {
 				k = (int)(-4.343 * Math.log(1. - max) + .499); // = 10*log10(1-max)
 				q[qstart+i-1] = (byte)(k > 100? 99 : (k < minBaseQual ? minBaseQual : k));
 			}
-			//System.out.println("("+pb+","+sum+")"+" ("+(i-1)+","+(max_k>>2)+","+(max_k&3)+","+max+")");
 		}
 
 		return 0;
@@ -356,10 +432,11 @@ public final class BAQ implements Serializable {
         return state >> 2;
     }
 
-    private static int set_u(final int b, final int i, final int k) {
+    /** column of the cell for query position i and reference position k in the band of row i */
+    private static int bandColumn(final int b, final int i, final int k) {
 		int x = i - b;
 		x = x > 0 ? x : 0;
-		return (k + 1 - x) * 3;
+		return k + 1 - x;
 	}
 
     // ---------------------------------------------------------------------------------------------------------------
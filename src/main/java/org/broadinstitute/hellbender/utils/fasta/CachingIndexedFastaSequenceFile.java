@@ -263,30 +263,8 @@ public final class CachingIndexedFastaSequenceFile extends IndexedFastaSequenceF
             if ( ! preserveCase ) StringUtil.toUpperCase(result.getBases());
             if ( ! preserveIUPAC ) BaseUtils.convertIUPACtoN(result.getBases(), true, start < 1);
         } else {
-            // todo -- potential optimization is to check if contig.name == contig, as this in general will be true
-            SAMSequenceRecord contigInfo = super.getSequenceDictionary().getSequence(contig);
-            if (contigInfo == null){
-                throw new UserException.MissingContigInSequenceDictionary(contig, super.getSequenceDictionary());
-            }
-
-            if (stop > contigInfo.getSequenceLength())
-                throw new SAMException("Query asks for data past end of contig. Query contig " + contig + " start:" + start + " stop:" + stop + " contigLength:" +  contigInfo.getSequenceLength());
-
-            if ( start < cache.start || stop > cache.stop || cache.seq == null || cache.seq.getContigIndex() != contigInfo.getSequenceIndex() ) {
-                cacheMisses++;
-                cache.start = Math.max(start - cacheMissBackup, 0);
-                cache.stop  = Math.min(start + cacheSize + cacheMissBackup, contigInfo.getSequenceLength());
-                cache.seq   = super.getSubsequenceAt(contig, cache.start, cache.stop);
-
-                // convert all of the bases in the sequence to upper case if we aren't preserving cases
-                if ( ! preserveCase ) StringUtil.toUpperCase(cache.seq.getBases());
-                if ( ! preserveIUPAC ) BaseUtils.convertIUPACtoN(cache.seq.getBases(), true, cache.start == 0);
-            } else {
-                cacheHits++;
-            }
-
             // at this point we determine where in the cache we want to extract the requested subsequence
-            final int cacheOffsetStart = (int)(start - cache.start);
+            final int cacheOffsetStart = loadCacheFor(contig, start, stop);
             final int cacheOffsetStop = (int)(stop - start + cacheOffsetStart + 1);
 
             try {
@@ -303,4 +281,64 @@ public final class CachingIndexedFastaSequenceFile extends IndexedFastaSequenceF
 
         return result;
     }
-}
\ No newline at end of file
+
+    /**
+     * Copies the subsequence of the contig in the range [start,stop] into the provided array, as returned by
+     * {@link #getSubsequenceAt}, but without allocating a new ReferenceSequence and array when the range is
+     * served from the cache.
+     *
+     * @param contig Contig whose subsequence to retrieve.
+     * @param start inclusive, 1-based start of region.
+     * @param stop inclusive, 1-based stop of region.
+     * @param destination array to copy the bases into. Must be exactly stop - start + 1 long.
+     */
+    public void getSubsequenceAt( final String contig, final long start, final long stop, final byte[] destination ) {
+        if ( destination.length != stop - start + 1 ) {
+            throw new IllegalArgumentException("destination has length " + destination.length + " but the query spans " + (stop - start + 1) + " bases");
+        }
+
+        if ( (stop - start) >= cacheSize ) {
+            System.arraycopy(getSubsequenceAt(contig, start, stop).getBases(), 0, destination, 0, destination.length);
+            return;
+        }
+
+        final int cacheOffsetStart = loadCacheFor(contig, start, stop);
+        System.arraycopy(cache.seq.getBases(), cacheOffsetStart, destination, 0, destination.length);
+
+        // for debugging -- print out our efficiency if requested
+        if ( PRINT_EFFICIENCY && (getCacheHits() + getCacheMisses()) % PRINT_FREQUENCY == 0 )
+            printEfficiency(Level.INFO);
+    }
+
+    /**
+     * Makes sure that our cache holds the range [start,stop] of the contig, loading it from disk if necessary.
+     * The range must be shorter than the cache.
+     *
+     * @return the offset of start in the cached bases
+     */
+    private int loadCacheFor( final String contig, final long start, final long stop ) {
+        // todo -- potential optimization is to check if contig.name == contig, as this in general will be true
+        SAMSequenceRecord contigInfo = super.getSequenceDictionary().getSequence(contig);
+        if (contigInfo == null){
+            throw new UserException.MissingContigInSequenceDictionary(contig, super.getSequenceDictionary());
+        }
+
+        if (stop > contigInfo.getSequenceLength())
+            throw new SAMException("Query asks for data past end of contig. Query contig " + contig + " start:" + start + " stop:" + stop + " contigLength:" +  contigInfo.getSequenceLength());
+
+        if ( start < cache.start || stop > cache.stop || cache.seq == null || cache.seq.getContigIndex() != contigInfo.getSequenceIndex() ) {
+            cacheMisses++;
+            cache.start = Math.max(start - cacheMissBackup, 0);
+            cache.stop  = Math.min(start + cacheSize + cacheMissBackup, contigInfo.getSequenceLength());
+            cache.seq   = super.getSubsequenceAt(contig, cache.start, cache.stop);
+
+            // convert all of the bases in the sequence to upper case if we aren't preserving cases
+            if ( ! preserveCase ) StringUtil.toUpperCase(cache.seq.getBases());
+            if ( ! preserveIUPAC ) BaseUtils.convertIUPACtoN(cache.seq.getBases(), true, cache.start == 0);
+        } else {
+            cacheHits++;
+        }
+
+        return (int)(start - cache.start);
+    }
+}
@@ -0,0 +1,208 @@
+package org.broadinstitute.hellbender.utils.io;
+
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+import htsjdk.samtools.util.BlockGunzipper;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * InputStream over the decompressed contents of a BGZF file (such as a BAM), that inflates several BGZF blocks
+ * at a time on a pool of threads.
+ *
+ * The compressed blocks are read sequentially from the file on the calling thread, and each one is handed to the pool
+ * to be inflated. Up to {@link #BLOCKS_IN_FLIGHT_PER_THREAD} blocks per thread are read ahead of the caller, and the
+ * inflated blocks are returned in file order, so the result is the same as reading the file through a
+ * {@link htsjdk.samtools.util.BlockCompressedInputStream}. Unlike that stream, this one supports only sequential
+ * reading: it has no notion of virtual file offsets and cannot seek.
+ */
+public final class ParallelBGZFInputStream extends InputStream {
+
+    /**
+     * Number of blocks to read ahead of the caller per inflater thread, so that every thread always has work to do.
+     */
+    public static final int BLOCKS_IN_FLIGHT_PER_THREAD = 4;
+
+    private static final byte[] EMPTY_BLOCK = new byte[0];
+
+    private final InputStream compressedStream;
+    private final File file;
+    private final ExecutorService inflaters;
+    private final ThreadLocal<BlockGunzipper> gunzippers = ThreadLocal.withInitial(BlockGunzipper::new);
+    private final Queue<Future<byte[]>> inflatedBlocks = new ArrayDeque<>();
+    private final int maxBlocksInFlight;
+
+    private boolean endOfCompressedStream = false;
+    private byte[] currentBlock = EMPTY_BLOCK;
+    private int currentOffset = 0;
+
+    /**
+     * @param file BGZF file to read
+     * @param numThreads number of threads to inflate blocks on (must be at least 1)
+     */
+    public ParallelBGZFInputStream(final File file, final int numThreads) {
+        Utils.nonNull(file);
+        Utils.validateArg(numThreads > 0, "numThreads must be positive");
+        this.file = file;
+        try {
+            this.compressedStream = new BufferedInputStream(new FileInputStream(file), BlockCompressedStreamConstants.MAX_COMPRESSED_BLOCK_SIZE);
+        }
+        catch ( FileNotFoundException e ) {
+            throw new UserException.CouldNotReadInputFile(file, e);
+        }
+        this.inflaters = Executors.newFixedThreadPool(numThreads, runnable -> {
+            final Thread thread = new Thread(runnable, "ParallelBGZFInputStream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.maxBlocksInFlight = numThreads * BLOCKS_IN_FLIGHT_PER_THREAD;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if ( ! ensureCurrentBlockHasData() ) {
+            return -1;
+        }
+        return currentBlock[currentOffset++] & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+        Utils.nonNull(buffer);
+        if ( length == 0 ) {
+            return 0;
+        }
+        int bytesRead = 0;
+        while ( bytesRead < length && ensureCurrentBlockHasData() ) {
+            final int toCopy = Math.min(length - bytesRead, currentBlock.length - currentOffset);
+            System.arraycopy(currentBlock, currentOffset, buffer, offset + bytesRead, toCopy);
+            currentOffset += toCopy;
+            bytesRead += toCopy;
+        }
+        return bytesRead == 0 ? -1 : bytesRead;
+    }
+
+    @Override
+    public int available() {
+        return currentBlock.length - currentOffset;
+    }
+
+    /**
+     * Advance to the next non-empty inflated block if the current one is used up.
+     *
+     * @return false if there is no more data
+     */
+    private boolean ensureCurrentBlockHasData() throws IOException {
+        while ( currentOffset == currentBlock.length ) {
+            fillPipeline();
+            final Future<byte[]> next = inflatedBlocks.poll();
+            if ( next == null ) {
+                return false;
+            }
+            try {
+                currentBlock = next.get();
+            }
+            catch ( InterruptedException e ) {
+                throw new GATKException("Interrupted while inflating " + file.getAbsolutePath(), e);
+            }
+            catch ( ExecutionException e ) {
+                if ( e.getCause() instanceof RuntimeException ) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new GATKException("Error inflating " + file.getAbsolutePath(), e.getCause());
+            }
+            currentOffset = 0;
+        }
+        return true;
+    }
+
+    /**
+     * Read compressed blocks from the file and submit them for inflation until enough blocks are in flight.
+     */
+    private void fillPipeline() throws IOException {
+        while ( ! endOfCompressedStream && inflatedBlocks.size() < maxBlocksInFlight ) {
+            final byte[] compressedBlock = readCompressedBlock();
+            if ( compressedBlock == null ) {
+                endOfCompressedStream = true;
+            }
+            else {
+                inflatedBlocks.add(inflaters.submit(() -> inflate(compressedBlock)));
+            }
+        }
+    }
+
+    /**
+     * @return the next complete compressed block in the file, or null at the end of the file
+     */
+    private byte[] readCompressedBlock() throws IOException {
+        final byte[] header = new byte[BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH];
+        final int headerBytes = readFully(header, 0, header.length);
+        if ( headerBytes == 0 ) {
+            return null;
+        }
+        if ( headerBytes < header.length || header[0] != BlockCompressedStreamConstants.GZIP_ID1 || (header[1] & 0xff) != BlockCompressedStreamConstants.GZIP_ID2 ) {
+            throw new UserException.MalformedFile(file, "Invalid or truncated BGZF block header");
+        }
+
+        // BSIZE is the total size of the block minus one, stored little-endian
+        final int blockLength = ((header[BlockCompressedStreamConstants.BLOCK_LENGTH_OFFSET] & 0xff) |
+                                 (header[BlockCompressedStreamConstants.BLOCK_LENGTH_OFFSET + 1] & 0xff) << 8) + 1;
+        if ( blockLength < header.length + BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH ) {
+            throw new UserException.MalformedFile(file, "Invalid BGZF block size " + blockLength);
+        }
+
+        final byte[] block = new byte[blockLength];
+        System.arraycopy(header, 0, block, 0, header.length);
+        if ( readFully(block, header.length, blockLength - header.length) < blockLength - header.length ) {
+            throw new UserException.MalformedFile(file, "Truncated BGZF block");
+        }
+        return block;
+    }
+
+    private int readFully(final byte[] buffer, final int offset, final int length) throws IOException {
+        int total = 0;
+        while ( total < length ) {
+            final int n = compressedStream.read(buffer, offset + total, length - total);
+            if ( n < 0 ) {
+                break;
+            }
+            total += n;
+        }
+        return total;
+    }
+
+    private byte[] inflate(final byte[] compressedBlock) {
+        // the uncompressed size (ISIZE) is stored little-endian in the last four bytes of the block
+        final int end = compressedBlock.length;
+        final int uncompressedLength = (compressedBlock[end - 4] & 0xff) |
+                                       (compressedBlock[end - 3] & 0xff) << 8 |
+                                       (compressedBlock[end - 2] & 0xff) << 16 |
+                                       (compressedBlock[end - 1] & 0xff) << 24;
+        if ( uncompressedLength == 0 ) {
+            return EMPTY_BLOCK;
+        }
+        final byte[] uncompressedBlock = new byte[uncompressedLength];
+        gunzippers.get().unzipBlock(uncompressedBlock, compressedBlock, compressedBlock.length);
+        return uncompressedBlock;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflaters.shutdownNow();
+        inflatedBlocks.clear();
+        compressedStream.close();
+    }
+}
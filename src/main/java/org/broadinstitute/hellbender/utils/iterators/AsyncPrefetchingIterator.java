@@ -0,0 +1,180 @@
+package org.broadinstitute.hellbender.utils.iterators;
+
+import htsjdk.samtools.util.CloseableIterator;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Iterator that pulls elements from a wrapped iterator on a background thread, ahead of the consumer.
+ *
+ * The background thread reads elements from the wrapped iterator in batches and hands the batches to the consumer
+ * through a bounded queue, so that the work done by the wrapped iterator (e.g. decompressing and decoding records)
+ * overlaps with the work done by the consumer. At most {@code maxBatches} batches are buffered at a time.
+ *
+ * Any exception thrown by the wrapped iterator on the background thread is rethrown to the consumer from
+ * {@link #hasNext} or {@link #next} once the elements preceding it have been consumed.
+ *
+ * The wrapped iterator must not be used by anyone else once it has been handed to this iterator, and is closed
+ * by {@link #close} after the background thread has stopped. This iterator itself is not thread-safe: it should
+ * be consumed by one thread.
+ */
+public final class AsyncPrefetchingIterator<T> implements CloseableIterator<T> {
+
+    /**
+     * Batch that marks the end of the wrapped iterator, or the point where it failed.
+     */
+    private final List<T> endOfData = Collections.emptyList();
+
+    private final CloseableIterator<T> source;
+    private final BlockingQueue<List<T>> batches;
+    private final Thread prefetchThread;
+
+    // set by the prefetch thread before it enqueues endOfData, and read by the consumer after dequeuing it
+    private volatile Throwable prefetchFailure;
+    private volatile boolean closed = false;
+
+    private Iterator<T> currentBatch = Collections.emptyIterator();
+    private boolean exhausted = false;
+
+    /**
+     * @param source iterator to prefetch from
+     * @param batchSize number of elements the background thread reads before handing them to the consumer
+     * @param maxBatches maximum number of batches to buffer ahead of the consumer
+     */
+    public AsyncPrefetchingIterator(final CloseableIterator<T> source, final int batchSize, final int maxBatches) {
+        this(source, batchSize, maxBatches, element -> {});
+    }
+
+    /**
+     * @param source iterator to prefetch from
+     * @param batchSize number of elements the background thread reads before handing them to the consumer
+     * @param maxBatches maximum number of batches to buffer ahead of the consumer
+     * @param prefetchAction action to run on each element on the background thread as it is read, e.g. to
+     *                       force lazily-computed state so that the consumer doesn't have to compute it
+     */
+    public AsyncPrefetchingIterator(final CloseableIterator<T> source, final int batchSize, final int maxBatches, final Consumer<? super T> prefetchAction) {
+        Utils.nonNull(source);
+        Utils.nonNull(prefetchAction);
+        Utils.validateArg(batchSize > 0, "batchSize must be positive");
+        Utils.validateArg(maxBatches > 0, "maxBatches must be positive");
+
+        this.source = source;
+        // extra slots so that the prefetch thread can always enqueue a partial batch and endOfData once we are closed
+        this.batches = new ArrayBlockingQueue<>(maxBatches + 2);
+        this.prefetchThread = new Thread(() -> prefetch(batchSize, prefetchAction), "AsyncPrefetchingIterator");
+        this.prefetchThread.setDaemon(true);
+        this.prefetchThread.start();
+    }
+
+    private void prefetch(final int batchSize, final Consumer<? super T> prefetchAction) {
+        List<T> batch = new ArrayList<>(batchSize);
+        try {
+            while ( ! closed && source.hasNext() ) {
+                while ( batch.size() < batchSize && source.hasNext() ) {
+                    final T element = source.next();
+                    prefetchAction.accept(element);
+                    batch.add(element);
+                }
+                batches.put(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        catch ( InterruptedException e ) {
+            return;
+        }
+        catch ( Throwable t ) {
+            prefetchFailure = t;
+        }
+
+        try {
+            // hand over the elements read before a failure, so that it is reported at the right point
+            if ( ! batch.isEmpty() ) {
+                batches.put(batch);
+            }
+            batches.put(endOfData);
+        }
+        catch ( InterruptedException e ) {
+            // nobody can be waiting for the end of the data if we were interrupted
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if ( closed ) {
+            return false;
+        }
+        while ( ! currentBatch.hasNext() && ! exhausted ) {
+            final List<T> batch;
+            try {
+                batch = batches.take();
+            }
+            catch ( InterruptedException e ) {
+                throw new GATKException("Interrupted while waiting for prefetched elements", e);
+            }
+
+            if ( batch == endOfData ) {
+                exhausted = true;
+                rethrowPrefetchFailure();
+            }
+            else {
+                currentBatch = batch.iterator();
+            }
+        }
+        return currentBatch.hasNext();
+    }
+
+    private void rethrowPrefetchFailure() {
+        final Throwable failure = prefetchFailure;
+        if ( failure == null ) {
+            return;
+        }
+        if ( failure instanceof RuntimeException ) {
+            throw (RuntimeException) failure;
+        }
+        if ( failure instanceof Error ) {
+            throw (Error) failure;
+        }
+        throw new GATKException("Error while prefetching", failure);
+    }
+
+    @Override
+    public T next() {
+        if ( ! hasNext() ) {
+            throw new NoSuchElementException("next() called when !hasNext()");
+        }
+        return currentBatch.next();
+    }
+
+    /**
+     * Stops the background thread, discarding any prefetched elements, and closes the wrapped iterator.
+     */
+    @Override
+    public void close() {
+        if ( closed ) {
+            return;
+        }
+        closed = true;
+        // Rather than interrupting the prefetch thread (which would close an interruptible channel the wrapped
+        // iterator may be reading from), make room in the queue: the prefetch thread then finishes at most one more
+        // batch, notices that we are closed and exits.
+        batches.clear();
+        try {
+            prefetchThread.join();
+        }
+        catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        }
+        batches.clear();
+        currentBatch = Collections.emptyIterator();
+        source.close();
+    }
+}
@@ -0,0 +1,113 @@
+package org.broadinstitute.hellbender.utils.iterators;
+
+import htsjdk.samtools.BAMRecordCodec;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMUtils;
+import htsjdk.samtools.ValidationStringency;
+import htsjdk.samtools.util.BinaryCodec;
+import htsjdk.samtools.util.CloseableIterator;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.io.ParallelBGZFInputStream;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterator over all records of a BAM file, in file order, that decompresses the file on several threads using a
+ * {@link ParallelBGZFInputStream} and decodes the records with htsjdk's {@link BAMRecordCodec}.
+ *
+ * Equivalent to iterating over a {@link htsjdk.samtools.SamReader} opened on the same file (including validation
+ * of the records according to the given stringency), except that the records have no file source, since their
+ * virtual file offsets are not tracked. It can only be used for sequential traversals of an entire file.
+ */
+public final class ParallelInflatingBAMIterator implements CloseableIterator<SAMRecord> {
+
+    private static final byte[] BAM_MAGIC = "BAM\1".getBytes();
+
+    private final ParallelBGZFInputStream inputStream;
+    private final BAMRecordCodec codec;
+    private final ValidationStringency validationStringency;
+    private SAMRecord nextRecord;
+    private long recordCount = 0;
+
+    /**
+     * @param bamFile BAM file to read
+     * @param header the file's header, as read by a SamReader (the binary header in the file is skipped)
+     * @param validationStringency stringency with which to validate the records
+     * @param numInflaterThreads number of threads to decompress the file on
+     */
+    public ParallelInflatingBAMIterator(final File bamFile, final SAMFileHeader header, final ValidationStringency validationStringency, final int numInflaterThreads) {
+        Utils.nonNull(bamFile);
+        Utils.nonNull(header);
+        Utils.nonNull(validationStringency);
+
+        this.inputStream = new ParallelBGZFInputStream(bamFile, numInflaterThreads);
+        this.validationStringency = validationStringency;
+        skipBinaryHeader(bamFile, new BinaryCodec(inputStream));
+
+        this.codec = new BAMRecordCodec(header);
+        this.codec.setInputStream(inputStream, bamFile.getAbsolutePath());
+        advance();
+    }
+
+    /**
+     * Skip over the magic number, header text and reference sequences at the start of the decompressed BAM.
+     */
+    private static void skipBinaryHeader(final File bamFile, final BinaryCodec binaryCodec) {
+        final byte[] magic = new byte[BAM_MAGIC.length];
+        binaryCodec.readBytes(magic);
+        if ( ! Arrays.equals(magic, BAM_MAGIC) ) {
+            throw new UserException.MalformedFile(bamFile, "Invalid BAM file header");
+        }
+        binaryCodec.readBytes(new byte[binaryCodec.readInt()]);    // header text
+        final int numSequences = binaryCodec.readInt();
+        for ( int i = 0; i < numSequences; ++i ) {
+            binaryCodec.readBytes(new byte[binaryCodec.readInt()]); // sequence name
+            binaryCodec.readInt();                                  // sequence length
+        }
+    }
+
+    private void advance() {
+        nextRecord = codec.decode();
+        if ( nextRecord == null ) {
+            return;
+        }
+        ++recordCount;
+        // as BAMFileReader does for the records it decodes
+        nextRecord.setValidationStringency(validationStringency);
+        if ( validationStringency != ValidationStringency.SILENT ) {
+            SAMUtils.processValidationErrors(nextRecord.isValid(), recordCount, validationStringency);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextRecord != null;
+    }
+
+    @Override
+    public SAMRecord next() {
+        if ( ! hasNext() ) {
+            throw new NoSuchElementException("next() called when !hasNext()");
+        }
+        final SAMRecord record = nextRecord;
+        advance();
+        return record;
+    }
+
+    @Override
+    public void close() {
+        nextRecord = null;
+        try {
+            inputStream.close();
+        }
+        catch ( IOException e ) {
+            throw new GATKException("Error closing BAM input stream", e);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package org.broadinstitute.hellbender.utils.pairhmm;
+
+import org.broadinstitute.hellbender.utils.QualityUtils;
+
+import static org.broadinstitute.hellbender.utils.pairhmm.PairHMMModel.*;
+
+/**
+ * Pure Java implementation of the LOGLESS_CACHING PairHMM that fills the match, insertion and deletion matrices one
+ * anti-diagonal at a time, rather than one row at a time.
+ *
+ * All the cells of an anti-diagonal depend only on the two previous anti-diagonals, so, unlike the cells of a row, they
+ * can be computed independently of each other. Every anti-diagonal is stored indexed by read position (the row of the
+ * full matrices), along with a copy shifted by one position, so that the inner loop reads all its inputs (the previous
+ * anti-diagonals, the priors and the per-read transition probabilities) at the same index it writes to. This is the
+ * form of loop the JIT compiler vectorizes with SIMD instructions. Only three anti-diagonals are kept, so memory is
+ * linear in the read length.
+ *
+ * Every cell is computed with exactly the same floating point operations as {@link LoglessPairHMM}, and the final sum
+ * is accumulated in the same order, so both implementations return identical likelihoods. Unlike LoglessPairHMM, this
+ * implementation does not reuse the matrix columns shared with the previous haplotype.
+ */
+public final class AntiDiagonalLoglessPairHMM extends PairHMM {
+    /**
+     * The cells of one anti-diagonal of the three matrices, indexed by read position, and the same cells shifted by one
+     * position, so that {@code shiftedMatch[i] == match[i - 1]}.
+     */
+    private static final class AntiDiagonal {
+        final double[] match, insertion, deletion;
+        final double[] shiftedMatch, shiftedInsertion, shiftedDeletion;
+
+        AntiDiagonal(final int paddedReadLength) {
+            match = new double[paddedReadLength];
+            insertion = new double[paddedReadLength];
+            deletion = new double[paddedReadLength];
+            shiftedMatch = new double[paddedReadLength + 1];
+            shiftedInsertion = new double[paddedReadLength + 1];
+            shiftedDeletion = new double[paddedReadLength + 1];
+        }
+
+        /**
+         * Update the shifted copies of the cells from {@code start} to {@code end}, inclusive.
+         */
+        void shift(final int start, final int end) {
+            final int length = end - start + 1;
+            System.arraycopy(match, start, shiftedMatch, start + 1, length);
+            System.arraycopy(insertion, start, shiftedInsertion, start + 1, length);
+            System.arraycopy(deletion, start, shiftedDeletion, start + 1, length);
+        }
+    }
+
+    private AntiDiagonal current, previous, secondPrevious;
+
+    // per-read values, indexed by read position (1-based, as the rows of the full matrices)
+    private byte[] paddedReadBases;
+    private double[] matchPrior, mismatchPrior;
+    private double[] matchToMatchProb, indelToMatchProb, matchToInsertionProb, insertionToInsertionProb, matchToDeletionProb, deletionToDeletionProb;
+
+    // the bases of the current haplotype in reverse order, so that they are read in increasing order along an anti-diagonal
+    private byte[] reversedHaplotypeBases;
+    // the prior of every cell of the current anti-diagonal
+    private double[] diagonalPriors;
+
+    private final double[] transitionScratch = new double[TRANS_PROB_ARRAY_LENGTH];
+    private boolean constantsAreInitialized = false;
+
+    @Override
+    public void doNotUseTristateCorrection() {
+        doNotUseTristateCorrection = true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void initialize( final int readMaxLength, final int haplotypeMaxLength ) {
+        super.initialize(readMaxLength, haplotypeMaxLength);
+
+        current = new AntiDiagonal(paddedMaxReadLength);
+        previous = new AntiDiagonal(paddedMaxReadLength);
+        secondPrevious = new AntiDiagonal(paddedMaxReadLength);
+
+        paddedReadBases = new byte[paddedMaxReadLength];
+        matchPrior = new double[paddedMaxReadLength];
+        mismatchPrior = new double[paddedMaxReadLength];
+        matchToMatchProb = new double[paddedMaxReadLength];
+        indelToMatchProb = new double[paddedMaxReadLength];
+        matchToInsertionProb = new double[paddedMaxReadLength];
+        insertionToInsertionProb = new double[paddedMaxReadLength];
+        matchToDeletionProb = new double[paddedMaxReadLength];
+        deletionToDeletionProb = new double[paddedMaxReadLength];
+
+        reversedHaplotypeBases = new byte[haplotypeMaxLength];
+        diagonalPriors = new double[paddedMaxReadLength];
+        constantsAreInitialized = false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected double subComputeReadLikelihoodGivenHaplotypeLog10( final byte[] haplotypeBases,
+                                                                  final byte[] readBases,
+                                                                  final byte[] readQuals,
+                                                                  final byte[] insertionGOP,
+                                                                  final byte[] deletionGOP,
+                                                                  final byte[] overallGCP,
+                                                                  final int hapStartIndex,
+                                                                  final boolean recacheReadValues,
+                                                                  final int nextHapStartIndex) {
+        if ( ! constantsAreInitialized || recacheReadValues ) {
+            initializeReadValues(readBases, readQuals, insertionGOP, deletionGOP, overallGCP);
+            constantsAreInitialized = true;
+        }
+
+        final int readLength = readBases.length;
+        final int haplotypeLength = haplotypeBases.length;
+        for ( int j = 0; j < haplotypeLength; j++ ) {
+            reversedHaplotypeBases[haplotypeLength - 1 - j] = haplotypeBases[j];
+        }
+
+        // free deletions in the beginning: the first row of the deletion matrix
+        final double initialValue = LoglessPairHMM.INITIAL_CONDITION / haplotypeLength;
+
+        double finalSumProbabilities = 0.0;
+        for ( int diagonal = 0; diagonal <= readLength + haplotypeLength; diagonal++ ) {
+            rotateAntiDiagonals();
+
+            // the cells (i, diagonal - i) of the full matrices, for i in [start, end], have a read and a haplotype base
+            final int start = Math.max(1, diagonal - haplotypeLength);
+            final int end = Math.min(readLength, diagonal - 1);
+            computePriors(start, end, haplotypeLength - diagonal);
+            computeCells(start, end);
+
+            // the boundary cells of the anti-diagonal: in the first row, and in the first column
+            if ( diagonal <= haplotypeLength ) {
+                current.match[0] = 0.0;
+                current.insertion[0] = 0.0;
+                current.deletion[0] = initialValue;
+            }
+            if ( diagonal >= 1 && diagonal <= readLength ) {
+                current.match[diagonal] = 0.0;
+                current.insertion[diagonal] = 0.0;
+                current.deletion[diagonal] = 0.0;
+            }
+            current.shift(Math.max(0, diagonal - haplotypeLength), Math.min(readLength, diagonal));
+
+            // sum the paths ending in the last row in the match and insertion states, in the same order as LoglessPairHMM
+            if ( diagonal > readLength ) {
+                finalSumProbabilities += current.match[readLength] + current.insertion[readLength];
+            }
+        }
+        return Math.log10(finalSumProbabilities) - LoglessPairHMM.INITIAL_CONDITION_LOG10;
+    }
+
+    /**
+     * Fill in the prior of the cells of the current anti-diagonal, from {@code start} to {@code end}, inclusive.
+     *
+     * The match or mismatch prior is selected without branches, since whether bases match is unpredictable, and in
+     * loops the JIT compiler can vectorize: as {@code isMatch * matchPrior + (1 - isMatch) * mismatchPrior}, with
+     * {@code isMatch} either 0.0 or 1.0, which is exactly one of the two priors.
+     *
+     * @param haplotypeOffset the offset of the haplotype base of a cell in the reversed haplotype, from its read position
+     */
+    private void computePriors(final int start, final int end, final int haplotypeOffset) {
+        final byte[] readBases = paddedReadBases;
+        final byte[] haplotypeBases = reversedHaplotypeBases;
+        final double[] cellPriors = diagonalPriors;
+        for ( int i = start; i <= end; i++ ) {
+            final int x = readBases[i] & 0xFF;
+            final int y = haplotypeBases[haplotypeOffset + i] & 0xFF;
+            // (v - 1) >>> 31 is 1 when v is 0, and 0 for any other v in [0, 255]
+            cellPriors[i] = (((x ^ y) - 1) | ((x ^ 'N') - 1) | ((y ^ 'N') - 1)) >>> 31;
+        }
+        final double[] match = matchPrior, mismatch = mismatchPrior;
+        for ( int i = start; i <= end; i++ ) {
+            cellPriors[i] = cellPriors[i] * match[i] + (1.0 - cellPriors[i]) * mismatch[i];
+        }
+    }
+
+    /**
+     * Compute the cells of the current anti-diagonal from {@code start} to {@code end}, inclusive, from the two previous
+     * anti-diagonals. Every array is accessed at the same index, so the JIT compiler can vectorize these loops.
+     */
+    private void computeCells(final int start, final int end) {
+        final double[] match = current.match, insertion = current.insertion, deletion = current.deletion;
+        final double[] previousMatch = previous.match, previousDeletion = previous.deletion;
+        final double[] previousShiftedMatch = previous.shiftedMatch, previousShiftedInsertion = previous.shiftedInsertion;
+        final double[] secondPreviousShiftedMatch = secondPrevious.shiftedMatch, secondPreviousShiftedInsertion = secondPrevious.shiftedInsertion, secondPreviousShiftedDeletion = secondPrevious.shiftedDeletion;
+        final double[] cellPriors = diagonalPriors;
+        final double[] mm = matchToMatchProb, im = indelToMatchProb, mi = matchToInsertionProb, ii = insertionToInsertionProb, md = matchToDeletionProb, dd = deletionToDeletionProb;
+        // one loop per matrix: HotSpot does not vectorize the loop as a whole
+        for ( int i = start; i <= end; i++ ) {
+            match[i] = cellPriors[i] * ( secondPreviousShiftedMatch[i] * mm[i] +
+                    secondPreviousShiftedInsertion[i] * im[i] +
+                    secondPreviousShiftedDeletion[i] * im[i] );
+        }
+        for ( int i = start; i <= end; i++ ) {
+            insertion[i] = previousShiftedMatch[i] * mi[i] + previousShiftedInsertion[i] * ii[i];
+        }
+        for ( int i = start; i <= end; i++ ) {
+            deletion[i] = previousMatch[i] * md[i] + previousDeletion[i] * dd[i];
+        }
+    }
+
+    /**
+     * Make the current anti-diagonal the previous one, and the previous one the one before, reusing the arrays of the
+     * oldest anti-diagonal for the new one.
+     */
+    private void rotateAntiDiagonals() {
+        final AntiDiagonal oldest = secondPrevious;
+        secondPrevious = previous;
+        previous = current;
+        current = oldest;
+    }
+
+    /**
+     * Fill the per-read arrays with the read bases, the priors for a matching and a mismatching base, and the
+     * transition probabilities at every read position.
+     */
+    private void initializeReadValues(final byte[] readBases, final byte[] readQuals, final byte[] insertionGOP, final byte[] deletionGOP, final byte[] overallGCP) {
+        final double tristateCorrection = doNotUseTristateCorrection ? 1.0 : LoglessPairHMM.TRISTATE_CORRECTION;
+        for ( int i = 0; i < readBases.length; i++ ) {
+            final int position = i + 1;
+            paddedReadBases[position] = readBases[i];
+            matchPrior[position] = QualityUtils.qualToProb(readQuals[i]);
+            mismatchPrior[position] = QualityUtils.qualToErrorProb(readQuals[i]) / tristateCorrection;
+
+            PairHMMModel.qualToTransProbs(transitionScratch, insertionGOP[i], deletionGOP[i], overallGCP[i]);
+            matchToMatchProb[position] = transitionScratch[matchToMatch];
+            indelToMatchProb[position] = transitionScratch[indelToMatch];
+            matchToInsertionProb[position] = transitionScratch[matchToInsertion];
+            insertionToInsertionProb[position] = transitionScratch[insertionToInsertion];
+            matchToDeletionProb[position] = transitionScratch[matchToDeletion];
+            deletionToDeletionProb[position] = transitionScratch[deletionToDeletion];
+        }
+    }
+}
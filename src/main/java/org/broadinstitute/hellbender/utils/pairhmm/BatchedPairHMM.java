@@ -0,0 +1,370 @@
+package org.broadinstitute.hellbender.utils.pairhmm;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
+import org.broadinstitute.hellbender.utils.genotyper.ReadLikelihoods;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Front end that computes all the read x haplotype likelihoods of a {@link ReadLikelihoods} (or of one of its sample
+ * matrices) in a batch, on a pool of threads shared by all the batches.
+ *
+ * The reads of every sample are split into work units of at most {@code readsPerWorkUnit} reads, each of which is
+ * evaluated against all the haplotypes by one of the pool threads with its own {@link PairHMM}, since PairHMMs are not
+ * thread-safe. Work units keep all the haplotypes of a read together, so implementations that cache per-read values
+ * across haplotypes (like {@link LoglessPairHMM}) still do so, and the likelihoods are the same as those computed by a
+ * single PairHMM on the calling thread. The results of each work unit are written to the likelihood matrices by the
+ * calling thread once all of them are done, so the matrices are never modified concurrently.
+ *
+ * With a single thread, the work units are evaluated on the calling thread, without a pool.
+ *
+ * Profiling counters (time spent computing batches, number of read x haplotype cells) are thread-safe and can be read
+ * at any time. This class is thread-safe: several threads may submit batches at the same time.
+ */
+public final class BatchedPairHMM implements Closeable {
+    private static final Logger logger = LogManager.getLogger(BatchedPairHMM.class);
+
+    public static final int DEFAULT_READS_PER_WORK_UNIT = 16;
+
+    private final Supplier<PairHMM> hmmFactory;
+    private final int numThreads;
+    private final int readsPerWorkUnit;
+    private final ExecutorService pool;
+
+    // one PairHMM per thread that has evaluated work units, and all of them so that they can be closed
+    private final ThreadLocal<Worker> workers = ThreadLocal.withInitial(this::makeWorker);
+    private final Collection<PairHMM> allHmms = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong nextBatchId = new AtomicLong();
+    private final LongAdder computeTimeNanos = new LongAdder();
+    private final LongAdder numberOfCellsComputed = new LongAdder();
+
+    /**
+     * @param implementation PairHMM implementation to use on each thread
+     * @param numThreads number of threads evaluating the work units, must be at least 1
+     */
+    public BatchedPairHMM(final PairHMM.Implementation implementation, final int numThreads) {
+        this(Utils.nonNull(implementation)::makeNewHMM, numThreads, DEFAULT_READS_PER_WORK_UNIT);
+    }
+
+    /**
+     * @param hmmFactory makes a new PairHMM for each thread evaluating work units
+     * @param numThreads number of threads evaluating the work units, must be at least 1
+     * @param readsPerWorkUnit maximum number of reads of a work unit, must be at least 1
+     */
+    public BatchedPairHMM(final Supplier<PairHMM> hmmFactory, final int numThreads, final int readsPerWorkUnit) {
+        this.hmmFactory = Utils.nonNull(hmmFactory);
+        Utils.validateArg(numThreads >= 1, "numThreads must be at least 1");
+        Utils.validateArg(readsPerWorkUnit >= 1, "readsPerWorkUnit must be at least 1");
+        this.numThreads = numThreads;
+        this.readsPerWorkUnit = readsPerWorkUnit;
+        this.pool = numThreads == 1 ? null : Executors.newFixedThreadPool(numThreads, new DaemonThreadFactory());
+    }
+
+    /**
+     * Compute the log10 likelihoods of every read of every sample given every haplotype.
+     *
+     * @param likelihoods destination of the likelihoods, whose alleles are the haplotypes and whose reads are the reads to evaluate
+     * @param gcp gap continuation penalties of every read
+     */
+    public void computeLog10Likelihoods(final ReadLikelihoods<Haplotype> likelihoods, final Map<GATKRead, byte[]> gcp) {
+        Utils.nonNull(likelihoods);
+        final List<LikelihoodMatrix<Haplotype>> matrices = new ArrayList<>(likelihoods.numberOfSamples());
+        final List<List<GATKRead>> reads = new ArrayList<>(likelihoods.numberOfSamples());
+        for ( int s = 0; s < likelihoods.numberOfSamples(); s++ ) {
+            matrices.add(likelihoods.sampleMatrix(s));
+            reads.add(likelihoods.sampleReads(s));
+        }
+        computeBatch(likelihoods.alleles(), matrices, reads, gcp);
+    }
+
+    /**
+     * Compute the log10 likelihoods of the given reads given every haplotype, like {@link PairHMM#computeLog10Likelihoods}.
+     *
+     * @param logLikelihoods destination of the likelihoods, where position [a][r] is reserved for the log likelihood of
+     *                       {@code processedReads[r]} conditional to {@code alleles[a]}
+     * @param processedReads reads to evaluate instead of the ones present in the destination matrix
+     * @param gcp gap continuation penalties of every read
+     */
+    public void computeLog10Likelihoods(final LikelihoodMatrix<Haplotype> logLikelihoods, final List<GATKRead> processedReads,
+                                        final Map<GATKRead, byte[]> gcp) {
+        Utils.nonNull(logLikelihoods);
+        Utils.nonNull(processedReads);
+        computeBatch(logLikelihoods.alleles(), Collections.singletonList(logLikelihoods), Collections.singletonList(processedReads), gcp);
+    }
+
+    private void computeBatch(final List<Haplotype> haplotypes, final List<LikelihoodMatrix<Haplotype>> matrices,
+                              final List<List<GATKRead>> readsByMatrix, final Map<GATKRead, byte[]> gcp) {
+        Utils.nonNull(gcp);
+        if ( haplotypes.isEmpty() ) {
+            return;
+        }
+        final long startTime = System.nanoTime();
+        final Batch batch = new Batch(nextBatchId.getAndIncrement(), haplotypes, readsByMatrix, gcp);
+
+        final List<WorkUnit> workUnits = new ArrayList<>();
+        for ( int m = 0; m < matrices.size(); m++ ) {
+            final int numberOfReads = readsByMatrix.get(m).size();
+            for ( int from = 0; from < numberOfReads; from += readsPerWorkUnit ) {
+                workUnits.add(new WorkUnit(batch, m, from, Math.min(from + readsPerWorkUnit, numberOfReads)));
+            }
+        }
+
+        if ( pool == null || workUnits.size() == 1 ) {
+            for ( final WorkUnit workUnit : workUnits ) {
+                workUnit.compute();
+            }
+        } else {
+            final List<Future<?>> futures = new ArrayList<>(workUnits.size());
+            for ( final WorkUnit workUnit : workUnits ) {
+                futures.add(pool.submit(workUnit::compute));
+            }
+            waitFor(futures);
+        }
+
+        long cells = 0;
+        for ( final WorkUnit workUnit : workUnits ) {
+            workUnit.copyResultsTo(matrices.get(workUnit.matrixIndex));
+            cells += (long) haplotypes.size() * (workUnit.toRead - workUnit.fromRead);
+        }
+        numberOfCellsComputed.add(cells);
+        computeTimeNanos.add(System.nanoTime() - startTime);
+    }
+
+    private static void waitFor(final List<Future<?>> futures) {
+        try {
+            for ( final Future<?> future : futures ) {
+                future.get();
+            }
+        } catch ( final InterruptedException e ) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while computing PairHMM likelihoods", e);
+        } catch ( final ExecutionException e ) {
+            futures.forEach(future -> future.cancel(true));
+            if ( e.getCause() instanceof RuntimeException ) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new GATKException("Problem computing PairHMM likelihoods", e.getCause());
+        }
+    }
+
+    /**
+     * @return the number of threads evaluating the work units
+     */
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    /**
+     * @return the total time spent computing batches, in nanoseconds, including waiting for the pool
+     */
+    public long getComputeTimeNanos() {
+        return computeTimeNanos.sum();
+    }
+
+    /**
+     * @return the total number of read x haplotype likelihoods computed
+     */
+    public long getNumberOfCellsComputed() {
+        return numberOfCellsComputed.sum();
+    }
+
+    /**
+     * Stop the pool threads and close the PairHMM of every thread.
+     */
+    @Override
+    public void close() {
+        if ( pool != null ) {
+            pool.shutdownNow();
+        }
+        allHmms.forEach(PairHMM::close);
+        logger.info(String.format("Total compute time in BatchedPairHMM with %d thread(s) : %.2f s for %d read x haplotype likelihoods",
+                numThreads, getComputeTimeNanos() * 1e-9, getNumberOfCellsComputed()));
+    }
+
+    private Worker makeWorker() {
+        final PairHMM hmm = hmmFactory.get();
+        allHmms.add(hmm);
+        return new Worker(hmm);
+    }
+
+    /**
+     * PairHMM of a thread, and the last batch it was initialized for
+     */
+    private static final class Worker {
+        private final PairHMM hmm;
+        private long batchId = -1;
+
+        private Worker(final PairHMM hmm) {
+            this.hmm = hmm;
+        }
+    }
+
+    /**
+     * Everything the work units of one call share
+     */
+    private static final class Batch {
+        private final long id;
+        private final List<Haplotype> haplotypes;
+        private final Map<String, List<GATKRead>> readsByName;
+        private final Map<GATKRead, byte[]> gcp;
+        private final int readMaxLength;
+        private final int haplotypeMaxLength;
+
+        private Batch(final long id, final List<Haplotype> haplotypes, final List<List<GATKRead>> readsByMatrix, final Map<GATKRead, byte[]> gcp) {
+            this.id = id;
+            this.haplotypes = haplotypes;
+            this.gcp = gcp;
+            // the native implementations expect reads keyed by sample; the keys themselves are not used
+            this.readsByName = new LinkedHashMap<>();
+            int maxReadLength = 0;
+            for ( int m = 0; m < readsByMatrix.size(); m++ ) {
+                readsByName.put(String.valueOf(m), readsByMatrix.get(m));
+                maxReadLength = Math.max(maxReadLength, PairHMM.findMaxReadLength(readsByMatrix.get(m)));
+            }
+            this.readMaxLength = maxReadLength;
+            this.haplotypeMaxLength = haplotypes.stream().mapToInt(Haplotype::length).max().orElse(0);
+        }
+    }
+
+    /**
+     * A range of reads of one matrix, to be evaluated against all the haplotypes, and the resulting likelihoods
+     */
+    private final class WorkUnit {
+        private final Batch batch;
+        private final int matrixIndex;
+        private final int fromRead;
+        private final int toRead;
+        private final double[][] values;
+
+        private WorkUnit(final Batch batch, final int matrixIndex, final int fromRead, final int toRead) {
+            this.batch = batch;
+            this.matrixIndex = matrixIndex;
+            this.fromRead = fromRead;
+            this.toRead = toRead;
+            this.values = new double[batch.haplotypes.size()][toRead - fromRead];
+        }
+
+        private void compute() {
+            final Worker worker = workers.get();
+            if ( worker.batchId != batch.id ) {
+                worker.hmm.initialize(batch.haplotypes, batch.readsByName, batch.readMaxLength, batch.haplotypeMaxLength);
+                worker.batchId = batch.id;
+            }
+            final List<GATKRead> reads = batch.readsByName.get(String.valueOf(matrixIndex)).subList(fromRead, toRead);
+            worker.hmm.computeLog10Likelihoods(new WorkUnitMatrix(batch.haplotypes, reads, values), reads, batch.gcp);
+        }
+
+        private void copyResultsTo(final LikelihoodMatrix<Haplotype> matrix) {
+            for ( int a = 0; a < values.length; a++ ) {
+                for ( int r = 0; r < values[a].length; r++ ) {
+                    matrix.set(a, fromRead + r, values[a][r]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Write-only likelihood matrix over the reads of a work unit, backed by the work unit's results
+     */
+    private static final class WorkUnitMatrix implements LikelihoodMatrix<Haplotype> {
+        private final List<Haplotype> haplotypes;
+        private final List<GATKRead> reads;
+        private final double[][] values;
+
+        private WorkUnitMatrix(final List<Haplotype> haplotypes, final List<GATKRead> reads, final double[][] values) {
+            this.haplotypes = haplotypes;
+            this.reads = reads;
+            this.values = values;
+        }
+
+        @Override
+        public List<GATKRead> reads() {
+            return reads;
+        }
+
+        @Override
+        public List<Haplotype> alleles() {
+            return haplotypes;
+        }
+
+        @Override
+        public void set(final int alleleIndex, final int readIndex, final double value) {
+            values[alleleIndex][readIndex] = value;
+        }
+
+        @Override
+        public double get(final int alleleIndex, final int readIndex) {
+            return values[alleleIndex][readIndex];
+        }
+
+        @Override
+        public int indexOfAllele(final Haplotype allele) {
+            return haplotypes.indexOf(allele);
+        }
+
+        @Override
+        public int indexOfRead(final GATKRead read) {
+            return reads.indexOf(read);
+        }
+
+        @Override
+        public int numberOfAlleles() {
+            return haplotypes.size();
+        }
+
+        @Override
+        public int numberOfReads() {
+            return reads.size();
+        }
+
+        @Override
+        public Haplotype getAllele(final int alleleIndex) {
+            return haplotypes.get(alleleIndex);
+        }
+
+        @Override
+        public GATKRead getRead(final int readIndex) {
+            return reads.get(readIndex);
+        }
+
+        @Override
+        public void copyAlleleLikelihoods(final int alleleIndex, final double[] dest, final int offset) {
+            System.arraycopy(values[alleleIndex], 0, dest, offset, values[alleleIndex].length);
+        }
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "BatchedPairHMM-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
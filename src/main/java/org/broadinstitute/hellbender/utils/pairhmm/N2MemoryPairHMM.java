@@ -35,6 +35,14 @@ abstract class N2MemoryPairHMM extends PairHMM {
         prior = new double[paddedMaxReadLength][paddedMaxHaplotypeLength];
     }
 
+    /**
+     * The full matrices are kept between haplotypes, so the columns shared with the previous haplotype are not recomputed.
+     */
+    @Override
+    protected boolean reusesHaplotypePrefixes() {
+        return true;
+    }
+
     /**
      * Print out the core hmm matrices for debugging
      */
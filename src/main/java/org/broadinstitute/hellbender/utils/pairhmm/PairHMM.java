@@ -14,9 +14,12 @@ import org.broadinstitute.hellbender.utils.read.ReadUtils;
 
 import java.io.Closeable;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 /**
  * Class for performing the pair HMM for local alignment. Figure 4.3 in Durbin 1998 book.
@@ -50,6 +53,12 @@ public abstract class PairHMM implements Closeable{
             logger.info("Using the non-hardware-accelerated Java LOGLESS_CACHING PairHMM implementation");
             return hmm;
         }),
+        /* Pure Java version of LOGLESS_CACHING that computes the matrices by anti-diagonals, so that the JIT can vectorize its inner loop */
+        ANTIDIAGONAL_LOGLESS(() -> {
+            final AntiDiagonalLoglessPairHMM hmm = new AntiDiagonalLoglessPairHMM();
+            logger.info("Using the non-hardware-accelerated Java ANTIDIAGONAL_LOGLESS PairHMM implementation");
+            return hmm;
+        }),
         /* Optimized AVX implementation of LOGLESS_CACHING called through JNI. Throws if AVX is not available */
         AVX_LOGLESS_CACHING(() -> {
             // Constructor will throw a UserException if AVX is not available
@@ -58,7 +67,7 @@ public abstract class PairHMM implements Closeable{
             logger.info("Using the AVX-accelerated native PairHMM implementation");
             return hmm;
         }),
-        /* Uses the fastest available PairHMM implementation (AVX if AVX is available, otherwise LOGLESS_CACHING */
+        /* Uses the fastest available PairHMM implementation (AVX if AVX is available, otherwise ANTIDIAGONAL_LOGLESS */
         FASTEST_AVAILABLE(() -> {
             try {
                 // TODO: connect PairHMMNativeArguments
@@ -68,8 +77,8 @@ public abstract class PairHMM implements Closeable{
             }
             catch ( UserException.HardwareFeatureException e ) {
                 logger.warn("***WARNING: Machine does not have the AVX instruction set support needed for the accelerated AVX PairHmm. " +
-                            "Falling back to the MUCH slower LOGLESS_CACHING implementation!");
-                return new LoglessPairHMM();
+                            "Falling back to the slower Java ANTIDIAGONAL_LOGLESS implementation!");
+                return new AntiDiagonalLoglessPairHMM();
             }
         });
 
@@ -96,12 +105,17 @@ public abstract class PairHMM implements Closeable{
     //debug array
     protected double[] mLogLikelihoodArray;
 
-    //profiling information
+    //profiling information, shared by all the PairHMMs, which may be running on different threads
     protected static Boolean doProfiling = true;
-    protected static long pairHMMComputeTime = 0;
+    protected static final LongAdder pairHMMComputeTime = new LongAdder();
     protected long threadLocalPairHMMComputeTimeDiff = 0;
     protected long startTime = 0;
 
+    // whether computeLog10Likelihoods evaluates the haplotypes in prefix order, reusing the matrix columns they share
+    private boolean reuseHaplotypePrefixes = true;
+    private long numberOfMatrixCellsComputed = 0;
+    private long numberOfMatrixCellsSkipped = 0;
+
     /**
      * Initialize this PairHMM, making it suitable to run against a read and haplotype with given lengths
      *
@@ -191,8 +205,8 @@ public abstract class PairHMM implements Closeable{
         final int readCount = processedReads.size();
         final List<Haplotype> alleles = logLikelihoods.alleles();
         final int alleleCount = alleles.size();
-        mLogLikelihoodArray = new double[readCount * alleleCount];
-        int idx = 0;
+        mLogLikelihoodArray = reuseLogLikelihoodArray(readCount * alleleCount);
+        final int[] alleleOrder = reuseHaplotypePrefixes && reusesHaplotypePrefixes() ? haplotypePrefixOrder(alleles) : identityOrder(alleleCount);
         int readIndex = 0;
         for(final GATKRead read : processedReads){
             final byte[] readBases = read.getBases();
@@ -201,25 +215,92 @@ public abstract class PairHMM implements Closeable{
             final byte[] readDelQuals = ReadUtils.getBaseDeletionQualities(read);
             final byte[] overallGCP = gcp.get(read);
 
-            // peek at the next haplotype in the list (necessary to get nextHaplotypeBases, which is required for caching in the array implementation)
-            final boolean isFirstHaplotype = true;
-            for (int a = 0; a < alleleCount; a++) {
-                final Allele allele = alleles.get(a);
-                final byte[] alleleBases = allele.getBases();
-                final byte[] nextAlleleBases = a == alleles.size() - 1 ? null : alleles.get(a + 1).getBases();
+            // peek at the next haplotype in the order (necessary to get nextHaplotypeBases, which is what the matrix reuse is based on)
+            for (int k = 0; k < alleleCount; k++) {
+                final int a = alleleOrder[k];
+                final byte[] alleleBases = alleles.get(a).getBases();
+                final byte[] nextAlleleBases = k == alleleCount - 1 ? null : alleles.get(alleleOrder[k + 1]).getBases();
+                // the read values only need to be cached for the first haplotype, and only then can the matrices be reused
+                final boolean recacheReadValues = k == 0 || !reuseHaplotypePrefixes;
                 final double lk = computeReadLikelihoodGivenHaplotypeLog10(alleleBases,
-                        readBases, readQuals, readInsQuals, readDelQuals, overallGCP, isFirstHaplotype, nextAlleleBases);
+                        readBases, readQuals, readInsQuals, readDelQuals, overallGCP, recacheReadValues, nextAlleleBases);
                 logLikelihoods.set(a, readIndex, lk);
-                mLogLikelihoodArray[idx++] = lk;
+                mLogLikelihoodArray[readIndex * alleleCount + a] = lk;
             }
             readIndex++;
         }
         if(doProfiling) {
             threadLocalPairHMMComputeTimeDiff = (System.nanoTime() - startTime);
-            {
-                pairHMMComputeTime += threadLocalPairHMMComputeTimeDiff;
+            pairHMMComputeTime.add(threadLocalPairHMMComputeTimeDiff);
+        }
+    }
+
+    /**
+     * The order to evaluate haplotypes in so that consecutive haplotypes share as long a prefix as possible, that is the
+     * order of a depth-first traversal of the trie of their bases: sorted by length, since only haplotypes of the same
+     * length can share matrix columns, and then lexicographically by bases.
+     *
+     * @return the indices of the alleles, in prefix order
+     */
+    @VisibleForTesting
+    static int[] haplotypePrefixOrder(final List<? extends Allele> alleles) {
+        return IntStream.range(0, alleles.size()).boxed()
+                .sorted(Comparator.comparingInt((Integer a) -> alleles.get(a).length())
+                        .thenComparing(a -> alleles.get(a).getBases(), PairHMM::compareBases))
+                .mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int compareBases(final byte[] bases1, final byte[] bases2) {
+        final int length = Math.min(bases1.length, bases2.length);
+        for ( int i = 0; i < length; i++ ) {
+            if ( bases1[i] != bases2[i] ) {
+                return Byte.compare(bases1[i], bases2[i]);
             }
         }
+        return Integer.compare(bases1.length, bases2.length);
+    }
+
+    private static int[] identityOrder(final int size) {
+        return IntStream.range(0, size).toArray();
+    }
+
+    /**
+     * Whether this implementation honors hapStartIndex, only recomputing the matrix columns after the prefix the haplotype
+     * shares with the previous one. Implementations that do not always compute the full matrices.
+     */
+    protected boolean reusesHaplotypePrefixes() {
+        return false;
+    }
+
+    /**
+     * Enable or disable (enabled by default) the evaluation of the haplotypes in prefix order in
+     * {@link #computeLog10Likelihoods}, which reuses the matrix columns a haplotype shares with the previous one in
+     * implementations that support it. The likelihoods are the same either way.
+     */
+    public void setReuseHaplotypePrefixes(final boolean reuseHaplotypePrefixes) {
+        this.reuseHaplotypePrefixes = reuseHaplotypePrefixes;
+    }
+
+    /**
+     * @return the number of read x haplotype matrix cells computed by this PairHMM
+     */
+    public long getNumberOfMatrixCellsComputed() {
+        return numberOfMatrixCellsComputed;
+    }
+
+    /**
+     * @return the number of read x haplotype matrix cells this PairHMM did not have to compute, because they were shared
+     * with the previous haplotype
+     */
+    public long getNumberOfMatrixCellsSkipped() {
+        return numberOfMatrixCellsSkipped;
+    }
+
+    /**
+     * @return the log likelihood array of the previous call if it has the requested size, otherwise a new array
+     */
+    protected double[] reuseLogLikelihoodArray(final int size) {
+        return mLogLikelihoodArray != null && mLogLikelihoodArray.length == size ? mLogLikelihoodArray : new double[size];
     }
 
     /**
@@ -275,6 +356,10 @@ public abstract class PairHMM implements Closeable{
         // Looking ahead is necessary for the ArrayLoglessPairHMM implementation
         final int nextHapStartIndex =  (nextHaplotypeBases == null || haplotypeBases.length != nextHaplotypeBases.length) ? 0 : findFirstPositionWhereHaplotypesDiffer(haplotypeBases, nextHaplotypeBases);
 
+        final long skippedCells = reusesHaplotypePrefixes() ? (long) readBases.length * hapStartIndex : 0;
+        numberOfMatrixCellsSkipped += skippedCells;
+        numberOfMatrixCellsComputed += (long) readBases.length * haplotypeBases.length - skippedCells;
+
         final double result = subComputeReadLikelihoodGivenHaplotypeLog10(haplotypeBases, readBases, readQuals, insertionGOP, deletionGOP, overallGCP, hapStartIndex, recacheReadValues, nextHapStartIndex);
 
         if ( result > 0.0) {
@@ -287,8 +372,8 @@ public abstract class PairHMM implements Closeable{
         previousHaplotypeBases = haplotypeBases;
 
         // For the next iteration, the hapStartIndex for the next haploytpe becomes the index for the current haplotype
-        // The array implementation has to look ahead to the next haplotype to store caching info. It cannot do this if nextHapStart is before hapStart
-        hapStartIndex = (nextHapStartIndex < hapStartIndex) ? 0: nextHapStartIndex;
+        // All the columns of the matrices are now those of the current haplotype, so the next one can reuse all the columns up to where they differ
+        hapStartIndex = nextHapStartIndex;
 
         return result;
     }
@@ -341,7 +426,12 @@ public abstract class PairHMM implements Closeable{
      */
     @Override
     public void close() {
-        if(doProfiling)
-            logger.info("Total compute time in PairHMM computeLogLikelihoods() : "+(pairHMMComputeTime*1e-9));
+        if(doProfiling) {
+            logger.info("Total compute time in PairHMM computeLogLikelihoods() : " + (pairHMMComputeTime.sum() * 1e-9));
+            if (numberOfMatrixCellsSkipped > 0) {
+                logger.info(String.format("PairHMM matrix cells computed: %d, skipped by reusing haplotype prefixes: %d",
+                        numberOfMatrixCellsComputed, numberOfMatrixCellsSkipped));
+            }
+        }
     }
 }
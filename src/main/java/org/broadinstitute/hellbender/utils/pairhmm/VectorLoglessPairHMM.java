@@ -93,7 +93,7 @@ public final class VectorLoglessPairHMM extends LoglessPairHMM {
             ++idx;
         }
 
-        mLogLikelihoodArray = new double[readListSize * numHaplotypes];      //to store results
+        mLogLikelihoodArray = reuseLogLikelihoodArray(readListSize * numHaplotypes);      //to store results
         if (doProfiling) {
             threadLocalSetupTimeDiff = (System.nanoTime() - startTime);
         }
@@ -117,7 +117,7 @@ public final class VectorLoglessPairHMM extends LoglessPairHMM {
         }
         if (doProfiling) {
             threadLocalPairHMMComputeTimeDiff = (System.nanoTime() - startTime);
-            pairHMMComputeTime += threadLocalPairHMMComputeTimeDiff;
+            pairHMMComputeTime.add(threadLocalPairHMMComputeTimeDiff);
             pairHMMSetupTime += threadLocalSetupTimeDiff;
         }
     }
@@ -0,0 +1,178 @@
+package org.broadinstitute.hellbender.utils.read;
+
+import htsjdk.samtools.BAMRecordCodec;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.samtools.util.TempStreamFactory;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.NoSuchElementException;
+
+/**
+ * A temporary local file that reads can be spilled to and then read back, in the order in which they were added.
+ *
+ * Reads are stored in BAM record encoding without BGZF compression or an index, and are compressed with Snappy when
+ * it is available (as for htsjdk's SortingCollection temporary files), which makes them much cheaper to write and
+ * decode than a BAM. The file is created in the temporary directory and deleted by {@link #close}.
+ *
+ * Usage: {@link #add} all the reads, then call {@link #iterator} (as many times as needed) to read them back.
+ * No reads may be added once an iterator has been created. Not thread-safe.
+ */
+public final class ReadSpillFile implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final SAMFileHeader header;
+    private final File file;
+    private final TempStreamFactory streamFactory = new TempStreamFactory();
+    private final BAMRecordCodec encoder;
+    private OutputStream outputStream;
+    private long numReads = 0;
+
+    /**
+     * Create an empty spill file in the temporary directory.
+     *
+     * @param header header of the reads to be added; reads read back from the file will have this header
+     */
+    public ReadSpillFile( final SAMFileHeader header ) {
+        this.header = Utils.nonNull(header);
+        this.file = IOUtils.createTempFile("spilledReads", ".tmp");
+        try {
+            this.outputStream = streamFactory.wrapTempOutputStream(new FileOutputStream(file), BUFFER_SIZE);
+        }
+        catch ( FileNotFoundException e ) {
+            throw new UserException.CouldNotCreateOutputFile(file, "Could not create temporary file for reads", e);
+        }
+        this.encoder = new BAMRecordCodec(header);
+        this.encoder.setOutputStream(outputStream, file.getAbsolutePath());
+    }
+
+    /**
+     * Append a read to the file. The read is encoded immediately, so it may be modified once this method returns.
+     *
+     * @param read read to add
+     * @throws IllegalStateException if the file has already been read from
+     */
+    public void add( final GATKRead read ) {
+        Utils.nonNull(read);
+        if ( outputStream == null ) {
+            throw new IllegalStateException("Cannot add reads to a spill file that has already been read from");
+        }
+        encoder.encode(read.convertToSAMRecord(header));
+        ++numReads;
+    }
+
+    /**
+     * @return the number of reads added to the file
+     */
+    public long size() {
+        return numReads;
+    }
+
+    /**
+     * @return the location of the spill file on disk
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Finish writing the file if necessary and start reading it back from the beginning. The caller must close
+     * the returned iterator.
+     *
+     * @return iterator over the reads in the file, in the order in which they were added
+     */
+    public CloseableIterator<GATKRead> iterator() {
+        finishWriting();
+        final InputStream inputStream;
+        try {
+            inputStream = streamFactory.wrapTempInputStream(new FileInputStream(file), BUFFER_SIZE);
+        }
+        catch ( FileNotFoundException e ) {
+            throw new UserException.CouldNotReadInputFile(file, e);
+        }
+        return new SpilledReadIterator(inputStream);
+    }
+
+    private void finishWriting() {
+        if ( outputStream == null ) {
+            return;
+        }
+        try {
+            outputStream.close();
+        }
+        catch ( IOException e ) {
+            throw new UserException.CouldNotCreateOutputFile(file, "Could not write temporary file for reads", e);
+        }
+        outputStream = null;
+    }
+
+    /**
+     * Deletes the file. Iterators that are still open can no longer be relied upon.
+     */
+    @Override
+    public void close() {
+        if ( outputStream != null ) {
+            try {
+                outputStream.close();
+            }
+            catch ( IOException e ) {
+                // we are about to delete the file anyway
+            }
+            outputStream = null;
+        }
+        if ( file.exists() && ! file.delete() ) {
+            throw new GATKException("Could not delete temporary file " + file.getAbsolutePath());
+        }
+    }
+
+    private final class SpilledReadIterator implements CloseableIterator<GATKRead> {
+        private final InputStream inputStream;
+        private final BAMRecordCodec decoder;
+        private SAMRecord nextRecord;
+
+        SpilledReadIterator( final InputStream inputStream ) {
+            this.inputStream = inputStream;
+            this.decoder = new BAMRecordCodec(header);
+            this.decoder.setInputStream(inputStream, file.getAbsolutePath());
+            this.nextRecord = decoder.decode();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextRecord != null;
+        }
+
+        @Override
+        public GATKRead next() {
+            if ( ! hasNext() ) {
+                throw new NoSuchElementException("next() called when !hasNext()");
+            }
+            final SAMRecord record = nextRecord;
+            nextRecord = decoder.decode();
+            return new SAMRecordToGATKReadAdapter(record);
+        }
+
+        @Override
+        public void close() {
+            nextRecord = null;
+            try {
+                inputStream.close();
+            }
+            catch ( IOException e ) {
+                throw new GATKException("Error closing temporary file " + file.getAbsolutePath(), e);
+            }
+        }
+    }
+}
@@ -22,7 +22,6 @@ import org.broadinstitute.hellbender.utils.read.AlignmentUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
 import org.broadinstitute.hellbender.utils.recalibration.covariates.Covariate;
-import org.broadinstitute.hellbender.utils.recalibration.covariates.CovariateKeyCache;
 import org.broadinstitute.hellbender.utils.recalibration.covariates.ReadCovariates;
 import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
 
@@ -33,7 +32,11 @@ public final class BaseRecalibrationEngine implements Serializable {
     private static final long serialVersionUID = 1L;
 
     protected static final Logger logger = LogManager.getLogger(BaseRecalibrationEngine.class);
-    private final CovariateKeyCache keyCache;
+
+    /**
+     * Covariate keys of the read being processed, reused for every read
+     */
+    private final ReadCovariates readCovariates;
 
     /*
      * Every call to EventType.values() (or any enum type) creates a new array instance but they are all equal (ie contain identical elements).
@@ -60,7 +63,16 @@ public final class BaseRecalibrationEngine implements Serializable {
 
     private RecalibrationArgumentCollection recalArgs;
 
-    private RecalibrationTables recalTables;
+    /**
+     * Observation and mismatch counts, accumulated in flat primitive arrays for speed and converted into
+     * RecalibrationTables on demand
+     */
+    private final FlatRecalibrationTables recalCounts;
+
+    /**
+     * The finalized recalibration tables, set by finalizeData()
+     */
+    private RecalibrationTables finalRecalTables;
 
     private SAMFileHeader readsHeader;
 
@@ -95,12 +107,20 @@ public final class BaseRecalibrationEngine implements Serializable {
         if ( numReadGroups < 1 ) {
             throw new UserException("Number of read groups must be >= 1, but is " + numReadGroups);
         }
-        recalTables = new RecalibrationTables(covariates, numReadGroups);
-        keyCache = new CovariateKeyCache();
+        recalCounts = new FlatRecalibrationTables(covariates, numReadGroups);
+        readCovariates = new ReadCovariates(covariates.size());
         cachedEventTypes = recalArgs.computeIndelBQSRTables ? EventType.values() : new EventType[]{EventType.BASE_SUBSTITUTION};
     }
 
     public void logCovariatesUsed() {
+        logCovariatesUsed(covariates);
+    }
+
+    /**
+     * Log the covariates of a covariate list, without having to create an engine.
+     */
+    public static void logCovariatesUsed(final StandardCovariateList covariates) {
+        Utils.nonNull(covariates);
         logger.info("The covariates being used here: ");
         for (final Covariate cov : covariates) { // list all the covariates being used
             logger.info('\t' + cov.getClass().getSimpleName());
@@ -133,20 +153,45 @@ public final class BaseRecalibrationEngine implements Serializable {
         final byte[] baqArray = (nErrors == 0 || !recalArgs.enableBAQ) ? flatBAQArray(read) : calculateBAQArray(read, refDS);
 
         if( baqArray != null ) { // some reads just can't be BAQ'ed
-            final ReadCovariates covariates = RecalUtils.computeCovariates(read, readsHeader, this.covariates, true, keyCache);
+            RecalUtils.computeCovariates(read, readsHeader, covariates, readCovariates, true);
             final boolean[] skip = calculateSkipArray(read, knownSites); // skip known sites of variation as well as low quality and non-regular bases
             final double[] snpErrors = calculateFractionalErrorArray(isSNP, baqArray);
             final double[] insertionErrors = calculateFractionalErrorArray(isInsertion, baqArray);
             final double[] deletionErrors = calculateFractionalErrorArray(isDeletion, baqArray);
 
             // aggregate all of the info into our info object, and update the data
-            final ReadRecalibrationInfo info = new ReadRecalibrationInfo(read, covariates, skip, snpErrors, insertionErrors, deletionErrors);
+            final ReadRecalibrationInfo info = new ReadRecalibrationInfo(read, readCovariates, skip, snpErrors, insertionErrors, deletionErrors);
             updateRecalTablesForRead(info);
         }
 
         numReadsProcessed++;
     }
 
+    /**
+     * Same as {@link #processRead(GATKRead, ReferenceDataSource, Iterable)}, but with the known sites taken from a
+     * preloaded mask instead of being queried for each read.
+     */
+    public void processRead( final GATKRead originalRead, final ReferenceDataSource refDS, final KnownSitesMask knownSitesMask ) {
+        processRead(originalRead, refDS, knownSitesMask.getKnownSiteRuns(originalRead));
+    }
+
+    /**
+     * Add the counts collected by another engine, for example one that processed a different subset of the reads
+     * on another thread, to the counts of this engine. Neither engine may have been finalized.
+     *
+     * @param other engine created with the same arguments and header as this one
+     * @return this engine
+     */
+    public BaseRecalibrationEngine combine( final BaseRecalibrationEngine other ) {
+        Utils.nonNull(other);
+        if ( finalized || other.finalized ) {
+            throw new IllegalStateException("Cannot combine engines once finalizeData() has been called");
+        }
+        recalCounts.combine(other.recalCounts);
+        numReadsProcessed += other.numReadsProcessed;
+        return this;
+    }
+
     /**
      * Finalize, if appropriate, all derived data in recalibrationTables.
      *
@@ -160,7 +205,8 @@ public final class BaseRecalibrationEngine implements Serializable {
             throw new IllegalStateException("FinalizeData() has already been called");
         }
 
-        finalizeRecalibrationTables(recalTables);
+        finalRecalTables = recalCounts.toRecalibrationTables();
+        finalizeRecalibrationTables(finalRecalTables);
         finalized = true;
     }
 
@@ -211,9 +257,22 @@ public final class BaseRecalibrationEngine implements Serializable {
 
     /**
      * Get a possibly not-final recalibration table, to deal with distributed execution.
+     *
+     * Before finalizeData() has been called, this returns a newly allocated snapshot of the counts collected so far
+     * (without a read group table), which is not updated by later calls to processRead().
      */
     public RecalibrationTables getRecalibrationTables() {
-        return recalTables;
+        return finalized ? finalRecalTables : recalCounts.toRecalibrationTables();
+    }
+
+    /**
+     * Get the observation and mismatch counts collected so far, which are updated by later calls to processRead().
+     * These are much cheaper to combine and to serialize than {@link #getRecalibrationTables()}, for example to merge
+     * the counts of many Spark partitions; they can be turned into recalibration tables with
+     * {@link FlatRecalibrationTables#toRecalibrationTables()} followed by {@link #finalizeRecalibrationTables}.
+     */
+    public FlatRecalibrationTables getRecalibrationCounts() {
+        return recalCounts;
     }
 
     /**
@@ -229,7 +288,7 @@ public final class BaseRecalibrationEngine implements Serializable {
         if ( ! finalized ) {
             throw new IllegalStateException("Cannot get final recalibration tables until finalizeData() has been called");
         }
-        return recalTables;
+        return finalRecalTables;
     }
 
     public StandardCovariateList getCovariates() {
@@ -251,31 +310,16 @@ public final class BaseRecalibrationEngine implements Serializable {
 
         final GATKRead read = recalInfo.getRead();
         final ReadCovariates readCovariates = recalInfo.getCovariatesValues();
-        final NestedIntegerArray<RecalDatum> qualityScoreTable = recalTables.getQualityScoreTable();
 
-        final int nCovariates = covariates.size();
-        final int nSpecialCovariates = covariates.numberOfSpecialCovariates();
+        // Note: the reported quality of each observation is its quality score key (keys[1]), which is how
+        // FlatRecalibrationTables recovers it when the counts are converted into RecalDatums
         final int readLength = read.getLength();
         for( int offset = 0; offset < readLength; offset++ ) {
             if( ! recalInfo.skip(offset) ) {
                 for (int idx = 0; idx < cachedEventTypes.length; idx++) { //Note: we loop explicitly over cached values for speed
                     final EventType eventType = cachedEventTypes[idx];
                     final int[] keys = readCovariates.getKeySet(offset, eventType);
-                    final int eventIndex = eventType.ordinal();
-                    final byte qual = recalInfo.getQual(eventType, offset);
-                    final double isError = recalInfo.getErrorFraction(eventType, offset);
-
-                    final int key0 = keys[0];
-                    final int key1 = keys[1];
-
-                    RecalUtils.incrementDatumOrPutIfNecessary3keys(qualityScoreTable, qual, isError, key0, key1, eventIndex);
-
-                    for (int i = nSpecialCovariates; i < nCovariates; i++) {
-                        final int keyi = keys[i];
-                        if (keyi >= 0) {
-                            RecalUtils.incrementDatumOrPutIfNecessary4keys(recalTables.getTable(i), qual, isError, key0, key1, keyi, eventIndex);
-                        }
-                    }
+                    recalCounts.increment(keys, eventType.ordinal(), recalInfo.getErrorFraction(eventType, offset));
                 }
             }
         }
@@ -0,0 +1,199 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.QualityUtils;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.collections.NestedIntegerArray;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
+import org.broadinstitute.hellbender.utils.report.GATKReportTable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary encoding of a recalibration report, an alternative to the GATKReport text format that is much faster
+ * to read and write. It holds the same tables as the text format: the argument table, the quantization table, and
+ * every RecalDatum of the recalibration tables, keyed by covariate keys rather than by formatted covariate values.
+ *
+ * It does not hold the same values. Mismatch counts and reported qualities are stored at full precision, while the
+ * text format rounds the mismatch counts to {@link RecalUtils#NUMBER_ERRORS_DECIMAL_PLACES} decimal places, and the
+ * reported qualities to {@link RecalUtils#EMPIRICAL_Q_REPORTED_DECIMAL_PLACES} decimal places in the read group table
+ * and to the whole reported quality in the other tables. So the recalibrated qualities computed from a binary report
+ * can differ slightly from those computed from the text report of the same data.
+ *
+ * Binary reports are recognized by their first four bytes, so tools reading reports with
+ * {@link RecalibrationReport#fromFile} accept both formats.
+ */
+public final class BinaryRecalibrationReport {
+    private static final int MAGIC = 0x42515231; // "BQR1"
+
+    private static final String ARGUMENT_COLUMN_NAME = "Argument";
+    private static final String ARGUMENT_TABLE_DESCRIPTION = "Recalibration argument collection values used in this run";
+
+    private BinaryRecalibrationReport() {}
+
+    /**
+     * @return true if the file starts like a binary recalibration report
+     */
+    public static boolean isBinaryReport(final File file) {
+        Utils.nonNull(file);
+        try ( final DataInputStream in = new DataInputStream(new FileInputStream(file)) ) {
+            return in.readInt() == MAGIC;
+        } catch ( final IOException e ) {
+            // too short to be a binary report, or not readable at all, in which case the text parser will complain
+            return false;
+        }
+    }
+
+    /**
+     * Write a binary recalibration report to a file.
+     */
+    public static void write(final File file, final GATKReportTable argumentTable, final QuantizationInfo quantizationInfo,
+                             final RecalibrationTables recalibrationTables, final StandardCovariateList covariates) {
+        Utils.nonNull(file);
+        try ( final OutputStream out = new FileOutputStream(file) ) {
+            write(out, argumentTable, quantizationInfo, recalibrationTables, covariates);
+        } catch ( final IOException e ) {
+            throw new UserException.CouldNotCreateOutputFile(file, e);
+        }
+    }
+
+    /**
+     * Write a binary recalibration report to a stream, which is left open.
+     */
+    public static void write(final OutputStream stream, final GATKReportTable argumentTable, final QuantizationInfo quantizationInfo,
+                             final RecalibrationTables recalibrationTables, final StandardCovariateList covariates) throws IOException {
+        Utils.nonNull(stream);
+        Utils.nonNull(argumentTable);
+        Utils.nonNull(quantizationInfo);
+        Utils.nonNull(recalibrationTables);
+        Utils.nonNull(covariates);
+
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+        out.writeInt(MAGIC);
+
+        out.writeInt(argumentTable.getNumRows());
+        for ( int row = 0; row < argumentTable.getNumRows(); row++ ) {
+            out.writeUTF(String.valueOf(argumentTable.get(row, ARGUMENT_COLUMN_NAME)));
+            out.writeUTF(String.valueOf(argumentTable.get(row, RecalUtils.ARGUMENT_VALUE_COLUMN_NAME)));
+        }
+
+        final List<Byte> quantizedQuals = quantizationInfo.getQuantizedQuals();
+        final List<Long> empiricalQualCounts = quantizationInfo.getEmpiricalQualCounts();
+        out.writeInt(quantizedQuals.size());
+        for ( int qual = 0; qual < quantizedQuals.size(); qual++ ) {
+            out.writeByte(quantizedQuals.get(qual));
+            out.writeLong(empiricalQualCounts.get(qual));
+        }
+
+        // the read groups, in the order of their keys
+        final int numReadGroups = covariates.getReadGroupCovariate().maximumKeyValue() + 1;
+        out.writeInt(numReadGroups);
+        for ( int key = 0; key < numReadGroups; key++ ) {
+            out.writeUTF(covariates.getReadGroupCovariate().formatKey(key));
+        }
+
+        out.writeInt(recalibrationTables.numTables());
+        for ( final NestedIntegerArray<RecalDatum> table : recalibrationTables ) {
+            final List<NestedIntegerArray.Leaf<RecalDatum>> leaves = table.getAllLeaves();
+            out.writeInt(table.getDimensions().length);
+            out.writeInt(leaves.size());
+            for ( final NestedIntegerArray.Leaf<RecalDatum> leaf : leaves ) {
+                for ( final int key : leaf.keys ) {
+                    out.writeInt(key);
+                }
+                out.writeLong(leaf.value.getNumObservations());
+                out.writeDouble(leaf.value.getScaledNumMismatches());
+                out.writeDouble(leaf.value.getEstimatedQReported());
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Read a binary recalibration report from a file.
+     */
+    public static RecalibrationReport read(final File file) {
+        Utils.nonNull(file);
+        try ( final InputStream in = new FileInputStream(file) ) {
+            return read(in);
+        } catch ( final IOException e ) {
+            throw new UserException.CouldNotReadInputFile(file, e);
+        }
+    }
+
+    /**
+     * Read a binary recalibration report from a stream, which is left open.
+     */
+    public static RecalibrationReport read(final InputStream stream) throws IOException {
+        Utils.nonNull(stream);
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        if ( in.readInt() != MAGIC ) {
+            throw new UserException.MalformedFile("not a binary recalibration report");
+        }
+
+        final GATKReportTable argumentTable = new GATKReportTable(RecalUtils.ARGUMENT_REPORT_TABLE_TITLE, ARGUMENT_TABLE_DESCRIPTION, 2, GATKReportTable.Sorting.SORT_BY_COLUMN);
+        argumentTable.addColumn(ARGUMENT_COLUMN_NAME, "%s");
+        argumentTable.addColumn(RecalUtils.ARGUMENT_VALUE_COLUMN_NAME, "");
+        final int numArguments = in.readInt();
+        for ( int i = 0; i < numArguments; i++ ) {
+            final String argument = in.readUTF();
+            final String value = in.readUTF();
+            argumentTable.addRowID(argument, true);
+            argumentTable.set(argument, RecalUtils.ARGUMENT_VALUE_COLUMN_NAME, value);
+        }
+
+        final int numQuals = in.readInt();
+        if ( numQuals != QualityUtils.MAX_SAM_QUAL_SCORE + 1 ) {
+            throw new UserException.MalformedFile("binary recalibration report with a quantization table of unexpected size " + numQuals);
+        }
+        final List<Byte> quantizedQuals = new ArrayList<>(numQuals);
+        final List<Long> empiricalQualCounts = new ArrayList<>(numQuals);
+        for ( int qual = 0; qual < numQuals; qual++ ) {
+            quantizedQuals.add(in.readByte());
+            empiricalQualCounts.add(in.readLong());
+        }
+
+        final int numReadGroups = in.readInt();
+        final List<String> readGroups = new ArrayList<>(numReadGroups);
+        for ( int i = 0; i < numReadGroups; i++ ) {
+            readGroups.add(in.readUTF());
+        }
+
+        final RecalibrationReport report = new RecalibrationReport(argumentTable, new QuantizationInfo(quantizedQuals, empiricalQualCounts), readGroups);
+        final RecalibrationTables recalibrationTables = report.getRecalibrationTables();
+        final int numTables = in.readInt();
+        if ( numTables != recalibrationTables.numTables() ) {
+            throw new UserException.MalformedFile("binary recalibration report with " + numTables + " tables, but its arguments call for " + recalibrationTables.numTables());
+        }
+        for ( int tableIndex = 0; tableIndex < numTables; tableIndex++ ) {
+            final NestedIntegerArray<RecalDatum> table = recalibrationTables.getTable(tableIndex);
+            final int[] keys = new int[in.readInt()];
+            if ( keys.length != table.getDimensions().length ) {
+                throw new UserException.MalformedFile("binary recalibration report with a table of unexpected dimensions");
+            }
+            final int numLeaves = in.readInt();
+            for ( int i = 0; i < numLeaves; i++ ) {
+                for ( int k = 0; k < keys.length; k++ ) {
+                    keys[k] = in.readInt();
+                }
+                final long numObservations = in.readLong();
+                final double scaledNumMismatches = in.readDouble();
+                final RecalDatum datum = RecalDatum.fromScaledCounts(numObservations, scaledNumMismatches, (byte) 1);
+                datum.setEstimatedQReported(in.readDouble());
+                table.put(datum, keys);
+            }
+        }
+        return report;
+    }
+}
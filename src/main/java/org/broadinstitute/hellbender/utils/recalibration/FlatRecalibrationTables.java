@@ -0,0 +1,377 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import com.esotericsoftware.kryo.DefaultSerializer;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.JavaSerializer;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.collections.NestedIntegerArray;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Primitive-array-backed accumulator for the observation and mismatch counts of the quality score table and the
+ * additional covariate tables of a {@link RecalibrationTables}.
+ *
+ * The counts of each table are stored in rows, one row for each (read group, quality score, event type), which holds
+ * a cell for every key of the covariate (a single cell for the quality score table). The counts of a row are stored
+ * in parallel {@code long[]} (observations) and {@code double[]} (mismatches) arrays, so incrementing a cell touches
+ * two array elements instead of walking a tree of Object[] down to a boxed {@link RecalDatum}. Rows are allocated the
+ * first time one of their cells is counted: the quality scores and event types that occur in a read group are few
+ * (indels, for instance, are usually all reported at a single quality), so a read group takes up memory only for the
+ * rows it uses (about 16 KB per row of the context and cycle tables with the default arguments) rather than for the
+ * full product of quality scores, covariate keys and event types (about 9 MB).
+ *
+ * The read group table is not stored: it is a marginal of the quality score table, and is computed by
+ * {@link BaseRecalibrationEngine#finalizeRecalibrationTables} once the counts have been converted with
+ * {@link #toRecalibrationTables}. The reported quality of every cell is its quality score key, so it is not stored
+ * either. Mismatch counts are accumulated with the same internal multiplier as {@link RecalDatum}, so that the
+ * converted tables are identical to the ones obtained by incrementing RecalDatums directly.
+ *
+ * When serialized with Kryo (for example to combine the tables of many Spark partitions with treeAggregate), only the
+ * non-empty cells of the allocated rows are written, as (key, observations, scaled mismatches) triples with
+ * variable-length integers, so the size on the wire is proportional to the number of cells that have been observed.
+ *
+ * Not thread-safe.
+ */
+@DefaultSerializer(FlatRecalibrationTables.Serializer.class)
+public final class FlatRecalibrationTables implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final StandardCovariateList covariates;
+    private final int numReadGroups;
+    private final int qualDimension;
+    private final int eventDimension = EventType.values().length;
+
+    private final int qualityScoreTableIndex;
+
+    // indexed like the tables of RecalibrationTables (covariate index); the entries for the read group table are unused
+    private final int[] covariateDimensions;
+    private final int rowsPerTable;
+    private final int rowsPerReadGroup;
+
+    // indexed by read group, row and covariate key; the rows of a read group, and each row, are allocated on first use
+    private final long[][][] observations;
+    private final double[][][] mismatches;
+
+    public FlatRecalibrationTables(final StandardCovariateList covariates) {
+        this(covariates, covariates.getReadGroupCovariate().maximumKeyValue() + 1);
+    }
+
+    public FlatRecalibrationTables(final StandardCovariateList covariates, final int numReadGroups) {
+        this.covariates = Utils.nonNull(covariates);
+        Utils.validateArg(numReadGroups > 0, "numReadGroups must be > 0");
+        this.numReadGroups = numReadGroups;
+        this.qualDimension = covariates.getQualityScoreCovariate().maximumKeyValue() + 1;
+
+        final int numTables = covariates.size();
+        this.qualityScoreTableIndex = covariates.indexByClass(covariates.getQualityScoreCovariate().getClass());
+        this.covariateDimensions = new int[numTables];
+        for ( int i = qualityScoreTableIndex; i < numTables; i++ ) {
+            covariateDimensions[i] = i == qualityScoreTableIndex ? 1 : covariates.get(i).maximumKeyValue() + 1;
+        }
+        this.rowsPerTable = qualDimension * eventDimension;
+        this.rowsPerReadGroup = (numTables - qualityScoreTableIndex) * rowsPerTable;
+
+        this.observations = new long[numReadGroups][][];
+        this.mismatches = new double[numReadGroups][][];
+    }
+
+    public StandardCovariateList getCovariates() {
+        return covariates;
+    }
+
+    public int getNumReadGroups() {
+        return numReadGroups;
+    }
+
+    /**
+     * Count one observation of an event in the quality score table and in every additional covariate table
+     * for which the key set has a value.
+     *
+     * @param keys key for each covariate, in the order of the covariate list, as returned by
+     *             {@link org.broadinstitute.hellbender.utils.recalibration.covariates.ReadCovariates#getKeySet}.
+     *             Keys of additional covariates that are negative are skipped.
+     * @param eventIndex ordinal of the {@link EventType} of this observation
+     * @param isError fractional error weight of this observation, between 0 and 1
+     */
+    public void increment(final int[] keys, final int eventIndex, final double isError) {
+        final int readGroup = keys[0];
+        final int qual = keys[1];
+        final long[][] rgObservations = rowsForReadGroup(readGroup);
+        final double[][] rgMismatches = mismatches[readGroup];
+        final double scaledError = isError * RecalDatum.MULTIPLIER;
+
+        // the rows of the quality score table come first
+        final int qualRow = qual * eventDimension + eventIndex;
+        addToCell(rgObservations, rgMismatches, qualRow, 0, 1, scaledError);
+
+        for ( int i = covariates.numberOfSpecialCovariates(); i < keys.length; i++ ) {
+            final int key = keys[i];
+            if ( key >= 0 ) {
+                addToCell(rgObservations, rgMismatches, (i - qualityScoreTableIndex) * rowsPerTable + qualRow, key, 1, scaledError);
+            }
+        }
+    }
+
+    /**
+     * @return the number of observations in the cell of the given table, or 0 if there are none
+     */
+    public long getNumObservations(final int tableIndex, final int readGroup, final int qual, final int covariateKey, final int eventIndex) {
+        final int row = row(tableIndex, qual, eventIndex);
+        final long[][] rgObservations = observations[readGroup];
+        return rgObservations == null || rgObservations[row] == null ? 0L : rgObservations[row][covariateKey];
+    }
+
+    /**
+     * @return the (possibly fractional) number of mismatches in the cell of the given table, or 0.0 if there are none
+     */
+    public double getNumMismatches(final int tableIndex, final int readGroup, final int qual, final int covariateKey, final int eventIndex) {
+        final int row = row(tableIndex, qual, eventIndex);
+        final double[][] rgMismatches = mismatches[readGroup];
+        return rgMismatches == null || rgMismatches[row] == null ? 0.0 : rgMismatches[row][covariateKey] / RecalDatum.MULTIPLIER;
+    }
+
+    /**
+     * @return true if no observations have been counted
+     */
+    public boolean isEmpty() {
+        for ( final long[][] rgObservations : observations ) {
+            if ( rgObservations == null ) {
+                continue;
+            }
+            for ( final long[] rowObservations : rgObservations ) {
+                if ( rowObservations == null ) {
+                    continue;
+                }
+                for ( final long count : rowObservations ) {
+                    if ( count != 0 ) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Add all of the counts in other to this set of tables
+     *
+     * @param other tables with the same layout (same covariates and number of read groups)
+     * @return this set of tables
+     */
+    public FlatRecalibrationTables combine(final FlatRecalibrationTables other) {
+        Utils.nonNull(other);
+        Utils.validateArg(numReadGroups == other.numReadGroups && rowsPerReadGroup == other.rowsPerReadGroup
+                        && Arrays.equals(covariateDimensions, other.covariateDimensions),
+                "Attempting to merge FlatRecalibrationTables with different sizes");
+
+        for ( int rg = 0; rg < numReadGroups; rg++ ) {
+            final long[][] otherObservations = other.observations[rg];
+            if ( otherObservations == null ) {
+                continue;
+            }
+            final double[][] otherMismatches = other.mismatches[rg];
+            final long[][] myObservations = rowsForReadGroup(rg);
+            final double[][] myMismatches = mismatches[rg];
+            for ( int row = 0; row < rowsPerReadGroup; row++ ) {
+                if ( otherObservations[row] == null ) {
+                    continue;
+                }
+                if ( myObservations[row] == null ) {
+                    myObservations[row] = otherObservations[row].clone();
+                    myMismatches[row] = otherMismatches[row].clone();
+                    continue;
+                }
+                final long[] myRowObservations = myObservations[row];
+                final double[] myRowMismatches = myMismatches[row];
+                final long[] otherRowObservations = otherObservations[row];
+                final double[] otherRowMismatches = otherMismatches[row];
+                for ( int key = 0; key < myRowObservations.length; key++ ) {
+                    myRowObservations[key] += otherRowObservations[key];
+                    myRowMismatches[key] += otherRowMismatches[key];
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Convert the counts into a new {@link RecalibrationTables}, with a RecalDatum for each non-empty cell of the
+     * quality score and additional covariate tables. The read group table is left empty.
+     *
+     * @return newly allocated recalibration tables
+     */
+    public RecalibrationTables toRecalibrationTables() {
+        final RecalibrationTables tables = new RecalibrationTables(covariates, numReadGroups);
+        for ( int rg = 0; rg < numReadGroups; rg++ ) {
+            final long[][] rgObservations = observations[rg];
+            if ( rgObservations == null ) {
+                continue;
+            }
+            final double[][] rgMismatches = mismatches[rg];
+            for ( int row = 0; row < rowsPerReadGroup; row++ ) {
+                final long[] rowObservations = rgObservations[row];
+                if ( rowObservations == null ) {
+                    continue;
+                }
+                final NestedIntegerArray<RecalDatum> table = tables.getTable(qualityScoreTableIndex + row / rowsPerTable);
+                final boolean isQualityScoreTable = tables.isQualityScoreTable(table);
+                final int qual = (row % rowsPerTable) / eventDimension;
+                final int event = row % eventDimension;
+                for ( int key = 0; key < rowObservations.length; key++ ) {
+                    if ( rowObservations[key] == 0 ) {
+                        continue;
+                    }
+                    final RecalDatum datum = RecalDatum.fromScaledCounts(rowObservations[key], rgMismatches[row][key], (byte) qual);
+                    if ( isQualityScoreTable ) {
+                        table.put(datum, rg, qual, event);
+                    } else {
+                        table.put(datum, rg, qual, key, event);
+                    }
+                }
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * Create flat tables holding the counts of the quality score and additional covariate tables of an existing
+     * {@link RecalibrationTables}, for example one loaded from a {@link RecalibrationReport}.
+     * The read group table is ignored, since it is derived from the quality score table.
+     *
+     * @param tables recalibration tables to convert
+     * @return newly allocated flat tables with the same counts
+     */
+    public static FlatRecalibrationTables fromRecalibrationTables(final RecalibrationTables tables) {
+        Utils.nonNull(tables);
+        final FlatRecalibrationTables flatTables = new FlatRecalibrationTables(tables.covariates, tables.getNumReadGroups());
+        for ( int tableIndex = flatTables.qualityScoreTableIndex; tableIndex < tables.numTables(); tableIndex++ ) {
+            final NestedIntegerArray<RecalDatum> table = tables.getTable(tableIndex);
+            final boolean isQualityScoreTable = tables.isQualityScoreTable(table);
+            for ( final NestedIntegerArray.Leaf<RecalDatum> leaf : table.getAllLeaves() ) {
+                final int[] keys = leaf.keys;
+                final int rg = keys[0];
+                final int row = isQualityScoreTable ? flatTables.row(tableIndex, keys[1], keys[2]) : flatTables.row(tableIndex, keys[1], keys[3]);
+                final int key = isQualityScoreTable ? 0 : keys[2];
+                flatTables.addToCell(flatTables.rowsForReadGroup(rg), flatTables.mismatches[rg], row, key,
+                                     leaf.value.getNumObservations(), leaf.value.getScaledNumMismatches());
+            }
+        }
+        return flatTables;
+    }
+
+    private void serialize(final Kryo kryo, final Output output) {
+        kryo.writeObject(output, covariates, new JavaSerializer());
+        output.writeInt(numReadGroups, true);
+        for ( int rg = 0; rg < numReadGroups; rg++ ) {
+            final long[][] rgObservations = observations[rg];
+            int numRows = 0;
+            if ( rgObservations != null ) {
+                for ( final long[] rowObservations : rgObservations ) {
+                    if ( rowObservations != null ) {
+                        numRows++;
+                    }
+                }
+            }
+            output.writeInt(numRows, true);
+            if ( numRows == 0 ) {
+                continue;
+            }
+            final double[][] rgMismatches = mismatches[rg];
+            int previousRow = 0;
+            for ( int row = 0; row < rowsPerReadGroup; row++ ) {
+                final long[] rowObservations = rgObservations[row];
+                if ( rowObservations == null ) {
+                    continue;
+                }
+                output.writeInt(row - previousRow, true);
+                previousRow = row;
+                int numCells = 0;
+                for ( final long count : rowObservations ) {
+                    if ( count != 0 ) {
+                        numCells++;
+                    }
+                }
+                output.writeInt(numCells, true);
+                int previousKey = 0;
+                for ( int key = 0; key < rowObservations.length; key++ ) {
+                    if ( rowObservations[key] != 0 ) {
+                        output.writeInt(key - previousKey, true);
+                        output.writeLong(rowObservations[key], true);
+                        output.writeDouble(rgMismatches[row][key]);
+                        previousKey = key;
+                    }
+                }
+            }
+        }
+    }
+
+    private static FlatRecalibrationTables deserialize(final Kryo kryo, final Input input) {
+        final StandardCovariateList covariates = kryo.readObject(input, StandardCovariateList.class, new JavaSerializer());
+        final FlatRecalibrationTables flatTables = new FlatRecalibrationTables(covariates, input.readInt(true));
+        for ( int rg = 0; rg < flatTables.numReadGroups; rg++ ) {
+            final int numRows = input.readInt(true);
+            if ( numRows == 0 ) {
+                continue;
+            }
+            final long[][] rgObservations = flatTables.rowsForReadGroup(rg);
+            final double[][] rgMismatches = flatTables.mismatches[rg];
+            int row = 0;
+            for ( int i = 0; i < numRows; i++ ) {
+                row += input.readInt(true);
+                final int numCells = input.readInt(true);
+                int key = 0;
+                for ( int cell = 0; cell < numCells; cell++ ) {
+                    key += input.readInt(true);
+                    flatTables.addToCell(rgObservations, rgMismatches, row, key, input.readLong(true), input.readDouble());
+                }
+            }
+        }
+        return flatTables;
+    }
+
+    public static final class Serializer extends com.esotericsoftware.kryo.Serializer<FlatRecalibrationTables> {
+        @Override
+        public void write(final Kryo kryo, final Output output, final FlatRecalibrationTables flatTables) {
+            flatTables.serialize(kryo, output);
+        }
+
+        @Override
+        public FlatRecalibrationTables read(final Kryo kryo, final Input input, final Class<FlatRecalibrationTables> klass) {
+            return deserialize(kryo, input);
+        }
+    }
+
+    private int row(final int tableIndex, final int qual, final int eventIndex) {
+        Utils.validateArg(tableIndex >= qualityScoreTableIndex && tableIndex < covariates.size(),
+                () -> "Table " + tableIndex + " is not stored in FlatRecalibrationTables");
+        return (tableIndex - qualityScoreTableIndex) * rowsPerTable + qual * eventDimension + eventIndex;
+    }
+
+    private long[][] rowsForReadGroup(final int readGroup) {
+        long[][] rgObservations = observations[readGroup];
+        if ( rgObservations == null ) {
+            rgObservations = new long[rowsPerReadGroup][];
+            observations[readGroup] = rgObservations;
+            mismatches[readGroup] = new double[rowsPerReadGroup][];
+        }
+        return rgObservations;
+    }
+
+    private void addToCell(final long[][] rgObservations, final double[][] rgMismatches, final int row, final int key,
+                           final long numObservations, final double scaledNumMismatches) {
+        long[] rowObservations = rgObservations[row];
+        if ( rowObservations == null ) {
+            final int rowLength = covariateDimensions[qualityScoreTableIndex + row / rowsPerTable];
+            rowObservations = new long[rowLength];
+            rgObservations[row] = rowObservations;
+            rgMismatches[row] = new double[rowLength];
+        }
+        rowObservations[key] += numObservations;
+        rgMismatches[row][key] += scaledNumMismatches;
+    }
+}
@@ -0,0 +1,275 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import com.google.common.collect.Iterators;
+import htsjdk.samtools.util.Locatable;
+import htsjdk.tribble.Feature;
+import org.broadinstitute.hellbender.engine.FeatureDataSource;
+import org.broadinstitute.hellbender.engine.FeatureInput;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory mask of the positions covered by a set of known sites (for example dbSNP), with one {@link BitSet} per
+ * contig indexed by 1-based position, in the same way as {@link org.broadinstitute.hellbender.utils.variant.DbSnpBitSetUtil}.
+ *
+ * It is meant to be built once, when a tool starts, so that the known sites overlapping a read can be found with bit
+ * operations instead of a Feature query for every read. The known sites overlapping an interval are returned as runs
+ * of consecutive masked positions ({@link #getKnownSiteRuns}), which mark the same read bases as the original sites
+ * when passed to {@link BaseRecalibrationEngine#processRead}: overlapping sites are merged, but sites that only abut
+ * each other are kept apart, since an insertion in the read between them must not be masked.
+ *
+ * A mask can be written to disk with {@link #writeMask} and read back with {@link #readMask}, together with the paths of
+ * the files it was built from, so that it is built only once for many runs. Memory use is one bit per position up
+ * to the last known site of each contig.
+ */
+public final class KnownSitesMask implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final int MAGIC = 0x4b534d31; // "KSM1"
+
+    // 1-based positions covered by at least one known site
+    private final Map<String, BitSet> maskedPositions;
+
+    // sorted 1-based positions p such that p-1 and p are both masked, but no known site covers both of them
+    private final Map<String, int[]> siteBoundaries;
+
+    // the paths of the files the mask was built from, if any
+    private final List<String> sources;
+
+    private KnownSitesMask(final Map<String, BitSet> maskedPositions, final Map<String, int[]> siteBoundaries, final List<String> sources) {
+        this.maskedPositions = maskedPositions;
+        this.siteBoundaries = siteBoundaries;
+        this.sources = Collections.unmodifiableList(sources);
+    }
+
+    /**
+     * Build a mask from known sites, which may be given in any order.
+     *
+     * @param sites known sites to mask
+     * @param sources descriptions of where the sites come from, stored with the mask (usually file paths)
+     * @return a new mask covering all the sites
+     */
+    public static KnownSitesMask fromSites(final Iterator<? extends Locatable> sites, final List<String> sources) {
+        Utils.nonNull(sites);
+        Utils.nonNull(sources);
+        final Map<String, BitSet> maskedPositions = new LinkedHashMap<>();
+        // position p is linked if a single site covers both p-1 and p
+        final Map<String, BitSet> linkedPositions = new LinkedHashMap<>();
+        while ( sites.hasNext() ) {
+            final Locatable site = sites.next();
+            final int start = Math.max(site.getStart(), 1);
+            final int end = site.getEnd();
+            if ( end < start ) {
+                continue;
+            }
+            maskedPositions.computeIfAbsent(site.getContig(), contig -> new BitSet()).set(start, end + 1);
+            if ( end > start ) {
+                linkedPositions.computeIfAbsent(site.getContig(), contig -> new BitSet()).set(start + 1, end + 1);
+            }
+        }
+
+        // only the boundaries between abutting sites are needed to split the masked positions into runs, and there
+        // are few of them, so keep them in a sorted array rather than a second bitset as large as the mask
+        final Map<String, int[]> siteBoundaries = new LinkedHashMap<>();
+        for ( final Map.Entry<String, BitSet> contigMask : maskedPositions.entrySet() ) {
+            final BitSet masked = contigMask.getValue();
+            final BitSet linked = linkedPositions.getOrDefault(contigMask.getKey(), new BitSet());
+            final List<Integer> boundaries = new ArrayList<>();
+            for ( int pos = masked.nextSetBit(0); pos >= 0; pos = masked.nextSetBit(pos + 1) ) {
+                if ( masked.get(pos - 1) && !linked.get(pos) ) {
+                    boundaries.add(pos);
+                }
+            }
+            siteBoundaries.put(contigMask.getKey(), boundaries.stream().mapToInt(Integer::intValue).toArray());
+        }
+        return new KnownSitesMask(maskedPositions, siteBoundaries, new ArrayList<>(sources));
+    }
+
+    /**
+     * Build a mask from all the Features in the given inputs, reading each of them from start to end.
+     *
+     * @param featureInputs sources of known sites
+     * @return a new mask covering all the Features, with the {@link #getSourcePaths} of the inputs as sources
+     */
+    public static KnownSitesMask fromFeatureInputs(final List<? extends FeatureInput<? extends Feature>> featureInputs) {
+        Utils.nonNull(featureInputs);
+        final List<FeatureDataSource<? extends Feature>> dataSources = new ArrayList<>(featureInputs.size());
+        try {
+            for ( final FeatureInput<? extends Feature> featureInput : featureInputs ) {
+                dataSources.add(new FeatureDataSource<>(featureInput, 0, null));
+            }
+            return fromSites(Iterators.concat(dataSources.stream().map(FeatureDataSource::iterator).iterator()), getSourcePaths(featureInputs));
+        } finally {
+            dataSources.forEach(FeatureDataSource::close);
+        }
+    }
+
+    /**
+     * @return the paths of the given inputs as they are stored in a mask built from them: absolute, unless the input
+     *         is not a file
+     */
+    public static List<String> getSourcePaths(final List<? extends FeatureInput<? extends Feature>> featureInputs) {
+        return featureInputs.stream()
+                .map(FeatureInput::getFeaturePath)
+                .map(path -> FeatureDataSource.isGenomicsDBPath(path) ? path : new File(path).getAbsolutePath())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return the descriptions of where the known sites come from (usually file paths)
+     */
+    public List<String> getSources() {
+        return sources;
+    }
+
+    /**
+     * @return the total number of masked positions
+     */
+    public long getNumMaskedPositions() {
+        return maskedPositions.values().stream().mapToLong(BitSet::cardinality).sum();
+    }
+
+    /**
+     * @return true if a known site covers the given 1-based position
+     */
+    public boolean isMasked(final String contig, final int pos) {
+        final BitSet masked = maskedPositions.get(contig);
+        return masked != null && pos > 0 && masked.get(pos);
+    }
+
+    /**
+     * Get the runs of masked positions that overlap an interval. Each run is a maximal range of consecutive masked
+     * positions that is not split by a boundary between abutting sites, so a run may extend beyond the interval,
+     * exactly like a known site overlapping the interval would.
+     *
+     * @param interval interval to query; an interval without a contig (for example an unmapped read) overlaps nothing
+     * @return the overlapping runs, in order of position
+     */
+    public List<SimpleInterval> getKnownSiteRuns(final Locatable interval) {
+        Utils.nonNull(interval);
+        final String contig = interval.getContig();
+        final BitSet masked = contig == null ? null : maskedPositions.get(contig);
+        if ( masked == null || interval.getEnd() < 1 ) {
+            return Collections.emptyList();
+        }
+        final int[] boundaries = siteBoundaries.get(contig);
+        final int queryStart = Math.max(interval.getStart(), 1);
+
+        int runStart;
+        if ( masked.get(queryStart) ) {
+            // walk back to the start of the run containing the start of the interval
+            runStart = Math.max(masked.previousClearBit(queryStart) + 1, lastBoundaryAtOrBefore(boundaries, queryStart));
+        } else {
+            runStart = masked.nextSetBit(queryStart);
+        }
+
+        final List<SimpleInterval> runs = new ArrayList<>();
+        while ( runStart >= 0 && runStart <= interval.getEnd() ) {
+            final int runEnd = Math.min(masked.nextClearBit(runStart), firstBoundaryAfter(boundaries, runStart)) - 1;
+            runs.add(new SimpleInterval(contig, runStart, runEnd));
+            runStart = masked.get(runEnd + 1) ? runEnd + 1 : masked.nextSetBit(runEnd + 1);
+        }
+        return runs;
+    }
+
+    private static int lastBoundaryAtOrBefore(final int[] boundaries, final int pos) {
+        final int index = Arrays.binarySearch(boundaries, pos);
+        if ( index >= 0 ) {
+            return pos;
+        }
+        final int insertionPoint = -index - 1;
+        return insertionPoint == 0 ? Integer.MIN_VALUE : boundaries[insertionPoint - 1];
+    }
+
+    private static int firstBoundaryAfter(final int[] boundaries, final int pos) {
+        final int index = Arrays.binarySearch(boundaries, pos + 1);
+        final int insertionPoint = index >= 0 ? index : -index - 1;
+        return insertionPoint == boundaries.length ? Integer.MAX_VALUE : boundaries[insertionPoint];
+    }
+
+    /**
+     * Write this mask to a binary file that can be read back with {@link #readMask}.
+     */
+    public void writeMask(final File file) {
+        Utils.nonNull(file);
+        try ( final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file))) ) {
+            out.writeInt(MAGIC);
+            out.writeInt(sources.size());
+            for ( final String source : sources ) {
+                out.writeUTF(source);
+            }
+            out.writeInt(maskedPositions.size());
+            for ( final Map.Entry<String, BitSet> contigMask : maskedPositions.entrySet() ) {
+                out.writeUTF(contigMask.getKey());
+                final long[] words = contigMask.getValue().toLongArray();
+                out.writeInt(words.length);
+                for ( final long word : words ) {
+                    out.writeLong(word);
+                }
+                final int[] boundaries = siteBoundaries.get(contigMask.getKey());
+                out.writeInt(boundaries.length);
+                for ( final int boundary : boundaries ) {
+                    out.writeInt(boundary);
+                }
+            }
+        } catch ( final IOException e ) {
+            throw new UserException.CouldNotCreateOutputFile(file, "could not write the known sites mask", e);
+        }
+    }
+
+    /**
+     * Read a mask written by {@link #writeMask}.
+     */
+    public static KnownSitesMask readMask(final File file) {
+        Utils.nonNull(file);
+        try ( final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file))) ) {
+            if ( in.readInt() != MAGIC ) {
+                throw new UserException.MalformedFile(file, "not a known sites mask");
+            }
+            final int numSources = in.readInt();
+            final List<String> sources = new ArrayList<>(numSources);
+            for ( int i = 0; i < numSources; i++ ) {
+                sources.add(in.readUTF());
+            }
+            final int numContigs = in.readInt();
+            final Map<String, BitSet> maskedPositions = new LinkedHashMap<>();
+            final Map<String, int[]> siteBoundaries = new LinkedHashMap<>();
+            for ( int i = 0; i < numContigs; i++ ) {
+                final String contig = in.readUTF();
+                final long[] words = new long[in.readInt()];
+                for ( int j = 0; j < words.length; j++ ) {
+                    words[j] = in.readLong();
+                }
+                final int[] boundaries = new int[in.readInt()];
+                for ( int j = 0; j < boundaries.length; j++ ) {
+                    boundaries[j] = in.readInt();
+                }
+                maskedPositions.put(contig, BitSet.valueOf(words));
+                siteBoundaries.put(contig, boundaries);
+            }
+            return new KnownSitesMask(maskedPositions, siteBoundaries, sources);
+        } catch ( final IOException e ) {
+            throw new UserException.CouldNotReadInputFile(file, "could not read the known sites mask", e);
+        }
+    }
+}
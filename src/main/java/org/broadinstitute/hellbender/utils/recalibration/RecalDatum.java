@@ -16,7 +16,7 @@ public final class RecalDatum implements Serializable {
     public static final byte MAX_RECALIBRATED_Q_SCORE = SAMUtils.MAX_PHRED_SCORE;
     private static final double UNINITIALIZED = -1.0;
     private static final long serialVersionUID = 1L;
-    private static final double MULTIPLIER = 100000.0;  //See discussion in numMismatches about what the multiplier is.
+    static final double MULTIPLIER = 100000.0;  //See discussion in numMismatches about what the multiplier is.
 
     /**
      * estimated reported quality score based on combined data's individual q-reporteds and number of observations
@@ -85,6 +85,21 @@ public final class RecalDatum implements Serializable {
         this.empiricalQuality = copy.empiricalQuality;
     }
 
+    /**
+     * Create a new RecalDatum from a mismatch count that already includes the internal multiplier, as
+     * accumulated by {@link FlatRecalibrationTables}. This avoids rescaling, which is not exact in floating point.
+     *
+     * @param numObservations       observations
+     * @param scaledNumMismatches   mismatches multiplied by {@link #MULTIPLIER}
+     * @param reportedQuality       Qreported
+     */
+    static RecalDatum fromScaledCounts(final long numObservations, final double scaledNumMismatches, final byte reportedQuality) {
+        final RecalDatum datum = new RecalDatum(numObservations, 0.0, reportedQuality);
+        if ( scaledNumMismatches < 0.0 ) throw new IllegalArgumentException("numMismatches < 0");
+        datum.numMismatches = scaledNumMismatches;
+        return datum;
+    }
+
     /**
      * Add in all of the data from other into this object, updating the reported quality from the expected
      * error rate implied by the two reported qualities
@@ -194,6 +209,13 @@ public final class RecalDatum implements Serializable {
         return numMismatches/MULTIPLIER;
     }
 
+    /**
+     * @return the number of mismatches multiplied by {@link #MULTIPLIER}, as stored internally
+     */
+    final double getScaledNumMismatches() {
+        return numMismatches;
+    }
+
     public final void setNumMismatches(final double numMismatches) {
         if ( numMismatches < 0 ) throw new IllegalArgumentException("numMismatches < 0");
         this.numMismatches = (numMismatches*MULTIPLIER);
@@ -539,10 +539,12 @@ public final class RecalUtils {
      * @param read                The read for which to compute covariate values.
      * @param header              SAM header for the read
      * @param covariates          The list of covariates.
-     * @param resultsStorage      The object to store the covariate values
+     * @param resultsStorage      The object to store the covariate values, typically reused for every read
+     *                            processed by the caller; it is resized if necessary to hold the keys of this read
      * @param recordIndelValues   should we compute covariates for indel BQSR?
      */
     public static void computeCovariates(final GATKRead read, final SAMFileHeader header, final StandardCovariateList covariates, final ReadCovariates resultsStorage, final boolean recordIndelValues) {
+        resultsStorage.setReadLength(read.getLength());
         covariates.recordAllValuesInStorage(read, header, resultsStorage, recordIndelValues);
     }
 
@@ -20,7 +20,9 @@ import java.io.InputStream;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -73,17 +75,69 @@ public final class RecalibrationReport {
 
     }
 
+    /**
+     * Create a report with empty recalibration tables, to be filled by the caller.
+     *
+     * @param argumentTable the argument table, as it would be found in a text report
+     * @param quantizationInfo the quantization info
+     * @param readGroups all the read groups, in the order of their keys
+     */
+    RecalibrationReport(final GATKReportTable argumentTable, final QuantizationInfo quantizationInfo, final List<String> readGroups) {
+        this.argumentTable = argumentTable;
+        RAC = initializeArgumentCollectionTable(argumentTable);
+        this.quantizationInfo = quantizationInfo;
+        covariates = new StandardCovariateList(RAC, readGroups);
+        recalibrationTables = new RecalibrationTables(covariates, readGroups.size());
+        initializeReadGroupCovariates(readGroups);
+    }
+
+    /**
+     * Read a recalibration report from a file in either the text (GATKReport, optionally gzipped) or the
+     * binary ({@link BinaryRecalibrationReport}) format.
+     *
+     * @param recalFile the report file
+     * @return the report
+     */
+    public static RecalibrationReport fromFile(final File recalFile) {
+        Utils.nonNull(recalFile);
+        return BinaryRecalibrationReport.isBinaryReport(recalFile) ? BinaryRecalibrationReport.read(recalFile) : new RecalibrationReport(recalFile);
+    }
+
+    /**
+     * Write this report in the binary format (see {@link BinaryRecalibrationReport}).
+     *
+     * @param output file to write the report to
+     */
+    public void writeBinaryReport(final File output) {
+        BinaryRecalibrationReport.write(output, argumentTable, quantizationInfo, recalibrationTables, covariates);
+    }
+
     /**
      * Gather multiple {@link RecalibrationReport}s into a single file
      * @param inputs a list of {@link RecalibrationReport} files to gather
      * @param output a file to write the recalibration reports to
      */
     public static void gatherReportsIntoOneFile(final List<File> inputs, final File output) {
+        gatherReportsIntoOneFile(inputs, output, 1, false);
+    }
+
+    /**
+     * Gather multiple {@link RecalibrationReport}s into a single file
+     * @param inputs a list of {@link RecalibrationReport} files to gather, in the text or binary format
+     * @param output a file to write the recalibration reports to
+     * @param numThreads number of threads on which to read the inputs
+     * @param binaryOutput write the gathered report in the binary format rather than the text format
+     */
+    public static void gatherReportsIntoOneFile(final List<File> inputs, final File output, final int numThreads, final boolean binaryOutput) {
         Utils.nonNull(inputs, "inputs");
         Utils.nonNull(output, "output");
+        final RecalibrationReport gathered = gather(inputs, numThreads);
+        if ( binaryOutput ) {
+            gathered.writeBinaryReport(output);
+            return;
+        }
         try (final PrintStream outputFile = new PrintStream(output)){
-            final GATKReport report = gatherReports(inputs);
-            report.print(outputFile);
+            gathered.createGATKReport().print(outputFile);
         } catch(final FileNotFoundException e) {
             throw new UserException.CouldNotCreateOutputFile(output, e);
         }
@@ -96,30 +150,108 @@ public final class RecalibrationReport {
      * @return gathered recalibration GATK report
      */
     public static GATKReport gatherReports(final List<File> inputs) {
+        return gather(inputs, 1).createGATKReport();
+    }
+
+    /**
+     * Gathers a set of files containing {@link RecalibrationReport}s, in the text or binary format, into a single
+     * report with recomputed quantization.
+     *
+     * The inputs are read and decoded numThreads at a time, and combined in input order as soon as they are read, so
+     * at most numThreads + 1 reports are held in memory. Inputs with different read groups are combined by remapping
+     * both to the union of their read groups.
+     *
+     * @param inputs a list of files containing {@link RecalibrationReport}s
+     * @param numThreads number of threads on which to read the inputs
+     * @return gathered recalibration report
+     */
+    public static RecalibrationReport gather(final List<File> inputs, final int numThreads) {
         Utils.nonNull(inputs);
         Utils.nonEmpty(inputs, "Cannot gather an empty list of inputs");
+        Utils.validateArg(numThreads >= 1, "numThreads must be at least 1");
 
         final SortedSet<String> allReadGroups = new TreeSet<>();
         final Map<File, Set<String>> inputReadGroups = new LinkedHashMap<>();
 
-        // Get the read groups from each input report
-        for (final File input : inputs) {
-            final GATKReport report = new GATKReport(input);
+        // Combine the reports in input order, as they are read. Combining RecalDatums is not associative in floating
+        // point, and a different order (e.g. a tree) can change the rounded empirical qualities of the gathered report.
+        RecalibrationReport result = null;
+        // Drain the iterator with hasNext(), which shuts down the thread pool of transformParallel once it is exhausted
+        final Iterator<RecalibrationReport> reports = Utils.transformParallel(inputs.iterator(), RecalibrationReport::fromFile, numThreads);
+        final Iterator<File> files = inputs.iterator();
+        while (reports.hasNext()) {
+            final RecalibrationReport report = reports.next();
+            final File input = files.next();
             final Set<String> readGroups = report.getReadGroups();
             inputReadGroups.put(input, readGroups);
             allReadGroups.addAll(readGroups);
+            result = result == null ? report : combineReports(result, report);
         }
 
         logTablesWithMissingReadGroups(allReadGroups, inputReadGroups);
 
-        final RecalibrationReport result = inputs.stream()
-                .map(i -> new RecalibrationReport(new GATKReport(i), allReadGroups))
-                .reduce(RecalibrationReport::combine)
-                .filter(r -> !r.isEmpty())
-                .orElseThrow(() -> new GATKException("there is no usable data in any input file") );
+        if ( result.isEmpty() ) {
+            throw new GATKException("there is no usable data in any input file");
+        }
 
         result.quantizationInfo = new QuantizationInfo(result.recalibrationTables, result.RAC.QUANTIZING_LEVELS);
-        return result.createGATKReport();
+        return result;
+    }
+
+    /**
+     * Combine two reports that may have different read groups. The result may be one of the two reports.
+     */
+    private static RecalibrationReport combineReports(final RecalibrationReport left, final RecalibrationReport right) {
+        final List<String> leftReadGroups = left.getReadGroupKeyOrder();
+        final List<String> rightReadGroups = right.getReadGroupKeyOrder();
+        if ( leftReadGroups.equals(rightReadGroups) ) {
+            return left.combine(right);
+        }
+        final SortedSet<String> readGroups = new TreeSet<>(leftReadGroups);
+        readGroups.addAll(rightReadGroups);
+        final List<String> combinedReadGroups = new ArrayList<>(readGroups);
+        return left.withReadGroups(combinedReadGroups).combine(right.withReadGroups(combinedReadGroups));
+    }
+
+    /**
+     * @return all the read groups known to this report, in the order of their keys
+     */
+    private List<String> getReadGroupKeyOrder() {
+        final Covariate readGroupCovariate = covariates.getReadGroupCovariate();
+        final List<String> readGroups = new ArrayList<>();
+        for ( int key = 0; key <= readGroupCovariate.maximumKeyValue(); key++ ) {
+            readGroups.add(readGroupCovariate.formatKey(key));
+        }
+        return readGroups;
+    }
+
+    /**
+     * @return the read groups that have data in this report
+     */
+    public SortedSet<String> getReadGroups() {
+        final SortedSet<String> readGroups = new TreeSet<>();
+        for ( final NestedIntegerArray.Leaf<RecalDatum> leaf : recalibrationTables.getReadGroupTable().getAllLeaves() ) {
+            readGroups.add(covariates.getReadGroupCovariate().formatKey(leaf.keys[0]));
+        }
+        return readGroups;
+    }
+
+    /**
+     * Create a copy of this report with the given read groups, which must include all the read groups of this report,
+     * and with the read group keys of the recalibration tables changed accordingly. The RecalDatums are shared.
+     */
+    private RecalibrationReport withReadGroups(final List<String> readGroups) {
+        final RecalibrationReport report = new RecalibrationReport(argumentTable, quantizationInfo, readGroups);
+        final Covariate myReadGroupCovariate = covariates.getReadGroupCovariate();
+        final Covariate newReadGroupCovariate = report.covariates.getReadGroupCovariate();
+        for ( int tableIndex = 0; tableIndex < recalibrationTables.numTables(); tableIndex++ ) {
+            final NestedIntegerArray<RecalDatum> newTable = report.recalibrationTables.getTable(tableIndex);
+            for ( final NestedIntegerArray.Leaf<RecalDatum> leaf : recalibrationTables.getTable(tableIndex).getAllLeaves() ) {
+                leaf.keys[0] = newReadGroupCovariate.keyFromValue(myReadGroupCovariate.formatKey(leaf.keys[0]));
+                newTable.put(leaf.value, leaf.keys);
+            }
+        }
+        return report;
     }
 
     /**
@@ -187,7 +319,7 @@ public final class RecalibrationReport {
      *
      * @param allReadGroups The list of all possible read groups
      */
-    private void initializeReadGroupCovariates(final SortedSet<String> allReadGroups) {
+    private void initializeReadGroupCovariates(final Collection<String> allReadGroups) {
         for (final String readGroup: allReadGroups) {
             covariates.getReadGroupCovariate().keyFromValue(readGroup);
         }
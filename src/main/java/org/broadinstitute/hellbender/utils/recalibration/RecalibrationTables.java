@@ -103,6 +103,10 @@ public final class RecalibrationTables implements Serializable, Iterable<NestedI
         return qualityScoreTable;
     }
 
+    public int getNumReadGroups() {
+        return numReadGroups;
+    }
+
     public int numTables() {
         return allTables.size();
     }
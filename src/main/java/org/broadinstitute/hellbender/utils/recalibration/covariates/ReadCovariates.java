@@ -7,14 +7,26 @@ import org.broadinstitute.hellbender.utils.recalibration.EventType;
 
 /**
  * The object temporarily held by a read that describes all of its covariates.
+ *
+ * An instance created with {@link #ReadCovariates(int)} is owned by its caller and reused for read after read
+ * (one per thread): {@link #setReadLength} only allocates when a read is longer than any read seen so far, so
+ * computing covariates does not allocate in the steady state. Not thread-safe.
  */
 public final class ReadCovariates {
     private static final Logger logger = LogManager.getLogger(ReadCovariates.class);
 
     /**
-     * Our keys, indexed by event type x read length x covariate
+     * Our keys, indexed by event type x read length x covariate.
+     * The read length dimension may be larger than the current read length when this object is reused.
      */
-    private final int[][][] keys;
+    private int[][][] keys;
+
+    private final int numberOfCovariates;
+
+    /**
+     * The length of the read whose covariates are currently stored
+     */
+    private int readLength;
 
     /**
      * The index of the current covariate, used by addCovariate
@@ -28,6 +40,8 @@ public final class ReadCovariates {
      */
     public ReadCovariates(final int readLength, final int numberOfCovariates, final CovariateKeyCache keysCache) {
         Utils.nonNull(keysCache);
+        this.numberOfCovariates = numberOfCovariates;
+        this.readLength = readLength;
         final int[][][] cachedKeys = keysCache.get(readLength);
         if ( cachedKeys == null ) {
             if ( logger.isDebugEnabled() ) logger.debug("Keys cache miss for length " + readLength + " cache size " + keysCache.size());
@@ -38,6 +52,42 @@ public final class ReadCovariates {
         }
     }
 
+    /**
+     * Create an empty, reusable set of covariate keys. {@link #setReadLength} must be called before the keys of
+     * each read are added.
+     *
+     * @param numberOfCovariates number of covariates that will be recorded for each base
+     */
+    public ReadCovariates(final int numberOfCovariates) {
+        Utils.validateArg(numberOfCovariates > 0, "numberOfCovariates must be > 0");
+        this.numberOfCovariates = numberOfCovariates;
+        this.keys = new int[EventType.values().length][0][];
+        this.readLength = 0;
+    }
+
+    /**
+     * Prepare this object to hold the keys of a read of the given length, growing the key arrays if necessary.
+     * Keys of the previous read are not cleared: every covariate overwrites all the offsets of the read.
+     *
+     * @param readLength length of the next read, must be >= 0
+     */
+    public void setReadLength(final int readLength) {
+        Utils.validateArg(readLength >= 0, "readLength must be >= 0");
+        if ( readLength > keys[0].length ) {
+            if ( logger.isDebugEnabled() ) logger.debug("Growing covariate keys from length " + keys[0].length + " to " + readLength);
+            keys = new int[EventType.values().length][readLength][numberOfCovariates];
+        }
+        this.readLength = readLength;
+        this.currentCovariateIndex = 0;
+    }
+
+    /**
+     * @return the length of the read whose keys are stored in this object
+     */
+    public int getReadLength() {
+        return readLength;
+    }
+
     public void setCovariateIndex(final int index) {
         currentCovariateIndex = index;
     }
@@ -71,6 +121,10 @@ public final class ReadCovariates {
         return keys[errorModel.ordinal()][readPosition];
     }
 
+    /**
+     * Get the keys for all covariates at every read position for error model.
+     * Note that the returned array may be longer than {@link #getReadLength()} when this object is reused.
+     */
     public int[][] getKeySet(final EventType errorModel) {
         return keys[errorModel.ordinal()];
     }
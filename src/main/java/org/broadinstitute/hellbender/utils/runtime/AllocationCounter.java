@@ -0,0 +1,70 @@
+package org.broadinstitute.hellbender.utils.runtime;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Counts the bytes of heap memory allocated by a single thread since the counter was created, as reported by the
+ * JVM's thread MXBean. Useful for checking that a traversal's inner loop does not allocate on a per-record basis.
+ *
+ * Allocation counting is an extension of the standard ThreadMXBean that is only available on HotSpot-based JVMs:
+ * check {@link #isSupported} before relying on the counts, which are otherwise always 0.
+ */
+public final class AllocationCounter {
+
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN = initThreadBean();
+
+    private final long threadId;
+    private final long startBytes;
+
+    /**
+     * Start counting the bytes allocated by the current thread.
+     */
+    public AllocationCounter() {
+        this.threadId = Thread.currentThread().getId();
+        this.startBytes = currentAllocatedBytes(threadId);
+    }
+
+    /**
+     * @return true if the JVM supports counting the bytes allocated by a thread, otherwise false
+     */
+    public static boolean isSupported() {
+        return THREAD_BEAN != null;
+    }
+
+    /**
+     * @return the number of bytes allocated by the counted thread since this counter was created, or 0 if
+     *         allocation counting is not supported
+     */
+    public long getAllocatedBytes() {
+        return currentAllocatedBytes(threadId) - startBytes;
+    }
+
+    private static long currentAllocatedBytes(final long threadId) {
+        if ( THREAD_BEAN == null ) {
+            return 0L;
+        }
+        final long allocatedBytes = THREAD_BEAN.getThreadAllocatedBytes(threadId);
+        return allocatedBytes < 0 ? 0L : allocatedBytes;
+    }
+
+    private static com.sun.management.ThreadMXBean initThreadBean() {
+        final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if ( ! (threadBean instanceof com.sun.management.ThreadMXBean) ) {
+            return null;
+        }
+        final com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        try {
+            if ( ! allocationBean.isThreadAllocatedMemorySupported() ) {
+                return null;
+            }
+            if ( ! allocationBean.isThreadAllocatedMemoryEnabled() ) {
+                allocationBean.setThreadAllocatedMemoryEnabled(true);
+            }
+        }
+        catch ( UnsupportedOperationException | SecurityException e ) {
+            return null;
+        }
+        return allocationBean;
+    }
+}
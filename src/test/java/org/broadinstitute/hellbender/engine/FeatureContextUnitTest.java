@@ -65,4 +65,29 @@ public final class FeatureContextUnitTest extends BaseTest {
                     " not a VCFHeader");
         }
     }
+
+    @Test
+    public void testReusableContextMatchesNewContexts() {
+        final ArtificialFeatureContainingCommandLineProgram toolInstance = new ArtificialFeatureContainingCommandLineProgram();
+        try (final FeatureManager featureManager = new FeatureManager(toolInstance)) {
+            final FeatureContext reusableContext = FeatureContext.createReusable(featureManager);
+            for ( final SimpleInterval interval : Arrays.asList(new SimpleInterval("1", 100, 200), new SimpleInterval("1", 1, 1000),
+                                                                new SimpleInterval("2", 200, 300), new SimpleInterval("3", 1, 1)) ) {
+                reusableContext.reset(interval.getContig(), interval.getStart(), interval.getEnd());
+                final FeatureContext newContext = new FeatureContext(featureManager, interval);
+                Assert.assertEquals(reusableContext.getInterval(), interval);
+                Assert.assertEquals(reusableContext.getValues(toolInstance.featureArgument).toString(), newContext.getValues(toolInstance.featureArgument).toString());
+                Assert.assertEquals(reusableContext.getValues(toolInstance.featureArgument, 50).toString(), newContext.getValues(toolInstance.featureArgument, 50).toString());
+            }
+
+            reusableContext.reset(null, 0, 0);
+            Assert.assertNull(reusableContext.getInterval());
+            Assert.assertTrue(reusableContext.getValues(toolInstance.featureArgument).isEmpty());
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testCannotResetNonReusableContext() {
+        new FeatureContext(null, new SimpleInterval("1", 1, 1)).reset("1", 2, 2);
+    }
 }
@@ -439,7 +439,7 @@ public final class FeatureDataSourceUnitTest extends BaseTest {
     }
 
     private FeatureCache<ArtificialTestFeature> initializeFeatureCache( final List<ArtificialTestFeature> features, final String cacheContig, final int cacheStart, final int cacheEnd ) {
-        FeatureCache<ArtificialTestFeature> cache = new FeatureCache<>();
+        FeatureCache<ArtificialTestFeature> cache = new FeatureCache<>(FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES);
 
         cache.fill(features.iterator(), new SimpleInterval(cacheContig, cacheStart, cacheEnd));
         return cache;
@@ -460,10 +460,9 @@ public final class FeatureDataSourceUnitTest extends BaseTest {
     public void testCacheFill( final List<ArtificialTestFeature> features, final String cacheContig, final int cacheStart, final int cacheEnd) {
         FeatureCache<ArtificialTestFeature> cache = initializeFeatureCache(features, cacheContig, cacheStart, cacheEnd);
 
-        List<ArtificialTestFeature> cachedFeatures = cache.getCachedFeaturesUpToStopPosition(cacheEnd);
-        Assert.assertEquals(cache.getContig(), cacheContig, "Wrong contig reported by cache after fill");
-        Assert.assertEquals(cache.getCacheStart(), cacheStart, "Wrong start position reported by cache after fill");
-        Assert.assertEquals(cache.getCacheEnd(), cacheEnd, "Wrong stop position reported by cache after fill");
+        final SimpleInterval cacheInterval = new SimpleInterval(cacheContig, cacheStart, cacheEnd);
+        List<ArtificialTestFeature> cachedFeatures = cache.getCachedFeatures(cacheInterval);
+        Assert.assertEquals(cache.getCachedIntervals(), Collections.singletonList(cacheInterval), "Wrong interval reported by cache after fill");
         Assert.assertEquals(cachedFeatures, features, "Wrong Features in cache after fill()");
     }
 
@@ -503,10 +502,10 @@ public final class FeatureDataSourceUnitTest extends BaseTest {
                             "Cache hit detection failed for interval " + testInterval);
     }
 
-    @DataProvider(name = "FeatureCacheTrimmingDataProvider")
-    public Object[][] getFeatureCacheTrimmingData() {
+    @DataProvider(name = "FeatureCacheOverlapDataProvider")
+    public Object[][] getFeatureCacheOverlapData() {
         // Features are required to always be sorted by start position, but stop positions need not be sorted.
-        // This complicates cache trimming.
+        // This complicates finding the Features overlapping a query start.
         List<ArtificialTestFeature> feats = Arrays.asList(
                 new ArtificialTestFeature("1", 1, 1),     // Feature 0
                 new ArtificialTestFeature("1", 1, 100),   // Feature 1
@@ -528,9 +527,9 @@ public final class FeatureDataSourceUnitTest extends BaseTest {
         );
         FeatureCache<ArtificialTestFeature> cache = initializeFeatureCache(feats, "1", 1, 200);
 
-        // Pairing of start position to which to trim the cache with the List of Features we expect to see
-        // in the cache after trimming
-        List<Pair<Integer, List<ArtificialTestFeature>>> trimOperations = Arrays.asList(
+        // Pairing of query start position (with the query extending to the end of the cache) with the List of Features
+        // we expect to get back. Queries deliberately go backwards as well as forwards, since the cache is not trimmed.
+        List<Pair<Integer, List<ArtificialTestFeature>>> queryOperations = Arrays.asList(
                 Pair.of(1, Arrays.asList(feats.get(0), feats.get(1), feats.get(2), feats.get(3), feats.get(4), feats.get(5), feats.get(6), feats.get(7), feats.get(8), feats.get(9), feats.get(10), feats.get(11), feats.get(12), feats.get(13), feats.get(14), feats.get(15), feats.get(16))),
                 Pair.of(2, Arrays.asList(feats.get(1), feats.get(3), feats.get(4), feats.get(5), feats.get(6), feats.get(7), feats.get(8), feats.get(9), feats.get(10), feats.get(11), feats.get(12), feats.get(13), feats.get(14), feats.get(15), feats.get(16))),
                 Pair.of(3, Arrays.asList(feats.get(1), feats.get(3), feats.get(4), feats.get(5), feats.get(6), feats.get(7), feats.get(8), feats.get(9), feats.get(10), feats.get(11), feats.get(12), feats.get(13), feats.get(14), feats.get(15), feats.get(16))),
@@ -546,26 +545,27 @@ public final class FeatureDataSourceUnitTest extends BaseTest {
                 Pair.of(111, Arrays.asList(feats.get(11), feats.get(14), feats.get(15), feats.get(16))),
                 Pair.of(151, Arrays.asList(feats.get(11), feats.get(14), feats.get(16))),
                 Pair.of(151, Arrays.asList(feats.get(11), feats.get(14), feats.get(16))),
-                Pair.of(200, Arrays.asList(feats.get(11), feats.get(14)))
+                Pair.of(200, Arrays.asList(feats.get(11), feats.get(14))),
+                Pair.of(6, Arrays.asList(feats.get(1), feats.get(3), feats.get(7), feats.get(8), feats.get(9), feats.get(10), feats.get(11), feats.get(12), feats.get(13), feats.get(14), feats.get(15), feats.get(16))),
+                Pair.of(1, Arrays.asList(feats.get(0), feats.get(1), feats.get(2), feats.get(3), feats.get(4), feats.get(5), feats.get(6), feats.get(7), feats.get(8), feats.get(9), feats.get(10), feats.get(11), feats.get(12), feats.get(13), feats.get(14), feats.get(15), feats.get(16)))
         );
 
         return new Object[][] {
-                { cache, trimOperations }
+                { cache, queryOperations }
         };
     }
 
-    @Test(dataProvider = "FeatureCacheTrimmingDataProvider")
-    public void testCacheTrimming( final FeatureCache<ArtificialTestFeature> cache, final List<Pair<Integer, List<ArtificialTestFeature>>> trimOperations ) {
-        // Repeatedly trim the cache to ever-increasing start positions, and verify after each trim operation
-        // that the cache holds the correct Features in the correc order
-        for ( Pair<Integer, List<ArtificialTestFeature>> trimOperation : trimOperations ) {
-            final int trimPosition = trimOperation.getLeft();
-            final List<ArtificialTestFeature> expectedFeatures = trimOperation.getRight();
-
-            cache.trimToNewStartPosition(trimPosition);
-
-            final List<ArtificialTestFeature> actualFeatures = cache.getCachedFeaturesUpToStopPosition(cache.getCacheEnd());
-            Assert.assertEquals(actualFeatures, expectedFeatures, "Wrong Features in cache after trimming start position to " + trimPosition);
+    @Test(dataProvider = "FeatureCacheOverlapDataProvider")
+    public void testCacheOverlapQueries( final FeatureCache<ArtificialTestFeature> cache, final List<Pair<Integer, List<ArtificialTestFeature>>> queryOperations ) {
+        // Query the cache from a series of start positions, and verify that each query returns
+        // the correct Features in the correct order
+        for ( Pair<Integer, List<ArtificialTestFeature>> queryOperation : queryOperations ) {
+            final SimpleInterval queryInterval = new SimpleInterval("1", queryOperation.getLeft(), 200);
+            final List<ArtificialTestFeature> expectedFeatures = queryOperation.getRight();
+
+            Assert.assertTrue(cache.cacheHit(queryInterval), "Unexpected cache miss for " + queryInterval);
+            final List<ArtificialTestFeature> actualFeatures = cache.getCachedFeatures(queryInterval);
+            Assert.assertEquals(actualFeatures, expectedFeatures, "Wrong Features returned by cache for query starting at " + queryOperation.getLeft());
         }
     }
 
@@ -618,7 +618,7 @@ public final class FeatureDataSourceUnitTest extends BaseTest {
             final int stopPosition = retrievalOperation.getLeft();
             final List<ArtificialTestFeature> expectedFeatures = retrievalOperation.getRight();
 
-            final List<ArtificialTestFeature> actualFeatures = cache.getCachedFeaturesUpToStopPosition(stopPosition);
+            final List<ArtificialTestFeature> actualFeatures = cache.getCachedFeatures(new SimpleInterval("1", 1, stopPosition));
             Assert.assertEquals(actualFeatures, expectedFeatures, "Wrong Features returned in retrieval operation with stop position " + stopPosition);
         }
     }
@@ -629,7 +629,7 @@ public final class FeatureDataSourceUnitTest extends BaseTest {
      */
     @Test
     public void testHandleCachingOfEmptyRegion() {
-        FeatureCache<ArtificialTestFeature> cache = new FeatureCache<>();
+        FeatureCache<ArtificialTestFeature> cache = new FeatureCache<>(FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES);
         List<ArtificialTestFeature> emptyRegion = new ArrayList<>();
 
         cache.fill(emptyRegion.iterator(), new SimpleInterval("1", 1, 100));
@@ -638,10 +638,94 @@ public final class FeatureDataSourceUnitTest extends BaseTest {
         Assert.assertTrue(cache.cacheHit(new SimpleInterval("1", 1, 100)), "Unexpected cache miss");
         Assert.assertTrue(cache.cacheHit(new SimpleInterval("1", 2, 99)), "Unexpected cache miss");
 
-        Assert.assertEquals(cache.getCachedFeaturesUpToStopPosition(100), emptyRegion, "Should get back empty List for empty region");
-        cache.trimToNewStartPosition(2);
+        Assert.assertEquals(cache.getCachedFeatures(new SimpleInterval("1", 1, 100)), emptyRegion, "Should get back empty List for empty region");
         Assert.assertTrue(cache.cacheHit(new SimpleInterval("1", 2, 100)), "Unexpected cache miss");
-        Assert.assertEquals(cache.getCachedFeaturesUpToStopPosition(100), emptyRegion, "Should get back empty List for empty region");
+        Assert.assertEquals(cache.getCachedFeatures(new SimpleInterval("1", 2, 100)), emptyRegion, "Should get back empty List for empty region");
+    }
+
+    @Test
+    public void testMultipleWindowsWithLRUEviction() {
+        final FeatureCache<ArtificialTestFeature> cache = new FeatureCache<>(FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES, 2);
+        final ArtificialTestFeature featureInFirstWindow = new ArtificialTestFeature("1", 10, 20);
+        final ArtificialTestFeature featureInSecondWindow = new ArtificialTestFeature("1", 1010, 1020);
+        final ArtificialTestFeature featureInThirdWindow = new ArtificialTestFeature("2", 10, 20);
+        final SimpleInterval firstWindow = new SimpleInterval("1", 1, 100);
+        final SimpleInterval secondWindow = new SimpleInterval("1", 1001, 1100);
+        final SimpleInterval thirdWindow = new SimpleInterval("2", 1, 100);
+
+        cache.fill(Collections.singletonList(featureInFirstWindow).iterator(), firstWindow);
+        cache.fill(Collections.singletonList(featureInSecondWindow).iterator(), secondWindow);
+
+        // Going back to the first window is a hit, and makes it the most recently used one
+        Assert.assertTrue(cache.cacheHit(new SimpleInterval("1", 5, 50)), "Unexpected cache miss");
+        Assert.assertEquals(cache.getCachedFeatures(new SimpleInterval("1", 5, 50)), Collections.singletonList(featureInFirstWindow));
+        Assert.assertTrue(cache.cacheHit(new SimpleInterval("1", 1005, 1050)), "Unexpected cache miss");
+        Assert.assertEquals(cache.getCachedFeatures(new SimpleInterval("1", 1005, 1050)), Collections.singletonList(featureInSecondWindow));
+        Assert.assertTrue(cache.cacheHit(new SimpleInterval("1", 5, 50)), "Unexpected cache miss");
+        Assert.assertEquals(cache.getCachedIntervals(), Arrays.asList(secondWindow, firstWindow));
+
+        // A third window evicts the least recently used one
+        Assert.assertFalse(cache.cacheHit(thirdWindow), "Unexpected cache hit");
+        cache.fill(Collections.singletonList(featureInThirdWindow).iterator(), thirdWindow);
+        Assert.assertEquals(cache.getCachedIntervals(), Arrays.asList(firstWindow, thirdWindow));
+        Assert.assertTrue(cache.cacheHit(new SimpleInterval("1", 5, 50)), "Unexpected cache miss");
+        Assert.assertFalse(cache.cacheHit(new SimpleInterval("1", 1005, 1050)), "Unexpected cache hit");
+        Assert.assertEquals(cache.getNumCacheHits(), 4);
+        Assert.assertEquals(cache.getNumCacheMisses(), 2);
+    }
+
+    @Test
+    public void testFillDiscardsContainedWindows() {
+        final FeatureCache<ArtificialTestFeature> cache = new FeatureCache<>(FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES);
+        cache.fill(Collections.<ArtificialTestFeature>emptyIterator(), new SimpleInterval("1", 10, 20));
+        cache.fill(Collections.<ArtificialTestFeature>emptyIterator(), new SimpleInterval("1", 15, 30));
+        cache.fill(Collections.<ArtificialTestFeature>emptyIterator(), new SimpleInterval("1", 1, 25));
+
+        Assert.assertEquals(cache.getCachedIntervals(), Arrays.asList(new SimpleInterval("1", 15, 30), new SimpleInterval("1", 1, 25)));
+    }
+
+    @Test
+    public void testAdaptiveLookahead() {
+        final int initialLookahead = 100;
+        final FeatureCache<ArtificialTestFeature> cache = new FeatureCache<>(initialLookahead);
+        Assert.assertEquals(cache.getLookaheadBases(), initialLookahead);
+
+        // Sparse sequential queries that run off the end of each window after a single hit grow the lookahead
+        int expectedLookahead = initialLookahead;
+        int start = 1;
+        for ( int i = 0; i < 20; ++i ) {
+            final SimpleInterval query = new SimpleInterval("1", start, start + 9);
+            Assert.assertFalse(cache.cacheHit(query), "Unexpected cache hit");
+            if ( i > 0 ) {
+                expectedLookahead = Math.min(expectedLookahead * 2, FeatureCache.MAX_ADAPTIVE_LOOKAHEAD_BASES);
+            }
+            Assert.assertEquals(cache.getLookaheadBases(), expectedLookahead);
+
+            final SimpleInterval window = new SimpleInterval("1", start, start + 9 + cache.getLookaheadBases());
+            cache.fill(Collections.<ArtificialTestFeature>emptyIterator(), window);
+            Assert.assertTrue(cache.cacheHit(query), "Unexpected cache miss");
+            start = window.getEnd() + 1;
+        }
+        Assert.assertEquals(cache.getLookaheadBases(), FeatureCache.MAX_ADAPTIVE_LOOKAHEAD_BASES);
+
+        // Random jumps away from windows that never served a hit shrink it back down to the initial lookahead
+        for ( int i = 0; i < 20; ++i ) {
+            final SimpleInterval query = new SimpleInterval("2", 1_000_000 - i * 10_000, 1_000_000 - i * 10_000 + 9);
+            Assert.assertFalse(cache.cacheHit(query), "Unexpected cache hit");
+            cache.fill(Collections.<ArtificialTestFeature>emptyIterator(), new SimpleInterval("2", query.getStart(), query.getEnd() + cache.getLookaheadBases()));
+        }
+        Assert.assertEquals(cache.getLookaheadBases(), initialLookahead);
+    }
+
+    @Test
+    public void testZeroLookaheadNeverAdapts() {
+        final FeatureCache<ArtificialTestFeature> cache = new FeatureCache<>(0);
+        for ( int start = 1; start < 1000; start += 10 ) {
+            final SimpleInterval query = new SimpleInterval("1", start, start + 9);
+            Assert.assertFalse(cache.cacheHit(query), "Unexpected cache hit");
+            cache.fill(Collections.<ArtificialTestFeature>emptyIterator(), query);
+        }
+        Assert.assertEquals(cache.getLookaheadBases(), 0);
     }
 
     /*********************************************************
@@ -174,4 +174,20 @@ public class ProgressMeterUnitTest extends BaseTest {
         Assert.assertTrue(pm.stopped());
     }
 
+
+    @Test
+    public void testProgressUpdateAction() {
+        final ProgressMeter meter = new ProgressMeter(1.0, new ListBasedTimeFunction(Arrays.asList(1000l, 2000l, 3000l, 4000l)));
+        final int[] actionRuns = {0};
+        meter.setProgressUpdateAction(() -> ++actionRuns[0]);
+        meter.start();
+        for ( int i = 1; i <= ProgressMeter.DEFAULT_RECORDS_BETWEEN_TIME_CHECKS * 2; ++i ) {
+            meter.update(new SimpleInterval("1", 1, 1));
+        }
+        meter.stop();
+
+        Assert.assertEquals(actionRuns[0], 2);
+        Assert.assertEquals(meter.numLoggerUpdates(), 2);
+        Assert.assertEquals(meter.numRecordsProcessed(), ProgressMeter.DEFAULT_RECORDS_BETWEEN_TIME_CHECKS * 2);
+    }
 }
@@ -242,6 +242,72 @@ public final class ReadsDataSourceUnitTest extends BaseTest {
         }
     }
 
+    @Test(dataProvider = "MultipleFilesCompleteTraversalData")
+    public void testMultipleFilesCompleteTraversalWithPrefetching(final List<File> samFiles, final List<String> expectedReadNames) {
+        try (ReadsDataSource readsSource = new ReadsDataSource(samFiles)) {
+            // use a single batch per file, so that the prefetch threads have to wait for the merge to catch up
+            readsSource.setPrefetchBatches(1);
+
+            final List<String> readNames = new ArrayList<>();
+            for (GATKRead read : readsSource) {
+                readNames.add(read.getName());
+            }
+            Assert.assertEquals(readNames, expectedReadNames, "Wrong reads returned in prefetching traversal of " + samFiles);
+
+            // a second traversal must close the prefetching iterators of the first and start over
+            readNames.clear();
+            readsSource.iterator().forEachRemaining(read -> readNames.add(read.getName()));
+            Assert.assertEquals(readNames, expectedReadNames, "Wrong reads returned in second prefetching traversal of " + samFiles);
+        }
+    }
+
+    @Test(dataProvider = "MultipleFilesCompleteTraversalData")
+    public void testMultipleFilesCompleteTraversalWithParallelInflation(final List<File> samFiles, final List<String> expectedReadNames) {
+        try (ReadsDataSource readsSource = new ReadsDataSource(samFiles)) {
+            readsSource.setInflaterThreads(3);
+
+            final List<String> readNames = new ArrayList<>();
+            for (GATKRead read : readsSource) {
+                readNames.add(read.getName());
+            }
+            Assert.assertEquals(readNames, expectedReadNames, "Wrong reads returned in parallel-inflating traversal of " + samFiles);
+
+            // combined with prefetching, the parallel-inflating iterators are read from the prefetch threads
+            readsSource.setPrefetchBatches(1);
+            readNames.clear();
+            readsSource.iterator().forEachRemaining(read -> readNames.add(read.getName()));
+            Assert.assertEquals(readNames, expectedReadNames, "Wrong reads returned in prefetching, parallel-inflating traversal of " + samFiles);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidInflaterThreads() {
+        try (ReadsDataSource readsSource = new ReadsDataSource(FIRST_TEST_BAM)) {
+            readsSource.setInflaterThreads(0);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNegativePrefetchBatches() {
+        try (ReadsDataSource readsSource = new ReadsDataSource(FIRST_TEST_BAM)) {
+            readsSource.setPrefetchBatches(-1);
+        }
+    }
+
+    @Test(expectedExceptions = SAMFormatException.class)
+    public void testPrefetchingPropagatesDecodingErrors() {
+        // Custom SamReaderFactory with validation stringency = STRICT fails on invalid coordinate sort,
+        // which must be reported to the traversal rather than lost on the prefetch thread
+        try (ReadsDataSource readsSource = new ReadsDataSource(
+                FIRST_TEST_SAM,
+                SamReaderFactory.makeDefault().validationStringency(ValidationStringency.STRICT))) {
+            readsSource.setPrefetchBatches(2);
+            //noinspection StatementWithEmptyBody
+            for ( @SuppressWarnings("unused") final GATKRead read : readsSource ) {
+            }
+        }
+    }
+
     @DataProvider(name = "MultipleFilesTraversalWithIntervalsData")
     public Object[][] getMultipleFilesTraversalWithIntervalsData() {
         // Files, with intervals, and expected read names in the expected order
@@ -340,6 +406,17 @@ public final class ReadsDataSourceUnitTest extends BaseTest {
         }
     }
 
+    @Test(dataProvider = "MultipleFilesQueryByIntervalData")
+    public void testMultipleFilesQueryByIntervalWithPrefetching( final List<File> samFiles, final SimpleInterval interval, final List<String> expectedReadNames ) {
+        try (ReadsDataSource readsSource = new ReadsDataSource(samFiles)) {
+            readsSource.setPrefetchBatches(4);
+
+            final List<String> readNames = new ArrayList<>();
+            readsSource.query(interval).forEachRemaining(read -> readNames.add(read.getName()));
+            Assert.assertEquals(readNames, expectedReadNames, "Wrong reads returned in prefetching query by interval of " + samFiles);
+        }
+    }
+
     @DataProvider(name = "TraversalWithUnmappedReadsTestData")
     public Object[][] traversalWithUnmappedReadsTestData() {
         // This bam has only mapped reads
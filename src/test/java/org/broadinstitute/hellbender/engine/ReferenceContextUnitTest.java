@@ -2,8 +2,10 @@ package org.broadinstitute.hellbender.engine;
 
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.runtime.AllocationCounter;
 import org.broadinstitute.hellbender.utils.test.BaseTest;
 import org.testng.Assert;
+import org.testng.SkipException;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
@@ -15,6 +17,7 @@ import java.util.List;
 public final class ReferenceContextUnitTest extends BaseTest {
 
     private static final File TEST_REFERENCE = new File(hg19MiniReference);
+    private static final File TWO_BIT_REFERENCE = new File(publicTestDir + "human_g1k_v37.chr17_1Mb.2bit");
 
     @DataProvider(name = "EmptyReferenceContextDataProvider")
     public Object[][] getEmptyReferenceContextData() {
@@ -229,4 +232,108 @@ public final class ReferenceContextUnitTest extends BaseTest {
             refContext.setWindow(windowStartOffset, windowStopOffset);
         }
     }
+
+    @Test
+    public void testReusableContextMatchesNewContexts() {
+        try ( ReferenceDataSource reference = new ReferenceFileSource(TEST_REFERENCE) ) {
+            final ReferenceContext reusableContext = ReferenceContext.createReusable(reference);
+            for ( final Object[] windowedCase : getWindowedReferenceIntervals() ) {
+                final SimpleInterval interval = (SimpleInterval)windowedCase[0];
+                final int windowStartOffset = (Integer)windowedCase[1];
+                final int windowStopOffset = (Integer)windowedCase[2];
+
+                reusableContext.reset(interval.getContig(), interval.getStart(), interval.getEnd());
+                final ReferenceContext newContext = new ReferenceContext(reference, interval);
+                Assert.assertEquals(reusableContext.getInterval(), interval);
+                Assert.assertEquals(reusableContext.getWindow(), interval);
+                Assert.assertEquals(reusableContext.getBases(), newContext.getBases());
+
+                reusableContext.setWindow(windowStartOffset, windowStopOffset);
+                newContext.setWindow(windowStartOffset, windowStopOffset);
+                Assert.assertEquals(reusableContext.getWindow(), windowedCase[3]);
+                Assert.assertEquals(reusableContext.getBases(), newContext.getBases());
+                Assert.assertEquals(new String(reusableContext.getBases()), windowedCase[4]);
+                Assert.assertEquals(reusableContext.getForwardBases(), newContext.getForwardBases());
+            }
+        }
+    }
+
+    @Test
+    public void testResetDiscardsWindow() {
+        try ( ReferenceDataSource reference = new ReferenceFileSource(TEST_REFERENCE) ) {
+            final ReferenceContext reusableContext = ReferenceContext.createReusable(reference);
+            reusableContext.reset("1", 11210, 11220);
+            reusableContext.setWindow(5, 5);
+            Assert.assertEquals(reusableContext.getBases().length, 21);
+
+            reusableContext.reset("1", 11041, 11045);
+            Assert.assertEquals(reusableContext.numWindowLeadingBases(), 0);
+            Assert.assertEquals(reusableContext.numWindowTrailingBases(), 0);
+            Assert.assertEquals(reusableContext.getWindow(), new SimpleInterval("1", 11041, 11045));
+            checkReferenceContextBases(reusableContext, "GCAAA");
+        }
+    }
+
+    @Test
+    public void testResetToUnknownLocation() {
+        try ( ReferenceDataSource reference = new ReferenceFileSource(TEST_REFERENCE) ) {
+            final ReferenceContext reusableContext = ReferenceContext.createReusable(reference);
+            reusableContext.reset("1", 11041, 11045);
+            Assert.assertEquals(reusableContext.getBases().length, 5);
+
+            reusableContext.reset(null, 0, 0);
+            Assert.assertNull(reusableContext.getInterval());
+            Assert.assertNull(reusableContext.getWindow());
+            Assert.assertEquals(reusableContext.getBases().length, 0);
+            Assert.assertFalse(reusableContext.iterator().hasNext());
+        }
+    }
+
+    @Test
+    public void testReusableContextWithoutReference() {
+        final ReferenceContext reusableContext = ReferenceContext.createReusable(null);
+        reusableContext.reset("1", 1, 10);
+        Assert.assertFalse(reusableContext.hasBackingDataSource());
+        Assert.assertEquals(reusableContext.getInterval(), new SimpleInterval("1", 1, 10));
+        Assert.assertEquals(reusableContext.getBases().length, 0);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testCannotResetNonReusableContext() {
+        try ( ReferenceDataSource reference = new ReferenceFileSource(TEST_REFERENCE) ) {
+            new ReferenceContext(reference, new SimpleInterval("1", 1, 10)).reset("1", 11, 20);
+        }
+    }
+
+    @Test
+    public void testReusableContextDoesNotAllocatePerRecord() {
+        if ( ! AllocationCounter.isSupported() ) {
+            throw new SkipException("Allocation counting is not supported by this JVM");
+        }
+        final int numRecords = 100_000;
+        final int readLength = 101;
+        try ( ReferenceDataSource reference = new ReferenceTwoBitFileSource(TWO_BIT_REFERENCE) ) {
+            final ReferenceContext reusableContext = ReferenceContext.createReusable(reference);
+            // warm up, so that the measured loop runs compiled code
+            long checksum = traverseWithReusableContext(reusableContext, numRecords, readLength);
+
+            final AllocationCounter allocationCounter = new AllocationCounter();
+            checksum += traverseWithReusableContext(reusableContext, numRecords, readLength);
+            final long allocatedBytes = allocationCounter.getAllocatedBytes();
+
+            Assert.assertTrue(checksum > 0);
+            Assert.assertTrue(allocatedBytes / (double)numRecords < 1.0,
+                    "Reusable ReferenceContext allocated " + allocatedBytes + " bytes for " + numRecords + " records");
+        }
+    }
+
+    private static long traverseWithReusableContext( final ReferenceContext reusableContext, final int numRecords, final int readLength ) {
+        long checksum = 0;
+        for ( int i = 0; i < numRecords; ++i ) {
+            final int start = 1 + (i * 7) % (1_000_000 - readLength);
+            reusableContext.reset("17", start, start + readLength - 1);
+            checksum += reusableContext.getBases()[readLength / 2];
+        }
+        return checksum;
+    }
 }
@@ -0,0 +1,150 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.reference.ReferenceSequence;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.test.BaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public final class ReferenceTwoBitFileSourceUnitTest extends BaseTest {
+
+    private static final File TWO_BIT_REFERENCE = new File(publicTestDir + "human_g1k_v37.chr17_1Mb.2bit");
+    private static final File FASTA_REFERENCE = new File(publicTestDir + "human_g1k_v37.chr17_1Mb.fasta");
+    private static final int CONTIG_LENGTH = 1_000_000;
+
+    @Test
+    public void testGetSequenceDictionary() {
+        try ( final ReferenceDataSource twoBit = new ReferenceTwoBitFileSource(TWO_BIT_REFERENCE);
+              final ReferenceDataSource fasta = new ReferenceFileSource(FASTA_REFERENCE) ) {
+            final SAMSequenceDictionary twoBitDictionary = twoBit.getSequenceDictionary();
+            final SAMSequenceDictionary fastaDictionary = fasta.getSequenceDictionary();
+            Assert.assertEquals(twoBitDictionary.size(), fastaDictionary.size());
+            for ( int i = 0; i < twoBitDictionary.size(); ++i ) {
+                Assert.assertEquals(twoBitDictionary.getSequence(i).getSequenceName(), fastaDictionary.getSequence(i).getSequenceName());
+                Assert.assertEquals(twoBitDictionary.getSequence(i).getSequenceLength(), fastaDictionary.getSequence(i).getSequenceLength());
+            }
+        }
+    }
+
+    @DataProvider(name = "QueryIntervals")
+    public Object[][] getQueryIntervals() {
+        final List<Object[]> intervals = new ArrayList<>();
+        // boundaries of the contig, and every alignment of the query with respect to the packed bytes
+        intervals.add(new Object[]{ new SimpleInterval("17", 1, 1) });
+        intervals.add(new Object[]{ new SimpleInterval("17", 1, 10_000) });
+        intervals.add(new Object[]{ new SimpleInterval("17", CONTIG_LENGTH - 10, CONTIG_LENGTH) });
+        intervals.add(new Object[]{ new SimpleInterval("17", CONTIG_LENGTH, CONTIG_LENGTH) });
+        intervals.add(new Object[]{ new SimpleInterval("17", 296_000, 297_000) });
+        intervals.add(new Object[]{ new SimpleInterval("17", 396_000, 397_000) });
+        for ( int start = 100_001; start < 100_005; ++start ) {
+            for ( int length = 1; length <= 9; ++length ) {
+                intervals.add(new Object[]{ new SimpleInterval("17", start, start + length - 1) });
+            }
+        }
+        final Random random = new Random(17);
+        for ( int i = 0; i < 50; ++i ) {
+            final int start = 1 + random.nextInt(CONTIG_LENGTH);
+            final int stop = Math.min(CONTIG_LENGTH, start + random.nextInt(5_000));
+            intervals.add(new Object[]{ new SimpleInterval("17", start, stop) });
+        }
+        return intervals.toArray(new Object[][]{});
+    }
+
+    @Test(dataProvider = "QueryIntervals")
+    public void testQueryAndPrefetchMatchesFasta( final SimpleInterval interval ) {
+        try ( final ReferenceDataSource twoBit = new ReferenceTwoBitFileSource(TWO_BIT_REFERENCE);
+              final ReferenceDataSource fasta = new ReferenceFileSource(FASTA_REFERENCE) ) {
+            final ReferenceSequence twoBitBases = twoBit.queryAndPrefetch(interval);
+            final ReferenceSequence fastaBases = fasta.queryAndPrefetch(interval);
+
+            Assert.assertEquals(new String(twoBitBases.getBases()), new String(fastaBases.getBases()), "Wrong bases returned for interval " + interval);
+            Assert.assertEquals(twoBitBases.getName(), "17");
+            Assert.assertEquals(twoBitBases.getContigIndex(), 0);
+        }
+    }
+
+    @Test
+    public void testNBlocks() {
+        try ( final ReferenceDataSource twoBit = new ReferenceTwoBitFileSource(TWO_BIT_REFERENCE) ) {
+            // this snippet of chromosome 17 has a single N block, spanning 296627-396626
+            Assert.assertEquals(new String(twoBit.queryAndPrefetch(new SimpleInterval("17", 296624, 296630)).getBases()), "ATCNNNN");
+            Assert.assertEquals(new String(twoBit.queryAndPrefetch(new SimpleInterval("17", 300000, 300005)).getBases()), "NNNNNN");
+            Assert.assertEquals(new String(twoBit.queryAndPrefetch(new SimpleInterval("17", 396626, 396627)).getBases()).charAt(0), 'N');
+            Assert.assertNotEquals(new String(twoBit.queryAndPrefetch(new SimpleInterval("17", 396626, 396627)).getBases()).charAt(1), 'N');
+        }
+    }
+
+    @Test
+    public void testOf() {
+        try ( final ReferenceDataSource reference = ReferenceDataSource.of(TWO_BIT_REFERENCE) ) {
+            Assert.assertTrue(reference instanceof ReferenceTwoBitFileSource);
+        }
+        try ( final ReferenceDataSource reference = ReferenceDataSource.of(FASTA_REFERENCE) ) {
+            Assert.assertTrue(reference instanceof ReferenceFileSource);
+        }
+    }
+
+    @Test
+    public void testConcurrentQueries() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try ( final ReferenceDataSource twoBit = new ReferenceTwoBitFileSource(TWO_BIT_REFERENCE);
+              final ReferenceDataSource fasta = new ReferenceFileSource(FASTA_REFERENCE) ) {
+            final List<SimpleInterval> intervals = new ArrayList<>();
+            final List<Future<byte[]>> results = new ArrayList<>();
+            final Random random = new Random(1);
+            for ( int i = 0; i < 200; ++i ) {
+                final int start = 1 + random.nextInt(CONTIG_LENGTH - 1_000);
+                final SimpleInterval interval = new SimpleInterval("17", start, start + random.nextInt(1_000));
+                intervals.add(interval);
+                results.add(executor.submit(() -> twoBit.queryAndPrefetch(interval).getBases()));
+            }
+            for ( int i = 0; i < intervals.size(); ++i ) {
+                Assert.assertEquals(new String(results.get(i).get()), new String(fasta.queryAndPrefetch(intervals.get(i)).getBases()));
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testQueryPastEndOfContig() {
+        try ( final ReferenceDataSource twoBit = new ReferenceTwoBitFileSource(TWO_BIT_REFERENCE) ) {
+            twoBit.queryAndPrefetch("17", CONTIG_LENGTH - 10, CONTIG_LENGTH + 1);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testQueryUnknownContig() {
+        try ( final ReferenceDataSource twoBit = new ReferenceTwoBitFileSource(TWO_BIT_REFERENCE) ) {
+            twoBit.queryAndPrefetch("1", 1, 10);
+        }
+    }
+
+    @Test(expectedExceptions = UserException.MissingReference.class)
+    public void testNonExistentReference() {
+        new ReferenceTwoBitFileSource(BaseTest.getSafeNonExistentFile("nonexistent.2bit"));
+    }
+
+    @Test(expectedExceptions = UserException.MalformedFile.class)
+    public void testNotTwoBit() throws IOException {
+        final File notTwoBit = createTempFile("ReferenceTwoBitFileSourceUnitTest", ".2bit");
+        try ( final FileOutputStream out = new FileOutputStream(notTwoBit) ) {
+            out.write(">17\nACGT\n".getBytes());
+        }
+        new ReferenceTwoBitFileSource(notTwoBit);
+    }
+}
@@ -0,0 +1,137 @@
+package org.broadinstitute.hellbender.engine;
+
+import org.apache.commons.io.FileUtils;
+import org.broadinstitute.hellbender.engine.TraversalMetrics.Stage;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.test.BaseTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+public final class TraversalMetricsUnitTest extends BaseTest {
+
+    /**
+     * Clock that advances by one second every time it is read
+     */
+    private static final class TickingClock implements LongSupplier {
+        private long now = 0L;
+
+        @Override
+        public long getAsLong() {
+            now += 1_000_000_000L;
+            return now;
+        }
+    }
+
+    @Test
+    public void testNestedStages() {
+        final TraversalMetrics metrics = new TraversalMetrics(true, new TickingClock());
+        metrics.start();                                          // t=1: start, t=2: enter APPLY
+        final Stage outer = metrics.enter(Stage.REFERENCE);       // t=3: APPLY +1
+        Assert.assertEquals(outer, Stage.APPLY);
+        final Stage inner = metrics.enter(Stage.FEATURES);        // t=4: REFERENCE +1
+        Assert.assertEquals(inner, Stage.REFERENCE);
+        metrics.exit(inner);                                      // t=5: FEATURES +1
+        metrics.exit(outer);                                      // t=6: REFERENCE +1
+        metrics.stop();                                           // t=7: APPLY +1, t=8: stop
+
+        Assert.assertEquals(metrics.getSeconds(Stage.APPLY), 2.0);
+        Assert.assertEquals(metrics.getSeconds(Stage.REFERENCE), 2.0);
+        Assert.assertEquals(metrics.getSeconds(Stage.FEATURES), 1.0);
+        Assert.assertEquals(metrics.getSeconds(Stage.READS), 0.0);
+        Assert.assertEquals(metrics.getEntries(Stage.APPLY), 1);
+        Assert.assertEquals(metrics.getEntries(Stage.REFERENCE), 1);
+        Assert.assertEquals(metrics.getEntries(Stage.FEATURES), 1);
+        Assert.assertEquals(metrics.getElapsedSeconds(), 7.0);
+    }
+
+    @Test
+    public void testWrappedIteratorAndPredicate() {
+        final TraversalMetrics metrics = new TraversalMetrics(true, new TickingClock());
+        metrics.start();
+        final Iterator<Integer> iterator = metrics.wrap(Stage.READS, Arrays.asList(1, 2, 3).iterator());
+        final Predicate<Integer> isOdd = metrics.wrap(Stage.FILTERING, (Predicate<Integer>) i -> i % 2 == 1);
+        int numOdd = 0;
+        while ( iterator.hasNext() ) {
+            if ( isOdd.test(iterator.next()) ) {
+                ++numOdd;
+            }
+        }
+        metrics.stop();
+
+        Assert.assertEquals(numOdd, 2);
+        Assert.assertEquals(metrics.getEntries(Stage.READS), 7);     // 4 hasNext() + 3 next()
+        Assert.assertEquals(metrics.getEntries(Stage.FILTERING), 3);
+        Assert.assertEquals(metrics.getSeconds(Stage.READS), 7.0);
+        Assert.assertEquals(metrics.getSeconds(Stage.FILTERING), 3.0);
+    }
+
+    @Test
+    public void testStagesOnOtherThreadsAreCounted() throws InterruptedException {
+        final TraversalMetrics metrics = new TraversalMetrics();
+        metrics.start();
+        final Thread worker = new Thread(() -> metrics.time(Stage.APPLY, () -> metrics.time(Stage.REFERENCE, () -> null)));
+        worker.start();
+        worker.join();
+        metrics.stop();
+
+        Assert.assertEquals(metrics.getEntries(Stage.APPLY), 2);
+        Assert.assertEquals(metrics.getEntries(Stage.REFERENCE), 1);
+    }
+
+    @Test
+    public void testDisabledMetrics() {
+        final TraversalMetrics metrics = TraversalMetrics.DISABLED;
+        Assert.assertFalse(metrics.isEnabled());
+        final Iterator<Integer> iterator = Arrays.asList(1, 2).iterator();
+        final Predicate<Integer> predicate = i -> true;
+        Assert.assertSame(metrics.wrap(Stage.READS, iterator), iterator);
+        Assert.assertSame(metrics.wrap(Stage.FILTERING, predicate), predicate);
+        Assert.assertNull(metrics.wrap((ReferenceDataSource) null));
+
+        metrics.start();
+        Assert.assertNull(metrics.enter(Stage.APPLY));
+        metrics.stop();
+        for ( final Stage stage : Stage.values() ) {
+            Assert.assertEquals(metrics.getEntries(stage), 0);
+            Assert.assertEquals(metrics.getSeconds(stage), 0.0);
+        }
+    }
+
+    @Test
+    public void testWrappedReferenceQueries() {
+        final TraversalMetrics metrics = new TraversalMetrics(true, new TickingClock());
+        try ( final ReferenceDataSource reference = metrics.wrap(new ReferenceFileSource(new File(hg19MiniReference))) ) {
+            metrics.start();
+            Assert.assertEquals(new String(new ReferenceContext(reference, new SimpleInterval("1", 11041, 11045)).getBases()), "GCAAA");
+            metrics.stop();
+        }
+        Assert.assertEquals(metrics.getEntries(Stage.REFERENCE), 1);
+        Assert.assertEquals(metrics.getSeconds(Stage.REFERENCE), 1.0);
+    }
+
+    @Test
+    public void testWriteReport() throws IOException {
+        final TraversalMetrics metrics = new TraversalMetrics(true, new TickingClock());
+        metrics.start();
+        metrics.exit(metrics.enter(Stage.OUTPUT));
+        metrics.stop();
+
+        final File report = createTempFile("traversalMetrics", ".tsv");
+        metrics.writeReport(report, 4);
+        final List<String> lines = FileUtils.readLines(report);
+        Assert.assertEquals(lines.size(), 3 + Stage.values().length);
+        Assert.assertEquals(lines.get(1), "#RECORDS\t4");
+        Assert.assertEquals(lines.get(2), "STAGE\tSECONDS\tPERCENT\tENTRIES\tNANOSECONDS_PER_RECORD");
+        Assert.assertTrue(lines.contains("APPLY\t2.000\t66.67\t1\t500000000.0"), lines.toString());
+        Assert.assertTrue(lines.contains("OUTPUT\t1.000\t33.33\t1\t250000000.0"), lines.toString());
+        Assert.assertTrue(lines.contains("READS\t0.000\t0.00\t0\t0.0"), lines.toString());
+    }
+}
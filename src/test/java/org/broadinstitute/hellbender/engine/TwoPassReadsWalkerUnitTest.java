@@ -11,6 +11,8 @@ import org.testng.annotations.Test;
 import org.testng.annotations.DataProvider;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 public class TwoPassReadsWalkerUnitTest extends CommandLineProgramTest{
 
@@ -38,6 +40,64 @@ public class TwoPassReadsWalkerUnitTest extends CommandLineProgramTest{
         }
     }
 
+    @CommandLineProgramProperties(
+            summary = "Dummy that records the reads seen on each pass",
+            oneLineSummary = "empty class",
+            programGroup = TestProgramGroup.class
+    )
+    private static class recordingTwoPassReadsWalker extends TwoPassReadWalker {
+        final List<String> firstPassReads = new ArrayList<>();
+        final List<String> secondPassReads = new ArrayList<>();
+        @Override
+        protected void firstPassApply(GATKRead read, ReferenceContext referenceContext, FeatureContext featureContext) {
+            firstPassReads.add(describe(read, referenceContext));
+            // modifications made on the first pass must not be seen on the second pass
+            read.setName("modified");
+        }
+        @Override
+        protected void secondPassApply(GATKRead read, ReferenceContext referenceContext, FeatureContext featureContext) {
+            secondPassReads.add(describe(read, referenceContext));
+        }
+        private static String describe(GATKRead read, ReferenceContext referenceContext) {
+            return read.getName() + " " + read.getContig() + ":" + read.getStart() + " " + read.getCigar() + " " +
+                   read.getBasesString() + " " + new String(referenceContext.getBases());
+        }
+    }
+
+    @Test(dataProvider = "unsortedFiles")
+    public void testSpilledReadsMatchFirstPass(String file) {
+        final TwoPassReadsWalkerUnitTest.recordingTwoPassReadsWalker tool = new TwoPassReadsWalkerUnitTest.recordingTwoPassReadsWalker();
+
+        final String[] args = {
+                "-I", getTestDataDir()+ file,
+                "-R", getTestDataDir()+ "/count_reads.fasta",
+                "--spillReadsBetweenPasses"
+        };
+
+        tool.instanceMain(args);
+
+        Assert.assertEquals(tool.firstPassReads.size(), 8);
+        Assert.assertEquals(tool.secondPassReads, tool.firstPassReads);
+    }
+
+    @Test(dataProvider = "sortedFiles")
+    public void testSpilledReadsWithIntervalFiltering(String file) {
+        final TwoPassReadsWalkerUnitTest.dummyTwoPassReadsWalker tool = new TwoPassReadsWalkerUnitTest.dummyTwoPassReadsWalker();
+
+        final String[] args = {
+                "-I", getTestDataDir()+ file,
+                "-R", getTestDataDir()+ "/count_reads.fasta",
+                "-L", "chr7:10-40",
+                "--spillReadsBetweenPasses"
+        };
+
+        tool.instanceMain(args);
+
+        Assert.assertEquals(tool.firstPass, 5);
+        Assert.assertEquals(tool.secondPass, 5);
+        Assert.assertTrue(tool.betweenTraversals);
+    }
+
     @Test(dataProvider = "unsortedFiles")
     public void testDifferentFormatEquivalentBehavior(String file) throws IOException {
         final TwoPassReadsWalkerUnitTest.dummyTwoPassReadsWalker tool = new TwoPassReadsWalkerUnitTest.dummyTwoPassReadsWalker();
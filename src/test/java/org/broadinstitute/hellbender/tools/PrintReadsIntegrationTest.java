@@ -4,6 +4,7 @@ import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.SamReader;
 import org.apache.commons.io.FileUtils;
 import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.ValidationStringency;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.engine.ReadsDataSource;
@@ -139,6 +140,82 @@ public final class PrintReadsIntegrationTest extends CommandLineProgramTest{
         SamAssertionUtils.assertSamsEqual(outFile, zeroRefBasesReadBam);
     }
 
+    @Test
+    public void testMultiThreadedTraversalPreservesReadOrder() throws IOException {
+        final File inputBam = new File(publicTestDir + "org/broadinstitute/hellbender/engine/CEUTrio.HiSeq.WGS.b37.NA12878.snippet_with_unmapped.bam");
+        final File outFile = BaseTest.createTempFile("testMultiThreadedTraversalPreservesReadOrder", ".bam");
+        final String[] args = new String[] {
+                "--input" , inputBam.getAbsolutePath(),
+                "--output", outFile.getAbsolutePath(),
+                "--traversalThreads", "4"
+        };
+        runCommandLine(args);
+
+        SamAssertionUtils.assertSamsEqual(outFile, inputBam);
+    }
+
+    @DataProvider(name = "traversalMetricsThreads")
+    public Object[][] getTraversalMetricsThreads() {
+        return new Object[][] { { 1 }, { 4 } };
+    }
+
+    @Test(dataProvider = "traversalMetricsThreads")
+    public void testTraversalMetrics(final int traversalThreads) throws IOException {
+        final File inputBam = new File(publicTestDir + "org/broadinstitute/hellbender/engine/CEUTrio.HiSeq.WGS.b37.NA12878.snippet_with_unmapped.bam");
+        final File outFile = BaseTest.createTempFile("testTraversalMetrics", ".bam");
+        final File metricsFile = BaseTest.createTempFile("testTraversalMetrics", ".tsv");
+        final String[] args = new String[] {
+                "--input" , inputBam.getAbsolutePath(),
+                "--output", outFile.getAbsolutePath(),
+                "--traversalThreads", String.valueOf(traversalThreads),
+                "--traversalMetricsFile", metricsFile.getAbsolutePath()
+        };
+        runCommandLine(args);
+
+        SamAssertionUtils.assertSamsEqual(outFile, inputBam);
+
+        final Map<String, String[]> rows = new HashMap<>();
+        for ( final String line : FileUtils.readLines(metricsFile) ) {
+            final String[] fields = line.split("\t");
+            rows.put(fields[0], fields);
+        }
+        final long numReads = Long.parseLong(rows.get("#RECORDS")[1]);
+        Assert.assertTrue(numReads > 0);
+        for ( final String stage : Arrays.asList("READS", "FILTERING", "APPLY", "OUTPUT") ) {
+            Assert.assertTrue(rows.containsKey(stage), "Missing stage " + stage);
+            Assert.assertTrue(Long.parseLong(rows.get(stage)[3]) > 0, "Stage " + stage + " was never entered");
+        }
+        Assert.assertTrue(Long.parseLong(rows.get("FILTERING")[3]) >= numReads);
+    }
+
+    @Test
+    public void testReadPrefetching() throws IOException {
+        final File inputBam = new File(publicTestDir + "org/broadinstitute/hellbender/engine/CEUTrio.HiSeq.WGS.b37.NA12878.snippet_with_unmapped.bam");
+        final File outFile = BaseTest.createTempFile("testReadPrefetching", ".bam");
+        final String[] args = new String[] {
+                "--input" , inputBam.getAbsolutePath(),
+                "--output", outFile.getAbsolutePath(),
+                "--readPrefetchBatches", "2"
+        };
+        runCommandLine(args);
+
+        SamAssertionUtils.assertSamsEqual(outFile, inputBam);
+    }
+
+    @Test
+    public void testTwoBitReference() throws IOException {
+        final File inputBam = new File(publicTestDir + "org/broadinstitute/hellbender/tools/BQSR/NA12878.chr17_69k_70k.dictFix.bam");
+        final File outFile = BaseTest.createTempFile("testTwoBitReference", ".bam");
+        final String[] args = new String[] {
+                "--input" , inputBam.getAbsolutePath(),
+                "--output", outFile.getAbsolutePath(),
+                "-R", publicTestDir + "human_g1k_v37.chr17_1Mb.2bit"
+        };
+        runCommandLine(args);
+
+        SamAssertionUtils.assertSamsEqual(outFile, inputBam, ValidationStringency.LENIENT);
+    }
+
     @Test
     public void testNoConflictPG() throws IOException {
         final File inFile = new File(TEST_DATA_DIR, "print_reads_withPG.sam");
@@ -4,6 +4,7 @@ import org.broadinstitute.hellbender.CommandLineProgramTest;
 import org.broadinstitute.hellbender.utils.test.IntegrationTestSpec;
 import org.testng.annotations.Test;
 
+import java.io.File;
 import java.util.Arrays;
 
 public class ExampleAssemblyRegionWalkerIntegrationTest extends CommandLineProgramTest {
@@ -22,4 +23,31 @@ public class ExampleAssemblyRegionWalkerIntegrationTest extends CommandLineProgr
 
         testSpec.executeTest("testExampleAssemblyRegionWalker", this);
     }
+
+    @Test
+    public void testExampleAssemblyRegionWalkerMultiThreaded() throws Exception {
+        IntegrationTestSpec testSpec = new IntegrationTestSpec(
+                " -R " + b37_reference_20_21 +
+                " -I " + NA12878_20_21_WGS_bam +
+                " -knownVariants " + dbsnp_138_b37_20_21_vcf +
+                " -L 20:10000000-10050000 " +
+                " --traversalThreads 4 " +
+                " -O %s",
+                Arrays.asList(TEST_OUTPUT_DIRECTORY + "expected_ExampleAssemblyRegionWalkerIntegrationTest_output.txt")
+        );
+
+        testSpec.executeTest("testExampleAssemblyRegionWalkerMultiThreaded", this);
+    }
+
+    @Test
+    public void testMultiThreadedOutputMatchesSingleThreaded() throws Exception {
+        final String inputBam = publicTestDir + "org/broadinstitute/hellbender/engine/reads_data_source_test1.bam";
+        final File expected = createTempFile("testExampleAssemblyRegionWalker.singleThreaded", ".txt");
+        final File actual = createTempFile("testExampleAssemblyRegionWalker.multiThreaded", ".txt");
+        runCommandLine(Arrays.asList("-R", hg19MiniReference, "-I", inputBam, "-readShardSize", "1000", "-O", expected.getAbsolutePath()));
+        runCommandLine(Arrays.asList("-R", hg19MiniReference, "-I", inputBam, "-readShardSize", "1000", "-O", actual.getAbsolutePath(),
+                "--traversalThreads", "4"));
+
+        IntegrationTestSpec.assertEqualTextFiles(actual, expected);
+    }
 }
@@ -73,4 +73,28 @@ public final class CollectBaseDistributionByCycleIntegrationTest extends Command
 
         IntegrationTestSpec.assertEqualTextFiles(outfile, expectedFile, "#");
     }
+
+    @Test
+    public void testParallelInflation() throws IOException {
+        final File input = new File(TEST_DATA_DIR, "first5000a.bam");
+        final File expectedFile = new File(TEST_DATA_DIR, "CollectBaseDistributionByCycle.txt");
+        final File outfile = BaseTest.createTempFile("testParallelInflation", ".metrics");
+        final File pdf = BaseTest.createTempFile("testParallelInflation", ".pdf");
+
+        final ArgumentsBuilder args = new ArgumentsBuilder();
+        args.add("--input");
+        args.add(input.getCanonicalPath());
+        args.add("--output");
+        args.add(outfile.getCanonicalPath());
+        args.add("--CHART_OUTPUT");
+        args.add(pdf.getCanonicalPath());
+        args.add("--PRODUCE_PLOT");
+        args.add(false);
+        args.add("--INFLATER_THREADS");
+        args.add(4);
+
+        this.runCommandLine(args.getArgsArray());
+
+        IntegrationTestSpec.assertEqualTextFiles(outfile, expectedFile, "#");
+    }
 }
@@ -0,0 +1,295 @@
+package org.broadinstitute.hellbender.tools.walkers.annotator;
+
+import htsjdk.samtools.TextCigarCodec;
+import htsjdk.variant.variantcontext.*;
+import org.broadinstitute.hellbender.tools.walkers.annotator.allelespecific.*;
+import org.broadinstitute.hellbender.utils.MannWhitneyU;
+import org.broadinstitute.hellbender.utils.genotyper.*;
+import org.broadinstitute.hellbender.utils.read.AlignmentUtils;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+import org.broadinstitute.hellbender.utils.test.BaseTest;
+import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public final class SiteReadEvidenceUnitTest extends BaseTest {
+    private static final List<String> SAMPLES = Arrays.asList("NA1", "NA2");
+
+    private static final Allele REF = Allele.create("T", true);
+    private static final Allele ALT = Allele.create("A", false);
+    private static final Allele OTHER_ALT = Allele.create("C", false);
+
+    private static ReadLikelihoods<Allele> makeLikelihoods() {
+        final Random random = new Random(7);
+        final Map<String, List<GATKRead>> readsBySample = new LinkedHashMap<>();
+        for (final String sample : SAMPLES) {
+            final List<GATKRead> reads = new ArrayList<>();
+            for (int r = 0; r < 20; r++) {
+                final byte[] quals = new byte[10];
+                for (int i = 0; i < quals.length; i++) {
+                    quals[i] = (byte) (10 + random.nextInt(30));
+                }
+                // reads starting at different positions, some soft-clipped or with a deletion over the site
+                final String cigar = r % 4 == 0 ? "2S8M" : (r % 4 == 1 ? "3M2D7M" : "10M");
+                final GATKRead read = ArtificialReadUtils.createArtificialRead(TextCigarCodec.decode(cigar));
+                read.setPosition(read.getContig(), 8 + r % 5);
+                read.setBaseQualities(quals);
+                read.setMappingQuality(20 + r);
+                read.setIsReverseStrand(r % 3 == 0);
+                reads.add(read);
+            }
+            readsBySample.put(sample, reads);
+        }
+        final ReadLikelihoods<Allele> likelihoods = new ReadLikelihoods<>(new IndexedSampleList(SAMPLES),
+                new IndexedAlleleList<>(Arrays.asList(REF, ALT, OTHER_ALT)), readsBySample);
+        for (int s = 0; s < SAMPLES.size(); s++) {
+            final LikelihoodMatrix<Allele> matrix = likelihoods.sampleMatrix(s);
+            for (int a = 0; a < matrix.numberOfAlleles(); a++) {
+                for (int r = 0; r < matrix.numberOfReads(); r++) {
+                    matrix.set(a, r, -random.nextInt(5) * 0.5);
+                }
+            }
+        }
+        return likelihoods;
+    }
+
+    private static VariantContext makeVC() {
+        return new VariantContextBuilder().alleles(Arrays.asList(REF, ALT)).chr("1").start(12L).stop(12L).make();
+    }
+
+    @Test
+    public void testReads() {
+        final ReadLikelihoods<Allele> likelihoods = makeLikelihoods();
+        final SiteReadEvidence evidence = new SiteReadEvidence(likelihoods, makeVC());
+        Assert.assertSame(evidence.getLikelihoods(), likelihoods);
+
+        final List<ReadLikelihoods<Allele>.BestAllele> expected = new ArrayList<>(likelihoods.bestAlleles());
+        final List<SiteReadEvidence.ReadEvidence> actual = evidence.reads();
+        Assert.assertEquals(actual.size(), expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertSame(actual.get(i).getRead(), expected.get(i).read);
+            Assert.assertEquals(actual.get(i).getAllele(), expected.get(i).allele);
+            Assert.assertEquals(actual.get(i).isInformative(), expected.get(i).isInformative());
+        }
+
+        int offset = 0;
+        for (final String sample : SAMPLES) {
+            final List<SiteReadEvidence.ReadEvidence> sampleReads = evidence.reads(sample);
+            Assert.assertEquals(sampleReads, actual.subList(offset, offset + sampleReads.size()));
+            Assert.assertTrue(sampleReads.stream().allMatch(re -> re.getBestAllele().sample.equals(sample)));
+            offset += sampleReads.size();
+        }
+        // computed once
+        Assert.assertSame(evidence.reads(), actual);
+    }
+
+    @Test
+    public void testValuesAtSite() {
+        final VariantContext vc = makeVC();
+        final SiteReadEvidence evidence = new SiteReadEvidence(makeLikelihoods(), vc);
+        for (final SiteReadEvidence.ReadEvidence readEvidence : evidence.reads()) {
+            final GATKRead read = readEvidence.getRead();
+            final int expectedBaseQuality = read.getBaseQuality(ReadUtils.getReadCoordinateForReferenceCoordinateUpToEndOfRead(read, vc.getStart(), ReadUtils.ClippingTail.RIGHT_TAIL));
+            Assert.assertEquals(readEvidence.getBaseQualityAtSite(), expectedBaseQuality);
+            Assert.assertEquals(readEvidence.getReadPositionAtSite(), ReadPosRankSumTest.getReadPosition(read, vc.getStart()));
+            // cached values
+            Assert.assertEquals(readEvidence.getBaseQualityAtSite(), expectedBaseQuality);
+            Assert.assertEquals(readEvidence.getReadPositionAtSite(), ReadPosRankSumTest.getReadPosition(read, vc.getStart()));
+        }
+    }
+
+    @Test
+    public void testBestAllelesAmongVariantAlleles() {
+        final ReadLikelihoods<Allele> likelihoods = makeLikelihoods();
+        final VariantContext vc = makeVC();
+        final SiteReadEvidence evidence = new SiteReadEvidence(likelihoods, vc);
+
+        final Map<Allele, List<Allele>> alleleSubset = vc.getAlleles().stream().collect(Collectors.toMap(a -> a, Arrays::asList));
+        final ReadLikelihoods<Allele> marginalized = likelihoods.marginalize(alleleSubset);
+        for (final String sample : SAMPLES) {
+            final List<ReadLikelihoods<Allele>.BestAllele> expected = new ArrayList<>(marginalized.bestAlleles(sample));
+            final List<ReadLikelihoods<Allele>.BestAllele> actual = evidence.bestAllelesAmongVariantAlleles(sample);
+            Assert.assertEquals(actual.size(), expected.size());
+            for (int i = 0; i < expected.size(); i++) {
+                Assert.assertSame(actual.get(i).read, expected.get(i).read);
+                Assert.assertEquals(actual.get(i).allele, expected.get(i).allele);
+                Assert.assertEquals(actual.get(i).confidence, expected.get(i).confidence);
+                Assert.assertNotEquals(actual.get(i).allele, OTHER_ALT);
+            }
+            Assert.assertSame(evidence.bestAllelesAmongVariantAlleles(sample), actual);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnknownSample() {
+        new SiteReadEvidence(makeLikelihoods(), makeVC()).reads("NA3");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnknownSampleAmongVariantAlleles() {
+        new SiteReadEvidence(makeLikelihoods(), makeVC()).bestAllelesAmongVariantAlleles("NA3");
+    }
+
+    // the values of the informative reads whose best allele is the reference or the alternate allele, computed directly
+    // from the best alleles and the reads, as the rank sum tests did before sharing the evidence
+    private static Map<Allele, List<Integer>> expectedValuesByAllele(final ReadLikelihoods<Allele> likelihoods, final VariantContext vc,
+                                                                     final Function<GATKRead, OptionalDouble> valueOfRead) {
+        final Map<Allele, List<Integer>> values = new LinkedHashMap<>();
+        values.put(REF, new ArrayList<>());
+        values.put(ALT, new ArrayList<>());
+        for (final ReadLikelihoods<Allele>.BestAllele bestAllele : likelihoods.bestAlleles()) {
+            final GATKRead read = bestAllele.read;
+            if (bestAllele.isInformative() && read.getMappingQuality() != 0 && values.containsKey(bestAllele.allele)) {
+                final OptionalDouble value = valueOfRead.apply(read);
+                if (value.isPresent() && value.getAsDouble() != Double.NEGATIVE_INFINITY) {
+                    values.get(bestAllele.allele).add((int) value.getAsDouble());
+                }
+            }
+        }
+        return values;
+    }
+
+    private static String expectedRankSum(final Map<Allele, List<Integer>> values) {
+        final List<Double> refValues = values.get(REF).stream().map(Integer::doubleValue).collect(Collectors.toList());
+        final List<Double> altValues = values.get(ALT).stream().map(Integer::doubleValue).collect(Collectors.toList());
+        Assert.assertFalse(refValues.isEmpty());
+        Assert.assertFalse(altValues.isEmpty());
+        return String.format("%.3f", MannWhitneyU.runOneSidedTest(false, altValues, refValues).getLeft());
+    }
+
+    private static String expectedAlleleSpecificRawData(final Map<Allele, List<Integer>> values) {
+        return values.values().stream().map(alleleValues -> {
+            final CompressedDataList<Integer> compressed = new CompressedDataList<>();
+            alleleValues.forEach(compressed::add);
+            return compressed.toString();
+        }).collect(Collectors.joining(AS_RankSumTest.PRINT_DELIM));
+    }
+
+    // the forward and reverse counts of the informative reads whose best allele is the reference or the alternate allele,
+    // from the samples with more than minCount of them
+    private static int[][] expectedStrandTable(final ReadLikelihoods<Allele> likelihoods, final int minCount, final List<String> samples) {
+        final int[][] table = new int[2][2];
+        for (final String sample : samples) {
+            final int[][] sampleTable = new int[2][2];
+            for (final ReadLikelihoods<Allele>.BestAllele bestAllele : likelihoods.bestAlleles(sample)) {
+                if (bestAllele.isInformative() && !bestAllele.allele.equals(OTHER_ALT)) {
+                    sampleTable[bestAllele.allele.isReference() ? 0 : 1][bestAllele.read.isReverseStrand() ? 1 : 0]++;
+                }
+            }
+            if (sampleTable[0][0] + sampleTable[0][1] + sampleTable[1][0] + sampleTable[1][1] > minCount) {
+                for (int i = 0; i < 2; i++) {
+                    for (int j = 0; j < 2; j++) {
+                        table[i][j] += sampleTable[i][j];
+                    }
+                }
+            }
+        }
+        return table;
+    }
+
+    private static VariantContext makeVCWithGenotypes() {
+        final GenotypesContext genotypes = GenotypesContext.create();
+        for (final String sample : SAMPLES) {
+            genotypes.add(new GenotypeBuilder(sample, Arrays.asList(REF, ALT)).make());
+        }
+        return new VariantContextBuilder(makeVC()).genotypes(genotypes).make();
+    }
+
+    // checks the result of an annotation with the shared evidence, and without it
+    private static void assertAnnotation(final InfoFieldAnnotation annotation, final VariantContext vc, final ReadLikelihoods<Allele> likelihoods,
+                                         final SiteReadEvidence evidence, final String key, final String expected) {
+        final Map<String, Object> expectedAnnotation = Collections.singletonMap(key, expected);
+        Assert.assertEquals(annotation.annotate(null, vc, likelihoods, evidence), expectedAnnotation, annotation.toString());
+        Assert.assertEquals(annotation.annotate(null, vc, likelihoods), expectedAnnotation, annotation.toString());
+    }
+
+    @Test
+    public void testInfoAnnotationsWithSharedEvidence() {
+        final ReadLikelihoods<Allele> likelihoods = makeLikelihoods();
+        final VariantContext vc = makeVCWithGenotypes();
+        final int refLoc = vc.getStart();
+        final SiteReadEvidence evidence = new SiteReadEvidence(likelihoods, vc);
+
+        final Map<Allele, List<Integer>> baseQualities = expectedValuesByAllele(likelihoods, vc,
+                read -> OptionalDouble.of(read.getBaseQuality(ReadUtils.getReadCoordinateForReferenceCoordinateUpToEndOfRead(read, refLoc, ReadUtils.ClippingTail.RIGHT_TAIL))));
+        final Map<Allele, List<Integer>> mappingQualities = expectedValuesByAllele(likelihoods, vc, read -> OptionalDouble.of(read.getMappingQuality()));
+        final Map<Allele, List<Integer>> clippings = expectedValuesByAllele(likelihoods, vc, read -> OptionalDouble.of(AlignmentUtils.getNumHardClippedBases(read)));
+        final Map<Allele, List<Integer>> readPositions = expectedValuesByAllele(likelihoods, vc,
+                read -> ReadUtils.getSoftStart(read) + read.getCigar().getReadLength() > refLoc ? ReadPosRankSumTest.getReadPosition(read, refLoc) : OptionalDouble.empty());
+
+        assertAnnotation(new BaseQualityRankSumTest(), vc, likelihoods, evidence, GATKVCFConstants.BASE_QUAL_RANK_SUM_KEY, expectedRankSum(baseQualities));
+        assertAnnotation(new MappingQualityRankSumTest(), vc, likelihoods, evidence, GATKVCFConstants.MAP_QUAL_RANK_SUM_KEY, expectedRankSum(mappingQualities));
+        assertAnnotation(new ClippingRankSumTest(), vc, likelihoods, evidence, GATKVCFConstants.CLIPPING_RANK_SUM_KEY, expectedRankSum(clippings));
+        assertAnnotation(new ReadPosRankSumTest(), vc, likelihoods, evidence, GATKVCFConstants.READ_POS_RANK_SUM_KEY, expectedRankSum(readPositions));
+
+        assertAnnotation(new FisherStrand(), vc, likelihoods, evidence, GATKVCFConstants.FISHER_STRAND_KEY,
+                FisherStrand.makeValueObjectForAnnotation(expectedStrandTable(likelihoods, 2, SAMPLES)));
+        assertAnnotation(new StrandOddsRatio(), vc, likelihoods, evidence, GATKVCFConstants.STRAND_ODDS_RATIO_KEY,
+                StrandOddsRatio.formattedValue(StrandOddsRatio.calculateSOR(expectedStrandTable(likelihoods, 0, SAMPLES))));
+
+        // the allele-specific annotations, which override the evidence overload
+        assertAnnotation(new AS_BaseQualityRankSumTest(), vc, likelihoods, evidence, GATKVCFConstants.AS_RAW_BASE_QUAL_RANK_SUM_KEY, expectedAlleleSpecificRawData(baseQualities));
+        assertAnnotation(new AS_MappingQualityRankSumTest(), vc, likelihoods, evidence, GATKVCFConstants.AS_RAW_MAP_QUAL_RANK_SUM_KEY, expectedAlleleSpecificRawData(mappingQualities));
+        assertAnnotation(new AS_ReadPosRankSumTest(), vc, likelihoods, evidence, GATKVCFConstants.AS_RAW_READ_POS_RANK_SUM_KEY, expectedAlleleSpecificRawData(readPositions));
+        final String expectedStrandCounts = AS_StrandBiasTest.rawValueAsString(expectedStrandTable(likelihoods, AS_StrandBiasTest.MIN_COUNT, SAMPLES));
+        assertAnnotation(new AS_FisherStrand(), vc, likelihoods, evidence, GATKVCFConstants.AS_SB_TABLE_KEY, expectedStrandCounts);
+        assertAnnotation(new AS_StrandOddsRatio(), vc, likelihoods, evidence, GATKVCFConstants.AS_SB_TABLE_KEY, expectedStrandCounts);
+    }
+
+    @Test
+    public void testGenotypeAnnotationsWithSharedEvidence() {
+        final ReadLikelihoods<Allele> likelihoods = makeLikelihoods();
+        final VariantContext vc = makeVCWithGenotypes();
+        final SiteReadEvidence evidence = new SiteReadEvidence(likelihoods, vc);
+        final List<GenotypeAnnotation> annotations = Arrays.asList(new DepthPerAlleleBySample(), new DepthPerSampleHC(),
+                new BaseQualitySumPerAlleleBySample(), new StrandBiasBySample());
+
+        final Map<Allele, List<Allele>> alleleSubset = new LinkedHashMap<>();
+        alleleSubset.put(REF, Collections.singletonList(REF));
+        alleleSubset.put(ALT, Collections.singletonList(ALT));
+        final ReadLikelihoods<Allele> marginalized = likelihoods.marginalize(alleleSubset);
+        for (final Genotype genotype : vc.getGenotypes()) {
+            final String sample = genotype.getSampleName();
+
+            final int[] expectedAD = new int[2];
+            for (final ReadLikelihoods<Allele>.BestAllele bestAllele : marginalized.bestAlleles(sample)) {
+                if (bestAllele.isInformative()) {
+                    expectedAD[bestAllele.allele.isReference() ? 0 : 1]++;
+                }
+            }
+            final int[] expectedQualitySums = new int[2];
+            for (final ReadLikelihoods<Allele>.BestAllele bestAllele : likelihoods.bestAlleles(sample)) {
+                final GATKRead read = bestAllele.read;
+                if (bestAllele.isInformative() && !bestAllele.allele.equals(OTHER_ALT)) {
+                    expectedQualitySums[bestAllele.allele.isReference() ? 0 : 1] +=
+                            read.getBaseQuality(ReadUtils.getReadCoordinateForReferenceCoordinateUpToEndOfRead(read, vc.getStart(), ReadUtils.ClippingTail.RIGHT_TAIL));
+                }
+            }
+            final int[][] strandTable = expectedStrandTable(likelihoods, 0, Collections.singletonList(sample));
+
+            for (final boolean shareEvidence : new boolean[]{true, false}) {
+                final GenotypeBuilder gb = new GenotypeBuilder(genotype);
+                for (final GenotypeAnnotation annotation : annotations) {
+                    if (shareEvidence) {
+                        annotation.annotate(null, vc, genotype, gb, likelihoods, evidence);
+                    } else {
+                        annotation.annotate(null, vc, genotype, gb, likelihoods);
+                    }
+                }
+                final Genotype annotated = gb.make();
+                Assert.assertEquals(annotated.getAD(), expectedAD);
+                Assert.assertEquals(annotated.getDP(), expectedAD[0] + expectedAD[1]);
+                Assert.assertEquals((Integer[]) annotated.getExtendedAttribute(GATKVCFConstants.QUALITY_SCORE_SUM_KEY),
+                        new Integer[]{expectedQualitySums[0], expectedQualitySums[1]});
+                Assert.assertEquals(annotated.getExtendedAttribute(GATKVCFConstants.STRAND_BIAS_BY_SAMPLE_KEY),
+                        Arrays.asList(strandTable[0][0], strandTable[0][1], strandTable[1][0], strandTable[1][1]));
+            }
+        }
+    }
+}
@@ -4,6 +4,7 @@ import htsjdk.samtools.SamReaderFactory;
 import org.apache.commons.lang.StringUtils;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
 import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.recalibration.RecalibrationReport;
 import org.broadinstitute.hellbender.utils.test.BaseTest;
 import org.broadinstitute.hellbender.utils.test.IntegrationTestSpec;
 import org.broadinstitute.hellbender.utils.test.SamAssertionUtils;
@@ -63,6 +64,8 @@ public final class ApplyBQSRIntegrationTest extends CommandLineProgramTest {
         tests.add(new Object[]{new ABQSRTest(hiSeqBam, null, ".bam", new String[] {"-qq", "6"}, resourceDir + "expected.HiSeq.1mb.1RG.2k_lines.alternate.recalibrated.DIQ.qq6.bam")});
         tests.add(new Object[]{new ABQSRTest(hiSeqBam, null, ".bam", new String[] {"-SQQ", "10", "-SQQ", "20", "-SQQ", "30"}, resourceDir + "expected.HiSeq.1mb.1RG.2k_lines.alternate.recalibrated.DIQ.SQQ102030.bam")});
         tests.add(new Object[]{new ABQSRTest(hiSeqBam, null, ".bam", new String[] {"-SQQ", "10", "-SQQ", "20", "-SQQ", "30", "-RDQ"}, resourceDir + "expected.HiSeq.1mb.1RG.2k_lines.alternate.recalibrated.DIQ.SQQ102030RDQ.bam")});
+        tests.add(new Object[]{new ABQSRTest(hiSeqBam, null, ".bam", new String[] {"--traversalThreads", "4"}, resourceDir + "expected.HiSeq.1mb.1RG.2k_lines.alternate.recalibrated.DIQ.bam")});
+        tests.add(new Object[]{new ABQSRTest(hiSeqBam, null, ".bam", new String[] {"-SQQ", "10", "-SQQ", "20", "-SQQ", "30", "--traversalThreads", "4"}, resourceDir + "expected.HiSeq.1mb.1RG.2k_lines.alternate.recalibrated.DIQ.SQQ102030.bam")});
 
         tests.add(new Object[]{new ABQSRTest(hiSeqBamAligned, null, ".bam", null, resourceDir + "expected.HiSeq.1mb.1RG.2k_lines.alternate_allaligned.recalibrated.DIQ.bam")});
         tests.add(new Object[]{new ABQSRTest(hiSeqBamAligned, null, ".bam", new String[] {"-OQ"}, resourceDir + "expected.HiSeq.1mb.1RG.2k_lines.alternate_allaligned.recalibrated.DIQ.OQ.bam")});
@@ -102,6 +105,21 @@ public final class ApplyBQSRIntegrationTest extends CommandLineProgramTest {
         SamAssertionUtils.assertSamsEqual(outFile, new File(params.expectedFile), refFile);
     }
 
+    @Test
+    public void testApplyBQSRWithBinaryRecalTable() throws IOException {
+        final File binaryRecalTable = BaseTest.createTempFile("HiSeq.20mb.1RG", ".recal");
+        new RecalibrationReport(new File(resourceDir + "HiSeq.20mb.1RG.table.gz")).writeBinaryReport(binaryRecalTable);
+
+        final File outFile = BaseTest.createTempFile("applyBQSRTest", ".bam");
+        final List<String> args = Arrays.asList(
+                "-I", new File(hiSeqBam).getAbsolutePath(),
+                "--bqsr_recal_file", binaryRecalTable.getAbsolutePath(),
+                "-O", outFile.getAbsolutePath());
+        runCommandLine(args);
+
+        SamAssertionUtils.assertSamsEqual(outFile, new File(resourceDir + "expected.HiSeq.1mb.1RG.2k_lines.alternate.recalibrated.DIQ.bam"));
+    }
+
     @Test
     public void testPRNoFailWithHighMaxCycle() throws IOException {
         IntegrationTestSpec spec = new IntegrationTestSpec(
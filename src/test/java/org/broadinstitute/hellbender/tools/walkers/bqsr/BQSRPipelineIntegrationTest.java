@@ -0,0 +1,108 @@
+package org.broadinstitute.hellbender.tools.walkers.bqsr;
+
+import htsjdk.samtools.ValidationStringency;
+import org.broadinstitute.hellbender.CommandLineProgramTest;
+import org.broadinstitute.hellbender.Main;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.test.ArgumentsBuilder;
+import org.broadinstitute.hellbender.utils.test.BaseTest;
+import org.broadinstitute.hellbender.utils.test.IntegrationTestSpec;
+import org.broadinstitute.hellbender.utils.test.SamAssertionUtils;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public final class BQSRPipelineIntegrationTest extends CommandLineProgramTest {
+
+    private final String resourceDir = getTestDataDir() + "/" + "BQSR" + "/";
+    private final File reference = new File(publicTestDir + "human_g1k_v37.chr17_1Mb.fasta");
+    private final File bam = new File(resourceDir + "NA12878.chr17_69k_70k.dictFix.bam");
+    private final File dbSNP = new File(resourceDir + "dbsnp_132.b37.excluding_sites_after_129.chr17_69k_70k.vcf");
+    private final File fakeSites = new File(resourceDir + "bqsr.fakeSitesForTesting.b37.chr17.vcf");
+
+    @DataProvider(name = "BQSRPipelineTest")
+    public Object[][] createBQSRPipelineTestData() {
+        return new Object[][]{
+                // known sites, recalibration arguments, arguments only given to the pipeline
+                {dbSNP, Collections.<String>emptyList(), Collections.<String>emptyList()},
+                {dbSNP, Collections.<String>emptyList(), Arrays.asList("--spillReadsBetweenPasses", "false")},
+                {fakeSites, Arrays.asList("-indelBQSR", "-enableBAQ"), Collections.<String>emptyList()},
+                // the known sites mask must give the same results as querying the known sites
+                {dbSNP, Collections.<String>emptyList(), Arrays.asList("--useKnownSitesMask", "true")},
+                {fakeSites, Arrays.asList("-indelBQSR", "-enableBAQ"), Arrays.asList("--useKnownSitesMask", "true")},
+        };
+    }
+
+    // The pipeline must produce the same recalibration table and reads as running BaseRecalibrator, then ApplyBQSR
+    @Test(dataProvider = "BQSRPipelineTest")
+    public void testSameAsBothSteps(final File knownSites, final List<String> recalibrationArgs, final List<String> pipelineOnlyArgs) throws IOException {
+        final File expectedTable = BaseTest.createTempFile("baseRecalibrator", ".table");
+        final ArgumentsBuilder recalArgs = new ArgumentsBuilder();
+        recalArgs.addInput(bam);
+        recalArgs.addReference(reference);
+        recalArgs.addFileArgument("knownSites", knownSites);
+        recalArgs.addOutput(expectedTable);
+        recalibrationArgs.forEach(recalArgs::add);
+        new Main().instanceMain(makeCommandLineArgs(recalArgs.getArgsList(), BaseRecalibrator.class.getSimpleName()));
+
+        final File expectedBam = BaseTest.createTempFile("applyBQSR", ".bam");
+        final ArgumentsBuilder applyArgs = new ArgumentsBuilder();
+        applyArgs.addInput(bam);
+        applyArgs.addFileArgument("bqsr", expectedTable);
+        applyArgs.addOutput(expectedBam);
+        new Main().instanceMain(makeCommandLineArgs(applyArgs.getArgsList(), ApplyBQSR.class.getSimpleName()));
+
+        final File actualTable = BaseTest.createTempFile("bqsrPipeline", ".table");
+        final File actualBam = BaseTest.createTempFile("bqsrPipeline", ".bam");
+        final ArgumentsBuilder pipelineArgs = new ArgumentsBuilder();
+        pipelineArgs.addInput(bam);
+        pipelineArgs.addReference(reference);
+        pipelineArgs.addFileArgument("knownSites", knownSites);
+        pipelineArgs.addOutput(actualBam);
+        pipelineArgs.addFileArgument("recalTableOutput", actualTable);
+        recalibrationArgs.forEach(pipelineArgs::add);
+        pipelineOnlyArgs.forEach(pipelineArgs::add);
+        runCommandLine(pipelineArgs.getArgsList());
+
+        IntegrationTestSpec.assertEqualTextFiles(actualTable, expectedTable);
+        SamAssertionUtils.assertSamsEqual(actualBam, expectedBam, ValidationStringency.SILENT);
+    }
+
+    private File runPipelineWithMaskFile(final File knownSites, final File maskFile) {
+        final File outputBam = BaseTest.createTempFile("bqsrPipeline", ".bam");
+        final ArgumentsBuilder args = new ArgumentsBuilder();
+        args.addInput(bam);
+        args.addReference(reference);
+        args.addFileArgument("knownSites", knownSites);
+        args.addOutput(outputBam);
+        args.addFileArgument("knownSitesMaskFile", maskFile);
+        runCommandLine(args.getArgsList());
+        return outputBam;
+    }
+
+    @Test
+    public void testKnownSitesMaskFile() throws IOException {
+        final File maskFile = BaseTest.createTempFile("knownSites", ".mask");
+        Assert.assertTrue(maskFile.delete());
+
+        // the first run writes the mask, the second one reads it
+        final File bamWithNewMask = runPipelineWithMaskFile(dbSNP, maskFile);
+        Assert.assertTrue(maskFile.exists());
+        final File bamWithCachedMask = runPipelineWithMaskFile(dbSNP, maskFile);
+        SamAssertionUtils.assertSamsEqual(bamWithCachedMask, bamWithNewMask, ValidationStringency.SILENT);
+    }
+
+    @Test(expectedExceptions = UserException.BadInput.class)
+    public void testKnownSitesMaskFileFromOtherSites() {
+        final File maskFile = BaseTest.createTempFile("knownSites", ".mask");
+        Assert.assertTrue(maskFile.delete());
+        runPipelineWithMaskFile(dbSNP, maskFile);
+        runPipelineWithMaskFile(fakeSites, maskFile);
+    }
+}
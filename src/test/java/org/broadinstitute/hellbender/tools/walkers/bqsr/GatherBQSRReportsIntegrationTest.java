@@ -2,6 +2,7 @@ package org.broadinstitute.hellbender.tools.walkers.bqsr;
 
 
 import org.broadinstitute.hellbender.CommandLineProgramTest;
+import org.broadinstitute.hellbender.Main;
 import org.broadinstitute.hellbender.utils.test.ArgumentsBuilder;
 import org.broadinstitute.hellbender.utils.test.BaseTest;
 import org.broadinstitute.hellbender.utils.test.IntegrationTestSpec;
@@ -9,6 +10,10 @@ import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public final class GatherBQSRReportsIntegrationTest extends CommandLineProgramTest {
 
@@ -45,6 +50,31 @@ public final class GatherBQSRReportsIntegrationTest extends CommandLineProgramTe
         IntegrationTestSpec.assertEqualTextFiles(outFile, recal_original);
     }
 
+    @Test
+    public void testMultiThreadedGatherExits() throws Exception {
+        // run in a separate JVM, because a thread pool that is left running keeps the JVM from exiting
+        final File outFile = BaseTest.createTempFile("bqsr.threads.", "table");
+        final File log = BaseTest.createTempFile("bqsr.threads.", ".log");
+        final List<String> command = new ArrayList<>(Arrays.asList(
+                System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                "-cp", System.getProperty("java.class.path"),
+                Main.class.getName(), GatherBQSRReports.class.getSimpleName()));
+        for ( int i = 1; i <= 5; i++ ) {
+            command.add("--input");
+            command.add(new File(testDir + "HiSeq.1mb.1RG.sg" + i + ".table").getAbsolutePath());
+        }
+        command.addAll(Arrays.asList("--threads", "3", "-O", outFile.getAbsolutePath()));
+
+        final Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log).start();
+        final boolean exited = process.waitFor(2, TimeUnit.MINUTES);
+        if ( !exited ) {
+            process.destroyForcibly();
+        }
+        Assert.assertTrue(exited, "GatherBQSRReports with several threads did not exit");
+        Assert.assertEquals(process.exitValue(), 0);
+        IntegrationTestSpec.assertEqualTextFiles(outFile, new File(testDir + "HiSeq.1mb.1RG.noSG.table"));
+    }
+
     @Test
     public void testCombineReportsFromTwoChrs() throws Exception {
         //NOte: this data was generated by running GATK BaseRecalibrator like this
@@ -5,7 +5,10 @@ import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.test.IntegrationTestSpec;
 import org.testng.annotations.Test;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -74,6 +77,29 @@ public class PileupIntegrationTest extends CommandLineProgramTest {
         testSpec.executeTest("testInsertLengthPileup", this);
     }
 
+    @Test
+    public void testMultiThreadedPileupMatchesSingleThreaded() throws IOException {
+        final String inputBam = publicTestDir + "org/broadinstitute/hellbender/engine/reads_data_source_test1.bam";
+        final File expected = createTempFile("testMultiThreadedPileup.singleThreaded", ".txt");
+        final File actual = createTempFile("testMultiThreadedPileup.multiThreaded", ".txt");
+        runCommandLine(Arrays.asList("-R", hg19MiniReference, "-I", inputBam, "-verbose", "-O", expected.getAbsolutePath()));
+        // use tiny shards so that reads span many shard boundaries
+        runCommandLine(Arrays.asList("-R", hg19MiniReference, "-I", inputBam, "-verbose", "-O", actual.getAbsolutePath(),
+                "--traversalThreads", "4", "--locusShardSize", "10"));
+
+        IntegrationTestSpec.assertEqualTextFiles(actual, expected);
+    }
+
+    @Test(expectedExceptions = UserException.BadArgumentValue.class)
+    public void testMultiThreadedPileupRequiresIndexedReads() throws IOException {
+        final File unindexedBam = createTempFile("testMultiThreadedPileup.unindexed", ".bam");
+        Files.copy(new File(publicTestDir + "org/broadinstitute/hellbender/engine/reads_data_source_test1.bam").toPath(),
+                   unindexedBam.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        final File output = createTempFile("testMultiThreadedPileup.unindexed", ".txt");
+        runCommandLine(Arrays.asList("-R", hg19MiniReference, "-I", unindexedBam.getAbsolutePath(), "-O", output.getAbsolutePath(),
+                "--traversalThreads", "4"));
+    }
+
     @Test(expectedExceptions = UserException.CouldNotCreateOutputFile.class)
     public void testInvalidOutputFile() throws IOException {
         // GATK 3.5 code have a the last line with a REDUCE RESULT that was removed in this implementation
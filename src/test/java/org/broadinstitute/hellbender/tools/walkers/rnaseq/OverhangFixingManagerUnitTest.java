@@ -1,7 +1,7 @@
 package org.broadinstitute.hellbender.tools.walkers.rnaseq;
 
 import htsjdk.samtools.SAMFileHeader;
-import htsjdk.samtools.reference.IndexedFastaSequenceFile;
+import org.broadinstitute.hellbender.engine.ReferenceDataSource;
 import org.broadinstitute.hellbender.utils.GenomeLoc;
 import org.broadinstitute.hellbender.utils.GenomeLocParser;
 import org.broadinstitute.hellbender.utils.clipping.ReadClipper;
@@ -14,10 +14,13 @@ import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 import static org.mockito.Mockito.*;
 
+import java.io.File;
 import java.util.*;
 
 public final class OverhangFixingManagerUnitTest extends BaseTest {
 
+    private final ReferenceDataSource hg19Reference = ReferenceDataSource.of(new File(hg19MiniReference));
+
     private SAMFileHeader getHG19Header() {
         final SAMFileHeader header = new SAMFileHeader();
         header.setSequenceDictionary(hg19GenomeLocParser.getSequenceDictionary());
@@ -28,7 +31,7 @@ public final class OverhangFixingManagerUnitTest extends BaseTest {
     @Test
     public void testCleanSplices() {
 
-        final OverhangFixingManager manager = new OverhangFixingManager(getHG19Header(), null, hg19GenomeLocParser, hg19ReferenceReader, 10000, 1, 40, false, true);
+        final OverhangFixingManager manager = new OverhangFixingManager(getHG19Header(), null, hg19GenomeLocParser, hg19Reference, 10000, 1, 40, false, true);
         manager.activateWriting();
         final int offset = 10;
         for ( int i = 0; i < OverhangFixingManager.MAX_SPLICES_TO_KEEP + 1; i++ )
@@ -93,7 +96,7 @@ public final class OverhangFixingManagerUnitTest extends BaseTest {
 
     @Test(dataProvider = "MismatchEdgeConditionTest")
     public void testMismatchEdgeCondition(final byte[] read, final int readStart, final byte[] ref, final int refStart, final int overhang) {
-        final OverhangFixingManager manager = new OverhangFixingManager(getHG19Header(), null, hg19GenomeLocParser, hg19ReferenceReader, 10000, 1, 40, false, true);
+        final OverhangFixingManager manager = new OverhangFixingManager(getHG19Header(), null, hg19GenomeLocParser, hg19Reference, 10000, 1, 40, false, true);
         manager.activateWriting();
         Assert.assertFalse(manager.overhangingBasesMismatch(read, readStart, ((read==null)?0:read.length), ref, refStart, overhang));
     }
@@ -126,7 +129,7 @@ public final class OverhangFixingManagerUnitTest extends BaseTest {
 
     @Test(dataProvider = "MismatchTest")
     public void testMismatch(final byte[] read, final int readStart, final byte[] ref, final int refStart, final int overhang, final boolean expected) {
-        final OverhangFixingManager manager = new OverhangFixingManager(getHG19Header(), null, hg19GenomeLocParser, hg19ReferenceReader, 10000, 1, 40, false, true);
+        final OverhangFixingManager manager = new OverhangFixingManager(getHG19Header(), null, hg19GenomeLocParser, hg19Reference, 10000, 1, 40, false, true);
         manager.activateWriting();
         Assert.assertEquals(manager.overhangingBasesMismatch(read, readStart, ((read==null)?0:read.length), ref, refStart, overhang), expected, new String(read) + " vs. " + new String(ref) + " @" + overhang);
     }
@@ -166,7 +169,7 @@ public final class OverhangFixingManagerUnitTest extends BaseTest {
 
     @Test
     public void testMappingReadMateRepair() {
-        final OverhangFixingManager manager = new OverhangFixingManagerAlwaysSplit10000Reads(getHG19Header(), null, hg19GenomeLocParser, hg19ReferenceReader, 10000, 1, 40, false, false);
+        final OverhangFixingManager manager = new OverhangFixingManagerAlwaysSplit10000Reads(getHG19Header(), null, hg19GenomeLocParser, hg19Reference, 10000, 1, 40, false, false);
         GATKRead read1a = ArtificialReadUtils.createArtificialRead(hg19Header, "read1", 1, 10000, new byte[]{(byte)'A', (byte)'A', (byte)'A', (byte)'A', (byte)'A', (byte)'A'}, new byte[]{(byte)'A', (byte)'A', (byte)'A', (byte)'A', (byte)'A', (byte)'A'}, "6M");
         read1a.setMatePosition("1", 10020);
         read1a.setAttribute("MC","6M");
@@ -201,7 +204,7 @@ public final class OverhangFixingManagerUnitTest extends BaseTest {
 
     @Test
     public void testMappingReadMateRepairNoMCTag() {
-        final OverhangFixingManager manager = new OverhangFixingManagerAlwaysSplit10000Reads(getHG19Header(), null, hg19GenomeLocParser, hg19ReferenceReader, 10000, 1, 40, false, false);
+        final OverhangFixingManager manager = new OverhangFixingManagerAlwaysSplit10000Reads(getHG19Header(), null, hg19GenomeLocParser, hg19Reference, 10000, 1, 40, false, false);
         GATKRead read1a = ArtificialReadUtils.createArtificialRead(hg19Header, "read1", 1, 10000, "AAAAAA".getBytes(), "AAAAAA".getBytes(), "6M");
         read1a.setMatePosition("1", 10020);
         read1a.setIsFirstOfPair();
@@ -243,7 +246,7 @@ public final class OverhangFixingManagerUnitTest extends BaseTest {
     }
 
     private static class OverhangFixingManagerAlwaysSplit10000Reads extends OverhangFixingManager {
-        public OverhangFixingManagerAlwaysSplit10000Reads(SAMFileHeader header, GATKReadWriter writer, GenomeLocParser genomeLocParser, IndexedFastaSequenceFile referenceReader, int maxRecordsInMemory, int maxMismatchesInOverhangs, int maxBasesInOverhangs, boolean doNotFixOverhangs, boolean secondaryReads) {
+        public OverhangFixingManagerAlwaysSplit10000Reads(SAMFileHeader header, GATKReadWriter writer, GenomeLocParser genomeLocParser, ReferenceDataSource referenceReader, int maxRecordsInMemory, int maxMismatchesInOverhangs, int maxBasesInOverhangs, boolean doNotFixOverhangs, boolean secondaryReads) {
             super(header, writer, genomeLocParser, referenceReader, maxRecordsInMemory, maxMismatchesInOverhangs, maxBasesInOverhangs, doNotFixOverhangs, secondaryReads);
         }
         @Override
@@ -257,7 +260,7 @@ public final class OverhangFixingManagerUnitTest extends BaseTest {
 
     @Test
     public void testUnalignedReadNotClearingReads() {
-        final OverhangFixingManager manager = new OverhangFixingManager(getHG19Header(), null, hg19GenomeLocParser, hg19ReferenceReader, 100, 1, 30, false, true);
+        final OverhangFixingManager manager = new OverhangFixingManager(getHG19Header(), null, hg19GenomeLocParser, hg19Reference, 100, 1, 30, false, true);
         manager.addSplicePosition("1",2,3);
         Assert.assertEquals(manager.getReadsInQueueForTesting().size(), 0);
         manager.addReadGroup(Collections.singletonList(ArtificialReadUtils.createArtificialRead(hg19Header, "read1", 1, 10000, new byte[]{(byte)'A'}, new byte[]{(byte)'A'}, "6M")));
@@ -24,6 +24,14 @@ public final class SplitNCigarReadsIntegrationTest extends CommandLineProgramTes
         spec.executeTest("test splits with overhangs", this);
     }
 
+    @Test
+    public void testSplitsWithOverhangsTwoBitReference()  throws Exception {
+        IntegrationTestSpec spec = new IntegrationTestSpec(
+                "-R " + b37_2bit_reference_20_21 + " -I " + largeFileTestDir + "NA12878.RNAseq.bam -O %s --processSecondaryAlignments",
+                Arrays.asList(largeFileTestDir + "expected.NA12878.RNAseq.splitNcigarReads.bam"));
+        spec.executeTest("test splits with overhangs with a .2bit reference", this);
+    }
+
     @Test
     public void testSplitsWithOverhangsNotClipping() throws Exception {
         IntegrationTestSpec spec = new IntegrationTestSpec(
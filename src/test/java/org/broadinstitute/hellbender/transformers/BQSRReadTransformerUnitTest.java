@@ -1,13 +1,30 @@
 package org.broadinstitute.hellbender.transformers;
 
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMReadGroupRecord;
+import org.broadinstitute.hellbender.tools.ApplyBQSRArgumentCollection;
+import org.broadinstitute.hellbender.utils.MathUtils;
 import org.broadinstitute.hellbender.utils.QualityUtils;
+import org.broadinstitute.hellbender.utils.collections.NestedIntegerArray;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.recalibration.EventType;
 import org.broadinstitute.hellbender.utils.recalibration.RecalDatum;
+import org.broadinstitute.hellbender.utils.recalibration.RecalUtils;
+import org.broadinstitute.hellbender.utils.recalibration.RecalibrationReport;
+import org.broadinstitute.hellbender.utils.recalibration.RecalibrationTables;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.CovariateKeyCache;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.ReadCovariates;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
 import org.broadinstitute.hellbender.utils.test.BaseTest;
 import org.testng.Assert;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.io.File;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 public final class BQSRReadTransformerUnitTest extends BaseTest{
     @Test
@@ -89,4 +106,105 @@ public final class BQSRReadTransformerUnitTest extends BaseTest{
             }
         }
     }
+
+    private static final File MULTIPLE_READ_GROUPS_RECAL_TABLE = new File(publicTestDir + "org/broadinstitute/hellbender/utils/recalibration/NA12878.rg_subset.chr1.recal_data.table");
+
+    @DataProvider(name = "globalQScorePriors")
+    public Object[][] globalQScorePriors() {
+        return new Object[][]{{-1.0}, {30.0}};
+    }
+
+    /**
+     * The qualities computed from the tables precomputed by the transformer must be those that
+     * {@link BQSRReadTransformer#hierarchicalBayesianQualityEstimate} computes from the recalibration tables, for every
+     * read group, reported quality and covariate key.
+     */
+    @Test(dataProvider = "globalQScorePriors")
+    public void testPrecomputedTablesMatchHierarchicalBayesianQualityEstimate(final double globalQScorePrior) {
+        final RecalibrationReport report = new RecalibrationReport(MULTIPLE_READ_GROUPS_RECAL_TABLE);
+        final RecalibrationTables tables = report.getRecalibrationTables();
+        final StandardCovariateList covariates = report.getCovariates();
+
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader(1, 1, 1000000);
+        for (final String readGroup : report.getReadGroups()) {
+            final SAMReadGroupRecord readGroupRecord = new SAMReadGroupRecord(readGroup);
+            readGroupRecord.setPlatform("ILLUMINA");
+            header.addReadGroup(readGroupRecord);
+        }
+
+        final ApplyBQSRArgumentCollection args = new ApplyBQSRArgumentCollection();
+        args.globalQScorePrior = globalQScorePrior;
+        final BQSRReadTransformer transformer = new BQSRReadTransformer(header, new RecalibrationReport(MULTIPLE_READ_GROUPS_RECAL_TABLE), args);
+        // a transformer sharing the precomputed tables must recalibrate exactly as the one it shares them with
+        final BQSRReadTransformer sharingTransformer = new BQSRReadTransformer(transformer);
+
+        final Random random = new Random(17);
+        final byte[] bases = {'A', 'C', 'G', 'T', 'N'};
+        final CovariateKeyCache keyCache = new CovariateKeyCache();
+        int recalibratedBases = 0;
+        for (final SAMReadGroupRecord readGroup : header.getReadGroups()) {
+            for (int r = 0; r < 50; r++) {
+                final int length = 50 + random.nextInt(101);
+                final byte[] readBases = new byte[length];
+                final byte[] readQuals = new byte[length];
+                for (int i = 0; i < length; i++) {
+                    readBases[i] = bases[random.nextInt(random.nextInt(20) == 0 ? bases.length : 4)];
+                    readQuals[i] = (byte) random.nextInt(QualityUtils.MAX_REASONABLE_Q_SCORE + 1);
+                }
+                final GATKRead read = ArtificialReadUtils.createArtificialRead(header, "read" + r, 0, 1 + random.nextInt(1000), readBases, readQuals, length + "M");
+                read.setReadGroup(readGroup.getId());
+                read.setIsReverseStrand(random.nextBoolean());
+                read.setIsPaired(true);
+                if (random.nextBoolean()) {
+                    read.setIsFirstOfPair();
+                } else {
+                    read.setIsSecondOfPair();
+                }
+
+                final byte[] expectedQuals = expectedRecalibratedQuals(read, header, tables, covariates, globalQScorePrior, keyCache);
+                final GATKRead copy = read.copy();
+                Assert.assertEquals(transformer.apply(read).getBaseQualities(), expectedQuals);
+                Assert.assertEquals(sharingTransformer.apply(copy).getBaseQualities(), expectedQuals);
+                for (int i = 0; i < length; i++) {
+                    if (readQuals[i] >= QualityUtils.MIN_USABLE_Q_SCORE) {
+                        recalibratedBases++;
+                    }
+                }
+            }
+        }
+        Assert.assertTrue(recalibratedBases > 0);
+    }
+
+    // the recalibrated qualities computed base by base from the recalibration tables, without quantization
+    private static byte[] expectedRecalibratedQuals(final GATKRead read, final SAMFileHeader header, final RecalibrationTables tables,
+                                                    final StandardCovariateList covariates, final double globalQScorePrior,
+                                                    final CovariateKeyCache keyCache) {
+        final ReadCovariates readCovariates = RecalUtils.computeCovariates(read, header, covariates, false, keyCache);
+        final int[][] keySets = readCovariates.getKeySet(EventType.BASE_SUBSTITUTION);
+        final int substitution = EventType.BASE_SUBSTITUTION.ordinal();
+        final byte[] quals = read.getBaseQualities();
+        final RecalDatum empiricalQualRG = tables.getReadGroupTable().get2Keys(keySets[0][0], substitution);
+        if (empiricalQualRG == null) {
+            return quals;
+        }
+        final double epsilon = globalQScorePrior > 0.0 ? globalQScorePrior : empiricalQualRG.getEstimatedQReported();
+        final NestedIntegerArray<RecalDatum> qualityScoreTable = tables.getQualityScoreTable();
+        final int specialCovariateCount = covariates.numberOfSpecialCovariates();
+        for (int offset = 0; offset < quals.length; offset++) {
+            if (quals[offset] < QualityUtils.MIN_USABLE_Q_SCORE) {
+                continue;
+            }
+            final int[] keySet = keySets[offset];
+            final RecalDatum[] empiricalQualCovs = new RecalDatum[covariates.size() - specialCovariateCount];
+            for (int i = specialCovariateCount; i < covariates.size(); i++) {
+                if (keySet[i] >= 0) {
+                    empiricalQualCovs[i - specialCovariateCount] = tables.getTable(i).get4Keys(keySet[0], keySet[1], keySet[i], substitution);
+                }
+            }
+            final double recalibratedQual = BQSRReadTransformer.hierarchicalBayesianQualityEstimate(epsilon, empiricalQualRG,
+                    qualityScoreTable.get3Keys(keySet[0], keySet[1], substitution), empiricalQualCovs);
+            quals[offset] = QualityUtils.boundQual(MathUtils.fastRound(recalibratedQual), RecalDatum.MAX_RECALIBRATED_Q_SCORE);
+        }
+        return quals;
+    }
 }
@@ -161,6 +161,23 @@ public final class BAQUnitTest extends BaseTest {
         }
     }
 
+    @Test
+    public void testBAQReusedAcrossReads() {
+        // one BAQ instance reuses its workspace across reads of different lengths, so run all the reads twice through it
+        final BAQ baqHMM = new BAQ(1.0e-3, 0.1, 7, (byte) 4);
+        for (int pass = 0; pass < 2; pass++) {
+            for (final Object[] params : createData1()) {
+                final BAQTest test = (BAQTest) params[0];
+                if (test.refBases == null) {
+                    continue;
+                }
+                final BAQ.BAQCalculationResult result = baqHMM.calcBAQFromHMM(test.createRead(), test.refBases.getBytes(), test.refOffset);
+                Assert.assertNotNull(result);
+                Assert.assertEquals(result.bq, test.expected, "Did not see the expected BAQ values for " + test);
+            }
+        }
+    }
+
     @Test
     public void testBAQQualRange() {
         BAQ baq = new BAQ(1.0e-3, 0.1, 7, (byte) 4);         // matches current samtools parameters
@@ -424,6 +424,120 @@ public final class ReadLikelihoodsUnitTest {
         testLikelihoodMatrixQueries(samples,result,newLikelihoods);
     }
 
+    // Removes the odd reads, which leaves the likelihood arrays longer than needed, so that the additions that follow
+    // extend the matrices in place. Returns the likelihoods of the remaining reads.
+    private double[][][] filterToEvenReads(final String[] samples, final Allele[] alleles, final ReadLikelihoods<Allele> original,
+                                           final double[][][] originalLikelihoods, final ReadLikelihoods<Allele> result) {
+        final SimpleInterval evenReadOverlap = new SimpleInterval(SAM_HEADER.getSequenceDictionary().getSequences().get(0).getSequenceName(), EVEN_READ_START, EVEN_READ_START);
+        result.filterToOnlyOverlappingUnclippedReads(evenReadOverlap);
+        final double[][][] newLikelihoods = new double[samples.length][alleles.length][];
+        for (int s = 0; s < samples.length; s++) {
+            Assert.assertEquals(result.sampleReadCount(s), (original.sampleReadCount(s) + 1) / 2);
+            for (int a = 0; a < alleles.length; a++) {
+                newLikelihoods[s][a] = new double[result.sampleReadCount(s)];
+                for (int r = 0; r < newLikelihoods[s][a].length; r++) {
+                    newLikelihoods[s][a][r] = originalLikelihoods[s][a][r << 1];
+                }
+            }
+        }
+        testLikelihoodMatrixQueries(samples, result, newLikelihoods);
+        return newLikelihoods;
+    }
+
+    @Test(dataProvider = "dataSets")
+    public void testAddMissingAllelesAfterRemovingReads(final String[] samples, final Allele[] alleles, final Map<String,List<GATKRead>> reads) {
+        final ReadLikelihoods<Allele> original = new ReadLikelihoods<>(new IndexedSampleList(samples), new IndexedAlleleList<>(alleles), reads);
+        final double[][][] originalLikelihoods = fillWithRandomLikelihoods(samples, alleles, original);
+        final ReadLikelihoods<Allele> result = original.copy();
+        final double[][][] filteredLikelihoods = filterToEvenReads(samples, alleles, original, originalLikelihoods, result);
+
+        final Allele newOne = Allele.create("ACCCCCAAAATTTAAAGGG".getBytes(), false);
+        final Allele newTwo = Allele.create("ATATATTATATTAATATT".getBytes(), false);
+        result.addMissingAlleles(Arrays.asList(newOne), -12345.6);
+        result.addMissingAlleles(Arrays.asList(newTwo, result.getAllele(0)), -6.54321);
+        Assert.assertEquals(result.numberOfAlleles(), alleles.length + 2);
+
+        final double[][][] newLikelihoods = new double[samples.length][][];
+        for (int s = 0; s < samples.length; s++) {
+            final int sampleReadCount = result.sampleReadCount(s);
+            newLikelihoods[s] = Arrays.copyOf(filteredLikelihoods[s], alleles.length + 2);
+            newLikelihoods[s][alleles.length] = new double[sampleReadCount];
+            Arrays.fill(newLikelihoods[s][alleles.length], -12345.6);
+            newLikelihoods[s][alleles.length + 1] = new double[sampleReadCount];
+            Arrays.fill(newLikelihoods[s][alleles.length + 1], -6.54321);
+        }
+        testLikelihoodMatrixQueries(samples, result, newLikelihoods);
+    }
+
+    @Test(dataProvider = "dataSets")
+    public void testAddNonRefAlleleAfterRemovingReads(final String[] samples, final Allele[] alleles, final Map<String,List<GATKRead>> reads) {
+        final ReadLikelihoods<Allele> original = new ReadLikelihoods<>(new IndexedSampleList(samples), new IndexedAlleleList<>(alleles), reads);
+        final double[][][] originalLikelihoods = fillWithRandomLikelihoods(samples, alleles, original);
+        final ReadLikelihoods<Allele> result = original.copy();
+        final double[][][] filteredLikelihoods = filterToEvenReads(samples, alleles, original, originalLikelihoods, result);
+
+        result.addNonReferenceAllele(GATKVCFConstants.NON_REF_SYMBOLIC_ALLELE);
+        Assert.assertEquals(result.numberOfAlleles(), alleles.length + 1);
+
+        final double[][][] newLikelihoods = new double[samples.length][][];
+        for (int s = 0; s < samples.length; s++) {
+            final int sampleReadCount = result.sampleReadCount(s);
+            newLikelihoods[s] = Arrays.copyOf(filteredLikelihoods[s], alleles.length + 1);
+            newLikelihoods[s][alleles.length] = new double[sampleReadCount];
+            for (int r = 0; r < sampleReadCount; r++) {
+                double bestLk = filteredLikelihoods[s][0][r];
+                double secondBestLk = Double.NEGATIVE_INFINITY;
+                for (int a = 1; a < alleles.length; a++) {
+                    final double lk = filteredLikelihoods[s][a][r];
+                    if (lk > bestLk) {
+                        secondBestLk = bestLk;
+                        bestLk = lk;
+                    } else if (lk > secondBestLk) {
+                        secondBestLk = lk;
+                    }
+                }
+                newLikelihoods[s][alleles.length][r] = Double.isInfinite(secondBestLk) ? bestLk : secondBestLk;
+            }
+        }
+        testLikelihoodMatrixQueries(samples, result, newLikelihoods);
+    }
+
+    @Test(dataProvider = "dataSets")
+    public void testAddReadsAfterRemovingReads(final String[] samples, final Allele[] alleles, final Map<String,List<GATKRead>> reads) {
+        final ReadLikelihoods<Allele> original = new ReadLikelihoods<>(new IndexedSampleList(samples), new IndexedAlleleList<>(alleles), reads);
+        final double[][][] originalLikelihoods = fillWithRandomLikelihoods(samples, alleles, original);
+        final ReadLikelihoods<Allele> result = original.copy();
+        final double[][][] filteredLikelihoods = filterToEvenReads(samples, alleles, original, originalLikelihoods, result);
+
+        // a few reads, which fit in the space left by the removed ones, in the first sample, and more than that in the others
+        final Map<String,List<GATKRead>> newReads = new LinkedHashMap<>(samples.length);
+        for (int s = 0; s < samples.length; s++) {
+            final int newReadCount = s == 0 ? Math.min(3, original.sampleReadCount(s) / 2) : original.sampleReadCount(s) + 5;
+            final List<GATKRead> sampleNewReads = new ArrayList<>(newReadCount);
+            for (int r = 0; r < newReadCount; r++) {
+                sampleNewReads.add(ArtificialReadUtils.createArtificialRead(SAM_HEADER,
+                        "NEW" + samples[s] + "00" + r, 0, EVEN_READ_START, "AAAAA".getBytes(), new byte[]{30, 30, 30, 30, 30}, "5M"));
+            }
+            newReads.put(samples[s], sampleNewReads);
+        }
+        result.addReads(newReads, -3.21);
+
+        final double[][][] newLikelihoods = new double[samples.length][alleles.length][];
+        for (int s = 0; s < samples.length; s++) {
+            final int filteredReadCount = filteredLikelihoods[s][0].length;
+            final List<GATKRead> sampleNewReads = newReads.get(samples[s]);
+            Assert.assertEquals(result.sampleReadCount(s), filteredReadCount + sampleNewReads.size());
+            for (int r = 0; r < sampleNewReads.size(); r++) {
+                Assert.assertEquals(result.readIndex(s, sampleNewReads.get(r)), filteredReadCount + r);
+            }
+            for (int a = 0; a < alleles.length; a++) {
+                newLikelihoods[s][a] = Arrays.copyOf(filteredLikelihoods[s][a], result.sampleReadCount(s));
+                Arrays.fill(newLikelihoods[s][a], filteredReadCount, newLikelihoods[s][a].length, -3.21);
+            }
+        }
+        testLikelihoodMatrixQueries(samples, result, newLikelihoods);
+    }
+
     private void testLikelihoodMatrixQueries(String[] samples, ReadLikelihoods<Allele> result, final double[][][] likelihoods) {
         for (final String sample : samples) {
             final int indexOfSample = result.indexOfSample(sample);
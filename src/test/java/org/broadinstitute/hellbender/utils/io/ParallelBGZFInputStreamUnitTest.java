@@ -0,0 +1,114 @@
+package org.broadinstitute.hellbender.utils.io;
+
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.test.BaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+public final class ParallelBGZFInputStreamUnitTest extends BaseTest {
+
+    private static final File TEST_BAM = new File(publicTestDir + "org/broadinstitute/hellbender/engine/reads_data_source_test1.bam");
+
+    private static byte[] readAll(final InputStream in, final int chunkSize) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[chunkSize];
+        int n;
+        while ( (n = in.read(buffer, 0, chunkSize)) > 0 ) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @return a BGZF file holding enough pseudo-random data to span many blocks
+     */
+    private static File makeMultiBlockFile() throws IOException {
+        final File file = createTempFile("ParallelBGZFInputStreamUnitTest", ".gz");
+        final byte[] data = new byte[1_000_000];
+        final Random random = new Random(1);
+        for ( int i = 0; i < data.length; ++i ) {
+            // low-entropy data, so that the blocks actually compress
+            data[i] = (byte) ('A' + random.nextInt(4));
+        }
+        try ( final BlockCompressedOutputStream out = new BlockCompressedOutputStream(file) ) {
+            out.write(data);
+        }
+        return file;
+    }
+
+    @DataProvider(name = "ReadData")
+    public Object[][] readData() throws IOException {
+        final File multiBlockFile = makeMultiBlockFile();
+        return new Object[][] {
+                { TEST_BAM, 1, 1 },
+                { TEST_BAM, 4, 7 },
+                { multiBlockFile, 1, 100_000 },
+                { multiBlockFile, 3, 1 },
+                { multiBlockFile, 8, 65_536 }
+        };
+    }
+
+    @Test(dataProvider = "ReadData")
+    public void testMatchesBlockCompressedInputStream( final File file, final int numThreads, final int chunkSize ) throws IOException {
+        final byte[] expected;
+        try ( final InputStream in = new BlockCompressedInputStream(file) ) {
+            expected = readAll(in, 4096);
+        }
+        try ( final InputStream in = new ParallelBGZFInputStream(file, numThreads) ) {
+            Assert.assertTrue(Arrays.equals(readAll(in, chunkSize), expected), "decompressed contents differ for " + file);
+            Assert.assertEquals(in.read(), -1);
+        }
+    }
+
+    @Test
+    public void testSingleByteReads() throws IOException {
+        try ( final InputStream expected = new BlockCompressedInputStream(TEST_BAM);
+              final InputStream actual = new ParallelBGZFInputStream(TEST_BAM, 2) ) {
+            int b;
+            do {
+                b = expected.read();
+                Assert.assertEquals(actual.read(), b);
+            } while ( b != -1 );
+        }
+    }
+
+    @Test(expectedExceptions = UserException.MalformedFile.class)
+    public void testNotBGZF() throws IOException {
+        final File notBgzf = createTempFile("ParallelBGZFInputStreamUnitTest", ".txt");
+        try ( final FileOutputStream out = new FileOutputStream(notBgzf) ) {
+            out.write("this is not a BGZF file, but it is long enough to hold a block header".getBytes());
+        }
+        try ( final InputStream in = new ParallelBGZFInputStream(notBgzf, 2) ) {
+            in.read();
+        }
+    }
+
+    @Test(expectedExceptions = UserException.MalformedFile.class)
+    public void testTruncatedBlock() throws IOException {
+        final File truncated = createTempFile("ParallelBGZFInputStreamUnitTest", ".bam");
+        final byte[] bam = Files.readAllBytes(TEST_BAM.toPath());
+        try ( final FileOutputStream out = new FileOutputStream(truncated) ) {
+            out.write(bam, 0, 100);
+        }
+        try ( final InputStream in = new ParallelBGZFInputStream(truncated, 2) ) {
+            in.read();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidThreadCount() {
+        new ParallelBGZFInputStream(TEST_BAM, 0);
+    }
+}
@@ -0,0 +1,127 @@
+package org.broadinstitute.hellbender.utils.iterators;
+
+import htsjdk.samtools.util.CloseableIterator;
+import org.broadinstitute.hellbender.utils.test.BaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class AsyncPrefetchingIteratorUnitTest extends BaseTest {
+
+    /**
+     * Iterator over 0 .. numElements-1 that fails when asked for failAt (if non-negative), and records whether it was closed.
+     */
+    private static final class TestSourceIterator implements CloseableIterator<Integer> {
+        private final int numElements;
+        private final int failAt;
+        private int next = 0;
+        private volatile boolean closed = false;
+
+        TestSourceIterator(final int numElements, final int failAt) {
+            this.numElements = numElements;
+            this.failAt = failAt;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < numElements;
+        }
+
+        @Override
+        public Integer next() {
+            if ( next == failAt ) {
+                throw new IllegalStateException("failing at " + failAt);
+            }
+            return next++;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    @DataProvider(name = "PrefetchTestData")
+    public Object[][] prefetchTestData() {
+        // number of elements, batch size, max batches
+        return new Object[][] {
+                { 0, 10, 1 },
+                { 1, 10, 1 },
+                { 10, 10, 1 },
+                { 11, 10, 1 },
+                { 1000, 7, 3 },
+                { 1000, 1, 1 }
+        };
+    }
+
+    @Test(dataProvider = "PrefetchTestData")
+    public void testPrefetchPreservesOrder( final int numElements, final int batchSize, final int maxBatches ) {
+        final TestSourceIterator source = new TestSourceIterator(numElements, -1);
+        final List<Integer> actual = new ArrayList<>();
+        try ( final AsyncPrefetchingIterator<Integer> iterator = new AsyncPrefetchingIterator<>(source, batchSize, maxBatches) ) {
+            iterator.forEachRemaining(actual::add);
+            Assert.assertFalse(iterator.hasNext());
+        }
+        Assert.assertEquals(actual, IntStream.range(0, numElements).boxed().collect(Collectors.toList()));
+        Assert.assertTrue(source.closed, "source iterator not closed");
+    }
+
+    @Test
+    public void testPrefetchActionRunsOnEveryElement() {
+        final List<Integer> prefetched = new ArrayList<>();
+        try ( final AsyncPrefetchingIterator<Integer> iterator = new AsyncPrefetchingIterator<>(new TestSourceIterator(25, -1), 4, 2, prefetched::add) ) {
+            iterator.forEachRemaining(element -> {});
+        }
+        Assert.assertEquals(prefetched, IntStream.range(0, 25).boxed().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testFailureIsRethrownAfterPrecedingElements() {
+        final List<Integer> actual = new ArrayList<>();
+        try ( final AsyncPrefetchingIterator<Integer> iterator = new AsyncPrefetchingIterator<>(new TestSourceIterator(100, 42), 10, 2) ) {
+            iterator.forEachRemaining(actual::add);
+            Assert.fail("expected the source's exception to be rethrown");
+        }
+        catch ( IllegalStateException e ) {
+            Assert.assertEquals(actual, IntStream.range(0, 42).boxed().collect(Collectors.toList()));
+        }
+    }
+
+    @Test(timeOut = 10000)
+    public void testCloseBeforeExhausted() {
+        final TestSourceIterator source = new TestSourceIterator(1_000_000, -1);
+        final AsyncPrefetchingIterator<Integer> iterator = new AsyncPrefetchingIterator<>(source, 10, 2);
+        Assert.assertEquals(iterator.next(), Integer.valueOf(0));
+
+        // the prefetch thread is blocked on the full queue at this point, and must be released by close()
+        iterator.close();
+        Assert.assertTrue(source.closed, "source iterator not closed");
+        Assert.assertFalse(iterator.hasNext());
+        iterator.close(); // closing twice is harmless
+    }
+
+    @Test(expectedExceptions = NoSuchElementException.class)
+    public void testNextWhenExhausted() {
+        try ( final AsyncPrefetchingIterator<Integer> iterator = new AsyncPrefetchingIterator<>(new TestSourceIterator(1, -1), 10, 1) ) {
+            iterator.next();
+            iterator.next();
+        }
+    }
+
+    @DataProvider(name = "InvalidArguments")
+    public Object[][] invalidArguments() {
+        return new Object[][] { { 0, 1 }, { 1, 0 }, { -1, 1 } };
+    }
+
+    @Test(dataProvider = "InvalidArguments", expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidArguments( final int batchSize, final int maxBatches ) {
+        new AsyncPrefetchingIterator<>(new TestSourceIterator(1, -1), batchSize, maxBatches);
+    }
+}
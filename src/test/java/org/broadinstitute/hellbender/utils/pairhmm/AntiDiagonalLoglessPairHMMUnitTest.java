@@ -0,0 +1,136 @@
+package org.broadinstitute.hellbender.utils.pairhmm;
+
+import org.broadinstitute.hellbender.utils.genotyper.IndexedAlleleList;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
+import org.broadinstitute.hellbender.utils.genotyper.ReadLikelihoods;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.test.BaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+public final class AntiDiagonalLoglessPairHMMUnitTest extends BaseTest {
+    private static final byte[] BASES = {'A', 'C', 'G', 'T'};
+
+    private static byte[] randomBases(final Random random, final int length) {
+        final byte[] bases = new byte[length];
+        for ( int i = 0; i < length; i++ ) {
+            bases[i] = BASES[random.nextInt(BASES.length)];
+        }
+        return bases;
+    }
+
+    private static byte[] randomQuals(final Random random, final int length, final int min, final int max) {
+        final byte[] quals = new byte[length];
+        for ( int i = 0; i < length; i++ ) {
+            quals[i] = (byte) (min + random.nextInt(max - min + 1));
+        }
+        return quals;
+    }
+
+    @DataProvider(name = "lengths")
+    public Object[][] makeLengthsData() {
+        return new Object[][]{
+                // read length, haplotype length
+                {1, 1},
+                {1, 10},
+                {10, 1},
+                {5, 5},
+                {20, 100},
+                {100, 20},
+                {101, 300},
+        };
+    }
+
+    @Test(dataProvider = "lengths")
+    public void testSameLikelihoodsAsLoglessPairHMM(final int readLength, final int haplotypeLength) {
+        final Random random = new Random(readLength * 1000 + haplotypeLength);
+        final PairHMM logless = new LoglessPairHMM();
+        final PairHMM antiDiagonal = new AntiDiagonalLoglessPairHMM();
+        logless.initialize(readLength, haplotypeLength);
+        antiDiagonal.initialize(readLength, haplotypeLength);
+
+        for ( int n = 0; n < 10; n++ ) {
+            final byte[] readBases = randomBases(random, readLength);
+            if ( n % 3 == 0 ) {
+                readBases[random.nextInt(readLength)] = 'N';
+            }
+            final byte[] readQuals = randomQuals(random, readLength, 2, 40);
+            final byte[] insQuals = randomQuals(random, readLength, 20, 45);
+            final byte[] delQuals = randomQuals(random, readLength, 20, 45);
+            final byte[] gcp = randomQuals(random, readLength, 5, 15);
+            final byte[] haplotypeBases = randomBases(random, haplotypeLength);
+
+            final double expected = logless.computeReadLikelihoodGivenHaplotypeLog10(haplotypeBases, readBases, readQuals, insQuals, delQuals, gcp, true, null);
+            final double actual = antiDiagonal.computeReadLikelihoodGivenHaplotypeLog10(haplotypeBases, readBases, readQuals, insQuals, delQuals, gcp, true, null);
+            Assert.assertEquals(actual, expected, "read " + n);
+        }
+    }
+
+    @Test
+    public void testNoTristateCorrection() {
+        final Random random = new Random(5);
+        final PairHMM logless = new LoglessPairHMM();
+        final PairHMM antiDiagonal = new AntiDiagonalLoglessPairHMM();
+        logless.doNotUseTristateCorrection();
+        antiDiagonal.doNotUseTristateCorrection();
+        logless.initialize(50, 80);
+        antiDiagonal.initialize(50, 80);
+
+        final byte[] readQuals = randomQuals(random, 50, 10, 40);
+        final byte[] gops = new byte[50];
+        Arrays.fill(gops, (byte) 45);
+        final byte[] gcp = new byte[50];
+        Arrays.fill(gcp, (byte) 10);
+        final byte[] readBases = randomBases(random, 50);
+        final byte[] haplotypeBases = randomBases(random, 80);
+        Assert.assertEquals(antiDiagonal.computeReadLikelihoodGivenHaplotypeLog10(haplotypeBases, readBases, readQuals, gops, gops, gcp, true, null),
+                logless.computeReadLikelihoodGivenHaplotypeLog10(haplotypeBases, readBases, readQuals, gops, gops, gcp, true, null));
+    }
+
+    @Test
+    public void testComputeLog10Likelihoods() {
+        final Random random = new Random(13);
+        final byte[] refBases = randomBases(random, 150);
+        final List<Haplotype> haplotypes = new ArrayList<>();
+        haplotypes.add(new Haplotype(refBases, true));
+        for ( int h = 1; h < 5; h++ ) {
+            final byte[] bases = refBases.clone();
+            bases[10 * h] = bases[10 * h] == 'A' ? (byte) 'C' : (byte) 'A';
+            // some of the haplotypes have a different length, like those carrying an indel
+            haplotypes.add(new Haplotype(h % 2 == 0 ? Arrays.copyOf(bases, bases.length - h) : bases, false));
+        }
+        final List<GATKRead> reads = new ArrayList<>();
+        for ( int r = 0; r < 30; r++ ) {
+            final int length = 40 + random.nextInt(60);
+            final int start = random.nextInt(refBases.length - length);
+            reads.add(ArtificialReadUtils.createArtificialRead(Arrays.copyOfRange(refBases, start, start + length), randomQuals(random, length, 10, 40), length + "M"));
+        }
+        final Map<GATKRead, byte[]> gcp = reads.stream().collect(Collectors.toMap(read -> read, read -> {
+            final byte[] penalties = new byte[read.getLength()];
+            Arrays.fill(penalties, (byte) 10);
+            return penalties;
+        }));
+
+        final Map<String, List<GATKRead>> readsBySample = Collections.singletonMap("sample", reads);
+        final ReadLikelihoods<Haplotype> expected = new ReadLikelihoods<>(new IndexedSampleList("sample"), new IndexedAlleleList<>(haplotypes), readsBySample);
+        final ReadLikelihoods<Haplotype> actual = new ReadLikelihoods<>(new IndexedSampleList("sample"), new IndexedAlleleList<>(haplotypes), readsBySample);
+        new LoglessPairHMM().computeLog10Likelihoods(expected.sampleMatrix(0), reads, gcp);
+        PairHMM.Implementation.ANTIDIAGONAL_LOGLESS.makeNewHMM().computeLog10Likelihoods(actual.sampleMatrix(0), reads, gcp);
+        for ( int a = 0; a < haplotypes.size(); a++ ) {
+            for ( int r = 0; r < reads.size(); r++ ) {
+                Assert.assertEquals(actual.sampleMatrix(0).get(a, r), expected.sampleMatrix(0).get(a, r), "haplotype " + a + " read " + r);
+            }
+        }
+    }
+}
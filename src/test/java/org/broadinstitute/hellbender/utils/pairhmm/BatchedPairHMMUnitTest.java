@@ -0,0 +1,175 @@
+package org.broadinstitute.hellbender.utils.pairhmm;
+
+import org.broadinstitute.hellbender.utils.genotyper.IndexedAlleleList;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
+import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
+import org.broadinstitute.hellbender.utils.genotyper.ReadLikelihoods;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.test.BaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public final class BatchedPairHMMUnitTest extends BaseTest {
+    private static final byte[] BASES = {'A', 'C', 'G', 'T'};
+    private static final List<String> SAMPLES = Arrays.asList("sample1", "sample2", "sample3");
+
+    private static byte[] randomBases(final Random random, final int length) {
+        final byte[] bases = new byte[length];
+        for ( int i = 0; i < length; i++ ) {
+            bases[i] = BASES[random.nextInt(BASES.length)];
+        }
+        return bases;
+    }
+
+    private static List<Haplotype> makeHaplotypes(final Random random, final int numHaplotypes) {
+        final byte[] refBases = randomBases(random, 120);
+        final List<Haplotype> haplotypes = new ArrayList<>(numHaplotypes);
+        haplotypes.add(new Haplotype(refBases, true));
+        for ( int h = 1; h < numHaplotypes; h++ ) {
+            final byte[] bases = refBases.clone();
+            // a different base at a different position for every haplotype, so that they are all distinct
+            bases[h] = bases[h] == 'A' ? (byte) 'C' : (byte) 'A';
+            // some haplotypes have a different length, like those carrying an indel
+            haplotypes.add(new Haplotype(h % 3 == 0 ? Arrays.copyOf(bases, bases.length - h) : bases, false));
+        }
+        return haplotypes;
+    }
+
+    private static Map<String, List<GATKRead>> makeReads(final Random random, final List<Haplotype> haplotypes, final int readsPerSample) {
+        final Map<String, List<GATKRead>> readsBySample = new LinkedHashMap<>();
+        for ( final String sample : SAMPLES ) {
+            final List<GATKRead> reads = new ArrayList<>(readsPerSample);
+            for ( int r = 0; r < readsPerSample; r++ ) {
+                final byte[] haplotypeBases = haplotypes.get(random.nextInt(haplotypes.size())).getBases();
+                final int length = 30 + random.nextInt(50);
+                final int start = random.nextInt(haplotypeBases.length - length);
+                final byte[] bases = Arrays.copyOfRange(haplotypeBases, start, start + length);
+                final byte[] quals = new byte[length];
+                for ( int i = 0; i < length; i++ ) {
+                    quals[i] = (byte) (10 + random.nextInt(30));
+                    if ( random.nextInt(50) == 0 ) {
+                        bases[i] = BASES[random.nextInt(BASES.length)];
+                    }
+                }
+                reads.add(ArtificialReadUtils.createArtificialRead(bases, quals, length + "M"));
+            }
+            readsBySample.put(sample, reads);
+        }
+        return readsBySample;
+    }
+
+    private static Map<GATKRead, byte[]> makeGapContinuationPenalties(final Map<String, List<GATKRead>> readsBySample) {
+        final Map<GATKRead, byte[]> gcp = new LinkedHashMap<>();
+        readsBySample.values().forEach(reads -> reads.forEach(read -> {
+            final byte[] penalties = new byte[read.getLength()];
+            Arrays.fill(penalties, (byte) 10);
+            gcp.put(read, penalties);
+        }));
+        return gcp;
+    }
+
+    @DataProvider(name = "batches")
+    public Object[][] makeBatchesData() {
+        return new Object[][]{
+                // threads, reads per work unit, reads per sample
+                {1, 16, 40},
+                {3, 1, 40},
+                {3, 7, 40},
+                {4, 100, 40},
+                {2, 5, 0},
+        };
+    }
+
+    @Test(dataProvider = "batches")
+    public void testSameLikelihoodsAsSerialPairHMM(final int numThreads, final int readsPerWorkUnit, final int readsPerSample) {
+        final Random random = new Random(numThreads * 31 + readsPerWorkUnit);
+        final List<Haplotype> haplotypes = makeHaplotypes(random, 6);
+        final Map<String, List<GATKRead>> readsBySample = makeReads(random, haplotypes, readsPerSample);
+        final Map<GATKRead, byte[]> gcp = makeGapContinuationPenalties(readsBySample);
+
+        final ReadLikelihoods<Haplotype> expected = new ReadLikelihoods<>(new IndexedSampleList(SAMPLES), new IndexedAlleleList<>(haplotypes), readsBySample);
+        final PairHMM serialHMM = new LoglessPairHMM();
+        for ( int s = 0; s < SAMPLES.size(); s++ ) {
+            serialHMM.computeLog10Likelihoods(expected.sampleMatrix(s), expected.sampleReads(s), gcp);
+        }
+
+        final ReadLikelihoods<Haplotype> actual = new ReadLikelihoods<>(new IndexedSampleList(SAMPLES), new IndexedAlleleList<>(haplotypes), readsBySample);
+        try ( final BatchedPairHMM batchedHMM = new BatchedPairHMM(LoglessPairHMM::new, numThreads, readsPerWorkUnit) ) {
+            // twice, to check that the per-thread PairHMMs are reinitialized correctly between batches
+            for ( int i = 0; i < 2; i++ ) {
+                batchedHMM.computeLog10Likelihoods(actual, gcp);
+            }
+            Assert.assertEquals(batchedHMM.getNumberOfCellsComputed(), 2L * haplotypes.size() * readsPerSample * SAMPLES.size());
+        }
+
+        for ( int s = 0; s < SAMPLES.size(); s++ ) {
+            final LikelihoodMatrix<Haplotype> expectedMatrix = expected.sampleMatrix(s);
+            final LikelihoodMatrix<Haplotype> actualMatrix = actual.sampleMatrix(s);
+            for ( int a = 0; a < haplotypes.size(); a++ ) {
+                for ( int r = 0; r < readsPerSample; r++ ) {
+                    Assert.assertEquals(actualMatrix.get(a, r), expectedMatrix.get(a, r), "sample " + s + " haplotype " + a + " read " + r);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSampleMatrix() {
+        final Random random = new Random(7);
+        final List<Haplotype> haplotypes = makeHaplotypes(random, 4);
+        final Map<String, List<GATKRead>> readsBySample = makeReads(random, haplotypes, 20);
+        final Map<GATKRead, byte[]> gcp = makeGapContinuationPenalties(readsBySample);
+        final ReadLikelihoods<Haplotype> expected = new ReadLikelihoods<>(new IndexedSampleList(SAMPLES), new IndexedAlleleList<>(haplotypes), readsBySample);
+        final ReadLikelihoods<Haplotype> actual = new ReadLikelihoods<>(new IndexedSampleList(SAMPLES), new IndexedAlleleList<>(haplotypes), readsBySample);
+
+        new LoglessPairHMM().computeLog10Likelihoods(expected.sampleMatrix(1), expected.sampleReads(1), gcp);
+        try ( final BatchedPairHMM batchedHMM = new BatchedPairHMM(PairHMM.Implementation.LOGLESS_CACHING, 2) ) {
+            batchedHMM.computeLog10Likelihoods(actual.sampleMatrix(1), actual.sampleReads(1), gcp);
+        }
+        for ( int a = 0; a < haplotypes.size(); a++ ) {
+            for ( int r = 0; r < 20; r++ ) {
+                Assert.assertEquals(actual.sampleMatrix(1).get(a, r), expected.sampleMatrix(1).get(a, r));
+            }
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testErrorInWorkUnitIsRethrown() {
+        final Random random = new Random(11);
+        final List<Haplotype> haplotypes = makeHaplotypes(random, 2);
+        final Map<String, List<GATKRead>> readsBySample = makeReads(random, haplotypes, 20);
+        final ReadLikelihoods<Haplotype> likelihoods = new ReadLikelihoods<>(new IndexedSampleList(SAMPLES), new IndexedAlleleList<>(haplotypes), readsBySample);
+        // gap continuation penalties of the wrong length
+        final Map<GATKRead, byte[]> gcp = new LinkedHashMap<>();
+        readsBySample.values().forEach(reads -> reads.forEach(read -> gcp.put(read, new byte[1])));
+        try ( final BatchedPairHMM batchedHMM = new BatchedPairHMM(LoglessPairHMM::new, 3, 4) ) {
+            batchedHMM.computeLog10Likelihoods(likelihoods, gcp);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNoThreads() {
+        new BatchedPairHMM(PairHMM.Implementation.LOGLESS_CACHING, 0);
+    }
+
+    @Test
+    public void testNoHaplotypes() {
+        final Map<String, List<GATKRead>> readsBySample = makeReads(new Random(3), makeHaplotypes(new Random(3), 2), 5);
+        final ReadLikelihoods<Haplotype> likelihoods = new ReadLikelihoods<>(new IndexedSampleList(SAMPLES), new IndexedAlleleList<>(Collections.emptyList()), readsBySample);
+        try ( final BatchedPairHMM batchedHMM = new BatchedPairHMM(PairHMM.Implementation.LOGLESS_CACHING, 2) ) {
+            batchedHMM.computeLog10Likelihoods(likelihoods, makeGapContinuationPenalties(readsBySample));
+            Assert.assertEquals(batchedHMM.getNumberOfCellsComputed(), 0L);
+        }
+    }
+}
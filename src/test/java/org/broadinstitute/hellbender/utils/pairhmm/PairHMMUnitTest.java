@@ -16,6 +16,7 @@ import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.util.*;
+import java.util.function.Supplier;
 
 public final class PairHMMUnitTest extends BaseTest {
     private final static boolean ALLOW_READS_LONGER_THAN_HAPLOTYPE = true;
@@ -746,6 +747,66 @@ public final class PairHMMUnitTest extends BaseTest {
                 baseQuals, baseQuals, baseQuals, baseQuals, true, null);
     }
 
+    @Test
+    public void testHaplotypePrefixOrder() {
+        final List<Haplotype> haplotypes = Arrays.asList(
+                new Haplotype("ACGTT".getBytes(), true),
+                new Haplotype("ACGAT".getBytes(), false),
+                new Haplotype("ACG".getBytes(), false),
+                new Haplotype("TCGTT".getBytes(), false),
+                new Haplotype("ACGTA".getBytes(), false),
+                new Haplotype("AAG".getBytes(), false));
+        Assert.assertEquals(PairHMM.haplotypePrefixOrder(haplotypes), new int[]{5, 2, 1, 4, 0, 3});
+        Assert.assertEquals(PairHMM.haplotypePrefixOrder(Collections.emptyList()), new int[0]);
+    }
+
+    @DataProvider(name = "PrefixReuseHMMProvider")
+    public Object[][] makePrefixReuseHMMProvider() {
+        return new Object[][]{
+                {(Supplier<PairHMM>) () -> new Log10PairHMM(true)},
+                {(Supplier<PairHMM>) () -> new Log10PairHMM(false)},
+                {(Supplier<PairHMM>) LoglessPairHMM::new},
+        };
+    }
+
+    @Test(dataProvider = "PrefixReuseHMMProvider")
+    public void testReuseHaplotypePrefixes(final Supplier<PairHMM> hmmSupplier) {
+        // similar haplotypes, in an order where consecutive haplotypes share little
+        final String ref = "AACCGGTTTTTGGGCCCAAACGTACGTACAGTTGGTCAACATCGATCAGGTTCCGGAGTAC";
+        final List<Haplotype> haplotypes = new ArrayList<>();
+        haplotypes.add(new Haplotype(ref.getBytes(), true));
+        for ( final int position : new int[]{5, 50, 20, 40, 10} ) {
+            final byte[] bases = ref.getBytes();
+            bases[position] = bases[position] == 'A' ? (byte) 'C' : (byte) 'A';
+            haplotypes.add(new Haplotype(bases, false));
+        }
+        haplotypes.add(new Haplotype((ref + "A").getBytes(), false));
+
+        final List<GATKRead> reads = new ArrayList<>();
+        for ( int start = 0; start < 20; start += 4 ) {
+            final byte[] readBases = ref.substring(start, start + 35).getBytes();
+            reads.add(ArtificialReadUtils.createArtificialRead(readBases, Utils.dupBytes((byte) 30, readBases.length), readBases.length + "M"));
+        }
+        final Map<GATKRead, byte[]> gcps = buildGapContinuationPenalties(reads, (byte) 10);
+
+        final PairHMM withoutReuse = hmmSupplier.get();
+        withoutReuse.setReuseHaplotypePrefixes(false);
+        withoutReuse.computeLog10Likelihoods(matrix(haplotypes), reads, gcps);
+        final PairHMM withReuse = hmmSupplier.get();
+        withReuse.computeLog10Likelihoods(matrix(haplotypes), reads, gcps);
+
+        // exactly the same likelihoods, in the same order
+        Assert.assertEquals(withReuse.getLogLikelihoodArray(), withoutReuse.getLogLikelihoodArray());
+
+        final long totalCells = reads.stream().mapToLong(read -> read.getLength() * haplotypes.stream().mapToLong(Haplotype::length).sum()).sum();
+        Assert.assertEquals(withoutReuse.getNumberOfMatrixCellsComputed(), totalCells);
+        Assert.assertEquals(withoutReuse.getNumberOfMatrixCellsSkipped(), 0L);
+        Assert.assertEquals(withReuse.getNumberOfMatrixCellsComputed() + withReuse.getNumberOfMatrixCellsSkipped(), totalCells);
+        // in prefix order, each of the haplotypes with a substitution reuses the columns up to its first difference from the previous one
+        final long expectedSkipped = reads.stream().mapToLong(GATKRead::getLength).sum() * (5 + 10 + 20 + 40 + 50);
+        Assert.assertEquals(withReuse.getNumberOfMatrixCellsSkipped(), expectedSkipped);
+    }
+
     @Test
     public void dumpMatrices(){
         //doesn't test anything other than not-blowing up
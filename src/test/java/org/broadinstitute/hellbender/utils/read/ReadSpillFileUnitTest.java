@@ -0,0 +1,94 @@
+package org.broadinstitute.hellbender.utils.read;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.util.CloseableIterator;
+import org.broadinstitute.hellbender.utils.test.BaseTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class ReadSpillFileUnitTest extends BaseTest {
+
+    private static List<GATKRead> makeReads( final SAMFileHeader header, final int numReads ) {
+        final List<GATKRead> reads = new ArrayList<>(numReads);
+        for ( int i = 0; i < numReads; ++i ) {
+            final GATKRead read = ArtificialReadUtils.createArtificialRead(header, "read" + i, i % 3, 1 + i * 10, 50);
+            read.setAttribute("XY", i);
+            if ( i % 5 == 0 ) {
+                read.setIsReverseStrand(true);
+            }
+            reads.add(read);
+        }
+        final GATKRead unmappedRead = ArtificialReadUtils.createArtificialRead(header, "unmapped", 0, 1, 50);
+        unmappedRead.setIsUnmapped();
+        reads.add(unmappedRead);
+        return reads;
+    }
+
+    @Test
+    public void testReadsRoundTripInOrder() {
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader(3, 1, 100_000);
+        final List<GATKRead> reads = makeReads(header, 1000);
+        try ( final ReadSpillFile spillFile = new ReadSpillFile(header) ) {
+            reads.forEach(spillFile::add);
+            Assert.assertEquals(spillFile.size(), reads.size());
+
+            // the file may be read back more than once
+            for ( int pass = 0; pass < 2; ++pass ) {
+                final List<GATKRead> readBack = new ArrayList<>();
+                try ( final CloseableIterator<GATKRead> iterator = spillFile.iterator() ) {
+                    iterator.forEachRemaining(readBack::add);
+                }
+                Assert.assertEquals(readBack.size(), reads.size());
+                for ( int i = 0; i < reads.size(); ++i ) {
+                    Assert.assertEquals(readBack.get(i).convertToSAMRecord(header).getSAMString(), reads.get(i).convertToSAMRecord(header).getSAMString());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLaterModificationsAreNotSpilled() {
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader(3, 1, 100_000);
+        final GATKRead read = ArtificialReadUtils.createArtificialRead(header, "original", 0, 1, 50);
+        try ( final ReadSpillFile spillFile = new ReadSpillFile(header) ) {
+            spillFile.add(read);
+            read.setName("modified");
+            try ( final CloseableIterator<GATKRead> iterator = spillFile.iterator() ) {
+                Assert.assertEquals(iterator.next().getName(), "original");
+                Assert.assertFalse(iterator.hasNext());
+            }
+        }
+    }
+
+    @Test
+    public void testEmptyFile() {
+        try ( final ReadSpillFile spillFile = new ReadSpillFile(ArtificialReadUtils.createArtificialSamHeader()) ) {
+            try ( final CloseableIterator<GATKRead> iterator = spillFile.iterator() ) {
+                Assert.assertFalse(iterator.hasNext());
+            }
+        }
+    }
+
+    @Test
+    public void testCloseDeletesFile() {
+        final File file;
+        try ( final ReadSpillFile spillFile = new ReadSpillFile(ArtificialReadUtils.createArtificialSamHeader()) ) {
+            file = spillFile.getFile();
+            Assert.assertTrue(file.exists());
+        }
+        Assert.assertFalse(file.exists());
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testCannotAddAfterReading() {
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader();
+        try ( final ReadSpillFile spillFile = new ReadSpillFile(header) ) {
+            spillFile.iterator().close();
+            spillFile.add(ArtificialReadUtils.createArtificialRead(header, "read", 0, 1, 50));
+        }
+    }
+}
@@ -1,19 +1,25 @@
 package org.broadinstitute.hellbender.utils.recalibration;
 
+import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.TextCigarCodec;
+import org.broadinstitute.hellbender.engine.ReadsDataSource;
 import org.broadinstitute.hellbender.engine.ReferenceDataSource;
 import org.broadinstitute.hellbender.engine.ReferenceMemorySource;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.collections.NestedIntegerArray;
 import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.reference.ReferenceBases;
+import org.broadinstitute.hellbender.utils.test.BaseTest;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 public final class BaseRecalibrationEngineUnitTest {
@@ -145,4 +151,53 @@ public final class BaseRecalibrationEngineUnitTest {
         final int[] actual = (mode == EventType.BASE_INSERTION ? isInsertion : isDeletion);
         Assert.assertEquals(actual, expected, "calculateIsSNPOrIndel() failed with " + mode + " and cigar " + cigar + " Expected " + Arrays.toString(expected) + " but got " + Arrays.toString(actual));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCombineEngines() {
+        final File bam = new File(BaseTest.publicTestDir + "org/broadinstitute/hellbender/tools/BQSR/NA12878.chr17_69k_70k.dictFix.bam");
+        final File referenceFile = new File(BaseTest.publicTestDir + "human_g1k_v37.chr17_1Mb.fasta");
+        final RecalibrationArgumentCollection recalArgs = new RecalibrationArgumentCollection();
+        recalArgs.enableBAQ = true;
+
+        try ( final ReadsDataSource reads = new ReadsDataSource(bam);
+              final ReferenceDataSource reference = ReferenceDataSource.of(referenceFile) ) {
+            final BaseRecalibrationEngine allReadsEngine = new BaseRecalibrationEngine(recalArgs, reads.getHeader());
+            final BaseRecalibrationEngine evenReadsEngine = new BaseRecalibrationEngine(recalArgs, reads.getHeader());
+            final BaseRecalibrationEngine oddReadsEngine = new BaseRecalibrationEngine(recalArgs, reads.getHeader());
+
+            int readIndex = 0;
+            for ( final GATKRead read : reads ) {
+                if ( read.isUnmapped() ) {
+                    continue;
+                }
+                allReadsEngine.processRead(read.copy(), reference, Collections.emptyList());
+                (readIndex++ % 2 == 0 ? evenReadsEngine : oddReadsEngine).processRead(read.copy(), reference, Collections.emptyList());
+            }
+
+            final BaseRecalibrationEngine combinedEngine = evenReadsEngine.combine(oddReadsEngine);
+            Assert.assertEquals(combinedEngine.getNumReadsProcessed(), allReadsEngine.getNumReadsProcessed());
+
+            final RecalibrationTables expected = allReadsEngine.getRecalibrationTables();
+            final RecalibrationTables actual = combinedEngine.getRecalibrationTables();
+            Assert.assertFalse(expected.isEmpty());
+            for ( int i = 0; i < expected.numTables(); i++ ) {
+                final NestedIntegerArray<RecalDatum> actualTable = actual.getTable(i);
+                Assert.assertEquals(actualTable.getAllLeaves().size(), expected.getTable(i).getAllLeaves().size());
+                for ( final NestedIntegerArray.Leaf<RecalDatum> leaf : expected.getTable(i).getAllLeaves() ) {
+                    final RecalDatum datum = actualTable.get(leaf.keys);
+                    Assert.assertEquals(datum.getNumObservations(), leaf.value.getNumObservations());
+                    Assert.assertEquals(datum.getNumMismatches(), leaf.value.getNumMismatches(), 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testCannotCombineFinalizedEngines() {
+        final RecalibrationArgumentCollection recalArgs = new RecalibrationArgumentCollection();
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeaderWithGroups(1, 1, 1000, 1);
+        final BaseRecalibrationEngine engine = new BaseRecalibrationEngine(recalArgs, header);
+        engine.finalizeData();
+        engine.combine(new BaseRecalibrationEngine(recalArgs, header));
+    }
+}
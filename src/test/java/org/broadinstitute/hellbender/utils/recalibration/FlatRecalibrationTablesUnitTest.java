@@ -0,0 +1,205 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.broadinstitute.hellbender.utils.collections.NestedIntegerArray;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
+import org.broadinstitute.hellbender.utils.test.BaseTest;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public final class FlatRecalibrationTablesUnitTest extends BaseTest {
+    private static final String testDir = BaseTest.publicTestDir + "/org/broadinstitute/hellbender/utils/recalibration/";
+
+    private final int numReadGroups = 3;
+    private StandardCovariateList covariates;
+
+    @BeforeMethod
+    private void makeCovariates() {
+        final List<String> readGroups = IntStream.range(0, numReadGroups).mapToObj(i -> "readgroup" + i).collect(Collectors.toList());
+        covariates = new StandardCovariateList(new RecalibrationArgumentCollection(), readGroups);
+    }
+
+    /**
+     * Fill both the flat tables and the RecalDatum-based tables with the same random observations,
+     * in the same way BaseRecalibrationEngine used to update the RecalDatum-based tables.
+     */
+    private void fillTables(final FlatRecalibrationTables flatTables, final RecalibrationTables tables, final int numObservations, final long seed) {
+        final Random random = new Random(seed);
+        final int[] keys = new int[covariates.size()];
+        for ( int n = 0; n < numObservations; n++ ) {
+            keys[0] = random.nextInt(numReadGroups);
+            keys[1] = 10 + random.nextInt(30);
+            for ( int i = covariates.numberOfSpecialCovariates(); i < keys.length; i++ ) {
+                // negative keys (e.g. contexts with an N) are not counted
+                keys[i] = random.nextInt(10) == 0 ? -1 : random.nextInt(20);
+            }
+            final int eventIndex = random.nextInt(EventType.values().length);
+            final double isError = random.nextInt(4) == 0 ? random.nextDouble() : 0.0;
+
+            flatTables.increment(keys, eventIndex, isError);
+
+            RecalUtils.incrementDatumOrPutIfNecessary3keys(tables.getQualityScoreTable(), (byte) keys[1], isError, keys[0], keys[1], eventIndex);
+            for ( int i = covariates.numberOfSpecialCovariates(); i < keys.length; i++ ) {
+                if ( keys[i] >= 0 ) {
+                    RecalUtils.incrementDatumOrPutIfNecessary4keys(tables.getTable(i), (byte) keys[1], isError, keys[0], keys[1], keys[i], eventIndex);
+                }
+            }
+        }
+    }
+
+    private static void assertSameTables(final RecalibrationTables actual, final RecalibrationTables expected, final boolean includeReadGroupTable) {
+        Assert.assertEquals(actual.numTables(), expected.numTables());
+        for ( int i = includeReadGroupTable ? 0 : 1; i < expected.numTables(); i++ ) {
+            final NestedIntegerArray<RecalDatum> actualTable = actual.getTable(i);
+            final List<NestedIntegerArray.Leaf<RecalDatum>> expectedLeaves = expected.getTable(i).getAllLeaves();
+            Assert.assertEquals(actualTable.getAllLeaves().size(), expectedLeaves.size(), "table " + i);
+            for ( final NestedIntegerArray.Leaf<RecalDatum> leaf : expectedLeaves ) {
+                final RecalDatum actualDatum = actualTable.get(leaf.keys);
+                Assert.assertNotNull(actualDatum);
+                Assert.assertEquals(actualDatum.getNumObservations(), leaf.value.getNumObservations());
+                Assert.assertEquals(actualDatum.getNumMismatches(), leaf.value.getNumMismatches());
+                Assert.assertEquals(actualDatum.getEstimatedQReported(), leaf.value.getEstimatedQReported());
+                Assert.assertEquals(actualDatum.getEmpiricalQuality(), leaf.value.getEmpiricalQuality());
+            }
+        }
+    }
+
+    @Test
+    public void testIncrementMatchesRecalDatumTables() {
+        final FlatRecalibrationTables flatTables = new FlatRecalibrationTables(covariates, numReadGroups);
+        final RecalibrationTables expected = new RecalibrationTables(covariates, numReadGroups);
+        Assert.assertTrue(flatTables.isEmpty());
+
+        fillTables(flatTables, expected, 10000, 1L);
+        Assert.assertFalse(flatTables.isEmpty());
+
+        final RecalibrationTables actual = flatTables.toRecalibrationTables();
+        Assert.assertTrue(actual.getReadGroupTable().getAllValues().isEmpty());
+        assertSameTables(actual, expected, false);
+
+        // the read group table is derived from the quality score table in the same way
+        BaseRecalibrationEngine.finalizeRecalibrationTables(actual);
+        BaseRecalibrationEngine.finalizeRecalibrationTables(expected);
+        assertSameTables(actual, expected, true);
+    }
+
+    @Test
+    public void testGetCounts() {
+        final FlatRecalibrationTables flatTables = new FlatRecalibrationTables(covariates, numReadGroups);
+        final int[] keys = new int[covariates.size()];
+        keys[0] = 2;
+        keys[1] = 30;
+        keys[2] = 5;
+        keys[3] = -1;
+        flatTables.increment(keys, EventType.BASE_SUBSTITUTION.ordinal(), 1.0);
+        flatTables.increment(keys, EventType.BASE_SUBSTITUTION.ordinal(), 0.5);
+
+        final int subIndex = EventType.BASE_SUBSTITUTION.ordinal();
+        Assert.assertEquals(flatTables.getNumObservations(1, 2, 30, 0, subIndex), 2L);
+        Assert.assertEquals(flatTables.getNumMismatches(1, 2, 30, 0, subIndex), 1.5);
+        Assert.assertEquals(flatTables.getNumObservations(2, 2, 30, 5, subIndex), 2L);
+        Assert.assertEquals(flatTables.getNumMismatches(2, 2, 30, 5, subIndex), 1.5);
+        Assert.assertEquals(flatTables.getNumObservations(3, 2, 30, 5, subIndex), 0L);
+        Assert.assertEquals(flatTables.getNumObservations(1, 2, 30, 0, EventType.BASE_INSERTION.ordinal()), 0L);
+        Assert.assertEquals(flatTables.getNumObservations(1, 0, 30, 0, subIndex), 0L);
+        Assert.assertEquals(flatTables.getNumMismatches(1, 0, 30, 0, subIndex), 0.0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testReadGroupTableIsNotStored() {
+        new FlatRecalibrationTables(covariates, numReadGroups).getNumObservations(0, 0, 0, 0, 0);
+    }
+
+    @Test
+    public void testCombine() {
+        final FlatRecalibrationTables flat1 = new FlatRecalibrationTables(covariates, numReadGroups);
+        final FlatRecalibrationTables flat2 = new FlatRecalibrationTables(covariates, numReadGroups);
+        final RecalibrationTables tables1 = new RecalibrationTables(covariates, numReadGroups);
+        final RecalibrationTables tables2 = new RecalibrationTables(covariates, numReadGroups);
+        fillTables(flat1, tables1, 5000, 2L);
+        fillTables(flat2, tables2, 5000, 3L);
+
+        final RecalibrationTables combined = flat1.combine(flat2).toRecalibrationTables();
+        final RecalibrationTables expected = tables1.combine(tables2);
+
+        // combining RecalDatums rescales the mismatch counts, so allow for rounding differences
+        for ( int i = 1; i < expected.numTables(); i++ ) {
+            final NestedIntegerArray<RecalDatum> combinedTable = combined.getTable(i);
+            final List<NestedIntegerArray.Leaf<RecalDatum>> expectedLeaves = expected.getTable(i).getAllLeaves();
+            Assert.assertEquals(combinedTable.getAllLeaves().size(), expectedLeaves.size());
+            for ( final NestedIntegerArray.Leaf<RecalDatum> leaf : expectedLeaves ) {
+                final RecalDatum datum = combinedTable.get(leaf.keys);
+                Assert.assertEquals(datum.getNumObservations(), leaf.value.getNumObservations());
+                Assert.assertEquals(datum.getNumMismatches(), leaf.value.getNumMismatches(), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testCombineIntoEmptyTables() {
+        final FlatRecalibrationTables flatTables = new FlatRecalibrationTables(covariates, numReadGroups);
+        final RecalibrationTables tables = new RecalibrationTables(covariates, numReadGroups);
+        fillTables(flatTables, tables, 5000, 4L);
+
+        // every row of the combined tables comes from the other tables, and must not change with them
+        final FlatRecalibrationTables combined = new FlatRecalibrationTables(covariates, numReadGroups).combine(flatTables);
+        fillTables(flatTables, new RecalibrationTables(covariates, numReadGroups), 5000, 5L);
+        assertSameTables(combined.toRecalibrationTables(), tables, false);
+    }
+
+    @Test
+    public void testRecalibrationReportRoundTrip() {
+        final RecalibrationReport report = new RecalibrationReport(new File(testDir + "HiSeq.1mb.1RG.noSG.table"));
+        final RecalibrationTables reportTables = report.getRecalibrationTables();
+
+        final FlatRecalibrationTables flatTables = FlatRecalibrationTables.fromRecalibrationTables(reportTables);
+        Assert.assertFalse(flatTables.isEmpty());
+        Assert.assertEquals(flatTables.getNumReadGroups(), reportTables.getNumReadGroups());
+
+        assertSameTables(flatTables.toRecalibrationTables(), reportTables, false);
+    }
+
+    private static FlatRecalibrationTables roundTripInKryo(final FlatRecalibrationTables flatTables) {
+        final Kryo kryo = new Kryo();
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        final Output out = new Output(bos);
+        kryo.writeClassAndObject(out, flatTables);
+        out.flush();
+        return (FlatRecalibrationTables) kryo.readClassAndObject(new Input(new ByteArrayInputStream(bos.toByteArray())));
+    }
+
+    @Test
+    public void testKryoRoundTrip() {
+        final FlatRecalibrationTables flatTables = new FlatRecalibrationTables(covariates, numReadGroups);
+        final RecalibrationTables expected = new RecalibrationTables(covariates, numReadGroups);
+        fillTables(flatTables, expected, 10000, 4L);
+
+        final FlatRecalibrationTables roundTripped = roundTripInKryo(flatTables);
+        Assert.assertEquals(roundTripped.getNumReadGroups(), numReadGroups);
+        Assert.assertEquals(roundTripped.getCovariates().covariateNames(), covariates.covariateNames());
+        assertSameTables(roundTripped.toRecalibrationTables(), expected, false);
+
+        // the round-tripped tables can still be combined with others
+        final FlatRecalibrationTables other = new FlatRecalibrationTables(covariates, numReadGroups);
+        fillTables(other, expected, 1000, 5L);
+        assertSameTables(roundTripped.combine(other).toRecalibrationTables(), flatTables.combine(other).toRecalibrationTables(), false);
+    }
+
+    @Test
+    public void testKryoRoundTripEmpty() {
+        final FlatRecalibrationTables roundTripped = roundTripInKryo(new FlatRecalibrationTables(covariates, numReadGroups));
+        Assert.assertTrue(roundTripped.isEmpty());
+        Assert.assertEquals(roundTripped.getNumReadGroups(), numReadGroups);
+    }
+}
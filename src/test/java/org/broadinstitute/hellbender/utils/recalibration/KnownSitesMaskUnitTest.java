@@ -0,0 +1,116 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import htsjdk.tribble.Feature;
+import htsjdk.variant.variantcontext.VariantContext;
+import org.broadinstitute.hellbender.engine.FeatureDataSource;
+import org.broadinstitute.hellbender.engine.FeatureInput;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.test.BaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public final class KnownSitesMaskUnitTest extends BaseTest {
+    private static final String bqsrTestDir = publicTestDir + "org/broadinstitute/hellbender/tools/BQSR/";
+
+    // sites are deliberately out of order
+    private static final List<SimpleInterval> SITES = Arrays.asList(
+            new SimpleInterval("1", 20, 25),
+            new SimpleInterval("1", 10, 10),
+            new SimpleInterval("1", 23, 30),   // overlaps 20-25
+            new SimpleInterval("1", 31, 31),   // abuts 23-30
+            new SimpleInterval("1", 11, 12),   // abuts 10
+            new SimpleInterval("1", 50, 50),
+            new SimpleInterval("1", 50, 50),   // duplicate
+            new SimpleInterval("2", 1, 3)
+    );
+
+    private static KnownSitesMask makeMask() {
+        return KnownSitesMask.fromSites(SITES.iterator(), Collections.singletonList("test"));
+    }
+
+    @DataProvider(name = "runs")
+    public Object[][] makeRunsData() {
+        return new Object[][]{
+                {new SimpleInterval("1", 1, 9), Collections.emptyList()},
+                {new SimpleInterval("1", 1, 10), Arrays.asList(new SimpleInterval("1", 10, 10))},
+                {new SimpleInterval("1", 12, 12), Arrays.asList(new SimpleInterval("1", 11, 12))},
+                {new SimpleInterval("1", 10, 11), Arrays.asList(new SimpleInterval("1", 10, 10), new SimpleInterval("1", 11, 12))},
+                {new SimpleInterval("1", 13, 19), Collections.emptyList()},
+                {new SimpleInterval("1", 26, 26), Arrays.asList(new SimpleInterval("1", 20, 30))},
+                {new SimpleInterval("1", 29, 40), Arrays.asList(new SimpleInterval("1", 20, 30), new SimpleInterval("1", 31, 31))},
+                {new SimpleInterval("1", 31, 100), Arrays.asList(new SimpleInterval("1", 31, 31), new SimpleInterval("1", 50, 50))},
+                {new SimpleInterval("1", 51, 1000), Collections.emptyList()},
+                {new SimpleInterval("2", 2, 2), Arrays.asList(new SimpleInterval("2", 1, 3))},
+                {new SimpleInterval("3", 1, 100), Collections.emptyList()},
+        };
+    }
+
+    @Test(dataProvider = "runs")
+    public void testGetKnownSiteRuns(final SimpleInterval query, final List<SimpleInterval> expectedRuns) {
+        Assert.assertEquals(makeMask().getKnownSiteRuns(query), expectedRuns);
+    }
+
+    @Test
+    public void testIsMasked() {
+        final KnownSitesMask mask = makeMask();
+        Assert.assertEquals(mask.getNumMaskedPositions(), 3 + 12 + 1 + 3);
+        Assert.assertTrue(mask.isMasked("1", 10));
+        Assert.assertTrue(mask.isMasked("1", 31));
+        Assert.assertFalse(mask.isMasked("1", 13));
+        Assert.assertFalse(mask.isMasked("1", 0));
+        Assert.assertFalse(mask.isMasked("3", 10));
+    }
+
+    @Test
+    public void testWriteAndReadMask() {
+        final KnownSitesMask mask = makeMask();
+        final File maskFile = createTempFile("knownSites", ".mask");
+        mask.writeMask(maskFile);
+
+        final KnownSitesMask readMask = KnownSitesMask.readMask(maskFile);
+        Assert.assertEquals(readMask.getSources(), mask.getSources());
+        Assert.assertEquals(readMask.getNumMaskedPositions(), mask.getNumMaskedPositions());
+        for ( final Object[] runsData : makeRunsData() ) {
+            final SimpleInterval query = (SimpleInterval) runsData[0];
+            Assert.assertEquals(readMask.getKnownSiteRuns(query), mask.getKnownSiteRuns(query), query.toString());
+        }
+    }
+
+    @Test(expectedExceptions = UserException.MalformedFile.class)
+    public void testReadNotAMask() throws IOException {
+        final File notAMask = createTempFile("notAMask", ".mask");
+        try ( final PrintStream out = new PrintStream(notAMask) ) {
+            out.println("not a mask");
+        }
+        KnownSitesMask.readMask(notAMask);
+    }
+
+    @Test
+    public void testFromFeatureInputs() {
+        final File vcf = new File(bqsrTestDir + "dbsnp_132.b37.excluding_sites_after_129.chr17_69k_70k.vcf");
+        final KnownSitesMask mask = KnownSitesMask.fromFeatureInputs(Collections.singletonList(new FeatureInput<Feature>(vcf.getPath(), "dbsnp", Collections.emptyMap())));
+        Assert.assertEquals(mask.getSources(), Collections.singletonList(vcf.getAbsolutePath()));
+
+        final List<VariantContext> variants = new ArrayList<>();
+        try ( final FeatureDataSource<VariantContext> source = new FeatureDataSource<>(vcf) ) {
+            source.forEach(variants::add);
+        }
+        Assert.assertFalse(variants.isEmpty());
+        for ( final VariantContext vc : variants ) {
+            for ( int pos = vc.getStart(); pos <= vc.getEnd(); pos++ ) {
+                Assert.assertTrue(mask.isMasked(vc.getContig(), pos));
+            }
+            Assert.assertFalse(mask.getKnownSiteRuns(vc).isEmpty());
+        }
+    }
+}
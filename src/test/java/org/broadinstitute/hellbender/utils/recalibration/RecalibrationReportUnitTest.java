@@ -18,6 +18,7 @@ import org.testng.annotations.Test;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.PrintStream;
 import java.util.*;
 
@@ -54,6 +55,68 @@ public final class RecalibrationReportUnitTest extends BaseTest {
         testGatherReports(inputTables, expectedOutputTable);
     }
 
+    /**
+     * @return binary copies of the given text reports, except for every other one, to gather a mix of both formats
+     */
+    private static List<File> toBinaryReports(final List<File> textReports) {
+        final List<File> reports = new ArrayList<>();
+        for ( int i = 0; i < textReports.size(); i++ ) {
+            if ( i % 2 == 1 ) {
+                reports.add(textReports.get(i));
+            } else {
+                final File binaryReport = BaseTest.createTempFile("binaryReport", ".recal");
+                new RecalibrationReport(textReports.get(i)).writeBinaryReport(binaryReport);
+                reports.add(binaryReport);
+            }
+        }
+        return reports;
+    }
+
+    @Test(dataProvider = "tables")
+    public void testGatherBinaryBQSR(List<File> inputTables, File expectedOutputTable) {
+        final File output = BaseTest.createTempFile("BQSRgathererTest", ".table");
+        RecalibrationReport.gatherReportsIntoOneFile(toBinaryReports(inputTables), output, 3, false);
+        assertReportsAreEquivalent(new GATKReport(expectedOutputTable), new GATKReport(output));
+    }
+
+    @Test(dataProvider = "tables")
+    public void testGatherIntoBinaryReport(List<File> inputTables, File expectedOutputTable) throws FileNotFoundException {
+        final File output = BaseTest.createTempFile("BQSRgathererTest", ".recal");
+        RecalibrationReport.gatherReportsIntoOneFile(inputTables, output, 2, true);
+        Assert.assertTrue(BinaryRecalibrationReport.isBinaryReport(output));
+
+        final File textOutput = BaseTest.createTempFile("BQSRgathererTest", ".table");
+        try ( final PrintStream out = new PrintStream(textOutput) ) {
+            RecalibrationReport.fromFile(output).createGATKReport().print(out);
+        }
+        assertReportsAreEquivalent(new GATKReport(expectedOutputTable), new GATKReport(textOutput));
+    }
+
+    @Test
+    public void testBinaryReportRoundTrip() {
+        final RecalibrationReport report = new RecalibrationReport(recal_original);
+        final File binaryReport = BaseTest.createTempFile("binaryReport", ".recal");
+        report.writeBinaryReport(binaryReport);
+        Assert.assertTrue(BinaryRecalibrationReport.isBinaryReport(binaryReport));
+        Assert.assertFalse(BinaryRecalibrationReport.isBinaryReport(recal_original));
+
+        final RecalibrationReport readReport = RecalibrationReport.fromFile(binaryReport);
+        Assert.assertEquals(readReport.getQuantizationInfo().getQuantizedQuals(), report.getQuantizationInfo().getQuantizedQuals());
+        Assert.assertEquals(readReport.getReadGroups(), report.getReadGroups());
+        for ( int i = 0; i < report.getRecalibrationTables().numTables(); i++ ) {
+            final NestedIntegerArray<RecalDatum> table = report.getRecalibrationTables().getTable(i);
+            final NestedIntegerArray<RecalDatum> readTable = readReport.getRecalibrationTables().getTable(i);
+            Assert.assertEquals(readTable.getAllLeaves().size(), table.getAllLeaves().size());
+            for ( final NestedIntegerArray.Leaf<RecalDatum> leaf : table.getAllLeaves() ) {
+                final RecalDatum readDatum = readTable.get(leaf.keys);
+                Assert.assertEquals(readDatum.getNumObservations(), leaf.value.getNumObservations());
+                Assert.assertEquals(readDatum.getNumMismatches(), leaf.value.getNumMismatches());
+                Assert.assertEquals(readDatum.getEstimatedQReported(), leaf.value.getEstimatedQReported());
+            }
+        }
+        assertReportsAreEquivalent(report.createGATKReport(), readReport.createGATKReport());
+    }
+
     public static void testGatherReports(List<File> inputFiles, File expectedResult) {
         final File output = BaseTest.createTempFile("BQSRgathererTest", ".table");
         RecalibrationReport.gatherReportsIntoOneFile(inputFiles, output);
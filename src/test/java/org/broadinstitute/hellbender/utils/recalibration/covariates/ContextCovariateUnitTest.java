@@ -46,6 +46,45 @@ public final class ContextCovariateUnitTest extends BaseTest {
         }
     }
 
+    @Test
+    public void testContextsWithNsAndLowQualityTails() {
+        final Random rnd = Utils.getRandomGenerator();
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader();
+        final byte[] bases = {'A', 'C', 'G', 'T', 'N'};
+
+        for(int i = 0; i < 100; i++) {
+            final int length = 1 + rnd.nextInt(50);
+            final byte[] readBases = new byte[length];
+            final byte[] readQuals = new byte[length];
+            for (int j = 0; j < length; j++) {
+                readBases[j] = bases[rnd.nextInt(rnd.nextInt(10) == 0 ? bases.length : bases.length - 1)];
+                // low quality bases are frequent enough to create tails of various lengths on both ends
+                readQuals[j] = rnd.nextInt(4) == 0 ? RAC.LOW_QUAL_TAIL : 30;
+            }
+            final GATKRead read = ArtificialReadUtils.createArtificialRead(readBases, readQuals, length + "M");
+            read.setIsReverseStrand(rnd.nextBoolean());
+
+            final GATKRead clippedRead = ReadClipper.clipLowQualEnds(read, RAC.LOW_QUAL_TAIL, ClippingRepresentation.WRITE_NS);
+            final ReadCovariates readCovariates = new ReadCovariates(1);
+            readCovariates.setReadLength(length);
+            covariate.recordValues(read, header, readCovariates, true);
+
+            if (clippedRead.isEmpty()) {
+                // the whole read is in the low quality tail
+                for (int j = 0; j < length; j++) {
+                    Assert.assertEquals(readCovariates.getMismatchesKeySet(j)[0], 0);
+                    Assert.assertEquals(readCovariates.getInsertionsKeySet(j)[0], 0);
+                }
+            } else {
+                for (int j = 0; j < length; j++) {
+                    Assert.assertEquals(covariate.formatKey(readCovariates.getMismatchesKeySet(j)[0]), expectedContext(read, j, RAC.MISMATCHES_CONTEXT_SIZE, RAC.LOW_QUAL_TAIL), "read " + new String(readBases) + " offset " + j);
+                    Assert.assertEquals(covariate.formatKey(readCovariates.getInsertionsKeySet(j)[0]), expectedContext(read, j, RAC.INDELS_CONTEXT_SIZE, RAC.LOW_QUAL_TAIL), "read " + new String(readBases) + " offset " + j);
+                    Assert.assertEquals(covariate.formatKey(readCovariates.getDeletionsKeySet(j)[0]), expectedContext(read, j, RAC.INDELS_CONTEXT_SIZE, RAC.LOW_QUAL_TAIL), "read " + new String(readBases) + " offset " + j);
+                }
+            }
+        }
+    }
+
     public static void verifyCovariateArray(int[][] values, int contextSize, GATKRead read, Covariate contextCovariate, final byte lowQualTail) {
         for (int i = 0; i < values.length; i++) {
             Assert.assertEquals(contextCovariate.formatKey(values[i][0]), expectedContext(read, i, contextSize, lowQualTail), "offset " + i);
@@ -84,4 +84,37 @@ public final class ReadCovariatesUnitTest extends BaseTest {
 
     }
 
+    @Test
+    public void testReusedReadCovariatesMatchFreshOnes() {
+        final RecalibrationArgumentCollection RAC = new RecalibrationArgumentCollection();
+        final String readGroupID = "RG1";
+        final StandardCovariateList covariates = new StandardCovariateList(RAC, Arrays.asList(readGroupID));
+
+        final SAMReadGroupRecord readGroupRecord = new SAMReadGroupRecord(readGroupID);
+        readGroupRecord.setPlatform("illumina");
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeaderWithReadGroup(readGroupRecord);
+
+        final Random rnd = Utils.getRandomGenerator();
+        final ReadCovariates reused = new ReadCovariates(covariates.size());
+        for (int idx = 0; idx < 100; idx++) {
+            final int length = 1 + rnd.nextInt(150); // reads both shorter and longer than the previous ones
+            final GATKRead read = ArtificialReadUtils.createRandomRead(header, length, false);
+            read.setIsReverseStrand(rnd.nextBoolean());
+            read.setReadGroup(readGroupID);
+
+            final boolean recordIndelValues = rnd.nextBoolean();
+            RecalUtils.computeCovariates(read, header, covariates, reused, recordIndelValues);
+            final ReadCovariates fresh = new ReadCovariates(length, covariates.size(), new CovariateKeyCache());
+            RecalUtils.computeCovariates(read, header, covariates, fresh, recordIndelValues);
+
+            Assert.assertEquals(reused.getReadLength(), length);
+            Assert.assertTrue(reused.getMismatchesKeySet().length >= length);
+            for (int i = 0; i < length; i++) {
+                Assert.assertEquals(reused.getMismatchesKeySet(i), fresh.getMismatchesKeySet(i), "read: " + idx + " offset: " + i);
+                Assert.assertEquals(reused.getInsertionsKeySet(i), fresh.getInsertionsKeySet(i), "read: " + idx + " offset: " + i);
+                Assert.assertEquals(reused.getDeletionsKeySet(i), fresh.getDeletionsKeySet(i), "read: " + idx + " offset: " + i);
+            }
+        }
+    }
+
 }
@@ -0,0 +1,33 @@
+package org.broadinstitute.hellbender.utils.runtime;
+
+import org.broadinstitute.hellbender.utils.test.BaseTest;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+public final class AllocationCounterUnitTest extends BaseTest {
+
+    private static volatile byte[] sink;
+
+    @Test
+    public void testCountsAllocations() {
+        if ( ! AllocationCounter.isSupported() ) {
+            throw new SkipException("Allocation counting is not supported by this JVM");
+        }
+        final AllocationCounter counter = new AllocationCounter();
+        sink = new byte[1 << 20];
+        Assert.assertTrue(counter.getAllocatedBytes() >= sink.length, "Allocation of " + sink.length + " bytes not counted");
+    }
+
+    @Test
+    public void testCountsOnlyItsOwnThread() throws InterruptedException {
+        if ( ! AllocationCounter.isSupported() ) {
+            throw new SkipException("Allocation counting is not supported by this JVM");
+        }
+        final AllocationCounter counter = new AllocationCounter();
+        final Thread otherThread = new Thread(() -> sink = new byte[1 << 24]);
+        otherThread.start();
+        otherThread.join();
+        Assert.assertTrue(counter.getAllocatedBytes() < (1 << 24), "Allocations on another thread were counted");
+    }
+}